@@ -0,0 +1,101 @@
+package com.gosport.demo.config;
+
+import com.gosport.demo.security.FiltroLimitePeticiones;
+import com.gosport.demo.security.LimitadorPeticiones;
+import com.gosport.demo.security.TokenApiService;
+import com.gosport.demo.security.UsuarioPrincipal;
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.context.SecurityContextHolderFilter;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * API JSON para la app móvil (/api/**): sin sesión ni CSRF, autenticada
+ * con un token firmado en el header Authorization: Bearer. Va antes de la
+ * cadena de formularios (SecurityConfig), que atiende todo lo demás.
+ */
+@Configuration
+public class ApiSecurityConfig {
+
+    private final SecretKey clave;
+
+    public ApiSecurityConfig(@Value("${gosports.api.jwt.secreto}") String secreto) {
+        byte[] bytes = secreto.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length < 32) {
+            throw new IllegalStateException("gosports.api.jwt.secreto debe tener al menos 32 bytes (HS256)");
+        }
+        this.clave = new SecretKeySpec(bytes, "HmacSHA256");
+    }
+
+    @Bean
+    @Order(2)
+    public SecurityFilterChain apiFilterChain(HttpSecurity http, LimitadorPeticiones limitadorPeticiones) throws Exception {
+        http
+            .securityMatcher("/api/**")
+            .authorizeHttpRequests(auth -> auth
+                .requestMatchers(HttpMethod.POST, "/api/v1/auth/token").permitAll()
+                .requestMatchers(HttpMethod.GET, "/api/v1/canchas/**").permitAll()
+                .anyRequest().authenticated()
+            )
+            .oauth2ResourceServer(oauth2 -> oauth2
+                .jwt(jwt -> jwt.jwtAuthenticationConverter(this::aAutenticacion))
+            )
+            // /api/v1/canchas es público: mismo límite por cliente que /canchas
+            .addFilterBefore(new FiltroLimitePeticiones(limitadorPeticiones), SecurityContextHolderFilter.class)
+            .csrf(csrf -> csrf.disable())
+            .requestCache(cache -> cache.disable())
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+
+        return http.build();
+    }
+
+    // El token ya trae id y rol: el principal se arma sin ir a la base de datos
+    private AbstractAuthenticationToken aAutenticacion(Jwt jwt) {
+        UsuarioPrincipal principal = TokenApiService.aPrincipal(jwt);
+        return UsernamePasswordAuthenticationToken.authenticated(principal, jwt, principal.getAuthorities());
+    }
+
+    @Bean
+    public JwtEncoder jwtEncoder() {
+        return new NimbusJwtEncoder(new ImmutableSecret<>(clave));
+    }
+
+    @Bean
+    public JwtDecoder jwtDecoder() {
+        NimbusJwtDecoder decoder = NimbusJwtDecoder.withSecretKey(clave)
+            .macAlgorithm(MacAlgorithm.HS256)
+            .build();
+        decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(TokenApiService.EMISOR));
+        return decoder;
+    }
+
+    /**
+     * El mismo AuthenticationManager del login web (BCrypt acotado, eventos
+     * para LimitadorLogin), para emitir tokens en /api/v1/auth/token.
+     */
+    @Bean
+    public AuthenticationManager authenticationManager(AuthenticationConfiguration configuration) throws Exception {
+        return configuration.getAuthenticationManager();
+    }
+}
@@ -0,0 +1,53 @@
+package com.gosport.demo.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mail.MailProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import java.util.Properties;
+
+/**
+ * Reemplaza el JavaMailSender de Spring Boot por uno con pool de conexiones.
+ * Usa las mismas propiedades spring.mail.*, así que para pruebas basta con
+ * apuntar spring.mail.host/port a un servidor SMTP local.
+ */
+@Configuration
+@EnableConfigurationProperties(MailProperties.class)
+public class MailConfig {
+
+    @Bean
+    public JavaMailSender javaMailSender(MailProperties mailProperties,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${gosports.mail.pool.max-conexiones:4}") int maxConexiones,
+                                         @Value("${gosports.mail.pool.max-edad-ms:300000}") long maxEdadMs,
+                                         @Value("${gosports.mail.pool.max-mensajes:100}") int maxMensajes,
+                                         @Value("${gosports.mail.pool.espera-ms:5000}") long esperaMs,
+                                         @Value("${gosports.mail.pool.validar-tras-ms:10000}") long validarTrasMs) {
+
+        PoolSmtpMailSender sender = new PoolSmtpMailSender(maxConexiones, maxEdadMs, maxMensajes, esperaMs, validarTrasMs);
+
+        // Mismo mapeo que hace la autoconfiguración de Spring Boot
+        sender.setHost(mailProperties.getHost());
+        if (mailProperties.getPort() != null) {
+            sender.setPort(mailProperties.getPort());
+        }
+        sender.setUsername(mailProperties.getUsername());
+        sender.setPassword(mailProperties.getPassword());
+        sender.setProtocol(mailProperties.getProtocol());
+        if (mailProperties.getDefaultEncoding() != null) {
+            sender.setDefaultEncoding(mailProperties.getDefaultEncoding().name());
+        }
+        if (!mailProperties.getProperties().isEmpty()) {
+            Properties properties = new Properties();
+            properties.putAll(mailProperties.getProperties());
+            sender.setJavaMailProperties(properties);
+        }
+
+        sender.registrarMetricas(meterRegistry);
+        return sender;
+    }
+}
@@ -0,0 +1,215 @@
+package com.gosport.demo.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.AuthenticationFailedException;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JavaMailSender que reutiliza conexiones SMTP ya autenticadas en lugar de
+ * abrir TCP + STARTTLS + AUTH por cada correo. Las conexiones se descartan
+ * si fallan, si superan su edad máxima o después de cierto número de envíos.
+ * Solo las que estuvieron inactivas un rato se validan con NOOP al tomarlas:
+ * validar todas agregaría un ida y vuelta a cada correo.
+ */
+public class PoolSmtpMailSender extends JavaMailSenderImpl implements DisposableBean {
+
+    private static final String HEADER_MESSAGE_ID = "Message-ID";
+
+    private final int maxConexiones;
+    private final long maxEdadMs;
+    private final int maxMensajesPorConexion;
+    private final long esperaMs;
+    private final long validarTrasMs;
+
+    // Conexiones libres; la más reciente al frente (LIFO) para que las viejas expiren
+    private final LinkedBlockingDeque<ConexionSmtp> libres = new LinkedBlockingDeque<>();
+    private final Semaphore permisos;
+
+    private Counter conexionesCreadas;
+    private Counter conexionesRecicladas;
+
+    public PoolSmtpMailSender(int maxConexiones, long maxEdadMs, int maxMensajesPorConexion,
+                              long esperaMs, long validarTrasMs) {
+        this.maxConexiones = maxConexiones;
+        this.maxEdadMs = maxEdadMs;
+        this.maxMensajesPorConexion = maxMensajesPorConexion;
+        this.esperaMs = esperaMs;
+        this.validarTrasMs = validarTrasMs;
+        this.permisos = new Semaphore(maxConexiones, true);
+    }
+
+    private static final class ConexionSmtp {
+        private final Transport transport;
+        private final long creadaEn = System.currentTimeMillis();
+        private long devueltaEn = creadaEn;
+        private int mensajes;
+
+        private ConexionSmtp(Transport transport) {
+            this.transport = transport;
+        }
+    }
+
+    public void registrarMetricas(MeterRegistry registry) {
+        conexionesCreadas = Counter.builder("gosport.smtp.conexiones.creadas").register(registry);
+        conexionesRecicladas = Counter.builder("gosport.smtp.conexiones.recicladas").register(registry);
+        Gauge.builder("gosport.smtp.conexiones.libres", libres, LinkedBlockingDeque::size).register(registry);
+        Gauge.builder("gosport.smtp.conexiones.en_uso", this,
+            s -> s.maxConexiones - s.permisos.availablePermits() - s.libres.size()).register(registry);
+    }
+
+    // ====================================
+    // ENVÍO
+    // ====================================
+
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) throws MailException {
+        Map<Object, Exception> fallidos = new LinkedHashMap<>();
+        ConexionSmtp conexion;
+        try {
+            conexion = obtener();
+        } catch (AuthenticationFailedException e) {
+            throw new MailAuthenticationException(e);
+        } catch (MessagingException e) {
+            throw new MailSendException("No se pudo obtener una conexión SMTP", e);
+        }
+
+        try {
+            for (int i = 0; i < mimeMessages.length; i++) {
+                MimeMessage mimeMessage = mimeMessages[i];
+                Object original = originalMessages != null ? originalMessages[i] : mimeMessage;
+                try {
+                    if (mimeMessage.getSentDate() == null) {
+                        mimeMessage.setSentDate(new Date());
+                    }
+                    String messageId = mimeMessage.getMessageID();
+                    mimeMessage.saveChanges();
+                    if (messageId != null) {
+                        // saveChanges() genera un Message-ID nuevo; se conserva el original
+                        mimeMessage.setHeader(HEADER_MESSAGE_ID, messageId);
+                    }
+                    conexion.transport.sendMessage(mimeMessage, mimeMessage.getAllRecipients());
+                    conexion.mensajes++;
+                } catch (Exception e) {
+                    fallidos.put(original, e);
+                }
+            }
+        } finally {
+            // Ante cualquier fallo la conexión puede quedar en un estado dudoso: no se reutiliza
+            devolver(conexion, fallidos.isEmpty());
+        }
+
+        if (!fallidos.isEmpty()) {
+            throw new MailSendException(fallidos);
+        }
+    }
+
+    // ====================================
+    // POOL
+    // ====================================
+
+    private ConexionSmtp obtener() throws MessagingException {
+        ConexionSmtp conexion = tomarLibre();
+        if (conexion != null) {
+            return conexion;
+        }
+
+        // No hay libres: abrir una nueva si el límite lo permite
+        try {
+            if (!permisos.tryAcquire(esperaMs, TimeUnit.MILLISECONDS)) {
+                // Pudo liberarse una mientras esperábamos; se valida igual que arriba
+                conexion = tomarLibre();
+                if (conexion != null) {
+                    return conexion;
+                }
+                // Cerrar libres inservibles devuelve permisos
+                if (!permisos.tryAcquire()) {
+                    throw new MessagingException("No hay conexiones SMTP disponibles");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrumpido esperando una conexión SMTP", e);
+        }
+
+        try {
+            ConexionSmtp nueva = new ConexionSmtp(connectTransport());
+            if (conexionesCreadas != null) {
+                conexionesCreadas.increment();
+            }
+            return nueva;
+        } catch (MessagingException | RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+    }
+
+    /**
+     * La libre más reciente que todavía sirve; las demás se cierran.
+     */
+    private ConexionSmtp tomarLibre() {
+        ConexionSmtp conexion;
+        while ((conexion = libres.pollFirst()) != null) {
+            if (vigente(conexion) && (!inactiva(conexion) || conexion.transport.isConnected())) {
+                return conexion;
+            }
+            cerrar(conexion);
+        }
+        return null;
+    }
+
+    private void devolver(ConexionSmtp conexion, boolean sana) {
+        if (sana && vigente(conexion)) {
+            conexion.devueltaEn = System.currentTimeMillis();
+            libres.offerFirst(conexion);
+        } else {
+            cerrar(conexion);
+        }
+    }
+
+    private boolean vigente(ConexionSmtp conexion) {
+        return conexion.mensajes < maxMensajesPorConexion
+            && System.currentTimeMillis() - conexion.creadaEn < maxEdadMs;
+    }
+
+    // El servidor pudo cerrarla por inactividad: vale la pena el NOOP
+    private boolean inactiva(ConexionSmtp conexion) {
+        return System.currentTimeMillis() - conexion.devueltaEn >= validarTrasMs;
+    }
+
+    private void cerrar(ConexionSmtp conexion) {
+        try {
+            conexion.transport.close();
+        } catch (MessagingException e) {
+            // Ya estaba cerrada del lado del servidor
+        } finally {
+            permisos.release();
+            if (conexionesRecicladas != null) {
+                conexionesRecicladas.increment();
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        ConexionSmtp conexion;
+        while ((conexion = libres.pollFirst()) != null) {
+            cerrar(conexion);
+        }
+    }
+}
@@ -1,13 +1,32 @@
 package com.gosport.demo.config;
 
+import com.gosport.demo.security.FiltroLimiteLogin;
+import com.gosport.demo.security.FiltroLimitePeticiones;
+import com.gosport.demo.security.LimitadorLogin;
+import com.gosport.demo.security.LimitadorPeticiones;
+import com.gosport.demo.security.PasswordEncoderAcotado;
+import com.gosport.demo.security.RegistroSesionesConCache;
+import com.gosport.demo.security.VerificacionSaturadaException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.AuthenticationEventPublisher;
+import org.springframework.security.authentication.DefaultAuthenticationEventPublisher;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.core.session.SessionRegistry;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.context.SecurityContextHolderFilter;
+import org.springframework.session.FindByIndexNameSessionRepository;
+import org.springframework.session.Session;
+import org.springframework.session.security.SpringSessionBackedSessionRegistry;
+
+import java.time.Duration;
 
 @Configuration
 @EnableWebSecurity
@@ -15,7 +34,9 @@ import org.springframework.security.web.SecurityFilterChain;
 public class SecurityConfig {
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, SessionRegistry sessionRegistry,
+                                           LimitadorLogin limitadorLogin,
+                                           LimitadorPeticiones limitadorPeticiones) throws Exception {
 
         http
             .authorizeHttpRequests(auth -> auth
@@ -45,6 +66,10 @@ public class SecurityConfig {
                 .requestMatchers("/admin/**")
                 .hasAuthority("ROLE_ADMIN")
 
+                // Monitoreo
+                .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers("/actuator/**").hasAuthority("ROLE_ADMIN")
+
                 .anyRequest().authenticated()
             )
 
@@ -60,10 +85,20 @@ public class SecurityConfig {
                         response.sendRedirect("/home");
                     }
                 })
-                .failureUrl("/login?error=true")
+                // Saturación de BCrypt: mensaje distinto al de credenciales incorrectas
+                .failureHandler((request, response, exception) ->
+                    response.sendRedirect(exception instanceof VerificacionSaturadaException
+                        ? "/login?ocupado=true"
+                        : "/login?error=true"))
                 .permitAll()
             )
 
+            // Rutas públicas: ritmo por cliente, antes de leer la sesión
+            .addFilterBefore(new FiltroLimitePeticiones(limitadorPeticiones), SecurityContextHolderFilter.class)
+
+            // IPs/cuentas con demasiados fallos se rechazan antes de BCrypt
+            .addFilterBefore(new FiltroLimiteLogin(limitadorLogin), UsernamePasswordAuthenticationFilter.class)
+
             .logout(logout -> logout
                 .logoutUrl("/logout")
                 .logoutSuccessUrl("/?logout=true")
@@ -72,6 +107,11 @@ public class SecurityConfig {
                 .permitAll()
             )
 
+            // Wompi no envía token CSRF; el webhook se autentica con el checksum del evento
+            .csrf(csrf -> csrf
+                .ignoringRequestMatchers("/pagos/webhook")
+            )
+
             .exceptionHandling(exception -> exception
                 .accessDeniedPage("/login?denied=true")
             )
@@ -79,14 +119,46 @@ public class SecurityConfig {
             .sessionManagement(session -> session
                 .invalidSessionUrl("/login?expired=true")
                 .maximumSessions(1)
+                .sessionRegistry(sessionRegistry)
                 .expiredUrl("/login?expired=true")
             );
 
         return http.build();
     }
 
+    /**
+     * Registro de sesiones sobre Spring Session (tabla spring_session): el
+     * límite de una sesión por usuario y la revocación valen en todos los
+     * nodos. Una caché local corta evita leer la sesión dos veces por petición.
+     */
+    @Bean
+    public <S extends Session> SessionRegistry sessionRegistry(
+            FindByIndexNameSessionRepository<S> sessionRepository,
+            @Value("${gosports.sesiones.cache.ttl-segundos:5}") long ttlSegundos,
+            @Value("${gosports.sesiones.cache.max-entradas:10000}") int maxEntradas) {
+        return new RegistroSesionesConCache(new SpringSessionBackedSessionRegistry<>(sessionRepository),
+            Duration.ofSeconds(ttlSegundos), maxEntradas);
+    }
+
+    /**
+     * SecurityAutoConfiguration está excluida: sin este bean los logins no
+     * publican eventos y LimitadorLogin no vería los fallos.
+     */
+    @Bean
+    public AuthenticationEventPublisher authenticationEventPublisher(ApplicationEventPublisher publisher) {
+        return new DefaultAuthenticationEventPublisher(publisher);
+    }
+
+    /**
+     * BCrypt en un pool acotado (ver PasswordEncoderAcotado). La fuerza
+     * puede subirse: los hashes viejos se recalculan al iniciar sesión.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${gosports.seguridad.bcrypt.fuerza:10}") int fuerza,
+                                           @Value("${gosports.seguridad.bcrypt.hilos:2}") int hilos,
+                                           @Value("${gosports.seguridad.bcrypt.cola:32}") int cola,
+                                           @Value("${gosports.seguridad.bcrypt.espera-maxima-ms:3000}") long esperaMaximaMs,
+                                           MeterRegistry meterRegistry) {
+        return new PasswordEncoderAcotado(fuerza, hilos, cola, esperaMaximaMs, meterRegistry);
     }
 }
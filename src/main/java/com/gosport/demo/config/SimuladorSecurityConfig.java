@@ -0,0 +1,31 @@
+package com.gosport.demo.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.web.SecurityFilterChain;
+
+/**
+ * El simulador de Wompi lo llama WompiService (sin sesión ni token CSRF),
+ * así que va en una cadena propia, solo con el perfil "simulador".
+ */
+@Configuration
+@Profile("simulador")
+public class SimuladorSecurityConfig {
+
+    @Bean
+    @Order(1)
+    public SecurityFilterChain simuladorFilterChain(HttpSecurity http) throws Exception {
+        http
+            .securityMatcher("/simulador/**")
+            .authorizeHttpRequests(auth -> auth.anyRequest().permitAll())
+            .csrf(csrf -> csrf.disable())
+            .requestCache(cache -> cache.disable())
+            .securityContext(context -> context.disable())
+            .sessionManagement(session -> session.disable());
+
+        return http.build();
+    }
+}
@@ -0,0 +1,91 @@
+package com.gosport.demo.controller.Admin;
+
+import com.gosport.demo.model.Anuncio;
+import com.gosport.demo.service.AnuncioService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Controller
+@RequestMapping("/admin/anuncios")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminAnuncioController {
+
+    @Autowired
+    private AnuncioService anuncioService;
+
+    // ====================================
+    // CREAR ANUNCIO
+    // ====================================
+    @PostMapping
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> crear(@RequestParam String asunto,
+                                                     @RequestParam String mensaje,
+                                                     @RequestParam Anuncio.Audiencia audiencia,
+                                                     @RequestParam(required = false) Long canchaId,
+                                                     Authentication authentication) {
+        try {
+            Anuncio anuncio = anuncioService.crear(asunto, mensaje, audiencia, canchaId, authentication.getName());
+            return ResponseEntity.status(HttpStatus.CREATED).body(aMapa(anuncio));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // ====================================
+    // PROGRESO
+    // ====================================
+    @GetMapping("/{id}")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> estado(@PathVariable Long id) {
+        return anuncioService.obtener(id)
+            .map(anuncio -> ResponseEntity.ok(aMapa(anuncio)))
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // ====================================
+    // PAUSAR / REANUDAR
+    // ====================================
+    @PostMapping("/{id}/pausar")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> pausar(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(aMapa(anuncioService.pausar(id)));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/{id}/reanudar")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> reanudar(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(aMapa(anuncioService.reanudar(id)));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // ===============================
+    // MÉTODOS AUXILIARES
+    // ===============================
+    private Map<String, Object> aMapa(Anuncio anuncio) {
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("id", anuncio.getId());
+        resultado.put("asunto", anuncio.getAsunto());
+        resultado.put("audiencia", anuncio.getAudiencia());
+        resultado.put("canchaId", anuncio.getCanchaId());
+        resultado.put("estado", anuncio.getEstado());
+        resultado.put("encolados", anuncio.getEncolados());
+        resultado.put("creado", anuncio.getCreatedAt());
+        resultado.put("finalizado", anuncio.getFinalizadoAt());
+        return resultado;
+    }
+}
@@ -0,0 +1,59 @@
+package com.gosport.demo.controller.Admin;
+
+import com.gosport.demo.service.ExportacionBiService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Descarga masiva para BI: una tabla por petición en formato Arrow IPC.
+ * Con ?desde=... solo salen las filas modificadas después de esa fecha.
+ */
+@Controller
+@RequestMapping("/admin/bi")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminBiController {
+
+    // Margen para transacciones que confirmaron después de empezar la lectura;
+    // las filas repetidas en la siguiente carga se deduplican por id
+    private static final long MARGEN_MINUTOS = 5;
+
+    @Autowired
+    private ExportacionBiService exportacionBiService;
+
+    @GetMapping("/{tabla}")
+    public void exportar(@PathVariable String tabla,
+                         @RequestParam(required = false)
+                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+                         HttpServletResponse response) throws IOException {
+
+        ExportacionBiService.Tabla destino;
+        try {
+            destino = ExportacionBiService.Tabla.valueOf(tabla.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Tabla no disponible: " + tabla);
+        }
+
+        // Marca para la próxima carga incremental (se envía antes del cuerpo)
+        LocalDateTime siguienteDesde = LocalDateTime.now().minusMinutes(MARGEN_MINUTOS);
+
+        response.setContentType("application/vnd.apache.arrow.stream");
+        response.setHeader("Content-Disposition", "attachment; filename="
+            + tabla.toLowerCase() + (desde != null ? "_incremental" : "") + "_" + LocalDate.now() + ".arrows");
+        response.setHeader("X-Siguiente-Desde", siguienteDesde.toString());
+
+        exportacionBiService.exportar(destino, desde, response.getOutputStream());
+    }
+}
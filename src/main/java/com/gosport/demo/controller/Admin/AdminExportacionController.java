@@ -0,0 +1,88 @@
+package com.gosport.demo.controller.Admin;
+
+import com.gosport.demo.model.ExportJob;
+import com.gosport.demo.service.ExportJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Controller
+@RequestMapping("/admin/exportaciones")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminExportacionController {
+
+    @Autowired
+    private ExportJobService exportJobService;
+
+    // ====================================
+    // ESTADO DEL TRABAJO (JSON, para consultar el avance)
+    // ====================================
+    @GetMapping("/{id}")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> estadoTrabajo(@PathVariable String id) {
+        return exportJobService.obtener(id)
+            .map(job -> {
+                Map<String, Object> resultado = new LinkedHashMap<>();
+                resultado.put("id", job.getId());
+                resultado.put("tipo", job.getTipo());
+                resultado.put("estado", job.getEstado());
+                resultado.put("filasProcesadas", job.getFilasProcesadas());
+                resultado.put("tamanoBytes", job.getTamanoBytes());
+                resultado.put("error", job.getError());
+                resultado.put("creado", job.getCreatedAt());
+                resultado.put("finalizado", job.getFinalizadoAt());
+                if (job.getEstado() == ExportJob.EstadoJob.COMPLETADO) {
+                    resultado.put("descarga", "/admin/exportaciones/" + job.getId() + "/descargar");
+                }
+                return ResponseEntity.ok(resultado);
+            })
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // ====================================
+    // DESCARGAR RESULTADO (soporta Range para reanudar descargas)
+    // ====================================
+    @GetMapping("/{id}/descargar")
+    public ResponseEntity<Resource> descargar(@PathVariable String id) {
+        ExportJob job = exportJobService.obtener(id).orElse(null);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (job.getEstado() != ExportJob.EstadoJob.COMPLETADO) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+
+        Path archivo = exportJobService.archivo(job);
+        if (!Files.exists(archivo)) {
+            if (!exportJobService.esDeEsteNodo(job)) {
+                // Está en el spool local de otro nodo: 421 Misdirected Request, no "ya no existe"
+                System.err.println("⚠️ Exportación " + id + " pedida en " + exportJobService.getNodo()
+                    + " pero se generó en " + job.getNodo() + ": configura gosports.export.spool-dir compartido");
+                return ResponseEntity.status(421).build();
+            }
+            // Ya fue eliminado por la limpieza periódica
+            return ResponseEntity.status(HttpStatus.GONE).build();
+        }
+
+        // Spring atiende el encabezado Range y responde 206 con la porción pedida
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(job.getTipo().getContentType()))
+            .header(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(job.getNombreDescarga()).build().toString())
+            .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+            .body(new FileSystemResource(archivo));
+    }
+}
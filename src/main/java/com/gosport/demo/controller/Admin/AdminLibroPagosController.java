@@ -0,0 +1,89 @@
+package com.gosport.demo.controller.Admin;
+
+import com.gosport.demo.model.MovimientoPago;
+import com.gosport.demo.service.LibroPagosService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consultas sobre el libro de pagos (auditoría e ingresos a una fecha).
+ */
+@Controller
+@RequestMapping("/admin/pagos/libro")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminLibroPagosController {
+
+    @Autowired
+    private LibroPagosService libroPagosService;
+
+    // ====================================
+    // SALDO A UNA FECHA
+    // ====================================
+    @GetMapping("/saldo")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> saldo(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha,
+            @RequestParam(required = false) Long canchaId) {
+
+        LocalDate hasta = fecha != null ? fecha : LocalDate.now();
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("fecha", hasta);
+        resultado.put("canchaId", canchaId);
+        resultado.put("saldo", libroPagosService.saldoAl(hasta, canchaId));
+        return ResponseEntity.ok(resultado);
+    }
+
+    // ====================================
+    // INGRESOS EN UN RANGO
+    // ====================================
+    @GetMapping("/ingresos")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> ingresos(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(required = false) Long canchaId) {
+
+        if (hasta.isBefore(desde)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "'hasta' debe ser posterior a 'desde'"));
+        }
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("desde", desde);
+        resultado.put("hasta", hasta);
+        resultado.put("canchaId", canchaId);
+        resultado.put("ingresos", libroPagosService.ingresosEntre(desde, hasta, canchaId));
+        return ResponseEntity.ok(resultado);
+    }
+
+    // ====================================
+    // HISTORIAL DE UN PAGO
+    // ====================================
+    @GetMapping("/pago/{pagoId}")
+    @ResponseBody
+    public ResponseEntity<List<Map<String, Object>>> historial(@PathVariable Long pagoId) {
+        List<Map<String, Object>> movimientos = libroPagosService.obtenerHistorial(pagoId).stream()
+            .map(this::aMapa)
+            .toList();
+        return ResponseEntity.ok(movimientos);
+    }
+
+    private Map<String, Object> aMapa(MovimientoPago movimiento) {
+        Map<String, Object> mapa = new LinkedHashMap<>();
+        mapa.put("id", movimiento.getId());
+        mapa.put("tipo", movimiento.getTipo());
+        mapa.put("monto", movimiento.getMonto());
+        mapa.put("importe", movimiento.getImporte());
+        mapa.put("canchaId", movimiento.getCanchaId());
+        mapa.put("fecha", movimiento.getFecha());
+        mapa.put("registrado", movimiento.getCreatedAt());
+        return mapa;
+    }
+}
@@ -1,6 +1,10 @@
 package com.gosport.demo.controller.Admin;
 
+import com.gosport.demo.model.ExportJob;
 import com.gosport.demo.model.Reserva;
+import com.gosport.demo.service.ExcelExportService;
+import com.gosport.demo.service.ExportJobService;
+import com.gosport.demo.service.PdfExportService;
 import com.gosport.demo.service.ReservaService;
 import com.gosport.demo.repository.CanchaRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,6 +34,15 @@ public class AdminReservaController {
     @Autowired
     private CanchaRepository canchaRepository;
 
+    @Autowired
+    private ExcelExportService excelExportService;
+
+    @Autowired
+    private PdfExportService pdfExportService;
+
+    @Autowired
+    private ExportJobService exportJobService;
+
     // ====================================
     // LISTAR TODAS LAS RESERVAS
     // ====================================
@@ -165,19 +178,36 @@ public class AdminReservaController {
             @RequestParam(required = false) Long canchaId,
             @RequestParam(required = false) String desde,
             @RequestParam(required = false) String hasta,
+            @RequestParam(defaultValue = "false") boolean async,
+            Authentication authentication,
             jakarta.servlet.http.HttpServletResponse response) {
         
         try {
-            response.setContentType("application/vnd.ms-excel");
+            Reserva.EstadoReserva estadoFiltro = parsearEstado(estado);
+            LocalDate fechaDesde = parsearFecha(desde);
+            LocalDate fechaHasta = parsearFecha(hasta);
+            
+            if (async) {
+                // Reportes largos: se generan en segundo plano y se descargan después
+                ExportJob job = exportJobService.solicitar(ExportJob.TipoExportacion.RESERVAS_EXCEL,
+                    estadoFiltro, canchaId, fechaDesde, fechaHasta, authentication.getName());
+                response.sendRedirect("/admin/exportaciones/" + job.getId());
+                return;
+            }
+            
+            response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
             response.setHeader("Content-Disposition", 
                 "attachment; filename=reservas_" + LocalDate.now() + ".xlsx");
             
-            // Aquí implementarías la lógica de exportación con Apache POI
-            // Por ahora, solo un placeholder
-            
-            // List<Reserva> reservas = obtener reservas con filtros...
-            // ExcelExporter.exportar(reservas, response.getOutputStream());
+            // Mismos filtros que el listado; las filas se escriben en streaming
+            excelExportService.exportarReservasExcel(
+                estadoFiltro, canchaId, fechaDesde, fechaHasta, response.getOutputStream());
             
+        } catch (IllegalStateException e) {
+            // Cola de exportaciones llena
+            enviarError(response, 503, e.getMessage());
+        } catch (IllegalArgumentException | java.time.format.DateTimeParseException e) {
+            enviarError(response, 400, "Filtros inválidos: " + e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -192,19 +222,35 @@ public class AdminReservaController {
             @RequestParam(required = false) Long canchaId,
             @RequestParam(required = false) String desde,
             @RequestParam(required = false) String hasta,
+            @RequestParam(defaultValue = "false") boolean async,
+            Authentication authentication,
             jakarta.servlet.http.HttpServletResponse response) {
         
         try {
+            Reserva.EstadoReserva estadoFiltro = parsearEstado(estado);
+            LocalDate fechaDesde = parsearFecha(desde);
+            LocalDate fechaHasta = parsearFecha(hasta);
+            
+            if (async) {
+                // Reportes largos: se generan en segundo plano y se descargan después
+                ExportJob job = exportJobService.solicitar(ExportJob.TipoExportacion.RESERVAS_PDF,
+                    estadoFiltro, canchaId, fechaDesde, fechaHasta, authentication.getName());
+                response.sendRedirect("/admin/exportaciones/" + job.getId());
+                return;
+            }
+            
             response.setContentType("application/pdf");
             response.setHeader("Content-Disposition", 
                 "attachment; filename=reservas_" + LocalDate.now() + ".pdf");
             
-            // Aquí implementarías la lógica de exportación con iText o similar
-            // Por ahora, solo un placeholder
-            
-            // List<Reserva> reservas = obtener reservas con filtros...
-            // PDFExporter.exportar(reservas, response.getOutputStream());
+            pdfExportService.exportarReservasPdf(
+                estadoFiltro, canchaId, fechaDesde, fechaHasta, response.getOutputStream());
             
+        } catch (IllegalStateException e) {
+            // Cola de exportaciones llena
+            enviarError(response, 503, e.getMessage());
+        } catch (IllegalArgumentException | java.time.format.DateTimeParseException e) {
+            enviarError(response, 400, "Filtros inválidos: " + e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -256,4 +302,24 @@ public class AdminReservaController {
             return "admin/reservas/dashboard-reservas";
         }
     }
-}
\ No newline at end of file
+
+    // ====================================
+    // MÉTODOS AUXILIARES (filtros de exportación)
+    // ====================================
+    private Reserva.EstadoReserva parsearEstado(String estado) {
+        return estado != null && !estado.isEmpty() ? Reserva.EstadoReserva.valueOf(estado) : null;
+    }
+
+    private LocalDate parsearFecha(String fecha) {
+        return fecha != null && !fecha.isEmpty() ? LocalDate.parse(fecha) : null;
+    }
+
+    private void enviarError(jakarta.servlet.http.HttpServletResponse response, int status, String mensaje) {
+        try {
+            response.reset();
+            response.sendError(status, mensaje);
+        } catch (java.io.IOException | IllegalStateException ignored) {
+            // La respuesta ya fue enviada (parcialmente)
+        }
+    }
+}
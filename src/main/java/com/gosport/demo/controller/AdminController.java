@@ -1,11 +1,11 @@
 package com.gosport.demo.controller;
 
+import com.gosport.demo.model.ExportJob;
 import com.gosport.demo.model.User;
 import com.gosport.demo.model.UserHistorial;
 import com.gosport.demo.repository.UserRepository;
 import com.gosport.demo.repository.UserHistorialRepository;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import com.gosport.demo.security.SesionesUsuarioService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -20,7 +20,6 @@ import org.springframework.ui.Model;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
 // Importación adicional necesaria para el manejo de excepciones de integridad de datos
 import org.springframework.dao.DataIntegrityViolationException;
@@ -34,15 +33,24 @@ public class AdminController {
     private final UserHistorialRepository historialRepository;
     private final PasswordEncoder passwordEncoder;
     private final com.gosport.demo.service.PdfExportService pdfExportService;
+    private final com.gosport.demo.service.ExcelExportService excelExportService;
+    private final com.gosport.demo.service.ExportJobService exportJobService;
+    private final SesionesUsuarioService sesionesUsuarioService;
 
     public AdminController(UserRepository userRepository, 
                             UserHistorialRepository historialRepository,
                             PasswordEncoder passwordEncoder,
-                            com.gosport.demo.service.PdfExportService pdfExportService) {
+                            com.gosport.demo.service.PdfExportService pdfExportService,
+                            com.gosport.demo.service.ExcelExportService excelExportService,
+                            com.gosport.demo.service.ExportJobService exportJobService,
+                            SesionesUsuarioService sesionesUsuarioService) {
         this.userRepository = userRepository;
         this.historialRepository = historialRepository;
         this.passwordEncoder = passwordEncoder;
         this.pdfExportService = pdfExportService;
+        this.excelExportService = excelExportService;
+        this.exportJobService = exportJobService;
+        this.sesionesUsuarioService = sesionesUsuarioService;
     }
 
     // ===============================
@@ -139,6 +147,9 @@ public class AdminController {
                 usuario.setUpdatedAt(LocalDateTime.now());
                 usuario.setUpdatedBy(adminEmail);
                 userRepository.save(usuario);
+
+                // El principal de sus sesiones tiene los datos viejos
+                sesionesUsuarioService.revocar(usuarioAnterior.getEmail());
             }
             
             redirectAttributes.addFlashAttribute("successMessage", "Usuario guardado correctamente.");
@@ -183,6 +194,7 @@ public class AdminController {
                 
                 // Intenta eliminar el usuario
                 userRepository.deleteById(id);
+                sesionesUsuarioService.revocar(usuario.getEmail());
                 
                 // Registrar eliminación en historial (aunque ya no se guarda, sirve como log del evento)
                 registrarHistorial(usuario, null, "ELIMINADO", null, null, null, adminEmail);
@@ -196,6 +208,7 @@ public class AdminController {
                 usuario.setUpdatedAt(LocalDateTime.now());
                 usuario.setUpdatedBy(adminEmail);
                 userRepository.save(usuario);
+                sesionesUsuarioService.revocar(usuario.getEmail());
                 
                 // Registrar el cambio de estado en historial
                 registrarHistorial(usuario, usuario, "DESACTIVADO", "activo", "true", "false", adminEmail);
@@ -233,6 +246,9 @@ public class AdminController {
             usuario.setUpdatedAt(LocalDateTime.now());
             usuario.setUpdatedBy(adminEmail);
             userRepository.save(usuario);
+            if (!nuevoEstado) {
+                sesionesUsuarioService.revocar(usuario.getEmail());
+            }
             
             String mensaje = nuevoEstado ? "Usuario activado correctamente." : "Usuario desactivado correctamente.";
             redirectAttributes.addFlashAttribute("successMessage", mensaje);
@@ -261,62 +277,56 @@ public class AdminController {
     // 8. EXPORTAR A EXCEL
     // ===============================
     @GetMapping("/usuarios/exportar/excel")
-    public void exportarExcel(HttpServletResponse response) throws IOException {
-        List<User> usuarios = userRepository.findAll();
-        
-        Workbook workbook = new XSSFWorkbook();
-        Sheet sheet = workbook.createSheet("Usuarios");
-        
-        // Encabezados
-        Row headerRow = sheet.createRow(0);
-        String[] headers = {"ID", "Nombre", "Email", "Teléfono", "Documento", "Rol", "Estado", "Fecha Registro"};
-        for (int i = 0; i < headers.length; i++) {
-            Cell cell = headerRow.createCell(i);
-            cell.setCellValue(headers[i]);
-        }
-        
-        // Datos
-        int rowNum = 1;
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
-        for (User u : usuarios) {
-            Row row = sheet.createRow(rowNum++);
-            row.createCell(0).setCellValue(u.getId());
-            row.createCell(1).setCellValue(u.getName());
-            row.createCell(2).setCellValue(u.getEmail());
-            row.createCell(3).setCellValue(u.getTelefono() != null ? u.getTelefono() : "");
-            row.createCell(4).setCellValue(u.getTipoDocumento() + " " + u.getNumeroIdentificacion());
-            row.createCell(5).setCellValue(u.getRol());
-            row.createCell(6).setCellValue(u.getActivo() ? "Activo" : "Inactivo");
-            row.createCell(7).setCellValue(u.getCreatedAt().format(formatter));
+    public void exportarExcel(@RequestParam(value = "async", defaultValue = "false") boolean async,
+                              Authentication auth,
+                              HttpServletResponse response) throws IOException {
+        if (async) {
+            encolarExportacion(ExportJob.TipoExportacion.USUARIOS_EXCEL, auth, response);
+            return;
         }
         
         // Configurar respuesta
         response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
         response.setHeader("Content-Disposition", "attachment; filename=usuarios.xlsx");
-        workbook.write(response.getOutputStream());
-        workbook.close();
+        
+        // Las filas se leen con un cursor y se escriben en streaming (memoria constante)
+        excelExportService.exportarUsuariosExcel(response.getOutputStream());
     }
 
     // ===============================
     // 9. EXPORTAR A PDF
     // ===============================
     @GetMapping("/usuarios/exportar/pdf")
-    public void exportarPdf(HttpServletResponse response) throws Exception {
-        List<User> usuarios = userRepository.findAll();
-        
-        // Generar PDF usando el servicio
-        java.io.ByteArrayOutputStream baos = pdfExportService.exportarUsuariosPdf(usuarios);
+    public void exportarPdf(@RequestParam(value = "async", defaultValue = "false") boolean async,
+                            Authentication auth,
+                            HttpServletResponse response) throws Exception {
+        if (async) {
+            encolarExportacion(ExportJob.TipoExportacion.USUARIOS_PDF, auth, response);
+            return;
+        }
         
         // Configurar respuesta
         response.setContentType("application/pdf");
         response.setHeader("Content-Disposition", "attachment; filename=usuarios-gosports.pdf");
-        response.getOutputStream().write(baos.toByteArray());
+        
+        // El servicio escribe el PDF directamente en la respuesta
+        pdfExportService.exportarUsuariosPdf(response.getOutputStream());
         response.getOutputStream().flush();
     }
 
     // ===============================
     // MÉTODOS AUXILIARES ⭐ CORREGIDO
     // ===============================
+    private void encolarExportacion(ExportJob.TipoExportacion tipo, Authentication auth,
+                                    HttpServletResponse response) throws IOException {
+        try {
+            ExportJob job = exportJobService.solicitar(tipo, null, null, null, null, auth.getName());
+            response.sendRedirect("/admin/exportaciones/" + job.getId());
+        } catch (IllegalStateException e) {
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, e.getMessage());
+        }
+    }
+
     private void registrarHistorial(User anterior, User nuevo, String accion, 
                                      String campo, String valorAnterior, String valorNuevo, 
                                      String modificadoPor) {
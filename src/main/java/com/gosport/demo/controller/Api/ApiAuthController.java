@@ -0,0 +1,67 @@
+package com.gosport.demo.controller.Api;
+
+import com.gosport.demo.security.LimitadorLogin;
+import com.gosport.demo.security.TokenApiService;
+import com.gosport.demo.security.UsuarioPrincipal;
+import com.gosport.demo.security.VerificacionSaturadaException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Emisión de tokens de la API. Usa el mismo AuthenticationManager y los
+ * mismos límites de intentos que el login web.
+ */
+@RestController
+@RequestMapping("/api/v1/auth")
+public class ApiAuthController {
+
+    public record Credenciales(String email, String password) {}
+
+    @Autowired
+    private AuthenticationManager authenticationManager;
+
+    @Autowired
+    private TokenApiService tokenApiService;
+
+    @Autowired
+    private LimitadorLogin limitadorLogin;
+
+    @PostMapping("/token")
+    public ResponseEntity<?> token(@RequestBody Credenciales credenciales, HttpServletRequest request) {
+        if (credenciales.email() == null || credenciales.password() == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "email y password son obligatorios"));
+        }
+        if (limitadorLogin.bloqueado(request.getRemoteAddr(), credenciales.email())) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header("Retry-After", "60")
+                .body(Map.of("error", "Demasiados intentos fallidos"));
+        }
+
+        UsernamePasswordAuthenticationToken solicitud =
+            UsernamePasswordAuthenticationToken.unauthenticated(credenciales.email(), credenciales.password());
+        // Con la IP en los detalles, LimitadorLogin cuenta el fallo por origen
+        solicitud.setDetails(new WebAuthenticationDetails(request));
+
+        try {
+            Authentication autenticacion = authenticationManager.authenticate(solicitud);
+            return ResponseEntity.ok(tokenApiService.emitir((UsuarioPrincipal) autenticacion.getPrincipal()));
+        } catch (VerificacionSaturadaException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "5")
+                .body(Map.of("error", e.getMessage()));
+        } catch (AuthenticationException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body(Map.of("error", "Credenciales incorrectas"));
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.gosport.demo.controller.Api;
+
+import com.gosport.demo.dto.CanchaDto;
+import com.gosport.demo.dto.HorarioDto;
+import com.gosport.demo.repository.CanchaRepository;
+import com.gosport.demo.service.ReservaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Canchas y disponibilidad (públicos, igual que en la web).
+ */
+@RestController
+@RequestMapping("/api/v1/canchas")
+public class ApiCanchaController {
+
+    @Autowired
+    private CanchaRepository canchaRepository;
+
+    @Autowired
+    private ReservaService reservaService;
+
+    @GetMapping
+    public List<CanchaDto> listar(@RequestParam(required = false) Long deporteId) {
+        return canchaRepository.listarResumen(deporteId);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<CanchaDto> detalle(@PathVariable Long id) {
+        return ResponseEntity.of(canchaRepository.buscarResumen(id));
+    }
+
+    @GetMapping("/{id}/horarios-ocupados")
+    public List<HorarioDto> horariosOcupados(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha) {
+        return reservaService.obtenerFranjasOcupadas(id, fecha);
+    }
+}
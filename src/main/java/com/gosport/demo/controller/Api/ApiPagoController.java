@@ -0,0 +1,28 @@
+package com.gosport.demo.controller.Api;
+
+import com.gosport.demo.dto.PagoDto;
+import com.gosport.demo.security.UsuarioPrincipal;
+import com.gosport.demo.service.PagoService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Estado de un pago del usuario del token. Es estado local (lo actualizan
+ * el webhook y la conciliación); la app puede consultarlo periódicamente
+ * sin generar llamadas a Wompi.
+ */
+@RestController
+@RequestMapping("/api/v1/pagos")
+public class ApiPagoController {
+
+    @Autowired
+    private PagoService pagoService;
+
+    @GetMapping("/{referencia}")
+    public ResponseEntity<PagoDto> estado(@PathVariable String referencia,
+                                          @AuthenticationPrincipal UsuarioPrincipal usuario) {
+        return ResponseEntity.of(pagoService.obtenerResumenDeUsuario(referencia, usuario.getId()));
+    }
+}
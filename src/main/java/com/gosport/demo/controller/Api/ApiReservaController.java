@@ -0,0 +1,181 @@
+package com.gosport.demo.controller.Api;
+
+import com.gosport.demo.dto.PagoDto;
+import com.gosport.demo.dto.ReservaDto;
+import com.gosport.demo.model.Cancha;
+import com.gosport.demo.model.EmailOutbox;
+import com.gosport.demo.model.Pago;
+import com.gosport.demo.model.Reserva;
+import com.gosport.demo.repository.CanchaRepository;
+import com.gosport.demo.security.UsuarioPrincipal;
+import com.gosport.demo.service.PagoService;
+import com.gosport.demo.service.ReservaService;
+import com.gosport.demo.service.WompiService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Reservas del usuario del token: listar, crear, cancelar e iniciar el pago.
+ * Mismas reglas que ReservaController y PagoController, con respuestas JSON.
+ */
+@RestController
+@RequestMapping("/api/v1/reservas")
+public class ApiReservaController {
+
+    private static final Set<Double> DURACIONES = Set.of(0.5, 1.0, 1.5, 2.0);
+    private static final int MAX_TAMANO_PAGINA = 100;
+
+    public record NuevaReserva(Long canchaId, LocalDate fecha, LocalTime horaInicio, Double duracion) {}
+
+    public record NuevoPago(Pago.MetodoPago metodo, String idempotencyKey) {}
+
+    @Autowired
+    private ReservaService reservaService;
+
+    @Autowired
+    private PagoService pagoService;
+
+    @Autowired
+    private CanchaRepository canchaRepository;
+
+    // ====================================
+    // MIS RESERVAS
+    // ====================================
+    @GetMapping
+    public List<ReservaDto> misReservas(
+            @RequestParam(defaultValue = "0") int pagina,
+            @RequestParam(defaultValue = "20") int tamano,
+            @AuthenticationPrincipal UsuarioPrincipal usuario) {
+        PageRequest pageable = PageRequest.of(Math.max(0, pagina), Math.min(Math.max(1, tamano), MAX_TAMANO_PAGINA));
+        return reservaService.obtenerResumenPorUsuario(usuario.getId(), pageable);
+    }
+
+    // ====================================
+    // CREAR
+    // ====================================
+    @PostMapping
+    public ResponseEntity<?> crear(@RequestBody NuevaReserva datos,
+                                   @AuthenticationPrincipal UsuarioPrincipal usuario) {
+        if (datos.canchaId() == null || datos.fecha() == null || datos.horaInicio() == null || datos.duracion() == null) {
+            return error(HttpStatus.BAD_REQUEST, "canchaId, fecha, horaInicio y duracion son obligatorios");
+        }
+        if (!DURACIONES.contains(datos.duracion())) {
+            return error(HttpStatus.BAD_REQUEST, "Duración no válida (0.5, 1, 1.5 o 2 horas)");
+        }
+        if (datos.fecha().isBefore(LocalDate.now())) {
+            return error(HttpStatus.BAD_REQUEST, "La fecha ya pasó");
+        }
+
+        Optional<Cancha> canchaOpt = canchaRepository.findById(datos.canchaId());
+        if (canchaOpt.isEmpty()) {
+            return error(HttpStatus.NOT_FOUND, "Cancha no encontrada");
+        }
+        Cancha cancha = canchaOpt.get();
+        if (!"disponible".equals(cancha.getEstado())) {
+            return error(HttpStatus.CONFLICT, "La cancha no está disponible");
+        }
+
+        LocalTime horaFin = datos.horaInicio().plusMinutes((long) (datos.duracion() * 60));
+        if ((cancha.getHoraApertura() != null && datos.horaInicio().isBefore(cancha.getHoraApertura())) ||
+            (cancha.getHoraCierre() != null && horaFin.isAfter(cancha.getHoraCierre()))) {
+            return error(HttpStatus.BAD_REQUEST, "El horario está fuera del horario de la cancha");
+        }
+
+        Reserva reserva = new Reserva();
+        reserva.setUsuario(usuario.aReferencia());
+        reserva.setCancha(cancha);
+        reserva.setFecha(datos.fecha());
+        reserva.setHoraInicio(datos.horaInicio());
+        reserva.setHoraFin(horaFin);
+        reserva.setDuracion(datos.duracion());
+        // El precio lo calcula el servidor, no lo envía el cliente
+        reserva.setPrecioTotal(reservaService.calcularPrecio(cancha, datos.duracion()));
+        reserva.setEstado(Reserva.EstadoReserva.CONFIRMADA);
+        reserva.setCreatedBy(usuario.getUsername());
+
+        if (!reservaService.validarDisponibilidad(reserva)) {
+            return error(HttpStatus.CONFLICT, "El horario seleccionado no está disponible");
+        }
+
+        Reserva guardada = reservaService.guardarYNotificar(reserva, EmailOutbox.TipoEmail.RESERVA_CONFIRMADA);
+        return ResponseEntity.status(HttpStatus.CREATED).body(ReservaDto.de(guardada));
+    }
+
+    // ====================================
+    // CANCELAR
+    // ====================================
+    @PostMapping("/{id}/cancelar")
+    public ResponseEntity<?> cancelar(@PathVariable Long id,
+                                      @AuthenticationPrincipal UsuarioPrincipal usuario) {
+        Optional<Reserva> reservaOpt = buscarPropia(id, usuario);
+        if (reservaOpt.isEmpty()) {
+            return error(HttpStatus.NOT_FOUND, "Reserva no encontrada");
+        }
+        Reserva reserva = reservaOpt.get();
+        if (!reserva.puedeSerCancelada()) {
+            return error(HttpStatus.CONFLICT, "Esta reserva no puede ser cancelada");
+        }
+
+        reserva.setEstado(Reserva.EstadoReserva.CANCELADA);
+        reserva.setUpdatedBy(usuario.getUsername());
+        Reserva guardada = reservaService.guardarYNotificar(reserva, EmailOutbox.TipoEmail.RESERVA_CANCELADA);
+        return ResponseEntity.ok(ReservaDto.de(guardada));
+    }
+
+    // ====================================
+    // INICIAR PAGO
+    // ====================================
+
+    /**
+     * Crea (o retoma) el pago en Wompi y retorna el link para abrirlo.
+     * Con el mismo idempotencyKey, los reintentos reciben el mismo pago.
+     */
+    @PostMapping("/{id}/pago")
+    public CompletableFuture<ResponseEntity<?>> pagar(@PathVariable Long id,
+                                                      @RequestBody NuevoPago datos,
+                                                      @AuthenticationPrincipal UsuarioPrincipal usuario) {
+        if (datos.metodo() == null) {
+            return CompletableFuture.completedFuture(error(HttpStatus.BAD_REQUEST, "metodo es obligatorio"));
+        }
+        Optional<Reserva> reservaOpt = buscarPropia(id, usuario);
+        if (reservaOpt.isEmpty()) {
+            return CompletableFuture.completedFuture(error(HttpStatus.NOT_FOUND, "Reserva no encontrada"));
+        }
+
+        return pagoService.iniciarPago(reservaOpt.get(), datos.metodo(), datos.idempotencyKey())
+            .<ResponseEntity<?>>thenApply(pago -> ResponseEntity.ok(PagoDto.de(pago)))
+            .exceptionally(error -> {
+                Throwable causa = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+                if (causa instanceof WompiService.PasarelaNoDisponibleException) {
+                    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header("Retry-After", "30")
+                        .body(Map.of("error", "Los pagos están temporalmente no disponibles"));
+                }
+                return error(HttpStatus.BAD_GATEWAY, "Error al procesar el pago: " + causa.getMessage());
+            });
+    }
+
+    // Una reserva de otro usuario responde igual que una inexistente
+    private Optional<Reserva> buscarPropia(Long id, UsuarioPrincipal usuario) {
+        return reservaService.obtenerPorId(id)
+            .filter(r -> r.getUsuario().getId().equals(usuario.getId()) || usuario.isAdmin());
+    }
+
+    private static ResponseEntity<?> error(HttpStatus status, String mensaje) {
+        return ResponseEntity.status(status).body(Map.of("error", mensaje));
+    }
+}
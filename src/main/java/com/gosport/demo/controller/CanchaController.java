@@ -4,6 +4,8 @@ import com.gosport.demo.model.Cancha;
 import com.gosport.demo.model.Deporte;
 import com.gosport.demo.repository.CanchaRepository;
 import com.gosport.demo.repository.DeporteRepository;
+import com.gosport.demo.service.AnuncioService;
+import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
@@ -23,13 +25,16 @@ public class CanchaController {
 
     private final CanchaRepository canchaRepository;
     private final DeporteRepository deporteRepository;
+    private final AnuncioService anuncioService;
     
     // Carpeta donde se guardarán las fotos
     private static final String UPLOAD_DIR = "src/main/resources/static/images/canchas/";
 
-    public CanchaController(CanchaRepository canchaRepository, DeporteRepository deporteRepository) {
+    public CanchaController(CanchaRepository canchaRepository, DeporteRepository deporteRepository,
+                            AnuncioService anuncioService) {
         this.canchaRepository = canchaRepository;
         this.deporteRepository = deporteRepository;
+        this.anuncioService = anuncioService;
     }
 
     // ===============================
@@ -112,14 +117,22 @@ public class CanchaController {
     @GetMapping("/cambiar-estado/{id}")
     public String cambiarEstado(@PathVariable Long id, 
                                 @RequestParam String nuevoEstado,
+                                Authentication authentication,
                                 RedirectAttributes redirectAttributes) {
         try {
             Cancha cancha = canchaRepository.findById(id).orElseThrow();
+            boolean entraEnMantenimiento = "mantenimiento".equals(nuevoEstado)
+                && !"mantenimiento".equals(cancha.getEstado());
             cancha.setEstado(nuevoEstado);
             canchaRepository.save(cancha);
             
-            redirectAttributes.addFlashAttribute("successMessage", 
-                "Estado cambiado a: " + nuevoEstado);
+            String mensaje = "Estado cambiado a: " + nuevoEstado;
+            if (entraEnMantenimiento) {
+                // Los correos salen en segundo plano
+                anuncioService.anunciarMantenimiento(cancha, authentication.getName());
+                mensaje += ". Se notificará a los usuarios con reservas próximas.";
+            }
+            redirectAttributes.addFlashAttribute("successMessage", mensaje);
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("errorMessage", "Error: " + e.getMessage());
         }
@@ -2,13 +2,20 @@ package com.gosport.demo.controller;
 
 import com.gosport.demo.model.User;
 import com.gosport.demo.repository.UserRepository;
+import com.gosport.demo.service.SerieTemporalService;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.TextStyle;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -16,9 +23,12 @@ import java.util.stream.Collectors;
 public class DashboardController {
 
     private final UserRepository userRepository;
+    private final SerieTemporalService serieTemporalService;
 
-    public DashboardController(UserRepository userRepository) {
+    public DashboardController(UserRepository userRepository,
+                               SerieTemporalService serieTemporalService) {
         this.userRepository = userRepository;
+        this.serieTemporalService = serieTemporalService;
     }
 
     // ===============================
@@ -61,23 +71,63 @@ public class DashboardController {
     // ===============================
     @GetMapping("/admin/dashboard/usuarios-por-mes")
     @ResponseBody
-    public Map<String, Object> obtenerUsuariosPorMes() {
-        List<User> usuarios = userRepository.findAll();
-        
-        // Agrupar usuarios por mes
-        Map<String, Long> usuariosPorMes = usuarios.stream()
-            .collect(Collectors.groupingBy(
-                u -> u.getCreatedAt().getMonth().getDisplayName(TextStyle.SHORT, Locale.forLanguageTag("es")) 
-                     + " " + u.getCreatedAt().getYear(),
-                Collectors.counting()
-            ));
-        
-        // Preparar datos para Chart.js
-        Map<String, Object> resultado = new HashMap<>();
-        resultado.put("labels", new ArrayList<>(usuariosPorMes.keySet()));
-        resultado.put("data", new ArrayList<>(usuariosPorMes.values()));
-        
-        return resultado;
+    public Map<String, Object> obtenerUsuariosPorMes(@RequestParam(required = false) Integer meses) {
+        // Sin 'meses', desde el mes del primer registro (toda la historia);
+        // ordenados y con los meses sin registros en cero
+        LocalDate hoy = LocalDate.now();
+        LocalDate desde;
+        if (meses != null) {
+            if (meses < 1) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "meses debe ser mayor que cero");
+            }
+            desde = hoy.minusMonths(meses - 1).withDayOfMonth(1);
+        } else {
+            LocalDateTime primerRegistro = userRepository.obtenerPrimerRegistro();
+            desde = primerRegistro != null ? primerRegistro.toLocalDate().withDayOfMonth(1) : hoy.withDayOfMonth(1);
+        }
+
+        try {
+            return serieTemporalService.obtenerSerie(
+                SerieTemporalService.Metrica.USUARIOS,
+                SerieTemporalService.Granularidad.MES,
+                desde,
+                hoy,
+                (int) ChronoUnit.MONTHS.between(desde, hoy.withDayOfMonth(1)) + 1
+            );
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    // ===============================
+    // API: SERIE DE TIEMPO GENÉRICA
+    // /admin/dashboard/series/{reservas|ingresos|usuarios|cancelaciones}
+    // ===============================
+    @GetMapping("/admin/dashboard/series/{metrica}")
+    @ResponseBody
+    public Map<String, Object> obtenerSerie(
+            @PathVariable String metrica,
+            @RequestParam(defaultValue = "mes") String granularidad,
+            @RequestParam(required = false) String desde,
+            @RequestParam(required = false) String hasta,
+            @RequestParam(defaultValue = "300") int maxPuntos) {
+
+        try {
+            LocalDate fechaHasta = hasta != null && !hasta.isEmpty() ?
+                LocalDate.parse(hasta) : LocalDate.now();
+            LocalDate fechaDesde = desde != null && !desde.isEmpty() ?
+                LocalDate.parse(desde) : fechaHasta.minusYears(1);
+
+            return serieTemporalService.obtenerSerie(
+                SerieTemporalService.Metrica.valueOf(metrica.toUpperCase()),
+                SerieTemporalService.Granularidad.valueOf(granularidad.toUpperCase()),
+                fechaDesde,
+                fechaHasta,
+                Math.min(maxPuntos, 2000)
+            );
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
     }
 
     // ===============================
@@ -18,6 +18,8 @@ public class LoginController {
             @RequestParam(value = "logout", required = false) String logout,
             @RequestParam(value = "denied", required = false) String denied,
             @RequestParam(value = "expired", required = false) String expired,
+            @RequestParam(value = "bloqueado", required = false) String bloqueado,
+            @RequestParam(value = "ocupado", required = false) String ocupado,
             Model model) {
 
         if (error != null) {
@@ -29,6 +31,12 @@ public class LoginController {
         if (denied != null) {
             model.addAttribute("deniedMessage", "Acceso denegado. No tienes permisos para ver esa página.");
         }
+        if (bloqueado != null) {
+            model.addAttribute("loginError", "Demasiados intentos fallidos. Espera unos minutos antes de intentar de nuevo.");
+        }
+        if (ocupado != null) {
+            model.addAttribute("loginError", "El servicio está recibiendo muchos inicios de sesión. Intenta de nuevo en unos segundos.");
+        }
         if (expired != null) {
             model.addAttribute("expiredMessage", "Tu sesión ha expirado. Por favor, inicia sesión de nuevo.");
         }
@@ -2,16 +2,30 @@ package com.gosport.demo.controller;
 
 import com.gosport.demo.model.Pago;
 import com.gosport.demo.model.Reserva;
+import com.gosport.demo.security.UsuarioPrincipal;
+import com.gosport.demo.service.EsperaPagoService;
 import com.gosport.demo.service.PagoService;
 import com.gosport.demo.service.ReservaService;
+import com.gosport.demo.service.WebhookWompiService;
+import com.gosport.demo.service.WompiService;
+import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.Authentication;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Controller
 @RequestMapping("/pagos")
@@ -23,6 +37,22 @@ public class PagoController {
     @Autowired
     private ReservaService reservaService;
 
+    @Autowired
+    private WebhookWompiService webhookWompiService;
+
+    @Autowired
+    private EsperaPagoService esperaPagoService;
+
+    // Referencias que la sesión ya vio: habilitan la espera sin ir a la BD
+    private static final String PAGOS_VISIBLES = "pagosVisibles";
+
+    private static final String MENSAJE_PAGOS_NO_DISPONIBLES =
+        "Los pagos están temporalmente no disponibles. Tu reserva sigue registrada; intenta pagar en unos minutos.";
+
+    // Un poco más que el timeout del cliente de Wompi
+    @Value("${wompi.http.timeout-total-ms:15000}")
+    private long timeoutPasarelaMs;
+
     /**
      * Seleccionar método de pago
      */
@@ -30,7 +60,7 @@ public class PagoController {
     public String seleccionarMetodoPago(
             @PathVariable Long reservaId,
             Model model,
-            Authentication auth,
+            @AuthenticationPrincipal UsuarioPrincipal usuario,
             RedirectAttributes redirectAttributes) {
 
         try {
@@ -38,7 +68,7 @@ public class PagoController {
                 .orElseThrow(() -> new RuntimeException("Reserva no encontrada"));
 
             // Verificar que la reserva pertenece al usuario
-            if (!reserva.getUsuario().getEmail().equals(auth.getName())) {
+            if (!reserva.getUsuario().getId().equals(usuario.getId())) {
                 redirectAttributes.addFlashAttribute("errorMessage", 
                     "No tienes permiso para pagar esta reserva");
                 return "redirect:/reservas/mis-reservas";
@@ -52,6 +82,9 @@ public class PagoController {
 
             model.addAttribute("reserva", reserva);
             model.addAttribute("metodosPago", Pago.MetodoPago.values());
+            model.addAttribute("pasarelaDisponible", pagoService.isPasarelaDisponible());
+            // Token de idempotencia: el mismo para todos los envíos de este formulario
+            model.addAttribute("idempotencyKey", UUID.randomUUID().toString());
 
             return "pagos/seleccionar-metodo";
 
@@ -62,36 +95,58 @@ public class PagoController {
     }
 
     /**
-     * Procesar pago
+     * Procesar pago.
+     * El hilo de Tomcat se libera mientras Wompi responde; la redirección
+     * se completa desde el callback.
      */
     @PostMapping("/procesar")
-    public String procesarPago(
+    public DeferredResult<String> procesarPago(
             @RequestParam Long reservaId,
             @RequestParam String metodoPago,
-            Authentication auth,
+            @RequestParam(required = false) String idempotencyKey,
+            @AuthenticationPrincipal UsuarioPrincipal usuario,
             RedirectAttributes redirectAttributes) {
 
+        String volver = "redirect:/pagos/metodo/" + reservaId;
+        DeferredResult<String> resultado = new DeferredResult<>(timeoutPasarelaMs + 5000);
+        resultado.onTimeout(() -> {
+            redirectAttributes.addFlashAttribute("errorMessage",
+                "La pasarela de pagos no respondió a tiempo. Intenta de nuevo.");
+            resultado.setResult(volver);
+        });
+
         try {
             Reserva reserva = reservaService.obtenerPorId(reservaId)
                 .orElseThrow(() -> new RuntimeException("Reserva no encontrada"));
 
             // Verificar permisos
-            if (!reserva.getUsuario().getEmail().equals(auth.getName())) {
+            if (!reserva.getUsuario().getId().equals(usuario.getId())) {
                 throw new RuntimeException("No tienes permiso para pagar esta reserva");
             }
 
             // Iniciar proceso de pago
             Pago.MetodoPago metodo = Pago.MetodoPago.valueOf(metodoPago);
-            Pago pago = pagoService.iniciarPago(reserva, metodo);
-
-            // Redirigir a Wompi para completar el pago
-            return "redirect:" + pago.getWompiPaymentLink();
+            pagoService.iniciarPago(reserva, metodo, idempotencyKey).whenComplete((pago, error) -> {
+                if (error == null) {
+                    // Redirigir a Wompi para completar el pago
+                    resultado.setResult("redirect:" + pago.getWompiPaymentLink());
+                    return;
+                }
+                Throwable causa = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+                redirectAttributes.addFlashAttribute("errorMessage",
+                    causa instanceof WompiService.PasarelaNoDisponibleException
+                        ? MENSAJE_PAGOS_NO_DISPONIBLES
+                        : "Error al procesar el pago: " + causa.getMessage());
+                resultado.setResult(volver);
+            });
 
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("errorMessage", 
                 "Error al procesar el pago: " + e.getMessage());
-            return "redirect:/pagos/metodo/" + reservaId;
+            resultado.setResult(volver);
         }
+        return resultado;
     }
 
     /**
@@ -100,19 +155,15 @@ public class PagoController {
     @GetMapping("/confirmacion")
     public String confirmacionPago(
             @RequestParam(required = false) String id, // Transaction ID de Wompi
-            Model model) {
+            Model model,
+            HttpSession session) {
 
+        // Estado local: lo actualizan el webhook y la conciliación
         if (id != null) {
-            try {
-                // Sincronizar estado con Wompi
-                pagoService.sincronizarEstadoPago(id);
-                
-                Optional<Pago> pagoOpt = pagoService.obtenerPagoPorReserva(null);
-                if (pagoOpt.isPresent()) {
-                    model.addAttribute("pago", pagoOpt.get());
-                }
-            } catch (Exception e) {
-                model.addAttribute("errorMessage", "Error al verificar el pago");
+            Optional<Pago> pagoOpt = pagoService.obtenerPagoPorTransaccion(id);
+            if (pagoOpt.isPresent()) {
+                model.addAttribute("pago", pagoOpt.get());
+                permitirEspera(session, pagoOpt.get().getReferenciaPago());
             }
         }
 
@@ -126,19 +177,14 @@ public class PagoController {
     public String estadoPago(
             @PathVariable String referencia,
             Model model,
+            HttpSession session,
             RedirectAttributes redirectAttributes) {
 
         try {
+            // Estado local: no consulta a Wompi en cada visita
             Pago pago = pagoService.consultarEstadoPago(referencia);
-            
-            // Sincronizar con Wompi antes de mostrar
-            if (pago.getWompiTransactionId() != null) {
-                pagoService.sincronizarEstadoPago(pago.getWompiTransactionId());
-                // Recargar el pago actualizado
-                pago = pagoService.consultarEstadoPago(referencia);
-            }
-
             model.addAttribute("pago", pago);
+            permitirEspera(session, referencia);
             return "pagos/estado";
 
         } catch (Exception e) {
@@ -148,22 +194,47 @@ public class PagoController {
     }
 
     /**
-     * Webhook de Wompi (recibe notificaciones de estado)
+     * Long-poll: responde cuando el pago deja el estado que muestra la
+     * página, o con {cambiado: false} al vencer. Lee el estado de la BD al
+     * empezar y al vencer; nunca consulta a Wompi.
      */
-    @PostMapping("/webhook")
+    @GetMapping("/estado/{referencia}/esperar")
     @ResponseBody
-    public String webhookWompi(@RequestBody String payload) {
-        try {
-            // Aquí procesarías el webhook de Wompi
-            // Por seguridad, debes verificar la firma del webhook
-            
-            System.out.println("Webhook recibido: " + payload);
-            
-            // TODO: Implementar validación de firma y procesamiento
-            
-            return "OK";
-        } catch (Exception e) {
-            return "ERROR: " + e.getMessage();
+    public DeferredResult<ResponseEntity<Map<String, Object>>> esperarEstado(
+            @PathVariable String referencia,
+            @RequestParam Pago.EstadoPago estado,
+            HttpSession session) {
+
+        Object visibles = session.getAttribute(PAGOS_VISIBLES);
+        if (!(visibles instanceof Set<?> referencias) || !referencias.contains(referencia)) {
+            DeferredResult<ResponseEntity<Map<String, Object>>> prohibido = new DeferredResult<>();
+            prohibido.setResult(ResponseEntity.status(HttpStatus.FORBIDDEN).build());
+            return prohibido;
+        }
+        return esperaPagoService.esperar(referencia, estado);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void permitirEspera(HttpSession session, String referencia) {
+        Object visibles = session.getAttribute(PAGOS_VISIBLES);
+        Set<String> referencias = visibles instanceof Set<?> ? (Set<String>) visibles : ConcurrentHashMap.newKeySet();
+        if (referencias.add(referencia)) {
+            session.setAttribute(PAGOS_VISIBLES, referencias);
         }
     }
+
+    /**
+     * Webhook de Wompi (recibe notificaciones de estado).
+     * Solo verifica y guarda el evento; se aplica en segundo plano.
+     * Los duplicados también responden 200 para que Wompi no los reenvíe.
+     */
+    @PostMapping("/webhook")
+    @ResponseBody
+    public ResponseEntity<String> webhookWompi(@RequestBody String payload) {
+        return switch (webhookWompiService.recibir(payload)) {
+            case ACEPTADO, DUPLICADO -> ResponseEntity.ok("OK");
+            case FIRMA_INVALIDA -> ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Firma inválida");
+            case INVALIDO -> ResponseEntity.badRequest().body("Evento inválido");
+        };
+    }
 }
\ No newline at end of file
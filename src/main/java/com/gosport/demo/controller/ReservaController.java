@@ -1,14 +1,13 @@
 package com.gosport.demo.controller;
 
+import com.gosport.demo.model.EmailOutbox;
 import com.gosport.demo.model.Reserva;
 import com.gosport.demo.model.Cancha;
-import com.gosport.demo.model.User;
-import com.gosport.demo.service.EmailService;
 import com.gosport.demo.service.ReservaService;
 import com.gosport.demo.repository.CanchaRepository;
-import com.gosport.demo.repository.UserRepository;
+import com.gosport.demo.security.UsuarioPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
@@ -29,15 +28,9 @@ public class ReservaController {
     @Autowired
     private ReservaService reservaService;
 
-    @Autowired
-    private EmailService emailService;
-
     @Autowired
     private CanchaRepository canchaRepository;
 
-    @Autowired
-    private UserRepository userRepository;
-
     // ====================================
     // FORMULARIO DE RESERVA
     // ====================================
@@ -45,7 +38,6 @@ public class ReservaController {
     public String mostrarFormularioReserva(
             @PathVariable Long canchaId,
             Model model,
-            Authentication authentication,
             RedirectAttributes redirectAttributes) {
 
         try {
@@ -71,20 +63,15 @@ public class ReservaController {
             @RequestParam String horaInicio,
             @RequestParam Double duracion,
             @RequestParam BigDecimal precioTotal,
-            Authentication authentication,
+            @AuthenticationPrincipal UsuarioPrincipal usuario,
             RedirectAttributes redirectAttributes) {
 
         try {
-            User usuario = userRepository.findByEmail(authentication.getName());
-            if (usuario == null) {
-                throw new RuntimeException("Usuario no encontrado");
-            }
-
             Cancha cancha = canchaRepository.findById(canchaId)
                 .orElseThrow(() -> new RuntimeException("Cancha no encontrada"));
 
             Reserva reserva = new Reserva();
-            reserva.setUsuario(usuario);
+            reserva.setUsuario(usuario.aReferencia());
             reserva.setCancha(cancha);
             reserva.setFecha(LocalDate.parse(fecha));
             reserva.setHoraInicio(LocalTime.parse(horaInicio));
@@ -93,7 +80,7 @@ public class ReservaController {
             
             // ⭐ CAMBIO: La reserva se crea directamente como CONFIRMADA (sin pasarela de pago)
             reserva.setEstado(Reserva.EstadoReserva.CONFIRMADA);
-            reserva.setCreatedBy(usuario.getEmail());
+            reserva.setCreatedBy(usuario.getUsername());
 
             if (!reservaService.validarDisponibilidad(reserva)) {
                 redirectAttributes.addFlashAttribute("errorMessage",
@@ -101,14 +88,8 @@ public class ReservaController {
                 return "redirect:/reservas/nueva/" + canchaId;
             }
 
-            Reserva reservaGuardada = reservaService.guardar(reserva);
-
-            // Intentar enviar correo de confirmación
-            try {
-                emailService.enviarEmailReservaConfirmada(reservaGuardada);
-            } catch (Exception e) {
-                System.err.println("Error enviando email de confirmación: " + e.getMessage());
-            }
+            // El correo de confirmación queda en el outbox y se envía en segundo plano
+            Reserva reservaGuardada = reservaService.guardarYNotificar(reserva, EmailOutbox.TipoEmail.RESERVA_CONFIRMADA);
 
             // ⭐ CAMBIO: Redirigir al detalle de la reserva en lugar de a pagos
             redirectAttributes.addFlashAttribute("successMessage",
@@ -130,15 +111,10 @@ public class ReservaController {
             @RequestParam(required = false) String estado,
             @RequestParam(required = false) String desde,
             @RequestParam(required = false) String hasta,
-            Authentication authentication,
+            @AuthenticationPrincipal UsuarioPrincipal usuario,
             Model model) {
 
         try {
-            User usuario = userRepository.findByEmail(authentication.getName());
-            if (usuario == null) {
-                throw new RuntimeException("Usuario no encontrado");
-            }
-
             List<Reserva> todasReservas = reservaService.obtenerPorUsuario(usuario.getId());
 
             if (estado != null && !estado.isEmpty()) {
@@ -192,7 +168,7 @@ public class ReservaController {
     @GetMapping("/detalle/{id}")
     public String detalleReserva(
             @PathVariable Long id,
-            Authentication authentication,
+            @AuthenticationPrincipal UsuarioPrincipal usuario,
             Model model,
             RedirectAttributes redirectAttributes) {
 
@@ -200,13 +176,8 @@ public class ReservaController {
             Reserva reserva = reservaService.obtenerPorId(id)
                 .orElseThrow(() -> new RuntimeException("Reserva no encontrada"));
 
-            User usuario = userRepository.findByEmail(authentication.getName());
-            if (usuario == null) {
-                throw new RuntimeException("Usuario no encontrado");
-            }
-
             if (!reserva.getUsuario().getId().equals(usuario.getId()) &&
-                !usuario.getRol().equals("ADMIN")) {
+                !usuario.isAdmin()) {
                 redirectAttributes.addFlashAttribute("errorMessage",
                     "No tienes permiso para ver esta reserva");
                 return "redirect:/reservas/mis-reservas";
@@ -227,20 +198,15 @@ public class ReservaController {
     @PostMapping("/cancelar/{id}")
     public String cancelarReserva(
             @PathVariable Long id,
-            Authentication authentication,
+            @AuthenticationPrincipal UsuarioPrincipal usuario,
             RedirectAttributes redirectAttributes) {
 
         try {
             Reserva reserva = reservaService.obtenerPorId(id)
                 .orElseThrow(() -> new RuntimeException("Reserva no encontrada"));
 
-            User usuario = userRepository.findByEmail(authentication.getName());
-            if (usuario == null) {
-                throw new RuntimeException("Usuario no encontrado");
-            }
-
             if (!reserva.getUsuario().getId().equals(usuario.getId()) &&
-                !usuario.getRol().equals("ADMIN")) {
+                !usuario.isAdmin()) {
                 redirectAttributes.addFlashAttribute("errorMessage",
                     "No tienes permiso para cancelar esta reserva");
                 return "redirect:/reservas/mis-reservas";
@@ -252,22 +218,13 @@ public class ReservaController {
                 return "redirect:/reservas/detalle/" + id;
             }
 
-            // 1. Realizar la cancelación en BD primero
+            // Cancelación y correo en la misma transacción; el envío lo hace el outbox
             reserva.setEstado(Reserva.EstadoReserva.CANCELADA);
-            reserva.setUpdatedBy(usuario.getEmail());
-            reservaService.guardar(reserva);
-
-            // 2. Intentar enviar correo con manejo de errores específico
-            try {
-                emailService.enviarEmailReservaCancelada(reserva);
-                redirectAttributes.addFlashAttribute("successMessage",
-                    "Reserva cancelada exitosamente. Te hemos enviado un email de confirmación.");
-            } catch (Exception e) {
-                // Si falla el correo, NO fallamos toda la petición. Mostramos éxito con advertencia.
-                System.err.println("Error enviando email de cancelación: " + e.getMessage());
-                redirectAttributes.addFlashAttribute("successMessage",
-                    "Reserva cancelada exitosamente. (Nota: No se pudo enviar el correo de confirmación por un error de conexión)");
-            }
+            reserva.setUpdatedBy(usuario.getUsername());
+            reservaService.guardarYNotificar(reserva, EmailOutbox.TipoEmail.RESERVA_CANCELADA);
+
+            redirectAttributes.addFlashAttribute("successMessage",
+                "Reserva cancelada exitosamente. Te enviaremos un email de confirmación.");
 
             return "redirect:/reservas/detalle/" + id;
 
@@ -0,0 +1,35 @@
+package com.gosport.demo.controller;
+
+import com.gosport.demo.service.SimuladorWompiService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Endpoints de la API de Wompi que usa WompiService, servidos por el
+ * simulador. Con el perfil "simulador", wompi.api.url apunta aquí.
+ */
+@RestController
+@RequestMapping("/simulador/wompi/v1")
+@Profile("simulador")
+public class SimuladorWompiController {
+
+    @Autowired
+    private SimuladorWompiService simuladorWompiService;
+
+    @PostMapping("/transactions")
+    public Mono<ResponseEntity<Map<String, Object>>> crearTransaccion(@RequestBody Map<String, Object> peticion) {
+        return simuladorWompiService.crear(peticion)
+            .map(r -> ResponseEntity.status(r.status()).body(r.cuerpo()));
+    }
+
+    @GetMapping("/transactions/{id}")
+    public Mono<ResponseEntity<Map<String, Object>>> consultarTransaccion(@PathVariable String id) {
+        return simuladorWompiService.consultar(id)
+            .map(r -> ResponseEntity.status(r.status()).body(r.cuerpo()));
+    }
+}
@@ -0,0 +1,23 @@
+package com.gosport.demo.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalTime;
+
+/**
+ * Cancha para la API: campos planos, sin el grafo de la entidad.
+ * Se arma directamente en la consulta (CanchaRepository.listarResumen).
+ */
+public record CanchaDto(
+    Long id,
+    String nombre,
+    String deporte,
+    String direccion,
+    String barrio,
+    String localidad,
+    String fotoUrl,
+    BigDecimal precioHora,
+    BigDecimal precioMediaHora,
+    LocalTime horaApertura,
+    LocalTime horaCierre,
+    String estado
+) {}
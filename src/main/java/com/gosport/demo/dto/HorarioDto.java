@@ -0,0 +1,8 @@
+package com.gosport.demo.dto;
+
+import java.time.LocalTime;
+
+/**
+ * Franja ocupada de una cancha en un día.
+ */
+public record HorarioDto(LocalTime inicio, LocalTime fin) {}
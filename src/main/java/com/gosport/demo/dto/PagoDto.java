@@ -0,0 +1,34 @@
+package com.gosport.demo.dto;
+
+import com.gosport.demo.model.Pago;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Pago para la API. {@code linkPago} es la URL de Wompi mientras está pendiente.
+ */
+public record PagoDto(
+    String referencia,
+    Long reservaId,
+    BigDecimal monto,
+    String moneda,
+    Pago.MetodoPago metodo,
+    Pago.EstadoPago estado,
+    String linkPago,
+    LocalDateTime fechaPago
+) {
+
+    public static PagoDto de(Pago pago) {
+        return new PagoDto(
+            pago.getReferenciaPago(),
+            pago.getReserva().getId(),
+            pago.getMonto(),
+            pago.getMoneda(),
+            pago.getMetodoPago(),
+            pago.getEstado(),
+            pago.getWompiPaymentLink(),
+            pago.getFechaPago()
+        );
+    }
+}
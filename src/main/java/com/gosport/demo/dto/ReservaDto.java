@@ -0,0 +1,39 @@
+package com.gosport.demo.dto;
+
+import com.gosport.demo.model.Reserva;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Reserva para la API (sin usuario ni cancha completos).
+ */
+public record ReservaDto(
+    Long id,
+    String codigo,
+    Long canchaId,
+    String cancha,
+    LocalDate fecha,
+    LocalTime horaInicio,
+    LocalTime horaFin,
+    Double duracion,
+    BigDecimal precioTotal,
+    Reserva.EstadoReserva estado
+) {
+
+    public static ReservaDto de(Reserva reserva) {
+        return new ReservaDto(
+            reserva.getId(),
+            reserva.getCodigoReserva(),
+            reserva.getCancha().getId(),
+            reserva.getCancha().getNombre(),
+            reserva.getFecha(),
+            reserva.getHoraInicio(),
+            reserva.getHoraFin(),
+            reserva.getDuracion(),
+            reserva.getPrecioTotal(),
+            reserva.getEstado()
+        );
+    }
+}
@@ -0,0 +1,27 @@
+package com.gosport.demo.dto;
+
+import com.gosport.demo.model.Reserva;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Fila de la exportación de reservas: solo las columnas que se escriben.
+ * Se arma en la consulta, así el cursor no carga entidades (ni sus
+ * relaciones EAGER, que dispararían selects con el cursor abierto).
+ */
+public record ReservaExportDto(
+    String codigo,
+    Long canchaId,
+    String cancha,
+    String usuario,
+    String email,
+    LocalDate fecha,
+    LocalTime horaInicio,
+    LocalTime horaFin,
+    Double duracion,
+    Reserva.EstadoReserva estado,
+    BigDecimal precioTotal
+) {
+}
@@ -0,0 +1,83 @@
+package com.gosport.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * Anuncio masivo por correo. Los destinatarios se recorren por lotes en
+ * orden de id de usuario; ultimoUsuarioId guarda hasta dónde se llegó,
+ * así un reinicio continúa en el mismo punto.
+ */
+@Entity
+@Table(name = "anuncios")
+@Data
+public class Anuncio {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 200)
+    private String asunto;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String mensaje;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private Audiencia audiencia;
+
+    // Solo para RESERVAS_CANCHA
+    @Column(name = "cancha_id")
+    private Long canchaId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private EstadoAnuncio estado = EstadoAnuncio.EN_CURSO;
+
+    // Cursor: último usuario al que ya se le encoló el correo
+    @Column(name = "ultimo_usuario_id", nullable = false)
+    private Long ultimoUsuarioId = 0L;
+
+    @Column(nullable = false)
+    private Long encolados = 0L;
+
+    @Column(name = "creado_por", nullable = false)
+    private String creadoPor;
+
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finalizado_at")
+    private LocalDateTime finalizadoAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // ====================================
+    // ENUMS
+    // ====================================
+
+    public enum Audiencia {
+        RESERVAS_CANCHA,   // Usuarios con reservas próximas en una cancha
+        USUARIOS_ACTIVOS   // Todos los usuarios activos
+    }
+
+    public enum EstadoAnuncio {
+        EN_CURSO,
+        PAUSADO,
+        COMPLETADO
+    }
+}
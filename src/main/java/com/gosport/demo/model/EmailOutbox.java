@@ -0,0 +1,140 @@
+package com.gosport.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * Correo pendiente de envío. Se escribe en la misma transacción que el
+ * cambio de estado que lo origina y lo entrega un worker en segundo plano.
+ */
+@Entity
+@Table(name = "email_outbox", indexes = {
+    @Index(name = "idx_email_outbox_estado_prioridad", columnList = "estado, prioridad, proximo_intento")
+})
+@Data
+public class EmailOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private TipoEmail tipo;
+
+    // El contenido se genera al momento del envío a partir de la reserva (o del anuncio)
+    @Column(name = "reserva_id")
+    private Long reservaId;
+
+    @Column(name = "anuncio_id")
+    private Long anuncioId;
+
+    @Column(nullable = false)
+    private String destinatario;
+
+    // Para personalizar los anuncios sin volver a consultar el usuario
+    @Column(name = "nombre_destinatario")
+    private String nombreDestinatario;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private EstadoEmail estado = EstadoEmail.PENDIENTE;
+
+    // Ordinal de Prioridad (0 = más urgente); se guarda para ordenar en la consulta
+    @Column(nullable = false)
+    private Integer prioridad;
+
+    @Column(nullable = false)
+    private Integer intentos = 0;
+
+    @Column(name = "proximo_intento", nullable = false)
+    private LocalDateTime proximoIntento;
+
+    // Mientras un worker lo tiene tomado; si vence, otro lo puede reclamar
+    @Column(name = "bloqueado_hasta")
+    private LocalDateTime bloqueadoHasta;
+
+    @Column(name = "ultimo_error", columnDefinition = "TEXT")
+    private String ultimoError;
+
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "enviado_at")
+    private LocalDateTime enviadoAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+        if (proximoIntento == null) {
+            proximoIntento = createdAt;
+        }
+        if (prioridad == null) {
+            prioridad = tipo.getPrioridad().ordinal();
+        }
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public Prioridad getPrioridadEmail() {
+        return Prioridad.values()[prioridad];
+    }
+
+    // ====================================
+    // ENUMS
+    // ====================================
+
+    public enum TipoEmail {
+        NUEVA_RESERVA(Prioridad.CONFIRMACION),
+        RESERVA_CONFIRMADA(Prioridad.CONFIRMACION),
+        RESERVA_CANCELADA(Prioridad.CANCELACION),
+        RECORDATORIO_MANANA(Prioridad.RECORDATORIO),
+        RECORDATORIO_HOY(Prioridad.RECORDATORIO),
+        ANUNCIO(Prioridad.MARKETING);
+
+        private final Prioridad prioridad;
+
+        TipoEmail(Prioridad prioridad) {
+            this.prioridad = prioridad;
+        }
+
+        public Prioridad getPrioridad() {
+            return prioridad;
+        }
+    }
+
+    // En orden de urgencia
+    public enum Prioridad {
+        CONFIRMACION(true),  // pagos y reservas
+        CANCELACION(true),
+        RECORDATORIO(false),
+        MARKETING(false);
+
+        // Los urgentes pueden usar toda la capacidad del proveedor;
+        // los masivos dejan una reserva y absorben el throttling
+        private final boolean urgente;
+
+        Prioridad(boolean urgente) {
+            this.urgente = urgente;
+        }
+
+        public boolean isUrgente() {
+            return urgente;
+        }
+    }
+
+    public enum EstadoEmail {
+        PENDIENTE,
+        ENVIANDO,
+        ENVIADO,
+        FALLIDO // Agotó los reintentos (dead letter)
+    }
+}
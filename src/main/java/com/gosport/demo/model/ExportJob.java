@@ -0,0 +1,134 @@
+package com.gosport.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "export_jobs", indexes = {
+    @Index(name = "idx_export_jobs_clave_estado", columnList = "clave, estado")
+})
+@Data
+public class ExportJob {
+
+    @Id
+    @Column(length = 36)
+    private String id; // UUID
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private TipoExportacion tipo;
+
+    // Tipo + filtros normalizados; identifica solicitudes idénticas
+    @Column(nullable = false, length = 200)
+    private String clave;
+
+    // Filtros (solo aplican a reservas)
+    @Enumerated(EnumType.STRING)
+    @Column(name = "filtro_estado", length = 20)
+    private Reserva.EstadoReserva filtroEstado;
+
+    @Column(name = "filtro_cancha_id")
+    private Long filtroCanchaId;
+
+    @Column(name = "filtro_desde")
+    private LocalDate filtroDesde;
+
+    @Column(name = "filtro_hasta")
+    private LocalDate filtroHasta;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private EstadoJob estado = EstadoJob.EN_COLA;
+
+    @Column(name = "filas_procesadas", nullable = false)
+    private Long filasProcesadas = 0L;
+
+    // Resultado en el directorio de spool
+    @Column(name = "ruta_archivo", length = 500)
+    private String rutaArchivo;
+
+    @Column(name = "tamano_bytes")
+    private Long tamanoBytes;
+
+    @Column(columnDefinition = "TEXT")
+    private String error;
+
+    @Column(name = "solicitado_por", nullable = false)
+    private String solicitadoPor; // Email del admin
+
+    // Nodo que lo ejecuta; su spool tiene el archivo (salvo spool compartido)
+    @Column(length = 100)
+    private String nodo;
+
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    // También es el latido: el nodo dueño lo renueva mientras el trabajo está activo
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finalizado_at")
+    private LocalDateTime finalizadoAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // ====================================
+    // ENUMS
+    // ====================================
+
+    public enum TipoExportacion {
+        USUARIOS_EXCEL("usuarios", "xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"),
+        USUARIOS_PDF("usuarios", "pdf", "application/pdf"),
+        RESERVAS_EXCEL("reservas", "xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"),
+        RESERVAS_PDF("reservas", "pdf", "application/pdf");
+
+        private final String prefijo;
+        private final String extension;
+        private final String contentType;
+
+        TipoExportacion(String prefijo, String extension, String contentType) {
+            this.prefijo = prefijo;
+            this.extension = extension;
+            this.contentType = contentType;
+        }
+
+        public String getPrefijo() {
+            return prefijo;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+    }
+
+    public enum EstadoJob {
+        EN_COLA, PROCESANDO, COMPLETADO, FALLIDO
+    }
+
+    // ====================================
+    // MÉTODOS DE UTILIDAD
+    // ====================================
+
+    public boolean isTerminado() {
+        return estado == EstadoJob.COMPLETADO || estado == EstadoJob.FALLIDO;
+    }
+
+    public String getNombreDescarga() {
+        return tipo.getPrefijo() + "_" + createdAt.toLocalDate() + "." + tipo.getExtension();
+    }
+}
@@ -0,0 +1,69 @@
+package com.gosport.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Libro de pagos: un registro por evento, solo se agregan (nunca se
+ * modifican ni se borran). Los ingresos se calculan desde aquí y no desde
+ * el estado actual de Pago. Cada tipo aparece a lo sumo una vez por pago:
+ * la clave única frena una segunda aprobación del mismo pago.
+ */
+@Entity
+@Immutable
+@Table(name = "pagos_movimientos",
+    uniqueConstraints = @UniqueConstraint(name = "uk_movimientos_pago_tipo", columnNames = {"pago_id", "tipo"}),
+    indexes = {
+        @Index(name = "idx_movimientos_fecha", columnList = "fecha"),
+        @Index(name = "idx_movimientos_cancha_fecha", columnList = "cancha_id, fecha")
+    })
+@Data
+public class MovimientoPago {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "pago_id", nullable = false, updatable = false)
+    private Long pagoId;
+
+    @Column(name = "cancha_id", nullable = false, updatable = false)
+    private Long canchaId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false, length = 20)
+    private TipoMovimiento tipo;
+
+    // Monto del pago al momento del evento
+    @Column(nullable = false, updatable = false, precision = 10, scale = 2)
+    private BigDecimal monto;
+
+    // Efecto en los ingresos: +monto al aprobar, -monto al reembolsar, 0 en los demás
+    @Column(nullable = false, updatable = false, precision = 10, scale = 2)
+    private BigDecimal importe;
+
+    // Día contable: siempre el del registro, así un día cerrado no cambia
+    @Column(nullable = false, updatable = false)
+    private LocalDate fecha;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        fecha = createdAt.toLocalDate();
+    }
+
+    public enum TipoMovimiento {
+        INICIADO,
+        APROBADO,
+        RECHAZADO,
+        REEMBOLSADO
+    }
+}
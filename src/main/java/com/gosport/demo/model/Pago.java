@@ -6,7 +6,10 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "pagos")
+@Table(name = "pagos", indexes = {
+    @Index(name = "idx_pagos_estado_fecha_pago", columnList = "estado, fecha_pago"),
+    @Index(name = "idx_pagos_updated_at", columnList = "updated_at")
+})
 @Data
 public class Pago {
 
@@ -8,7 +8,11 @@ import java.time.LocalTime;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "reservas")
+@Table(name = "reservas", indexes = {
+    @Index(name = "idx_reservas_fecha_estado", columnList = "fecha, estado"),
+    @Index(name = "idx_reservas_updated_at", columnList = "updated_at"),
+    @Index(name = "idx_reservas_cancelada_at", columnList = "cancelada_at")
+})
 @Data
 public class Reserva {
 
@@ -63,6 +67,17 @@ public class Reserva {
     @Column(name = "updated_by")
     private String updatedBy;
 
+    // Marcas de recordatorio enviado (evitan duplicados)
+    @Column(name = "recordatorio_manana_at")
+    private LocalDateTime recordatorioMananaAt;
+
+    @Column(name = "recordatorio_hoy_at")
+    private LocalDateTime recordatorioHoyAt;
+
+    // Momento de la cancelación (la serie de cancelaciones agrupa por este campo)
+    @Column(name = "cancelada_at")
+    private LocalDateTime canceladaAt;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -78,11 +93,24 @@ public class Reserva {
             int minutos = (int) (duracion * 60);
             horaFin = horaInicio.plusMinutes(minutos);
         }
+        marcarCancelacion();
     }
 
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
+        marcarCancelacion();
+    }
+
+    // Cubre todos los caminos (usuario, admin, API, pago rechazado) sin tocarlos uno por uno
+    private void marcarCancelacion() {
+        if (estado == EstadoReserva.CANCELADA) {
+            if (canceladaAt == null) {
+                canceladaAt = LocalDateTime.now();
+            }
+        } else {
+            canceladaAt = null;
+        }
     }
 
     // Enum para Estados
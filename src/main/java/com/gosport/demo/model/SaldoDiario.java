@@ -0,0 +1,49 @@
+package com.gosport.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Foto del libro de pagos al cierre de un día, por cancha. La fila con
+ * cancha_id = 0 es el total de todas las canchas y se escribe todos los
+ * días (aunque no haya movimientos), así marca hasta dónde llegan las fotos.
+ */
+@Entity
+@Table(name = "pagos_saldos_diarios",
+    uniqueConstraints = @UniqueConstraint(name = "uk_saldo_fecha_cancha", columnNames = {"fecha", "cancha_id"}),
+    indexes = @Index(name = "idx_saldo_cancha_fecha", columnList = "cancha_id, fecha"))
+@Data
+public class SaldoDiario {
+
+    public static final long TOTAL = 0L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate fecha;
+
+    @Column(name = "cancha_id", nullable = false)
+    private Long canchaId;
+
+    // Ingresos netos del día
+    @Column(name = "ingresos_dia", nullable = false, precision = 14, scale = 2)
+    private BigDecimal ingresosDia;
+
+    // Ingresos netos acumulados hasta este día inclusive
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal acumulado;
+
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -5,7 +5,10 @@ import lombok.Data;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+    @Index(name = "idx_users_created_at", columnList = "created_at"),
+    @Index(name = "idx_users_updated_at", columnList = "updated_at")
+})
 @Data
 public class User {
 
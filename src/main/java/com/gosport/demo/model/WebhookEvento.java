@@ -0,0 +1,89 @@
+package com.gosport.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * Evento recibido por el webhook de Wompi. Se guarda al recibirlo (la clave
+ * única evita procesar dos veces el mismo evento) y se aplica después, desde
+ * un worker, a un ritmo constante.
+ */
+@Entity
+@Table(name = "webhook_eventos", indexes = {
+    @Index(name = "idx_webhook_eventos_estado", columnList = "estado, proximo_intento")
+})
+@Data
+public class WebhookEvento {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Checksum firmado del evento: los reenvíos de Wompi traen el mismo
+    @Column(nullable = false, unique = true, length = 64)
+    private String clave;
+
+    @Column(nullable = false, length = 50)
+    private String evento; // p. ej. transaction.updated
+
+    @Column(name = "transaction_id", length = 100)
+    private String transactionId;
+
+    @Column(name = "status_transaccion", length = 20)
+    private String statusTransaccion;
+
+    // Timestamp (epoch) que firma Wompi
+    @Column(name = "timestamp_evento")
+    private Long timestampEvento;
+
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private EstadoEvento estado = EstadoEvento.PENDIENTE;
+
+    @Column(nullable = false)
+    private Integer intentos = 0;
+
+    @Column(name = "proximo_intento", nullable = false)
+    private LocalDateTime proximoIntento;
+
+    // Mientras un worker lo tiene tomado; si vence, otro lo puede reclamar
+    @Column(name = "bloqueado_hasta")
+    private LocalDateTime bloqueadoHasta;
+
+    @Column(name = "ultimo_error", columnDefinition = "TEXT")
+    private String ultimoError;
+
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "procesado_at")
+    private LocalDateTime procesadoAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+        if (proximoIntento == null) {
+            proximoIntento = createdAt;
+        }
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public enum EstadoEvento {
+        PENDIENTE,
+        PROCESANDO,
+        PROCESADO,
+        FALLIDO // Agotó los reintentos
+    }
+}
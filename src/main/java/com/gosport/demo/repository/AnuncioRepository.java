@@ -0,0 +1,21 @@
+package com.gosport.demo.repository;
+
+import com.gosport.demo.model.Anuncio;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface AnuncioRepository extends JpaRepository<Anuncio, Long> {
+
+    List<Anuncio> findByEstado(Anuncio.EstadoAnuncio estado);
+
+    // Un solo nodo avanza el cursor de un anuncio a la vez
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Anuncio a WHERE a.id = :id")
+    Optional<Anuncio> bloquear(@Param("id") Long id);
+}
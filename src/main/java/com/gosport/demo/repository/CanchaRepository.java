@@ -1,13 +1,16 @@
 package com.gosport.demo.repository;
 
+import com.gosport.demo.dto.CanchaDto;
 import com.gosport.demo.model.Cancha;
 import com.gosport.demo.model.Deporte;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface CanchaRepository extends JpaRepository<Cancha, Long> {
     
@@ -30,4 +33,19 @@ public interface CanchaRepository extends JpaRepository<Cancha, Long> {
     // Contar canchas por deporte
     @Query("SELECT c.deporte.nombre, COUNT(c) FROM Cancha c GROUP BY c.deporte.nombre")
     List<Object[]> contarCanchasPorDeporte();
-}
\ No newline at end of file
+
+    // ====================================
+    // API (DTO armado en la consulta, sin cargar entidades)
+    // ====================================
+
+    @Query("SELECT new com.gosport.demo.dto.CanchaDto(c.id, c.nombre, d.nombre, c.direccion, c.barrio, " +
+           "c.localidad, c.fotoUrl, c.precioHora, c.precioMediaHora, c.horaApertura, c.horaCierre, c.estado) " +
+           "FROM Cancha c JOIN c.deporte d " +
+           "WHERE (:deporteId IS NULL OR d.id = :deporteId) ORDER BY c.nombre")
+    List<CanchaDto> listarResumen(@Param("deporteId") Long deporteId);
+
+    @Query("SELECT new com.gosport.demo.dto.CanchaDto(c.id, c.nombre, d.nombre, c.direccion, c.barrio, " +
+           "c.localidad, c.fotoUrl, c.precioHora, c.precioMediaHora, c.horaApertura, c.horaCierre, c.estado) " +
+           "FROM Cancha c JOIN c.deporte d WHERE c.id = :id")
+    Optional<CanchaDto> buscarResumen(@Param("id") Long id);
+}
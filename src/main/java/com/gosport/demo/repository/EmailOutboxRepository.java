@@ -0,0 +1,39 @@
+package com.gosport.demo.repository;
+
+import com.gosport.demo.model.EmailOutbox;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    // Correos listos para enviar, más los tomados por un worker cuyo bloqueo venció.
+    // SKIP LOCKED (timeout -2): varias instancias pueden reclamar lotes distintos sin esperarse.
+    // Los más urgentes primero; con :prioridadMaxima se dejan fuera los masivos.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM EmailOutbox e " +
+           "WHERE e.prioridad <= :prioridadMaxima AND (" +
+           "(e.estado = com.gosport.demo.model.EmailOutbox.EstadoEmail.PENDIENTE AND e.proximoIntento <= :ahora) " +
+           "OR (e.estado = com.gosport.demo.model.EmailOutbox.EstadoEmail.ENVIANDO AND e.bloqueadoHasta < :ahora)) " +
+           "ORDER BY e.prioridad ASC, e.proximoIntento ASC")
+    List<EmailOutbox> reclamarListos(@Param("ahora") LocalDateTime ahora,
+                                     @Param("prioridadMaxima") int prioridadMaxima,
+                                     Pageable pageable);
+
+    long countByAnuncioIdAndEstadoIn(Long anuncioId, List<EmailOutbox.EstadoEmail> estados);
+
+    // [prioridad, cantidad] de los pendientes
+    @Query("SELECT e.prioridad, COUNT(e) FROM EmailOutbox e " +
+           "WHERE e.estado = com.gosport.demo.model.EmailOutbox.EstadoEmail.PENDIENTE " +
+           "GROUP BY e.prioridad")
+    List<Object[]> contarPendientesPorPrioridad();
+}
@@ -0,0 +1,76 @@
+package com.gosport.demo.repository;
+
+import com.gosport.demo.model.ExportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface ExportJobRepository extends JpaRepository<ExportJob, String> {
+
+    // Trabajo idéntico que todavía no termina (de-duplicación)
+    Optional<ExportJob> findFirstByClaveAndEstadoIn(String clave, List<ExportJob.EstadoJob> estados);
+
+    List<ExportJob> findByNodoAndEstadoIn(String nodo, List<ExportJob.EstadoJob> estados);
+
+    // Trabajos terminados cuyo archivo ya venció
+    List<ExportJob> findByEstadoAndFinalizadoAtBefore(ExportJob.EstadoJob estado, LocalDateTime limite);
+
+    // Se llama desde dentro de la exportación (con el cursor abierto),
+    // por eso usa su propia transacción y conexión
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("UPDATE ExportJob j SET j.filasProcesadas = :filas, j.updatedAt = :ahora WHERE j.id = :id")
+    void actualizarProgreso(@Param("id") String id,
+                            @Param("filas") long filas,
+                            @Param("ahora") LocalDateTime ahora);
+
+    // Latido de los trabajos activos de un nodo
+    @Modifying
+    @Transactional
+    @Query("UPDATE ExportJob j SET j.updatedAt = :ahora WHERE j.nodo = :nodo AND j.estado IN :estados")
+    int renovarLatido(@Param("nodo") String nodo,
+                      @Param("estados") List<ExportJob.EstadoJob> estados,
+                      @Param("ahora") LocalDateTime ahora);
+
+    // Trabajos activos cuyo nodo dejó de latir (caído, o reiniciado con otro nombre)
+    @Modifying
+    @Transactional
+    @Query("UPDATE ExportJob j SET j.estado = 'FALLIDO', j.error = :error, j.finalizadoAt = :ahora, " +
+           "j.updatedAt = :ahora WHERE j.estado IN :estados AND j.updatedAt < :limite")
+    int marcarSinLatido(@Param("estados") List<ExportJob.EstadoJob> estados,
+                        @Param("limite") LocalDateTime limite,
+                        @Param("error") String error,
+                        @Param("ahora") LocalDateTime ahora);
+
+    // Cierre del trabajo por el nodo que lo ejecuta: solo si sigue activo
+    // en ese nodo (el latido pudo darlo por caído mientras tanto)
+    @Modifying
+    @Transactional
+    @Query("UPDATE ExportJob j SET j.estado = 'COMPLETADO', j.filasProcesadas = :filas, j.rutaArchivo = :ruta, " +
+           "j.tamanoBytes = :tamano, j.finalizadoAt = :ahora, j.updatedAt = :ahora " +
+           "WHERE j.id = :id AND j.nodo = :nodo AND j.estado IN :estados")
+    int marcarCompletado(@Param("id") String id,
+                         @Param("nodo") String nodo,
+                         @Param("estados") List<ExportJob.EstadoJob> estados,
+                         @Param("filas") long filas,
+                         @Param("ruta") String ruta,
+                         @Param("tamano") long tamano,
+                         @Param("ahora") LocalDateTime ahora);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ExportJob j SET j.estado = 'FALLIDO', j.error = :error, j.finalizadoAt = :ahora, " +
+           "j.updatedAt = :ahora WHERE j.id = :id AND j.nodo = :nodo AND j.estado IN :estados")
+    int marcarFallido(@Param("id") String id,
+                      @Param("nodo") String nodo,
+                      @Param("estados") List<ExportJob.EstadoJob> estados,
+                      @Param("error") String error,
+                      @Param("ahora") LocalDateTime ahora);
+}
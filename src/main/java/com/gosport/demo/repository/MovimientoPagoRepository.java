@@ -0,0 +1,47 @@
+package com.gosport.demo.repository;
+
+import com.gosport.demo.model.MovimientoPago;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface MovimientoPagoRepository extends JpaRepository<MovimientoPago, Long> {
+
+    List<MovimientoPago> findByPagoIdOrderByIdAsc(Long pagoId);
+
+    // [canchaId, suma de importes] de un día
+    @Query("SELECT m.canchaId, COALESCE(SUM(m.importe), 0) FROM MovimientoPago m " +
+           "WHERE m.fecha = :fecha GROUP BY m.canchaId")
+    List<Object[]> sumarPorCancha(@Param("fecha") LocalDate fecha);
+
+    // Cola después de la última foto: (desde, hasta]
+    @Query("SELECT COALESCE(SUM(m.importe), 0) FROM MovimientoPago m " +
+           "WHERE m.fecha > :desde AND m.fecha <= :hasta")
+    BigDecimal sumarEntre(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    @Query("SELECT COALESCE(SUM(m.importe), 0) FROM MovimientoPago m " +
+           "WHERE m.canchaId = :canchaId AND m.fecha > :desde AND m.fecha <= :hasta")
+    BigDecimal sumarEntrePorCancha(@Param("canchaId") Long canchaId,
+                                   @Param("desde") LocalDate desde,
+                                   @Param("hasta") LocalDate hasta);
+
+    @Query("SELECT MIN(m.fecha) FROM MovimientoPago m")
+    Optional<LocalDate> obtenerPrimeraFecha();
+
+    // Carga inicial: los pagos aprobados que no están en el libro, en su fecha de pago.
+    // Se puede repetir y correr en varios nodos a la vez: la clave (pago_id, tipo) descarta lo ya cargado.
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO pagos_movimientos (pago_id, cancha_id, tipo, monto, importe, fecha, created_at) " +
+                   "SELECT p.id, r.cancha_id, 'APROBADO', p.monto, p.monto, DATE(COALESCE(p.fecha_pago, p.updated_at)), NOW() " +
+                   "FROM pagos p JOIN reservas r ON r.id = p.reserva_id " +
+                   "WHERE p.estado = 'APROBADO' " +
+                   "AND NOT EXISTS (SELECT 1 FROM pagos_movimientos m WHERE m.pago_id = p.id AND m.tipo = 'APROBADO')",
+           nativeQuery = true)
+    int cargarAprobadosExistentes();
+}
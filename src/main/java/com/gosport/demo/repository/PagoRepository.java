@@ -1,12 +1,16 @@
 package com.gosport.demo.repository;
 
+import com.gosport.demo.dto.PagoDto;
 import com.gosport.demo.model.Pago;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,6 +23,15 @@ public interface PagoRepository extends JpaRepository<Pago, Long> {
     // Buscar pago por ID de transacción de Wompi
     Optional<Pago> findByWompiTransactionId(String wompiTransactionId);
 
+    // Para aplicar una confirmación: el webhook y la conciliación de otro nodo se turnan
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Pago p WHERE p.wompiTransactionId = :transactionId")
+    Optional<Pago> bloquearPorTransaccion(@Param("transactionId") String transactionId);
+
+    // Solo el estado (por la clave única), para el long-poll
+    @Query("SELECT p.estado FROM Pago p WHERE p.referenciaPago = :referencia")
+    Optional<Pago.EstadoPago> obtenerEstado(@Param("referencia") String referencia);
+
     // Buscar pago por reserva
     Optional<Pago> findByReservaId(Long reservaId);
 
@@ -32,16 +45,34 @@ public interface PagoRepository extends JpaRepository<Pago, Long> {
     @Query("SELECT p FROM Pago p WHERE p.reserva.usuario.id = :usuarioId ORDER BY p.createdAt DESC")
     List<Pago> findByUsuarioId(@Param("usuarioId") Long usuarioId);
 
-    // Calcular ingresos totales aprobados
-    @Query("SELECT COALESCE(SUM(p.monto), 0) FROM Pago p WHERE p.estado = 'APROBADO'")
-    BigDecimal calcularIngresosTotales();
-
-    // Calcular ingresos del mes
-    @Query("SELECT COALESCE(SUM(p.monto), 0) FROM Pago p " +
+    // Ingresos aprobados agrupados por día (serie de tiempo)
+    @Query("SELECT CAST(p.fechaPago AS LocalDate), COALESCE(SUM(p.monto), 0) FROM Pago p " +
            "WHERE p.estado = 'APROBADO' " +
-           "AND MONTH(p.fechaPago) = :mes AND YEAR(p.fechaPago) = :anio")
-    BigDecimal calcularIngresosMes(@Param("mes") int mes, @Param("anio") int anio);
+           "AND p.fechaPago >= :desde AND p.fechaPago < :hasta " +
+           "GROUP BY CAST(p.fechaPago AS LocalDate)")
+    List<Object[]> sumarIngresosPorDia(@Param("desde") LocalDateTime desde,
+                                       @Param("hasta") LocalDateTime hasta);
 
     // Contar pagos por estado
     long countByEstado(Pago.EstadoPago estado);
-}
\ No newline at end of file
+
+    // [id, wompiTransactionId] de los pagos sin estado final, para conciliar con Wompi.
+    // Keyset sobre el id; los muy recientes se dejan al webhook.
+    @Query("SELECT p.id, p.wompiTransactionId FROM Pago p " +
+           "WHERE p.estado IN (com.gosport.demo.model.Pago.EstadoPago.PENDIENTE, com.gosport.demo.model.Pago.EstadoPago.PROCESANDO) " +
+           "AND p.wompiTransactionId IS NOT NULL " +
+           "AND p.createdAt BETWEEN :desde AND :hasta " +
+           "AND p.id > :ultimoId " +
+           "ORDER BY p.id ASC")
+    List<Object[]> obtenerPendientesDeConciliar(@Param("desde") LocalDateTime desde,
+                                                @Param("hasta") LocalDateTime hasta,
+                                                @Param("ultimoId") Long ultimoId,
+                                                Pageable pageable);
+
+    // Pago de un usuario para la API (DTO armado en la consulta)
+    @Query("SELECT new com.gosport.demo.dto.PagoDto(p.referenciaPago, r.id, p.monto, p.moneda, p.metodoPago, " +
+           "p.estado, p.wompiPaymentLink, p.fechaPago) " +
+           "FROM Pago p JOIN p.reserva r WHERE p.referenciaPago = :referencia AND r.usuario.id = :usuarioId")
+    Optional<PagoDto> buscarResumenDeUsuario(@Param("referencia") String referencia,
+                                             @Param("usuarioId") Long usuarioId);
+}
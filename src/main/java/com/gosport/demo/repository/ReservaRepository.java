@@ -1,17 +1,26 @@
 package com.gosport.demo.repository;
 
+import com.gosport.demo.dto.HorarioDto;
+import com.gosport.demo.dto.ReservaExportDto;
+import com.gosport.demo.dto.ReservaDto;
 import com.gosport.demo.model.Reserva;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 @Repository
 public interface ReservaRepository extends JpaRepository<Reserva, Long> {
@@ -149,6 +158,61 @@ public interface ReservaRepository extends JpaRepository<Reserva, Long> {
            "ORDER BY COUNT(r) DESC")
     List<Map<String, Object>> obtenerUsuariosConMasReservas();
     
+    // ====================================
+    // EXPORTACIONES (cursor, ordenado por cancha para subtotales)
+    // ====================================
+    
+    // Proyección: con MySQL en streaming no se puede lanzar otro select
+    // mientras el cursor está abierto (p. ej. el deporte EAGER de la cancha)
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT new com.gosport.demo.dto.ReservaExportDto(r.codigoReserva, c.id, c.nombre, " +
+           "u.name, u.email, r.fecha, r.horaInicio, r.horaFin, r.duracion, r.estado, r.precioTotal) " +
+           "FROM Reserva r " +
+           "JOIN r.cancha c " +
+           "JOIN r.usuario u " +
+           "WHERE (:estado IS NULL OR r.estado = :estado) " +
+           "AND (:canchaId IS NULL OR c.id = :canchaId) " +
+           "AND (:desde IS NULL OR r.fecha >= :desde) " +
+           "AND (:hasta IS NULL OR r.fecha <= :hasta) " +
+           "ORDER BY c.nombre, c.id, r.fecha, r.horaInicio")
+    Stream<ReservaExportDto> streamConFiltros(
+        @Param("estado") Reserva.EstadoReserva estado,
+        @Param("canchaId") Long canchaId,
+        @Param("desde") LocalDate desde,
+        @Param("hasta") LocalDate hasta
+    );
+    
+    // ====================================
+    // SERIES DE TIEMPO (agregado por día, rango sobre idx_reservas_fecha_estado)
+    // ====================================
+    
+    @Query("SELECT r.fecha, COUNT(r) FROM Reserva r " +
+           "WHERE r.fecha BETWEEN :desde AND :hasta " +
+           "GROUP BY r.fecha")
+    List<Object[]> contarReservasPorDia(
+        @Param("desde") LocalDate desde,
+        @Param("hasta") LocalDate hasta
+    );
+    
+    // Por el día en que se canceló, no por la fecha de la reserva
+    @Query("SELECT CAST(r.canceladaAt AS LocalDate), COUNT(r) FROM Reserva r " +
+           "WHERE r.canceladaAt >= :desde AND r.canceladaAt < :hasta " +
+           "AND r.estado = 'CANCELADA' " +
+           "GROUP BY CAST(r.canceladaAt AS LocalDate)")
+    List<Object[]> contarCancelacionesPorDia(
+        @Param("desde") LocalDateTime desde,
+        @Param("hasta") LocalDateTime hasta
+    );
+
+    // Canceladas antes de existir cancelada_at: la última modificación es la mejor aproximación
+    @Modifying
+    @Query("UPDATE Reserva r SET r.canceladaAt = COALESCE(r.updatedAt, r.createdAt) " +
+           "WHERE r.estado = 'CANCELADA' AND r.canceladaAt IS NULL")
+    int completarFechasCancelacion();
+    
     // ====================================
     // BÚSQUEDAS
     // ====================================
@@ -185,18 +249,63 @@ public interface ReservaRepository extends JpaRepository<Reserva, Long> {
     // ====================================
     // RECORDATORIOS Y NOTIFICACIONES
     // ====================================
+    // Paginación por keyset (r.id > :ultimoId): cada lote cuesta lo mismo
+    // aunque haya decenas de miles de reservas en el día.
+    // Retornan [id, email del usuario].
     
-    @Query("SELECT r FROM Reserva r " +
+    @Query("SELECT r.id, u.email FROM Reserva r JOIN r.usuario u " +
            "WHERE r.fecha = :fecha " +
            "AND r.estado = 'CONFIRMADA' " +
-           "AND r.horaInicio > :horaActual")
-    List<Reserva> obtenerReservasParaRecordarHoy(
+           "AND r.horaInicio > :horaActual " +
+           "AND r.horaInicio <= :horaLimite " +
+           "AND r.recordatorioHoyAt IS NULL " +
+           "AND r.id > :ultimoId " +
+           "ORDER BY r.id")
+    List<Object[]> obtenerReservasParaRecordarHoy(
         @Param("fecha") LocalDate fecha,
-        @Param("horaActual") java.time.LocalTime horaActual
+        @Param("horaActual") java.time.LocalTime horaActual,
+        @Param("horaLimite") java.time.LocalTime horaLimite,
+        @Param("ultimoId") Long ultimoId,
+        Pageable pageable
     );
     
-    @Query("SELECT r FROM Reserva r " +
+    @Query("SELECT r.id, u.email FROM Reserva r JOIN r.usuario u " +
            "WHERE r.fecha = :manana " +
-           "AND r.estado = 'CONFIRMADA'")
-    List<Reserva> obtenerReservasParaManana(@Param("manana") LocalDate manana);
-}
\ No newline at end of file
+           "AND r.estado = 'CONFIRMADA' " +
+           "AND r.recordatorioMananaAt IS NULL " +
+           "AND r.id > :ultimoId " +
+           "ORDER BY r.id")
+    List<Object[]> obtenerReservasParaManana(
+        @Param("manana") LocalDate manana,
+        @Param("ultimoId") Long ultimoId,
+        Pageable pageable
+    );
+    
+    // Marcas de enviado: el UPDATE condicional solo afecta una fila si nadie
+    // la marcó antes, así un reinicio u otro nodo no repiten el recordatorio
+    @Modifying
+    @Query("UPDATE Reserva r SET r.recordatorioMananaAt = :ahora " +
+           "WHERE r.id = :id AND r.recordatorioMananaAt IS NULL AND r.estado = 'CONFIRMADA'")
+    int marcarRecordatorioManana(@Param("id") Long id, @Param("ahora") LocalDateTime ahora);
+    
+    @Modifying
+    @Query("UPDATE Reserva r SET r.recordatorioHoyAt = :ahora " +
+           "WHERE r.id = :id AND r.recordatorioHoyAt IS NULL AND r.estado = 'CONFIRMADA'")
+    int marcarRecordatorioHoy(@Param("id") Long id, @Param("ahora") LocalDateTime ahora);
+
+    // ====================================
+    // API (DTO armado en la consulta, sin el grafo EAGER)
+    // ====================================
+
+    @Query("SELECT new com.gosport.demo.dto.HorarioDto(r.horaInicio, r.horaFin) FROM Reserva r " +
+           "WHERE r.cancha.id = :canchaId AND r.fecha = :fecha AND r.estado <> 'CANCELADA' " +
+           "ORDER BY r.horaInicio")
+    List<HorarioDto> obtenerHorariosOcupados(@Param("canchaId") Long canchaId,
+                                             @Param("fecha") LocalDate fecha);
+
+    @Query("SELECT new com.gosport.demo.dto.ReservaDto(r.id, r.codigoReserva, c.id, c.nombre, r.fecha, " +
+           "r.horaInicio, r.horaFin, r.duracion, r.precioTotal, r.estado) " +
+           "FROM Reserva r JOIN r.cancha c WHERE r.usuario.id = :usuarioId " +
+           "ORDER BY r.fecha DESC, r.horaInicio DESC")
+    List<ReservaDto> listarResumenPorUsuario(@Param("usuarioId") Long usuarioId, Pageable pageable);
+}
@@ -0,0 +1,18 @@
+package com.gosport.demo.repository;
+
+import com.gosport.demo.model.SaldoDiario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+public interface SaldoDiarioRepository extends JpaRepository<SaldoDiario, Long> {
+
+    // Último día con foto (se toma de las filas de total, que existen todos los días)
+    @Query("SELECT MAX(s.fecha) FROM SaldoDiario s WHERE s.canchaId = " + SaldoDiario.TOTAL)
+    Optional<LocalDate> obtenerUltimaFecha();
+
+    // Foto más reciente de una cancha (o del total) hasta una fecha
+    Optional<SaldoDiario> findFirstByCanchaIdAndFechaLessThanEqualOrderByFechaDesc(Long canchaId, LocalDate fecha);
+}
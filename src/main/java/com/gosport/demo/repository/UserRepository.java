@@ -3,14 +3,29 @@ package com.gosport.demo.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import com.gosport.demo.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     
     // Buscar por email (login)
     User findByEmail(String email);
+
+    // Rehash al iniciar sesión (solo cambia el hash, sin tocar auditoría)
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :password WHERE u.email = :email")
+    int actualizarPassword(@Param("email") String email, @Param("password") String password);
     
     // Buscar por nombre o email (panel admin) - SIN PAGINACIÓN
     List<User> findByNameContainingIgnoreCaseOrEmailContainingIgnoreCase(String name, String email);
@@ -21,4 +36,47 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     // ⭐ NUEVO: Obtener todos con paginación
     Page<User> findAll(Pageable pageable);
-}
\ No newline at end of file
+    
+    // Conteos para reportes
+    long countByActivoTrue();
+    
+    long countByRol(String rol);
+    
+    // Recorrer todos los usuarios con un cursor (exportaciones).
+    // Con MySQL, fetchSize = Integer.MIN_VALUE hace que el driver entregue fila por fila.
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    Stream<User> streamAllByOrderByIdAsc();
+    
+    // Nuevos usuarios agrupados por día (serie de tiempo)
+    @Query("SELECT CAST(u.createdAt AS LocalDate), COUNT(u) FROM User u " +
+           "WHERE u.createdAt >= :desde AND u.createdAt < :hasta " +
+           "GROUP BY CAST(u.createdAt AS LocalDate)")
+    List<Object[]> contarRegistrosPorDia(@Param("desde") LocalDateTime desde,
+                                         @Param("hasta") LocalDateTime hasta);
+
+    // Inicio de la serie completa de registros (null si no hay usuarios)
+    @Query("SELECT MIN(u.createdAt) FROM User u")
+    LocalDateTime obtenerPrimerRegistro();
+
+    // ====================================
+    // DESTINATARIOS DE ANUNCIOS (keyset por id)
+    // ====================================
+    // Retornan [id, email, nombre]
+
+    @Query("SELECT u.id, u.email, u.name FROM User u " +
+           "WHERE u.activo = true AND u.id > :ultimoId ORDER BY u.id")
+    List<Object[]> obtenerActivosDesde(@Param("ultimoId") Long ultimoId, Pageable pageable);
+
+    @Query("SELECT DISTINCT u.id, u.email, u.name FROM Reserva r JOIN r.usuario u " +
+           "WHERE r.cancha.id = :canchaId AND r.fecha >= :desde " +
+           "AND r.estado IN ('PENDIENTE', 'CONFIRMADA') " +
+           "AND u.id > :ultimoId ORDER BY u.id")
+    List<Object[]> obtenerConReservasProximasDesde(@Param("canchaId") Long canchaId,
+                                                   @Param("desde") java.time.LocalDate desde,
+                                                   @Param("ultimoId") Long ultimoId,
+                                                   Pageable pageable);
+}
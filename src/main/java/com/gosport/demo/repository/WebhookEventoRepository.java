@@ -0,0 +1,38 @@
+package com.gosport.demo.repository;
+
+import com.gosport.demo.model.WebhookEvento;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface WebhookEventoRepository extends JpaRepository<WebhookEvento, Long> {
+
+    // Igual que el outbox de correos: SKIP LOCKED para que varias instancias no se esperen.
+    // En orden de llegada, así los eventos de una transacción se aplican en orden.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT w FROM WebhookEvento w WHERE " +
+           "(w.estado = com.gosport.demo.model.WebhookEvento.EstadoEvento.PENDIENTE AND w.proximoIntento <= :ahora) " +
+           "OR (w.estado = com.gosport.demo.model.WebhookEvento.EstadoEvento.PROCESANDO AND w.bloqueadoHasta < :ahora) " +
+           "ORDER BY w.id ASC")
+    List<WebhookEvento> reclamarListos(@Param("ahora") LocalDateTime ahora, Pageable pageable);
+
+    long countByEstado(WebhookEvento.EstadoEvento estado);
+
+    // Las claves solo hacen falta mientras Wompi pueda reenviar el evento
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM WebhookEvento w " +
+           "WHERE w.estado = com.gosport.demo.model.WebhookEvento.EstadoEvento.PROCESADO AND w.procesadoAt < :limite")
+    int eliminarProcesadosAntesDe(@Param("limite") LocalDateTime limite);
+}
@@ -0,0 +1,38 @@
+package com.gosport.demo.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Rechaza el POST a /login de una IP o cuenta con demasiados fallos
+ * recientes, antes de cargar el usuario y de verificar con BCrypt.
+ * Se registra solo en la cadena de seguridad (no es un @Component).
+ */
+public class FiltroLimiteLogin extends OncePerRequestFilter {
+
+    private final LimitadorLogin limitadorLogin;
+
+    public FiltroLimiteLogin(LimitadorLogin limitadorLogin) {
+        this.limitadorLogin = limitadorLogin;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !"/login".equals(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if (limitadorLogin.bloqueado(request.getRemoteAddr(), request.getParameter("username"))) {
+            response.sendRedirect(request.getContextPath() + "/login?bloqueado=true");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,42 @@
+package com.gosport.demo.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Responde 429 con Retry-After cuando el cliente excede el ritmo de su
+ * ruta (ver LimitadorPeticiones). Va al inicio de las cadenas de
+ * seguridad, antes de leer la sesión; no es un @Component.
+ */
+public class FiltroLimitePeticiones extends OncePerRequestFilter {
+
+    private final LimitadorPeticiones limitadorPeticiones;
+
+    public FiltroLimitePeticiones(LimitadorPeticiones limitadorPeticiones) {
+        this.limitadorPeticiones = limitadorPeticiones;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        // Detrás del balanceador es la IP del cliente (server.forward-headers-strategy)
+        LimitadorPeticiones.Decision decision =
+            limitadorPeticiones.intentar(request.getServletPath(), request.getRemoteAddr());
+        if (!decision.permitida()) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader("Retry-After", String.valueOf(decision.reintentarEnSegundos()));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding("UTF-8");
+            response.getWriter().write("{\"error\":\"Demasiadas peticiones, intenta de nuevo en unos segundos\"}");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,159 @@
+package com.gosport.demo.security;
+
+import com.gosport.demo.util.VentanaDeslizante;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.event.AuthenticationFailureBadCredentialsEvent;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Límite de intentos fallidos de login por IP y por cuenta. Un intento
+ * bloqueado se rechaza en FiltroLimiteLogin antes de llegar a BCrypt.
+ *
+ * Por IP (ventana deslizante sin locks) frena el credential stuffing desde
+ * un mismo origen. Por cuenta frena la fuerza bruta repartida entre muchas
+ * IPs, pero sin dejar al dueño afuera: pasados los fallos permitidos, cada
+ * intento espera el doble que el anterior (hasta el tope) desde el último
+ * fallo. Un login exitoso limpia el contador de su cuenta.
+ */
+@Component
+public class LimitadorLogin {
+
+    private static final int DIVISIONES = 10;
+
+    private final Map<String, VentanaDeslizante> porIp = new ConcurrentHashMap<>();
+    private final Map<String, FallosCuenta> porCuenta = new ConcurrentHashMap<>();
+
+    private final int maxFallosIp;
+    private final int maxFallosCuenta;
+    private final Duration ventana;
+    private final long esperaInicialNanos;
+    private final long esperaMaximaNanos;
+    private final int maxClaves;
+    private final Counter bloqueados;
+
+    // Fallos seguidos de una cuenta y cuándo fue el último
+    private record FallosCuenta(int fallos, long ultimoNanos) {}
+
+    public LimitadorLogin(@Value("${gosports.seguridad.login.max-fallos-ip:30}") int maxFallosIp,
+                          @Value("${gosports.seguridad.login.max-fallos-cuenta:5}") int maxFallosCuenta,
+                          @Value("${gosports.seguridad.login.ventana-minutos:15}") long ventanaMinutos,
+                          @Value("${gosports.seguridad.login.espera-inicial-segundos:2}") long esperaInicialSegundos,
+                          @Value("${gosports.seguridad.login.espera-maxima-segundos:300}") long esperaMaximaSegundos,
+                          @Value("${gosports.seguridad.login.max-claves:100000}") int maxClaves,
+                          MeterRegistry meterRegistry) {
+        this.maxFallosIp = maxFallosIp;
+        this.maxFallosCuenta = maxFallosCuenta;
+        this.ventana = Duration.ofMinutes(ventanaMinutos);
+        this.esperaInicialNanos = Duration.ofSeconds(esperaInicialSegundos).toNanos();
+        this.esperaMaximaNanos = Duration.ofSeconds(esperaMaximaSegundos).toNanos();
+        this.maxClaves = maxClaves;
+        this.bloqueados = Counter.builder("gosport.login.bloqueados")
+            .description("Intentos de login rechazados por exceso de fallos")
+            .register(meterRegistry);
+    }
+
+    /**
+     * ¿Se rechaza este intento? Solo lee contadores, no registra nada.
+     */
+    public boolean bloqueado(String ip, String email) {
+        boolean bloqueado = superado(porIp, ip, maxFallosIp)
+            || (email != null && enEspera(normalizar(email)));
+        if (bloqueado) {
+            bloqueados.increment();
+        }
+        return bloqueado;
+    }
+
+    @EventListener
+    public void alFallar(AuthenticationFailureBadCredentialsEvent evento) {
+        if (evento.getAuthentication().getDetails() instanceof WebAuthenticationDetails detalles) {
+            contar(porIp, detalles.getRemoteAddress());
+        }
+        contarFalloCuenta(normalizar(evento.getAuthentication().getName()));
+    }
+
+    @EventListener
+    public void alAutenticar(AuthenticationSuccessEvent evento) {
+        porCuenta.remove(normalizar(evento.getAuthentication().getName()));
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void limpiar() {
+        porIp.values().removeIf(VentanaDeslizante::vacia);
+        long ahora = System.nanoTime();
+        porCuenta.values().removeIf(f -> olvidado(f, ahora));
+    }
+
+    // ====================================
+    // POR CUENTA: espera creciente
+    // ====================================
+
+    private boolean enEspera(String cuenta) {
+        FallosCuenta fallos = porCuenta.get(cuenta);
+        if (fallos == null || fallos.fallos() < maxFallosCuenta) {
+            return false;
+        }
+        return System.nanoTime() - fallos.ultimoNanos() < espera(fallos.fallos());
+    }
+
+    // 5 fallos -> 2 s, 6 -> 4 s, 7 -> 8 s ... hasta el tope
+    private long espera(int fallos) {
+        int duplicaciones = Math.min(fallos - maxFallosCuenta, 30);
+        return Math.min(esperaMaximaNanos, esperaInicialNanos << duplicaciones);
+    }
+
+    private void contarFalloCuenta(String cuenta) {
+        if (cuenta == null) {
+            return;
+        }
+        long ahora = System.nanoTime();
+        if (porCuenta.size() >= maxClaves && !porCuenta.containsKey(cuenta)) {
+            porCuenta.values().removeIf(f -> olvidado(f, ahora));
+            if (porCuenta.size() >= maxClaves) {
+                return;
+            }
+        }
+        porCuenta.merge(cuenta, new FallosCuenta(1, ahora), (previo, nuevo) -> olvidado(previo, ahora)
+            ? nuevo
+            : new FallosCuenta(previo.fallos() + 1, ahora));
+    }
+
+    // Sin fallos en toda la ventana: la cuenta empieza de cero
+    private boolean olvidado(FallosCuenta fallos, long ahora) {
+        return ahora - fallos.ultimoNanos() > ventana.toNanos();
+    }
+
+    private boolean superado(Map<String, VentanaDeslizante> contadores, String clave, int maximo) {
+        VentanaDeslizante ventanaClave = clave != null ? contadores.get(clave) : null;
+        return ventanaClave != null && ventanaClave.total() >= maximo;
+    }
+
+    private void contar(Map<String, VentanaDeslizante> contadores, String clave) {
+        if (clave == null) {
+            return;
+        }
+        // Con millones de claves distintas (ataque con IPs/cuentas al azar) se purga antes de crecer
+        if (contadores.size() >= maxClaves && !contadores.containsKey(clave)) {
+            contadores.values().removeIf(VentanaDeslizante::vacia);
+            if (contadores.size() >= maxClaves) {
+                return;
+            }
+        }
+        contadores.computeIfAbsent(clave, k -> new VentanaDeslizante(ventana, DIVISIONES)).registrar();
+    }
+
+    private static String normalizar(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,166 @@
+package com.gosport.demo.security;
+
+import com.gosport.demo.util.TokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Límite de peticiones por cliente (IP) en las rutas públicas, con un
+ * token bucket sin locks por cliente y ruta. Un scraper que recorre
+ * horarios-ocupados con todas las canchas y fechas agota su bucket y
+ * recibe 429 sin llegar a MySQL.
+ *
+ * Cada ruta puede tener además un tope global: aunque el scraper reparta
+ * la carga entre muchas IPs, la ruta no pasa de ese ritmo y las reservas
+ * no compiten con él por conexiones. Las rutas autenticadas no se limitan.
+ *
+ * El webhook de Wompi tampoco: llega de pocas IPs y frenarlo en una ráfaga
+ * solo atrasa confirmaciones. Un evento con firma inválida se descarta al
+ * verificar el checksum, sin guardar nada.
+ */
+@Component
+public class LimitadorPeticiones {
+
+    /**
+     * Resultado de pedir turno; si no se permite, cuántos segundos esperar.
+     */
+    public record Decision(boolean permitida, long reintentarEnSegundos) {
+        static final Decision PERMITIDA = new Decision(true, 0);
+    }
+
+    private static final class Ruta {
+        final String nombre;
+        final List<String> patrones;
+        final double capacidad;
+        final double porSegundo;
+        final TokenBucket global;       // null: sin tope global
+        final TokenBucket desbordados;  // clientes que no caben en el mapa
+        final Counter rechazadas;
+
+        Ruta(String nombre, List<String> patrones, double capacidad, double porSegundo,
+             double globalPorSegundo, MeterRegistry meterRegistry) {
+            this.nombre = nombre;
+            this.patrones = patrones;
+            this.capacidad = capacidad;
+            this.porSegundo = porSegundo;
+            this.global = globalPorSegundo > 0 ? new TokenBucket(Math.max(1, globalPorSegundo), globalPorSegundo) : null;
+            this.desbordados = new TokenBucket(capacidad, porSegundo);
+            this.rechazadas = Counter.builder("gosport.limite.rechazadas")
+                .description("Peticiones rechazadas con 429 por límite de ritmo")
+                .tag("ruta", nombre)
+                .register(meterRegistry);
+        }
+    }
+
+    private static final long PURGA_MINIMA_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final AntPathMatcher matcher = new AntPathMatcher();
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong ultimaPurga = new AtomicLong(System.nanoTime());
+    private final List<Ruta> rutas;
+    private final int maxClientes;
+
+    public LimitadorPeticiones(@Value("${gosports.limite.max-clientes:100000}") int maxClientes,
+                               @Value("${gosports.limite.horarios.capacidad:20}") double horariosCapacidad,
+                               @Value("${gosports.limite.horarios.por-segundo:2}") double horariosPorSegundo,
+                               @Value("${gosports.limite.horarios.global-por-segundo:200}") double horariosGlobal,
+                               @Value("${gosports.limite.canchas.capacidad:60}") double canchasCapacidad,
+                               @Value("${gosports.limite.canchas.por-segundo:5}") double canchasPorSegundo,
+                               @Value("${gosports.limite.canchas.global-por-segundo:0}") double canchasGlobal,
+                               MeterRegistry meterRegistry) {
+        this.maxClientes = maxClientes;
+        // En orden: gana la primera ruta que coincide
+        this.rutas = List.of(
+            new Ruta("horarios", List.of("/reservas/api/**", "/api/v1/canchas/*/horarios-ocupados"),
+                horariosCapacidad, horariosPorSegundo, horariosGlobal, meterRegistry),
+            new Ruta("canchas", List.of("/canchas/**", "/api/v1/canchas/**"),
+                canchasCapacidad, canchasPorSegundo, canchasGlobal, meterRegistry)
+        );
+        Gauge.builder("gosport.limite.clientes", buckets, Map::size)
+            .description("Buckets de clientes en memoria")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Consume un token del cliente en la ruta de la petición. Las rutas sin
+     * límite pasan sin tocar el mapa.
+     */
+    public Decision intentar(String path, String cliente) {
+        Ruta ruta = buscarRuta(path);
+        if (ruta == null) {
+            return Decision.PERMITIDA;
+        }
+
+        TokenBucket bucket = bucket(ruta, cliente);
+        if (!bucket.intentarConsumir()) {
+            return rechazar(ruta, bucket);
+        }
+        if (ruta.global != null && !ruta.global.intentarConsumir()) {
+            return rechazar(ruta, ruta.global);
+        }
+        return Decision.PERMITIDA;
+    }
+
+    /**
+     * Un bucket lleno es de un cliente inactivo: quitarlo no cambia nada,
+     * al volver recibe uno nuevo igual de lleno.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void limpiar() {
+        buckets.values().removeIf(b -> b.disponibles() >= b.getCapacidad());
+    }
+
+    private Ruta buscarRuta(String path) {
+        for (Ruta ruta : rutas) {
+            for (String patron : ruta.patrones) {
+                if (matcher.match(patron, path)) {
+                    return ruta;
+                }
+            }
+        }
+        return null;
+    }
+
+    private TokenBucket bucket(Ruta ruta, String cliente) {
+        String clave = ruta.nombre + '|' + cliente;
+        TokenBucket bucket = buckets.get(clave);
+        if (bucket != null) {
+            return bucket;
+        }
+        // Con muchas IPs distintas se purga antes de crecer; si sigue lleno,
+        // los nuevos comparten un bucket por ruta
+        if (buckets.size() >= maxClientes) {
+            purgarSiToca();
+            if (buckets.size() >= maxClientes) {
+                return ruta.desbordados;
+            }
+        }
+        return buckets.computeIfAbsent(clave, k -> new TokenBucket(ruta.capacidad, ruta.porSegundo));
+    }
+
+    // Una sola purga por segundo, la hace el hilo que gana el CAS
+    private void purgarSiToca() {
+        long ahora = System.nanoTime();
+        long anterior = ultimaPurga.get();
+        if (ahora - anterior >= PURGA_MINIMA_NANOS && ultimaPurga.compareAndSet(anterior, ahora)) {
+            limpiar();
+        }
+    }
+
+    private static Decision rechazar(Ruta ruta, TokenBucket bucket) {
+        ruta.rechazadas.increment();
+        long segundos = TimeUnit.NANOSECONDS.toSeconds(bucket.nanosHastaDisponible(0) + TimeUnit.SECONDS.toNanos(1) - 1);
+        return new Decision(false, Math.max(1, segundos));
+    }
+}
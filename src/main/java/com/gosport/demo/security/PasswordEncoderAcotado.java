@@ -0,0 +1,110 @@
+package com.gosport.demo.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BCrypt con CPU acotada. Cada verificación cuesta decenas de ms de CPU;
+ * aquí corren en un pool fijo con cola corta, así una ráfaga contra /login
+ * usa a lo sumo esos hilos y el resto de endpoints conserva su CPU.
+ * Si la cola está llena o la espera vence, falla rápido con
+ * VerificacionSaturadaException.
+ *
+ * La fuerza es configurable; upgradeEncoding avisa cuando un hash tiene una
+ * fuerza menor y Spring Security lo recalcula en el siguiente login
+ * (UserDetailsServiceImpl.updatePassword).
+ */
+public class PasswordEncoderAcotado implements PasswordEncoder {
+
+    private final BCryptPasswordEncoder bcrypt;
+    private final ThreadPoolExecutor executor;
+    private final long esperaMaximaMs;
+    private final Counter rechazadas;
+
+    public PasswordEncoderAcotado(int fuerza, int hilos, int cola, long esperaMaximaMs, MeterRegistry meterRegistry) {
+        this.bcrypt = new BCryptPasswordEncoder(fuerza);
+        this.esperaMaximaMs = esperaMaximaMs;
+
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+            hilos, hilos, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(cola),
+            r -> {
+                Thread t = new Thread(r, "bcrypt-" + contador.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            },
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        this.rechazadas = Counter.builder("gosport.login.bcrypt.rechazadas")
+            .description("Verificaciones de contraseña rechazadas por saturación")
+            .register(meterRegistry);
+        Gauge.builder("gosport.login.bcrypt.cola", executor, e -> e.getQueue().size())
+            .register(meterRegistry);
+        Gauge.builder("gosport.login.bcrypt.activas", executor, ThreadPoolExecutor::getActiveCount)
+            .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return ejecutar(() -> bcrypt.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return ejecutar(() -> bcrypt.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return bcrypt.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T ejecutar(Callable<T> tarea) {
+        Future<T> futuro;
+        try {
+            futuro = executor.submit(tarea);
+        } catch (RejectedExecutionException e) {
+            rechazadas.increment();
+            throw new VerificacionSaturadaException("Demasiados inicios de sesión en curso", e);
+        }
+
+        try {
+            return futuro.get(esperaMaximaMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            futuro.cancel(true);
+            rechazadas.increment();
+            throw new VerificacionSaturadaException("La verificación de la contraseña tardó demasiado", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futuro.cancel(true);
+            throw new VerificacionSaturadaException("Verificación interrumpida", e);
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(causa);
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,126 @@
+package com.gosport.demo.security;
+
+import org.springframework.security.core.session.SessionInformation;
+import org.springframework.security.core.session.SessionRegistry;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro de sesiones con caché local corta delante del registro
+ * compartido (Spring Session JDBC). ConcurrentSessionFilter consulta la
+ * sesión en cada petición para saber si fue expirada; sin caché eso es una
+ * lectura extra de spring_session por petición, además de la que ya hace
+ * Spring Session para cargar la sesión.
+ *
+ * Una expiración hecha en este nodo invalida la caché al instante; en los
+ * demás nodos se ve a lo sumo {@code ttl} después.
+ */
+public class RegistroSesionesConCache implements SessionRegistry {
+
+    private record Entrada(SessionInformation informacion, long nanos) {}
+
+    private final SessionRegistry delegado;
+    private final Map<String, Entrada> cache = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final int maxEntradas;
+
+    public RegistroSesionesConCache(SessionRegistry delegado, Duration ttl, int maxEntradas) {
+        this.delegado = delegado;
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntradas = maxEntradas;
+    }
+
+    @Override
+    public SessionInformation getSessionInformation(String sessionId) {
+        long ahora = System.nanoTime();
+        Entrada entrada = cache.get(sessionId);
+        if (entrada != null && ahora - entrada.nanos() < ttlNanos) {
+            return entrada.informacion();
+        }
+
+        SessionInformation original = delegado.getSessionInformation(sessionId);
+        SessionInformation informacion = original != null ? new InformacionCacheada(original) : null;
+        if (cache.size() >= maxEntradas) {
+            purgarVencidas(ahora);
+        }
+        if (cache.size() < maxEntradas) {
+            cache.put(sessionId, new Entrada(informacion, ahora));
+        }
+        return informacion;
+    }
+
+    @Override
+    public List<SessionInformation> getAllSessions(Object principal, boolean includeExpiredSessions) {
+        // Siempre desde el almacén compartido: se usa al iniciar sesión y al revocar
+        return delegado.getAllSessions(principal, includeExpiredSessions).stream()
+            .<SessionInformation>map(InformacionCacheada::new)
+            .toList();
+    }
+
+    @Override
+    public List<Object> getAllPrincipals() {
+        return delegado.getAllPrincipals();
+    }
+
+    @Override
+    public void refreshLastRequest(String sessionId) {
+        delegado.refreshLastRequest(sessionId);
+    }
+
+    @Override
+    public void registerNewSession(String sessionId, Object principal) {
+        cache.remove(sessionId);
+        delegado.registerNewSession(sessionId, principal);
+    }
+
+    @Override
+    public void removeSessionInformation(String sessionId) {
+        cache.remove(sessionId);
+        delegado.removeSessionInformation(sessionId);
+    }
+
+    private void purgarVencidas(long ahora) {
+        cache.values().removeIf(e -> ahora - e.nanos() >= ttlNanos);
+    }
+
+    /**
+     * Copia de la información que, al expirarse, expira la sesión en el
+     * almacén compartido y la saca de la caché local.
+     */
+    private final class InformacionCacheada extends SessionInformation {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient SessionInformation original;
+
+        InformacionCacheada(SessionInformation original) {
+            super(original.getPrincipal(), original.getSessionId(), original.getLastRequest());
+            this.original = original;
+            if (original.isExpired()) {
+                super.expireNow();
+            }
+        }
+
+        @Override
+        public void expireNow() {
+            original.expireNow();
+            super.expireNow();
+            cache.remove(getSessionId());
+        }
+
+        @Override
+        public void refreshLastRequest() {
+            original.refreshLastRequest();
+            super.refreshLastRequest();
+        }
+
+        @Override
+        public Date getLastRequest() {
+            return original.getLastRequest();
+        }
+    }
+}
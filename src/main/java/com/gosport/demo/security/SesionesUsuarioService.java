@@ -0,0 +1,37 @@
+package com.gosport.demo.security;
+
+import org.springframework.security.core.session.SessionInformation;
+import org.springframework.security.core.session.SessionRegistry;
+import org.springframework.stereotype.Service;
+
+/**
+ * Revocación de sesiones. El principal guarda rol y estado desde el login,
+ * así que al editar o desactivar un usuario se expiran sus sesiones: en la
+ * siguiente petición se le pide iniciar sesión de nuevo. Las sesiones están
+ * en Spring Session JDBC, así que la revocación alcanza a todos los nodos.
+ */
+@Service
+public class SesionesUsuarioService {
+
+    private final SessionRegistry sessionRegistry;
+
+    public SesionesUsuarioService(SessionRegistry sessionRegistry) {
+        this.sessionRegistry = sessionRegistry;
+    }
+
+    /**
+     * Expira todas las sesiones del usuario con ese email. Retorna cuántas.
+     */
+    public int revocar(String email) {
+        int revocadas = 0;
+        // Spring Session indexa las sesiones por nombre del principal (el email)
+        for (SessionInformation sesion : sessionRegistry.getAllSessions(email, false)) {
+            sesion.expireNow();
+            revocadas++;
+        }
+        if (revocadas > 0) {
+            System.out.println("🔒 Sesiones revocadas para " + email + ": " + revocadas);
+        }
+        return revocadas;
+    }
+}
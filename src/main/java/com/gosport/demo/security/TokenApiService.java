@@ -0,0 +1,72 @@
+package com.gosport.demo.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Tokens firmados (JWT HS256) de la API móvil. Llevan id, email, nombre y
+ * rol del usuario, así validarlos es solo verificar la firma y la fecha:
+ * ninguna consulta a la base de datos ni estado de sesión.
+ *
+ * No hay revocación individual: la vigencia es corta y el cliente pide
+ * otro token con sus credenciales al vencer.
+ */
+@Service
+public class TokenApiService {
+
+    public static final String EMISOR = "gosport";
+    public static final String CLAIM_ID = "uid";
+    public static final String CLAIM_NOMBRE = "nombre";
+    public static final String CLAIM_ROL = "rol";
+
+    /**
+     * Respuesta del endpoint de token (formato OAuth2).
+     */
+    public record Token(String accessToken, String tokenType, long expiresIn) {}
+
+    private final JwtEncoder jwtEncoder;
+    private final Duration vigencia;
+
+    public TokenApiService(JwtEncoder jwtEncoder,
+                           @Value("${gosports.api.jwt.vigencia-minutos:60}") long vigenciaMinutos) {
+        this.jwtEncoder = jwtEncoder;
+        this.vigencia = Duration.ofMinutes(vigenciaMinutos);
+    }
+
+    public Token emitir(UsuarioPrincipal usuario) {
+        Instant ahora = Instant.now();
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+            .issuer(EMISOR)
+            .subject(usuario.getUsername())
+            .issuedAt(ahora)
+            .expiresAt(ahora.plus(vigencia))
+            .claim(CLAIM_ID, usuario.getId())
+            .claim(CLAIM_NOMBRE, usuario.getNombre())
+            .claim(CLAIM_ROL, usuario.getRol())
+            .build();
+
+        Jwt jwt = jwtEncoder.encode(JwtEncoderParameters.from(JwsHeader.with(MacAlgorithm.HS256).build(), claims));
+        return new Token(jwt.getTokenValue(), "Bearer", vigencia.toSeconds());
+    }
+
+    /**
+     * Principal a partir de un token ya validado (firma, emisor y vigencia).
+     */
+    public static UsuarioPrincipal aPrincipal(Jwt jwt) {
+        Number id = jwt.getClaim(CLAIM_ID);
+        return UsuarioPrincipal.desdeToken(
+            id != null ? id.longValue() : null,
+            jwt.getSubject(),
+            jwt.getClaimAsString(CLAIM_NOMBRE),
+            jwt.getClaimAsString(CLAIM_ROL));
+    }
+}
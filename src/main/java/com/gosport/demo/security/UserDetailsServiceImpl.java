@@ -4,15 +4,13 @@ import com.gosport.demo.model.User;
 import com.gosport.demo.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
-
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     private UserRepository userRepository;
@@ -31,15 +29,18 @@ public class UserDetailsServiceImpl implements UserDetailsService {
             throw new UsernameNotFoundException("Usuario inactivo: " + email);
         }
 
-        // Crear objeto UserDetails de Spring Security
-        return new org.springframework.security.core.userdetails.User(
-            user.getEmail(),
-            user.getPassword(),
-            true, // enabled
-            true, // accountNonExpired
-            true, // credentialsNonExpired
-            true, // accountNonLocked
-            Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRol()))
-        );
+        // El principal conserva id, rol y estado: los controladores no vuelven a buscarlo
+        return new UsuarioPrincipal(user);
+    }
+
+    /**
+     * Rehash al iniciar sesión: Spring Security lo llama con la contraseña
+     * recién codificada cuando el hash guardado tiene una fuerza menor.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.actualizarPassword(user.getUsername(), newPassword);
+        System.out.println("🔐 Hash de contraseña actualizado para " + user.getUsername());
+        return user;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,126 @@
+package com.gosport.demo.security;
+
+import com.gosport.demo.model.User;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Usuario autenticado. Lleva desde el login el id, el rol y el estado
+ * activo, así los controladores no buscan al usuario por email en cada
+ * petición. Si un admin cambia o desactiva la cuenta, sus sesiones se
+ * revocan (SesionesUsuarioService) y el próximo login trae los datos nuevos.
+ */
+public class UsuarioPrincipal implements UserDetails, CredentialsContainer, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+    private final String email;
+    private final String nombre;
+    private final String rol;
+    private final boolean activo;
+    private String password;
+    private final List<GrantedAuthority> authorities;
+
+    public UsuarioPrincipal(User user) {
+        this(user.getId(), user.getEmail(), user.getName(), user.getRol(),
+            Boolean.TRUE.equals(user.getActivo()), user.getPassword());
+    }
+
+    private UsuarioPrincipal(Long id, String email, String nombre, String rol, boolean activo, String password) {
+        this.id = id;
+        this.email = email;
+        this.nombre = nombre;
+        this.rol = rol;
+        this.activo = activo;
+        this.password = password;
+        this.authorities = List.of(new SimpleGrantedAuthority("ROLE_" + rol));
+    }
+
+    /**
+     * Principal de la API, armado con los claims de un token ya validado
+     * (sin consultar la base de datos).
+     */
+    public static UsuarioPrincipal desdeToken(Long id, String email, String nombre, String rol) {
+        return new UsuarioPrincipal(id, email, nombre, rol, true, null);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public String getRol() {
+        return rol;
+    }
+
+    public boolean isAdmin() {
+        return "ADMIN".equals(rol);
+    }
+
+    /**
+     * Referencia al usuario para asociarlo a otra entidad (solo id, email y
+     * nombre cargados) sin consultar la tabla users.
+     */
+    public User aReferencia() {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(email);
+        user.setName(nombre);
+        user.setRol(rol);
+        user.setActivo(activo);
+        return user;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return activo;
+    }
+
+    // Tras autenticar no se guarda el hash en la sesión
+    @Override
+    public void eraseCredentials() {
+        this.password = null;
+    }
+
+    // El registro de sesiones agrupa por principal: dos logins del mismo email son el mismo
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof UsuarioPrincipal otro && Objects.equals(email, otro.email);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(email);
+    }
+
+    @Override
+    public String toString() {
+        return "UsuarioPrincipal[id=" + id + ", email=" + email + ", rol=" + rol + "]";
+    }
+}
@@ -0,0 +1,18 @@
+package com.gosport.demo.security;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+/**
+ * No hay cupo para verificar la contraseña ahora (cola de BCrypt llena o
+ * espera vencida). El login falla rápido en lugar de ocupar un hilo.
+ */
+public class VerificacionSaturadaException extends AuthenticationServiceException {
+
+    public VerificacionSaturadaException(String mensaje) {
+        super(mensaje);
+    }
+
+    public VerificacionSaturadaException(String mensaje, Throwable causa) {
+        super(mensaje, causa);
+    }
+}
@@ -0,0 +1,160 @@
+package com.gosport.demo.service;
+
+import com.gosport.demo.model.Anuncio;
+import com.gosport.demo.model.Cancha;
+import com.gosport.demo.model.EmailOutbox;
+import com.gosport.demo.repository.AnuncioRepository;
+import com.gosport.demo.repository.EmailOutboxRepository;
+import com.gosport.demo.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Anuncios masivos. Cada ciclo encola un lote de destinatarios por anuncio
+ * y avanza su cursor en la misma transacción; el siguiente lote solo se
+ * encola cuando el outbox ya despachó casi todo el anterior.
+ */
+@Service
+public class AnuncioService {
+
+    private static final List<EmailOutbox.EstadoEmail> EN_OUTBOX =
+        List.of(EmailOutbox.EstadoEmail.PENDIENTE, EmailOutbox.EstadoEmail.ENVIANDO);
+
+    private final AnuncioRepository anuncioRepository;
+    private final UserRepository userRepository;
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final EmailService emailService;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanoLote;
+
+    public AnuncioService(AnuncioRepository anuncioRepository,
+                          UserRepository userRepository,
+                          EmailOutboxRepository emailOutboxRepository,
+                          EmailService emailService,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${gosports.anuncios.tamano-lote:200}") int tamanoLote) {
+        this.anuncioRepository = anuncioRepository;
+        this.userRepository = userRepository;
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.emailService = emailService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tamanoLote = tamanoLote;
+    }
+
+    // ====================================
+    // CREAR / PAUSAR / REANUDAR
+    // ====================================
+
+    public Anuncio crear(String asunto, String mensaje, Anuncio.Audiencia audiencia,
+                         Long canchaId, String creadoPor) {
+        if (audiencia == Anuncio.Audiencia.RESERVAS_CANCHA && canchaId == null) {
+            throw new IllegalArgumentException("Falta la cancha del anuncio");
+        }
+
+        Anuncio anuncio = new Anuncio();
+        anuncio.setAsunto(asunto);
+        anuncio.setMensaje(mensaje);
+        anuncio.setAudiencia(audiencia);
+        anuncio.setCanchaId(canchaId);
+        anuncio.setCreadoPor(creadoPor);
+        anuncio = anuncioRepository.save(anuncio);
+        System.out.println("📢 Anuncio " + anuncio.getId() + " creado para " + audiencia);
+        return anuncio;
+    }
+
+    /**
+     * Aviso a quienes tienen reservas próximas en una cancha que entra en mantenimiento.
+     */
+    public Anuncio anunciarMantenimiento(Cancha cancha, String creadoPor) {
+        return crear(
+            "Cancha " + cancha.getNombre() + " en mantenimiento",
+            "La cancha " + cancha.getNombre() + " (" + cancha.getDireccion() + ") entró en mantenimiento.\n"
+                + "Si tienes una reserva próxima allí, revisa su estado o comunícate con nosotros "
+                + "para reprogramarla.",
+            Anuncio.Audiencia.RESERVAS_CANCHA, cancha.getId(), creadoPor);
+    }
+
+    public Anuncio pausar(Long id) {
+        return cambiarEstado(id, Anuncio.EstadoAnuncio.EN_CURSO, Anuncio.EstadoAnuncio.PAUSADO);
+    }
+
+    public Anuncio reanudar(Long id) {
+        return cambiarEstado(id, Anuncio.EstadoAnuncio.PAUSADO, Anuncio.EstadoAnuncio.EN_CURSO);
+    }
+
+    public Optional<Anuncio> obtener(Long id) {
+        return anuncioRepository.findById(id);
+    }
+
+    private Anuncio cambiarEstado(Long id, Anuncio.EstadoAnuncio desde, Anuncio.EstadoAnuncio hacia) {
+        return transactionTemplate.execute(status -> {
+            Anuncio anuncio = anuncioRepository.bloquear(id)
+                .orElseThrow(() -> new RuntimeException("Anuncio no encontrado"));
+            if (anuncio.getEstado() != desde) {
+                throw new IllegalStateException("El anuncio está " + anuncio.getEstado());
+            }
+            anuncio.setEstado(hacia);
+            return anuncioRepository.save(anuncio);
+        });
+    }
+
+    // ====================================
+    // PROCESAMIENTO
+    // ====================================
+
+    @Scheduled(fixedDelayString = "${gosports.anuncios.intervalo-ms:5000}")
+    public void procesar() {
+        for (Anuncio anuncio : anuncioRepository.findByEstado(Anuncio.EstadoAnuncio.EN_CURSO)) {
+            // Contrapresión: no inundar el outbox mientras el lote anterior se envía
+            long enOutbox = emailOutboxRepository.countByAnuncioIdAndEstadoIn(anuncio.getId(), EN_OUTBOX);
+            if (enOutbox > tamanoLote / 2) {
+                continue;
+            }
+            try {
+                avanzar(anuncio.getId());
+            } catch (Exception e) {
+                System.err.println("❌ Error procesando anuncio " + anuncio.getId() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void avanzar(Long anuncioId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            // El bloqueo evita que dos nodos encolen el mismo lote
+            Anuncio anuncio = anuncioRepository.bloquear(anuncioId).orElse(null);
+            if (anuncio == null || anuncio.getEstado() != Anuncio.EstadoAnuncio.EN_CURSO) {
+                return;
+            }
+
+            PageRequest pagina = PageRequest.of(0, tamanoLote);
+            List<Object[]> destinatarios = anuncio.getAudiencia() == Anuncio.Audiencia.RESERVAS_CANCHA
+                ? userRepository.obtenerConReservasProximasDesde(anuncio.getCanchaId(), LocalDate.now(),
+                    anuncio.getUltimoUsuarioId(), pagina)
+                : userRepository.obtenerActivosDesde(anuncio.getUltimoUsuarioId(), pagina);
+
+            if (destinatarios.isEmpty()) {
+                anuncio.setEstado(Anuncio.EstadoAnuncio.COMPLETADO);
+                anuncio.setFinalizadoAt(LocalDateTime.now());
+                System.out.println("📢 Anuncio " + anuncio.getId() + " completado: " + anuncio.getEncolados() + " correos");
+            } else {
+                int encolados = emailService.encolarAnuncio(anuncio, destinatarios);
+                if (encolados == 0) {
+                    // Email deshabilitado: el cursor no avanza para no perder destinatarios
+                    return;
+                }
+                anuncio.setUltimoUsuarioId((Long) destinatarios.get(encolados - 1)[0]);
+                anuncio.setEncolados(anuncio.getEncolados() + encolados);
+            }
+            anuncioRepository.save(anuncio);
+        });
+    }
+}
@@ -0,0 +1,105 @@
+package com.gosport.demo.service;
+
+import com.gosport.demo.repository.PagoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Conciliación periódica con Wompi. Solo consulta los pagos que todavía no
+ * tienen estado final (los terminados nunca se vuelven a pedir), por lotes
+ * y con un número acotado de consultas simultáneas. Las páginas de estado
+ * leen el estado local; esto y el webhook son los que lo actualizan.
+ */
+@Service
+public class ConciliacionPagoService {
+
+    private final PagoRepository pagoRepository;
+    private final PagoService pagoService;
+    private final int tamanoLote;
+    private final int paralelismo;
+    private final long graciaSegundos;
+    private final int maxDias;
+
+    private final Counter consultas;
+    private final Counter errores;
+
+    public ConciliacionPagoService(PagoRepository pagoRepository,
+                                   PagoService pagoService,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${gosports.pagos.conciliacion.tamano-lote:200}") int tamanoLote,
+                                   @Value("${gosports.pagos.conciliacion.paralelismo:4}") int paralelismo,
+                                   @Value("${gosports.pagos.conciliacion.gracia-segundos:120}") long graciaSegundos,
+                                   @Value("${gosports.pagos.conciliacion.max-dias:7}") int maxDias) {
+        this.pagoRepository = pagoRepository;
+        this.pagoService = pagoService;
+        this.tamanoLote = tamanoLote;
+        this.paralelismo = paralelismo;
+        this.graciaSegundos = graciaSegundos;
+        this.maxDias = maxDias;
+
+        this.consultas = Counter.builder("gosport.pagos.conciliacion.consultas")
+            .description("Consultas de estado hechas a Wompi por la conciliación")
+            .register(meterRegistry);
+        this.errores = Counter.builder("gosport.pagos.conciliacion.errores")
+            .description("Consultas de conciliación que fallaron")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${gosports.pagos.conciliacion.intervalo-ms:60000}")
+    public void conciliar() {
+        if (!pagoService.isPasarelaDisponible()) {
+            // Circuito abierto: se reintenta en la próxima ejecución
+            return;
+        }
+        LocalDateTime ahora = LocalDateTime.now();
+        // Los recién creados todavía esperan el webhook; los muy viejos ya no se consultan
+        LocalDateTime desde = ahora.minusDays(maxDias);
+        LocalDateTime hasta = ahora.minusSeconds(graciaSegundos);
+
+        long ultimoId = 0L;
+        long total = 0;
+        while (true) {
+            List<Object[]> lote = pagoRepository.obtenerPendientesDeConciliar(
+                desde, hasta, ultimoId, PageRequest.of(0, tamanoLote));
+            if (lote.isEmpty()) {
+                break;
+            }
+            ultimoId = ((Number) lote.get(lote.size() - 1)[0]).longValue();
+            total += lote.size();
+
+            // Como mucho 'paralelismo' consultas en vuelo; cada resultado se aplica
+            // en su propia transacción (ver PagoService.sincronizarEstadoPago)
+            Flux.fromIterable(lote)
+                .map(fila -> (String) fila[1])
+                .flatMap(transactionId -> {
+                    consultas.increment();
+                    return pagoService.sincronizarEstadoPago(transactionId)
+                        .onErrorResume(e -> {
+                            errores.increment();
+                            System.err.println("⚠️ No se pudo conciliar la transacción " + transactionId + ": " + e.getMessage());
+                            return Mono.empty();
+                        });
+                }, paralelismo)
+                .then()
+                .block(Duration.ofMinutes(5));
+
+            if (lote.size() < tamanoLote) {
+                break;
+            }
+        }
+
+        if (total > 0) {
+            System.out.println("🔄 Pagos conciliados con Wompi: " + total);
+        }
+    }
+}
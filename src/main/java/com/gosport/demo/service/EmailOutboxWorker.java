@@ -0,0 +1,312 @@
+package com.gosport.demo.service;
+
+import com.gosport.demo.model.EmailOutbox;
+import com.gosport.demo.repository.EmailOutboxRepository;
+import com.gosport.demo.util.TokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Entrega los correos de email_outbox con un pool acotado de hilos.
+ * Los fallos se reintentan con backoff exponencial; al agotar los
+ * intentos el correo queda FALLIDO (dead letter).
+ *
+ * El envío pasa por un token bucket por proveedor SMTP. Los correos urgentes
+ * (confirmaciones, cancelaciones) pueden usar toda su capacidad; los masivos
+ * (recordatorios, anuncios) dejan una reserva y se reprograman si no alcanza.
+ */
+@Service
+public class EmailOutboxWorker {
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final EmailService emailService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor executor;
+
+    private final int tamanoLote;
+    private final int maxIntentos;
+    private final long backoffBaseSegundos;
+    private final long backoffMaxSegundos;
+    private final long bloqueoMinutos;
+
+    // Límite de envío por proveedor (host SMTP)
+    private final Map<String, TokenBucket> limitesPorProveedor = new ConcurrentHashMap<>();
+    private final String proveedor;
+    private final double capacidadLimite;
+    private final double correosPorSegundo;
+    private final double reservaUrgentes;
+    private final long esperaMaximaUrgenteMs;
+
+    // Métricas
+    private final Counter reintentos;
+    private final Counter deadLetters;
+    private final Timer tiempoEntrega;
+    private final Map<EmailOutbox.Prioridad, AtomicLong> pendientesPorPrioridad = new EnumMap<>(EmailOutbox.Prioridad.class);
+
+    public EmailOutboxWorker(EmailOutboxRepository emailOutboxRepository,
+                             EmailService emailService,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${gosports.mail.outbox.workers:4}") int workers,
+                             @Value("${gosports.mail.outbox.tamano-lote:50}") int tamanoLote,
+                             @Value("${gosports.mail.outbox.max-intentos:6}") int maxIntentos,
+                             @Value("${gosports.mail.outbox.backoff-base-segundos:30}") long backoffBaseSegundos,
+                             @Value("${gosports.mail.outbox.backoff-max-segundos:3600}") long backoffMaxSegundos,
+                             @Value("${gosports.mail.outbox.bloqueo-minutos:5}") long bloqueoMinutos,
+                             @Value("${spring.mail.host:smtp}") String proveedor,
+                             @Value("${gosports.mail.limite.capacidad:10}") double capacidadLimite,
+                             @Value("${gosports.mail.limite.por-segundo:1}") double correosPorSegundo,
+                             @Value("${gosports.mail.limite.reserva-urgentes:0.3}") double fraccionReserva,
+                             @Value("${gosports.mail.limite.espera-maxima-urgente-ms:10000}") long esperaMaximaUrgenteMs) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.emailService = emailService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.tamanoLote = tamanoLote;
+        this.maxIntentos = maxIntentos;
+        this.backoffBaseSegundos = backoffBaseSegundos;
+        this.backoffMaxSegundos = backoffMaxSegundos;
+        this.bloqueoMinutos = bloqueoMinutos;
+        this.proveedor = proveedor;
+        this.capacidadLimite = capacidadLimite;
+        this.correosPorSegundo = correosPorSegundo;
+        this.reservaUrgentes = capacidadLimite * fraccionReserva;
+        this.esperaMaximaUrgenteMs = esperaMaximaUrgenteMs;
+
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+            workers, workers, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(tamanoLote * 2),
+            r -> {
+                Thread t = new Thread(r, "email-" + contador.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        );
+
+        this.reintentos = Counter.builder("gosport.email.reintentos")
+            .description("Envíos fallidos que se volverán a intentar")
+            .register(meterRegistry);
+        this.deadLetters = Counter.builder("gosport.email.fallidos")
+            .description("Correos que agotaron los reintentos")
+            .register(meterRegistry);
+        this.tiempoEntrega = Timer.builder("gosport.email.entrega")
+            .description("Duración del envío SMTP")
+            .register(meterRegistry);
+        for (EmailOutbox.Prioridad prioridad : EmailOutbox.Prioridad.values()) {
+            AtomicLong pendientes = new AtomicLong();
+            pendientesPorPrioridad.put(prioridad, pendientes);
+            Gauge.builder("gosport.email.pendientes", pendientes, AtomicLong::get)
+                .description("Correos pendientes en el outbox")
+                .tag("prioridad", prioridad.name())
+                .register(meterRegistry);
+        }
+        Gauge.builder("gosport.email.tokens", this, w -> w.limite(w.proveedor).disponibles())
+            .description("Tokens disponibles del proveedor SMTP")
+            .tag("proveedor", proveedor)
+            .register(meterRegistry);
+        Gauge.builder("gosport.email.cola", executor, e -> e.getQueue().size())
+            .description("Correos reclamados esperando un hilo de envío")
+            .register(meterRegistry);
+    }
+
+    // ====================================
+    // RECLAMAR Y DESPACHAR
+    // ====================================
+
+    @Scheduled(fixedDelayString = "${gosports.mail.outbox.intervalo-ms:2000}")
+    public void procesar() {
+        // Solo se reclama lo que el pool puede recibir ahora
+        int capacidad = Math.min(executor.getQueue().remainingCapacity(), tamanoLote);
+        if (capacidad > 0) {
+            // Si el proveedor está por debajo de la reserva, solo se reclaman urgentes
+            int prioridadMaxima = limite(proveedor).disponibles() >= 1 + reservaUrgentes
+                ? EmailOutbox.Prioridad.values().length - 1
+                : ultimaPrioridadUrgente();
+            List<EmailOutbox> lote = reclamar(capacidad, prioridadMaxima);
+            for (EmailOutbox email : lote) {
+                executor.execute(() -> entregar(email));
+            }
+        }
+        actualizarPendientes();
+    }
+
+    private List<EmailOutbox> reclamar(int cantidad, int prioridadMaxima) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime ahora = LocalDateTime.now();
+            List<EmailOutbox> listos = emailOutboxRepository.reclamarListos(ahora, prioridadMaxima, PageRequest.of(0, cantidad));
+            for (EmailOutbox email : listos) {
+                email.setEstado(EmailOutbox.EstadoEmail.ENVIANDO);
+                email.setBloqueadoHasta(ahora.plusMinutes(bloqueoMinutos));
+            }
+            return listos;
+        });
+    }
+
+    // ====================================
+    // ENTREGA (hilos del pool de correo)
+    // ====================================
+
+    private void entregar(EmailOutbox email) {
+        if (!obtenerTurno(email.getPrioridadEmail())) {
+            reprogramarPorLimite(email);
+            return;
+        }
+
+        Timer.Sample muestra = Timer.start(meterRegistry);
+        try {
+            emailService.entregar(email);
+
+            email.setEstado(EmailOutbox.EstadoEmail.ENVIADO);
+            email.setEnviadoAt(LocalDateTime.now());
+            email.setUltimoError(null);
+            Counter.builder("gosport.email.enviados")
+                .tag("tipo", email.getTipo().name())
+                .register(meterRegistry)
+                .increment();
+            // Tiempo total desde que se encoló, por clase de prioridad
+            Timer.builder("gosport.email.espera")
+                .tag("prioridad", email.getPrioridadEmail().name())
+                .register(meterRegistry)
+                .record(Duration.between(email.getCreatedAt(), email.getEnviadoAt()));
+            System.out.println("✅ Email " + email.getTipo() + " enviado a: " + email.getDestinatario());
+
+        } catch (Exception e) {
+            int intentos = email.getIntentos() + 1;
+            email.setIntentos(intentos);
+            email.setUltimoError(e.getMessage());
+
+            if (intentos >= maxIntentos) {
+                email.setEstado(EmailOutbox.EstadoEmail.FALLIDO);
+                deadLetters.increment();
+                System.err.println("❌ Email " + email.getId() + " descartado tras " + intentos + " intentos: " + e.getMessage());
+            } else {
+                email.setEstado(EmailOutbox.EstadoEmail.PENDIENTE);
+                email.setProximoIntento(LocalDateTime.now().plusSeconds(calcularEspera(intentos)));
+                reintentos.increment();
+                System.err.println("⚠️ Error enviando email " + email.getId() + " (intento " + intentos + "): " + e.getMessage());
+            }
+        } finally {
+            muestra.stop(tiempoEntrega);
+        }
+
+        email.setBloqueadoHasta(null);
+        try {
+            emailOutboxRepository.save(email);
+        } catch (Exception e) {
+            // Al vencer el bloqueo se vuelve a reclamar
+            System.err.println("❌ No se pudo actualizar el email " + email.getId() + ": " + e.getMessage());
+        }
+    }
+
+    // ====================================
+    // LÍMITE POR PROVEEDOR
+    // ====================================
+
+    private TokenBucket limite(String nombreProveedor) {
+        return limitesPorProveedor.computeIfAbsent(nombreProveedor,
+            k -> new TokenBucket(capacidadLimite, correosPorSegundo));
+    }
+
+    /**
+     * Camino rápido: un CAS sobre el bucket. Los urgentes esperan un poco a que
+     * haya token; los masivos no esperan y respetan la reserva.
+     */
+    private boolean obtenerTurno(EmailOutbox.Prioridad prioridad) {
+        TokenBucket bucket = limite(proveedor);
+        if (!prioridad.isUrgente()) {
+            return bucket.intentarConsumir(reservaUrgentes);
+        }
+
+        long limiteEspera = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(esperaMaximaUrgenteMs);
+        while (!bucket.intentarConsumir()) {
+            long espera = bucket.nanosHastaDisponible(0);
+            if (System.nanoTime() + espera > limiteEspera) {
+                return false;
+            }
+            LockSupport.parkNanos(Math.max(espera, TimeUnit.MILLISECONDS.toNanos(5)));
+        }
+        return true;
+    }
+
+    private void reprogramarPorLimite(EmailOutbox email) {
+        EmailOutbox.Prioridad prioridad = email.getPrioridadEmail();
+        double reserva = prioridad.isUrgente() ? 0 : reservaUrgentes;
+        long esperaMs = Math.max(1000, TimeUnit.NANOSECONDS.toMillis(limite(proveedor).nanosHastaDisponible(reserva)));
+
+        // No cuenta como intento fallido
+        email.setEstado(EmailOutbox.EstadoEmail.PENDIENTE);
+        email.setProximoIntento(LocalDateTime.now().plus(Duration.ofMillis(esperaMs)));
+        email.setBloqueadoHasta(null);
+        Counter.builder("gosport.email.limitados")
+            .tag("prioridad", prioridad.name())
+            .register(meterRegistry)
+            .increment();
+        try {
+            emailOutboxRepository.save(email);
+        } catch (Exception e) {
+            System.err.println("❌ No se pudo reprogramar el email " + email.getId() + ": " + e.getMessage());
+        }
+    }
+
+    private int ultimaPrioridadUrgente() {
+        int ultima = 0;
+        for (EmailOutbox.Prioridad prioridad : EmailOutbox.Prioridad.values()) {
+            if (prioridad.isUrgente()) {
+                ultima = prioridad.ordinal();
+            }
+        }
+        return ultima;
+    }
+
+    private void actualizarPendientes() {
+        Map<Integer, Long> conteos = new HashMap<>();
+        for (Object[] fila : emailOutboxRepository.contarPendientesPorPrioridad()) {
+            conteos.put(((Number) fila[0]).intValue(), ((Number) fila[1]).longValue());
+        }
+        pendientesPorPrioridad.forEach((prioridad, gauge) ->
+            gauge.set(conteos.getOrDefault(prioridad.ordinal(), 0L)));
+    }
+
+    /**
+     * base * 2^(intentos-1), con tope y un 20% de variación aleatoria para
+     * que los reintentos no lleguen todos a la vez.
+     */
+    private long calcularEspera(int intentos) {
+        long espera = Math.min(backoffMaxSegundos, backoffBaseSegundos << Math.min(intentos - 1, 20));
+        long variacion = espera / 5;
+        return espera - variacion + ThreadLocalRandom.current().nextLong(2 * variacion + 1);
+    }
+
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        // Lo que quede en cola conserva el bloqueo y se reclama al vencer
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -1,16 +1,34 @@
 package com.gosport.demo.service;
 
+import com.gosport.demo.model.Anuncio;
+import com.gosport.demo.model.EmailOutbox;
 import com.gosport.demo.model.Reserva;
+import com.gosport.demo.repository.AnuncioRepository;
+import com.gosport.demo.repository.EmailOutboxRepository;
+import com.gosport.demo.repository.ReservaRepository;
+import jakarta.annotation.PostConstruct;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 @Service
 public class EmailService {
@@ -18,332 +36,217 @@ public class EmailService {
     @Autowired
     private JavaMailSender mailSender;
 
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private AnuncioRepository anuncioRepository;
+
     @Value("${gosports.mail.from:GoSports <noreply@gosports.com>}")
     private String fromEmail;
 
     @Value("${gosports.mail.enabled:true}")
     private boolean emailEnabled;
 
+    @Value("${app.base.url:http://localhost:8080}")
+    private String baseUrl;
+
+    private static final DateTimeFormatter FORMATO_FECHA =
+        DateTimeFormatter.ofPattern("dd 'de' MMMM 'de' yyyy", new Locale("es", "CO"));
+
+    private final Map<EmailOutbox.TipoEmail, EmailTemplate> plantillas = new EnumMap<>(EmailOutbox.TipoEmail.class);
+
     // ====================================
-    // EMAIL: NUEVA RESERVA CREADA
+    // ENCOLAR (se llaman dentro de la transacción del cambio de estado)
     // ====================================
     public void enviarEmailNuevaReserva(Reserva reserva) {
+        encolar(EmailOutbox.TipoEmail.NUEVA_RESERVA, reserva);
+    }
+
+    public void enviarEmailReservaConfirmada(Reserva reserva) {
+        encolar(EmailOutbox.TipoEmail.RESERVA_CONFIRMADA, reserva);
+    }
+
+    public void enviarEmailReservaCancelada(Reserva reserva) {
+        encolar(EmailOutbox.TipoEmail.RESERVA_CANCELADA, reserva);
+    }
+
+    /**
+     * Deja el correo en email_outbox. Si hay una transacción activa se une a
+     * ella, así el correo solo existe si el cambio de estado se confirmó.
+     */
+    @Transactional
+    public void encolar(EmailOutbox.TipoEmail tipo, Reserva reserva) {
         if (!emailEnabled) {
-            System.out.println("📧 Email deshabilitado. No se envió email de nueva reserva.");
+            System.out.println("📧 Email deshabilitado. No se encoló email " + tipo);
             return;
         }
 
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        emailOutboxRepository.save(nuevoEmail(tipo, reserva.getId(), reserva.getUsuario().getEmail()));
+    }
 
-            helper.setFrom(fromEmail);
-            helper.setTo(reserva.getUsuario().getEmail());
-            helper.setSubject("✅ Reserva Creada - GoSports");
-            helper.setText(construirHtmlNuevaReserva(reserva), true);
+    /**
+     * Variante por lotes para los recordatorios (no necesita cargar las reservas).
+     * @return cuántos se encolaron (0 si el email está deshabilitado)
+     */
+    @Transactional
+    public int encolarLote(EmailOutbox.TipoEmail tipo, List<Object[]> reservasYEmails) {
+        if (!emailEnabled || reservasYEmails.isEmpty()) {
+            return 0;
+        }
 
-            mailSender.send(message);
-            System.out.println("✅ Email de nueva reserva enviado a: " + reserva.getUsuario().getEmail());
+        List<EmailOutbox> lote = new ArrayList<>(reservasYEmails.size());
+        for (Object[] fila : reservasYEmails) {
+            lote.add(nuevoEmail(tipo, (Long) fila[0], (String) fila[1]));
+        }
+        emailOutboxRepository.saveAll(lote);
+        return lote.size();
+    }
 
-        } catch (MessagingException e) {
-            System.err.println("❌ Error al enviar email de nueva reserva: " + e.getMessage());
+    /**
+     * Encola un lote de destinatarios ([id, email, nombre]) de un anuncio.
+     * @return cuántos se encolaron, en orden (0 si el email está deshabilitado)
+     */
+    @Transactional
+    public int encolarAnuncio(Anuncio anuncio, List<Object[]> destinatarios) {
+        if (!emailEnabled || destinatarios.isEmpty()) {
+            return 0;
         }
+
+        List<EmailOutbox> lote = new ArrayList<>(destinatarios.size());
+        for (Object[] fila : destinatarios) {
+            EmailOutbox email = nuevoEmail(EmailOutbox.TipoEmail.ANUNCIO, null, (String) fila[1]);
+            email.setAnuncioId(anuncio.getId());
+            email.setNombreDestinatario((String) fila[2]);
+            lote.add(email);
+        }
+        emailOutboxRepository.saveAll(lote);
+        return lote.size();
+    }
+
+    private EmailOutbox nuevoEmail(EmailOutbox.TipoEmail tipo, Long reservaId, String destinatario) {
+        EmailOutbox email = new EmailOutbox();
+        email.setTipo(tipo);
+        email.setReservaId(reservaId);
+        email.setDestinatario(destinatario);
+        return email;
     }
 
     // ====================================
-    // EMAIL: RESERVA CONFIRMADA
+    // ENTREGA (la llama el worker del outbox)
     // ====================================
-    public void enviarEmailReservaConfirmada(Reserva reserva) {
-        if (!emailEnabled) return;
-
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
 
-            helper.setFrom(fromEmail);
-            helper.setTo(reserva.getUsuario().getEmail());
-            helper.setSubject("🎉 Reserva Confirmada - GoSports");
-            helper.setText(construirHtmlReservaConfirmada(reserva), true);
+    /**
+     * Genera y envía el correo. Lanza excepción si falla, para que el worker
+     * programe el reintento.
+     */
+    @Transactional(readOnly = true)
+    public void entregar(EmailOutbox email) throws MessagingException {
+        if (email.getTipo() == EmailOutbox.TipoEmail.ANUNCIO) {
+            entregarAnuncio(email);
+            return;
+        }
 
-            mailSender.send(message);
-            System.out.println("✅ Email de confirmación enviado a: " + reserva.getUsuario().getEmail());
+        Reserva reserva = reservaRepository.findById(email.getReservaId())
+            .orElseThrow(() -> new IllegalStateException("La reserva " + email.getReservaId() + " ya no existe"));
 
-        } catch (MessagingException e) {
-            System.err.println("❌ Error al enviar email de confirmación: " + e.getMessage());
+        boolean esRecordatorio = email.getTipo() == EmailOutbox.TipoEmail.RECORDATORIO_MANANA
+            || email.getTipo() == EmailOutbox.TipoEmail.RECORDATORIO_HOY;
+        if (esRecordatorio && reserva.getEstado() != Reserva.EstadoReserva.CONFIRMADA) {
+            // Se canceló después de encolar el recordatorio
+            System.out.println("📧 Recordatorio omitido, la reserva " + reserva.getCodigoReserva() + " ya no está confirmada");
+            return;
         }
+
+        String asunto = switch (email.getTipo()) {
+            case NUEVA_RESERVA -> "✅ Reserva Creada - GoSports";
+            case RESERVA_CONFIRMADA -> "🎉 Reserva Confirmada - GoSports";
+            case RESERVA_CANCELADA -> "❌ Reserva Cancelada - GoSports";
+            case RECORDATORIO_MANANA -> "⏰ Tu reserva es mañana - GoSports";
+            case RECORDATORIO_HOY -> "⏰ Tu reserva es hoy - GoSports";
+            case ANUNCIO -> throw new IllegalStateException("Los anuncios no dependen de una reserva");
+        };
+        enviar(email.getDestinatario(), asunto, renderizar(email.getTipo(), reserva));
     }
 
-    // ====================================
-    // EMAIL: RESERVA CANCELADA
-    // ====================================
-    public void enviarEmailReservaCancelada(Reserva reserva) {
-        if (!emailEnabled) return;
+    private void entregarAnuncio(EmailOutbox email) throws MessagingException {
+        Anuncio anuncio = anuncioRepository.findById(email.getAnuncioId())
+            .orElseThrow(() -> new IllegalStateException("El anuncio " + email.getAnuncioId() + " ya no existe"));
 
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        Map<String, String> valores = new HashMap<>(8);
+        valores.put("nombre", email.getNombreDestinatario());
+        valores.put("asunto", anuncio.getAsunto());
+        valores.put("mensaje", anuncio.getMensaje());
+        enviar(email.getDestinatario(), "📢 " + anuncio.getAsunto() + " - GoSports",
+            plantillas.get(EmailOutbox.TipoEmail.ANUNCIO).renderizar(valores));
+    }
 
-            helper.setFrom(fromEmail);
-            helper.setTo(reserva.getUsuario().getEmail());
-            helper.setSubject("❌ Reserva Cancelada - GoSports");
-            helper.setText(construirHtmlReservaCancelada(reserva), true);
+    private void enviar(String destinatario, String asunto, String html) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
 
-            mailSender.send(message);
-            System.out.println("✅ Email de cancelación enviado a: " + reserva.getUsuario().getEmail());
+        helper.setFrom(fromEmail);
+        helper.setTo(destinatario);
+        helper.setSubject(asunto);
+        helper.setText(html, true);
 
-        } catch (MessagingException e) {
-            System.err.println("❌ Error al enviar email de cancelación: " + e.getMessage());
-        }
+        mailSender.send(message);
     }
 
     // ====================================
-    // HTML: NUEVA RESERVA
+    // PLANTILLAS (precompiladas al iniciar)
     // ====================================
-    private String construirHtmlNuevaReserva(Reserva reserva) {
-        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd 'de' MMMM 'de' yyyy", new Locale("es", "CO"));
-        String fechaFormateada = reserva.getFecha().format(dateFormatter);
-
-        return """
-            <!DOCTYPE html>
-            <html>
-            <head>
-                <meta charset="UTF-8">
-                <style>
-                    body { font-family: Arial, sans-serif; line-height: 1.6; color: #333; }
-                    .container { max-width: 600px; margin: 0 auto; padding: 20px; }
-                    .header { background: linear-gradient(135deg, #667eea 0%%, #764ba2 100%%); color: white; padding: 30px; text-align: center; border-radius: 10px 10px 0 0; }
-                    .content { background: #f8f9fa; padding: 30px; border-radius: 0 0 10px 10px; }
-                    .info-box { background: white; padding: 20px; border-radius: 8px; margin: 20px 0; border-left: 4px solid #667eea; }
-                    .info-row { display: flex; justify-content: space-between; padding: 10px 0; border-bottom: 1px solid #eee; }
-                    .info-label { font-weight: bold; color: #666; }
-                    .info-value { color: #333; }
-                    .button { display: inline-block; padding: 12px 30px; background: #667eea; color: white; text-decoration: none; border-radius: 5px; margin: 20px 0; }
-                    .footer { text-align: center; padding: 20px; color: #666; font-size: 12px; }
-                    .status-badge { display: inline-block; padding: 5px 15px; background: #ffc107; color: #000; border-radius: 20px; font-weight: bold; }
-                </style>
-            </head>
-            <body>
-                <div class="container">
-                    <div class="header">
-                        <h1>¡Reserva Creada Exitosamente!</h1>
-                        <p>Tu reserva ha sido registrada en GoSports</p>
-                    </div>
-                    
-                    <div class="content">
-                        <p>Hola <strong>%s</strong>,</p>
-                        <p>Tu reserva ha sido creada exitosamente y está <span class="status-badge">PENDIENTE DE CONFIRMACIÓN</span></p>
-                        
-                        <div class="info-box">
-                            <h3 style="margin-top: 0; color: #667eea;">📋 Detalles de la Reserva</h3>
-                            
-                            <div class="info-row">
-                                <span class="info-label">Código de Reserva:</span>
-                                <span class="info-value"><strong>%s</strong></span>
-                            </div>
-                            
-                            <div class="info-row">
-                                <span class="info-label">🏟️ Cancha:</span>
-                                <span class="info-value">%s</span>
-                            </div>
-                            
-                            <div class="info-row">
-                                <span class="info-label">⚽ Deporte:</span>
-                                <span class="info-value">%s</span>
-                            </div>
-                            
-                            <div class="info-row">
-                                <span class="info-label">📅 Fecha:</span>
-                                <span class="info-value">%s</span>
-                            </div>
-                            
-                            <div class="info-row">
-                                <span class="info-label">🕐 Hora:</span>
-                                <span class="info-value">%s</span>
-                            </div>
-                            
-                            <div class="info-row">
-                                <span class="info-label">⏱️ Duración:</span>
-                                <span class="info-value">%.1f hora(s)</span>
-                            </div>
-                            
-                            <div class="info-row">
-                                <span class="info-label">💰 Precio Total:</span>
-                                <span class="info-value" style="color: #28a745; font-size: 18px;"><strong>$%,d COP</strong></span>
-                            </div>
-                        </div>
-                        
-                        <div style="background: #fff3cd; padding: 15px; border-radius: 5px; margin: 20px 0;">
-                            <strong>⚠️ Importante:</strong>
-                            <p style="margin: 5px 0;">Tu reserva está pendiente de confirmación por parte del administrador. Recibirás un correo cuando sea confirmada.</p>
-                        </div>
-                        
-                        <div style="text-align: center;">
-                            <a href="http://localhost:8080/reservas/detalle/%d" class="button">
-                                Ver Detalle de Reserva
-                            </a>
-                        </div>
-                        
-                        <div style="background: white; padding: 15px; border-radius: 5px; margin-top: 20px;">
-                            <h4 style="color: #667eea;">📍 Ubicación de la Cancha</h4>
-                            <p style="margin: 5px 0;"><strong>Dirección:</strong> %s</p>
-                            <p style="margin: 5px 0;"><strong>Barrio:</strong> %s</p>
-                            <p style="margin: 5px 0;"><strong>Localidad:</strong> %s</p>
-                        </div>
-                    </div>
-                    
-                    <div class="footer">
-                        <p>Este es un correo automático, por favor no respondas a este mensaje.</p>
-                        <p>© 2025 GoSports - Plataforma de Reserva de Canchas Deportivas</p>
-                        <p>Si tienes alguna pregunta, contáctanos en: soporte@gosports.com</p>
-                    </div>
-                </div>
-            </body>
-            </html>
-            """.formatted(
-                reserva.getUsuario().getName(),
-                reserva.getCodigoReserva(),
-                reserva.getCancha().getNombre(),
-                reserva.getCancha().getDeporte().getNombre(),
-                fechaFormateada,
-                reserva.getHoraInicio().toString(),
-                reserva.getDuracion(),
-                reserva.getPrecioTotal().intValue(),
-                reserva.getId(),
-                reserva.getCancha().getDireccion(),
-                reserva.getCancha().getBarrio(),
-                reserva.getCancha().getLocalidad()
-        );
+    @PostConstruct
+    void cargarPlantillas() throws IOException {
+        Map<String, String> constantes = Map.of("baseUrl", baseUrl);
+        for (EmailOutbox.TipoEmail tipo : EmailOutbox.TipoEmail.values()) {
+            String archivo = switch (tipo) {
+                case NUEVA_RESERVA -> "nueva-reserva";
+                case RESERVA_CONFIRMADA -> "reserva-confirmada";
+                case RESERVA_CANCELADA -> "reserva-cancelada";
+                case RECORDATORIO_MANANA, RECORDATORIO_HOY -> "recordatorio";
+                case ANUNCIO -> "anuncio";
+            };
+            try (InputStream in = new ClassPathResource("email/" + archivo + ".html").getInputStream()) {
+                String html = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                plantillas.put(tipo, EmailTemplate.compilar(html, constantes));
+            }
+        }
     }
 
-    // ====================================
-    // HTML: RESERVA CONFIRMADA
-    // ====================================
-    private String construirHtmlReservaConfirmada(Reserva reserva) {
-        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd 'de' MMMM 'de' yyyy", new Locale("es", "CO"));
-        String fechaFormateada = reserva.getFecha().format(dateFormatter);
-
-        return """
-            <!DOCTYPE html>
-            <html>
-            <head>
-                <meta charset="UTF-8">
-                <style>
-                    body { font-family: Arial, sans-serif; line-height: 1.6; color: #333; }
-                    .container { max-width: 600px; margin: 0 auto; padding: 20px; }
-                    .header { background: linear-gradient(135deg, #28a745 0%%, #20c997 100%%); color: white; padding: 30px; text-align: center; border-radius: 10px 10px 0 0; }
-                    .content { background: #f8f9fa; padding: 30px; border-radius: 0 0 10px 10px; }
-                    .info-box { background: white; padding: 20px; border-radius: 8px; margin: 20px 0; border-left: 4px solid #28a745; }
-                    .button { display: inline-block; padding: 12px 30px; background: #28a745; color: white; text-decoration: none; border-radius: 5px; margin: 20px 0; }
-                    .footer { text-align: center; padding: 20px; color: #666; font-size: 12px; }
-                    .success-icon { font-size: 60px; }
-                </style>
-            </head>
-            <body>
-                <div class="container">
-                    <div class="header">
-                        <div class="success-icon">✅</div>
-                        <h1>¡Reserva Confirmada!</h1>
-                        <p>Tu reserva ha sido aprobada</p>
-                    </div>
-                    
-                    <div class="content">
-                        <p>Hola <strong>%s</strong>,</p>
-                        <p><strong>¡Excelentes noticias!</strong> Tu reserva ha sido confirmada por el administrador.</p>
-                        
-                        <div class="info-box">
-                            <h3 style="margin-top: 0; color: #28a745;">📋 Tu Reserva Confirmada</h3>
-                            <p><strong>Código:</strong> %s</p>
-                            <p><strong>Cancha:</strong> %s</p>
-                            <p><strong>Fecha:</strong> %s</p>
-                            <p><strong>Hora:</strong> %s</p>
-                            <p><strong>Precio:</strong> $%,d COP</p>
-                        </div>
-                        
-                        <div style="background: #d1ecf1; padding: 15px; border-radius: 5px; margin: 20px 0; border-left: 4px solid #0c5460;">
-                            <strong>📌 Recordatorio:</strong>
-                            <p style="margin: 5px 0;">Por favor llega 10 minutos antes de tu hora reservada.</p>
-                            <p style="margin: 5px 0;">Presenta tu código de reserva al llegar.</p>
-                        </div>
-                        
-                        <div style="text-align: center;">
-                            <a href="http://localhost:8080/reservas/detalle/%d" class="button">
-                                Ver Código QR
-                            </a>
-                        </div>
-                    </div>
-                    
-                    <div class="footer">
-                        <p>© 2025 GoSports - ¡Nos vemos en la cancha! 🏆</p>
-                    </div>
-                </div>
-            </body>
-            </html>
-            """.formatted(
-                reserva.getUsuario().getName(),
-                reserva.getCodigoReserva(),
-                reserva.getCancha().getNombre(),
-                fechaFormateada,
-                reserva.getHoraInicio().toString(),
-                reserva.getPrecioTotal().intValue(),
-                reserva.getId()
-        );
+    private String renderizar(EmailOutbox.TipoEmail tipo, Reserva reserva) {
+        Map<String, String> valores = new HashMap<>(32);
+        valores.put("nombre", reserva.getUsuario().getName());
+        valores.put("codigo", reserva.getCodigoReserva());
+        valores.put("reservaId", String.valueOf(reserva.getId()));
+        valores.put("cancha", reserva.getCancha().getNombre());
+        valores.put("deporte", reserva.getCancha().getDeporte().getNombre());
+        valores.put("direccion", reserva.getCancha().getDireccion());
+        valores.put("barrio", reserva.getCancha().getBarrio());
+        valores.put("localidad", reserva.getCancha().getLocalidad());
+        valores.put("fecha", reserva.getFecha().format(FORMATO_FECHA));
+        valores.put("hora", reserva.getHoraInicio().toString());
+        valores.put("duracion", BigDecimal.valueOf(reserva.getDuracion()).setScale(1, RoundingMode.HALF_UP).toPlainString());
+        valores.put("precio", formatearPesos(reserva.getPrecioTotal().longValue()));
+        valores.put("cuando", tipo == EmailOutbox.TipoEmail.RECORDATORIO_MANANA ? "mañana" : "hoy");
+        return plantillas.get(tipo).renderizar(valores);
     }
 
-    // ====================================
-    // HTML: RESERVA CANCELADA
-    // ====================================
-    private String construirHtmlReservaCancelada(Reserva reserva) {
-        return """
-            <!DOCTYPE html>
-            <html>
-            <head>
-                <meta charset="UTF-8">
-                <style>
-                    body { font-family: Arial, sans-serif; line-height: 1.6; color: #333; }
-                    .container { max-width: 600px; margin: 0 auto; padding: 20px; }
-                    .header { background: linear-gradient(135deg, #dc3545 0%%, #c82333 100%%); color: white; padding: 30px; text-align: center; border-radius: 10px 10px 0 0; }
-                    .content { background: #f8f9fa; padding: 30px; border-radius: 0 0 10px 10px; }
-                    .footer { text-align: center; padding: 20px; color: #666; font-size: 12px; }
-                    .button { display: inline-block; padding: 12px 30px; background: #667eea; color: white; text-decoration: none; border-radius: 5px; margin: 20px 0; }
-                </style>
-            </head>
-            <body>
-                <div class="container">
-                    <div class="header">
-                        <h1>Reserva Cancelada</h1>
-                    </div>
-                    
-                    <div class="content">
-                        <p>Hola <strong>%s</strong>,</p>
-                        <p>Tu reserva con código <strong>%s</strong> ha sido cancelada.</p>
-                        
-                        <div style="background: white; padding: 20px; border-radius: 8px; margin: 20px 0;">
-                            <p><strong>Cancha:</strong> %s</p>
-                            <p><strong>Fecha:</strong> %s</p>
-                            <p><strong>Hora:</strong> %s</p>
-                        </div>
-                        
-                        <p>Si tienes alguna pregunta, no dudes en contactarnos.</p>
-                        
-                        <div style="text-align: center;">
-                            <a href="http://localhost:8080/canchas" class="button">
-                                Hacer Nueva Reserva
-                            </a>
-                        </div>
-                    </div>
-                    
-                    <div class="footer">
-                        <p>© 2025 GoSports</p>
-                    </div>
-                </div>
-            </body>
-            </html>
-            """.formatted(
-                reserva.getUsuario().getName(),
-                reserva.getCodigoReserva(),
-                reserva.getCancha().getNombre(),
-                reserva.getFecha().toString(),
-                reserva.getHoraInicio().toString()
-        );
+    // 1234567 -> "1,234,567" (igual que el %,d de antes, sin crear un Formatter)
+    private static String formatearPesos(long valor) {
+        String digitos = Long.toString(Math.abs(valor));
+        StringBuilder sb = new StringBuilder(digitos.length() + digitos.length() / 3 + 1);
+        if (valor < 0) {
+            sb.append('-');
+        }
+        int primerGrupo = digitos.length() % 3 == 0 ? 3 : digitos.length() % 3;
+        sb.append(digitos, 0, primerGrupo);
+        for (int i = primerGrupo; i < digitos.length(); i += 3) {
+            sb.append(',').append(digitos, i, i + 3);
+        }
+        return sb.toString();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,188 @@
+package com.gosport.demo.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Plantilla de correo precompilada. Al compilar se pasan los estilos del
+ * bloque {@code <style>} a atributos style (los clientes de correo suelen
+ * ignorar las hojas de estilo), se reemplazan las constantes y el HTML se
+ * parte en segmentos fijos y variables {@code {{nombre}}}. Renderizar solo
+ * concatena los segmentos con los valores escapados.
+ */
+public final class EmailTemplate {
+
+    private static final Pattern VARIABLE = Pattern.compile("\\{\\{\\s*([a-zA-Z0-9_]+)\\s*}}");
+    private static final Pattern BLOQUE_STYLE = Pattern.compile("<style[^>]*>(.*?)</style>", Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
+    private static final Pattern REGLA_CSS = Pattern.compile("([^{}]+)\\{([^}]*)}");
+    private static final Pattern ETIQUETA = Pattern.compile("<([a-zA-Z][a-zA-Z0-9]*)(\\s[^<>]*?)?(/?)>");
+    private static final Pattern ATRIBUTO_CLASS = Pattern.compile("\\sclass=\"([^\"]*)\"");
+    private static final Pattern ATRIBUTO_STYLE = Pattern.compile("\\sstyle=\"([^\"]*)\"");
+
+    // Buffers reutilizados por hilo; los que crecen demasiado no se conservan
+    private static final int MAX_BUFFER_REUTILIZABLE = 64 * 1024;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(8 * 1024));
+
+    private final String[] fijos;      // fijos.length == variables.length + 1
+    private final String[] variables;
+    private final int longitudFija;
+
+    private EmailTemplate(String[] fijos, String[] variables) {
+        this.fijos = fijos;
+        this.variables = variables;
+        int longitud = 0;
+        for (String fijo : fijos) {
+            longitud += fijo.length();
+        }
+        this.longitudFija = longitud;
+    }
+
+    // ====================================
+    // COMPILAR (una vez, al iniciar)
+    // ====================================
+
+    /**
+     * @param html       plantilla con {@code {{variable}}}
+     * @param constantes valores fijos (p. ej. la URL base) que se resuelven ahora
+     */
+    public static EmailTemplate compilar(String html, Map<String, String> constantes) {
+        String inlineado = inlinearCss(html);
+
+        List<String> fijos = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        Matcher m = VARIABLE.matcher(inlineado);
+        int desde = 0;
+        while (m.find()) {
+            actual.append(inlineado, desde, m.start());
+            String nombre = m.group(1);
+            if (constantes.containsKey(nombre)) {
+                actual.append(escapar(constantes.get(nombre)));
+            } else {
+                fijos.add(actual.toString());
+                variables.add(nombre);
+                actual.setLength(0);
+            }
+            desde = m.end();
+        }
+        actual.append(inlineado.substring(desde));
+        fijos.add(actual.toString());
+
+        return new EmailTemplate(fijos.toArray(new String[0]), variables.toArray(new String[0]));
+    }
+
+    // ====================================
+    // RENDERIZAR
+    // ====================================
+
+    /**
+     * Variables que no vengan en el mapa quedan vacías. Todos los valores se escapan.
+     */
+    public String renderizar(Map<String, String> valores) {
+        StringBuilder sb = BUFFER.get();
+        sb.setLength(0);
+        sb.ensureCapacity(longitudFija + variables.length * 32);
+
+        for (int i = 0; i < variables.length; i++) {
+            sb.append(fijos[i]);
+            String valor = valores.get(variables[i]);
+            if (valor != null) {
+                escapar(valor, sb);
+            }
+        }
+        sb.append(fijos[variables.length]);
+
+        String resultado = sb.toString();
+        if (sb.capacity() > MAX_BUFFER_REUTILIZABLE) {
+            BUFFER.remove();
+        }
+        return resultado;
+    }
+
+    // ===============================
+    // MÉTODOS AUXILIARES
+    // ===============================
+
+    private static String escapar(String valor) {
+        StringBuilder sb = new StringBuilder(valor.length() + 16);
+        escapar(valor, sb);
+        return sb.toString();
+    }
+
+    private static void escapar(String valor, StringBuilder sb) {
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '<' -> sb.append("&lt;");
+                case '>' -> sb.append("&gt;");
+                case '&' -> sb.append("&amp;");
+                case '"' -> sb.append("&quot;");
+                case '\'' -> sb.append("&#39;");
+                default -> sb.append(c);
+            }
+        }
+    }
+
+    /**
+     * Inliner mínimo para nuestras plantillas: soporta selectores de etiqueta
+     * (body, h1) y de clase (.header), separados por comas. El estilo que ya
+     * tenga la etiqueta se deja al final para que siga teniendo prioridad.
+     */
+    private static String inlinearCss(String html) {
+        Matcher bloque = BLOQUE_STYLE.matcher(html);
+        if (!bloque.find()) {
+            return html;
+        }
+
+        Map<String, StringBuilder> reglas = new LinkedHashMap<>();
+        Matcher regla = REGLA_CSS.matcher(bloque.group(1));
+        while (regla.find()) {
+            String declaraciones = regla.group(2).trim();
+            if (!declaraciones.endsWith(";")) {
+                declaraciones += ";";
+            }
+            for (String selector : regla.group(1).split(",")) {
+                reglas.computeIfAbsent(selector.trim(), k -> new StringBuilder()).append(' ').append(declaraciones);
+            }
+        }
+        String sinStyle = bloque.replaceFirst("");
+
+        Matcher etiqueta = ETIQUETA.matcher(sinStyle);
+        StringBuilder resultado = new StringBuilder(sinStyle.length() * 2);
+        while (etiqueta.find()) {
+            String nombre = etiqueta.group(1).toLowerCase();
+            String atributos = etiqueta.group(2) != null ? etiqueta.group(2) : "";
+
+            StringBuilder estilo = new StringBuilder();
+            if (reglas.containsKey(nombre)) {
+                estilo.append(reglas.get(nombre));
+            }
+            Matcher clase = ATRIBUTO_CLASS.matcher(atributos);
+            if (clase.find()) {
+                for (String c : clase.group(1).trim().split("\\s+")) {
+                    StringBuilder deClase = reglas.get("." + c);
+                    if (deClase != null) {
+                        estilo.append(deClase);
+                    }
+                }
+            }
+
+            if (estilo.length() > 0) {
+                Matcher propio = ATRIBUTO_STYLE.matcher(atributos);
+                if (propio.find()) {
+                    estilo.append(' ').append(propio.group(1));
+                    atributos = propio.replaceFirst("");
+                }
+                atributos = atributos + " style=\"" + estilo.toString().trim() + "\"";
+            }
+            etiqueta.appendReplacement(resultado,
+                Matcher.quoteReplacement("<" + etiqueta.group(1) + atributos + etiqueta.group(3) + ">"));
+        }
+        etiqueta.appendTail(resultado);
+        return resultado.toString();
+    }
+}
@@ -0,0 +1,149 @@
+package com.gosport.demo.service;
+
+import com.gosport.demo.model.Pago;
+import com.gosport.demo.repository.PagoRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Long-poll del estado de un pago. Cada navegador en la página de estado
+ * deja una petición en espera (DeferredResult) por referencia; cuando el
+ * webhook o la conciliación confirman un cambio, se responden todas de
+ * una vez. Mientras espera no consulta la base de datos ni a Wompi.
+ *
+ * El registro es por instancia y el cambio puede confirmarse en otra. Por
+ * eso el estado se lee de la base de datos (una consulta por la clave
+ * única) antes de quedar en espera y otra vez al vencer: un cambio hecho
+ * en otra instancia llega a más tardar con el timeout.
+ */
+@Service
+public class EsperaPagoService {
+
+    /**
+     * Se publica dentro de la transacción que cambia el estado del pago;
+     * las esperas se responden solo después del commit.
+     */
+    public record PagoActualizado(String referencia, Pago.EstadoPago estado) {}
+
+    private record Reciente(Pago.EstadoPago estado, long nanos) {}
+
+    private final Map<String, Set<DeferredResult<ResponseEntity<Map<String, Object>>>>> esperas = new ConcurrentHashMap<>();
+    // Últimos cambios: cubren el cambio que llega justo antes de registrar la espera
+    private final Map<String, Reciente> recientes = new ConcurrentHashMap<>();
+    private final AtomicInteger enEspera = new AtomicInteger();
+
+    private final PagoRepository pagoRepository;
+    private final long timeoutMs;
+    private final int maxEsperas;
+    private final long retencionRecientesNanos;
+
+    public EsperaPagoService(PagoRepository pagoRepository,
+                             @Value("${gosports.pagos.espera.timeout-ms:25000}") long timeoutMs,
+                             @Value("${gosports.pagos.espera.max-esperas:10000}") int maxEsperas,
+                             @Value("${gosports.pagos.espera.retencion-recientes-minutos:10}") long retencionRecientesMinutos) {
+        this.pagoRepository = pagoRepository;
+        this.timeoutMs = timeoutMs;
+        this.maxEsperas = maxEsperas;
+        this.retencionRecientesNanos = TimeUnit.MINUTES.toNanos(retencionRecientesMinutos);
+    }
+
+    /**
+     * Espera a que el pago deje el estado que el navegador ya conoce.
+     * Al vencer vuelve a leer el estado; si no cambió responde
+     * {cambiado: false} y el navegador vuelve a pedir.
+     */
+    public DeferredResult<ResponseEntity<Map<String, Object>>> esperar(String referencia, Pago.EstadoPago estadoConocido) {
+        DeferredResult<ResponseEntity<Map<String, Object>>> resultado =
+            new DeferredResult<>(timeoutMs, ResponseEntity.ok(respuesta(false, estadoConocido)));
+
+        if (enEspera.incrementAndGet() > maxEsperas) {
+            enEspera.decrementAndGet();
+            resultado.setResult(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "5")
+                .body(respuesta(false, estadoConocido)));
+            return resultado;
+        }
+
+        Set<DeferredResult<ResponseEntity<Map<String, Object>>>> conjunto =
+            esperas.computeIfAbsent(referencia, k -> ConcurrentHashMap.newKeySet());
+        conjunto.add(resultado);
+        // Último recurso para un cambio confirmado en otra instancia
+        resultado.onTimeout(() -> estadoEnBaseDeDatos(referencia)
+            .filter(estado -> estado != estadoConocido)
+            .ifPresent(estado -> resultado.setResult(ResponseEntity.ok(respuesta(true, estado)))));
+        resultado.onCompletion(() -> {
+            enEspera.decrementAndGet();
+            esperas.computeIfPresent(referencia, (k, s) -> {
+                s.remove(resultado);
+                return s.isEmpty() ? null : s;
+            });
+        });
+
+        // Se revisa después de registrar, así no se pierde un cambio concurrente
+        Reciente reciente = recientes.get(referencia);
+        if (reciente != null && reciente.estado() != estadoConocido) {
+            resultado.setResult(ResponseEntity.ok(respuesta(true, reciente.estado())));
+            return resultado;
+        }
+
+        // El cambio pudo confirmarse en otra instancia, sin evento aquí
+        estadoEnBaseDeDatos(referencia)
+            .filter(estado -> estado != estadoConocido)
+            .ifPresent(estado -> resultado.setResult(ResponseEntity.ok(respuesta(true, estado))));
+        return resultado;
+    }
+
+    private Optional<Pago.EstadoPago> estadoEnBaseDeDatos(String referencia) {
+        try {
+            return pagoRepository.obtenerEstado(referencia);
+        } catch (Exception e) {
+            // Sin base de datos se sigue esperando el evento
+            System.err.println("⚠️ No se pudo leer el estado del pago " + referencia + ": " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alActualizar(PagoActualizado evento) {
+        recientes.put(evento.referencia(), new Reciente(evento.estado(), System.nanoTime()));
+
+        Set<DeferredResult<ResponseEntity<Map<String, Object>>>> conjunto = esperas.remove(evento.referencia());
+        if (conjunto != null) {
+            ResponseEntity<Map<String, Object>> respuesta = ResponseEntity.ok(respuesta(true, evento.estado()));
+            for (DeferredResult<ResponseEntity<Map<String, Object>>> resultado : conjunto) {
+                resultado.setResult(respuesta);
+            }
+        }
+    }
+
+    public int getEnEspera() {
+        return enEspera.get();
+    }
+
+    @Scheduled(fixedDelayString = "${gosports.pagos.espera.limpieza-ms:60000}")
+    public void limpiarRecientes() {
+        long ahora = System.nanoTime();
+        recientes.values().removeIf(r -> ahora - r.nanos() > retencionRecientesNanos);
+    }
+
+    private static Map<String, Object> respuesta(boolean cambiado, Pago.EstadoPago estado) {
+        Map<String, Object> cuerpo = new LinkedHashMap<>();
+        cuerpo.put("cambiado", cambiado);
+        cuerpo.put("estado", estado);
+        return cuerpo;
+    }
+}
@@ -0,0 +1,231 @@
+package com.gosport.demo.service;
+
+import com.gosport.demo.dto.ReservaExportDto;
+import com.gosport.demo.model.Reserva;
+import com.gosport.demo.model.User;
+import com.gosport.demo.repository.ReservaRepository;
+import com.gosport.demo.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Exportaciones a Excel en streaming: las filas llegan de un cursor de la BD
+ * y SXSSF solo mantiene una ventana de filas en memoria, el resto va a disco
+ * hasta escribirse en la salida.
+ */
+@Service
+public class ExcelExportService {
+
+    // Filas que SXSSF conserva en memoria antes de volcarlas a disco
+    private static final int VENTANA_FILAS = 100;
+
+    // Cada cuántas filas se informa el avance
+    public static final int INTERVALO_PROGRESO = 1000;
+
+    private static final DateTimeFormatter FORMATO_FECHA_HORA = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private static final String[] ENCABEZADOS_USUARIOS = {
+        "ID", "Nombre", "Email", "Teléfono", "Documento", "Rol", "Estado", "Fecha Registro"
+    };
+
+    private static final String[] ENCABEZADOS_RESERVAS = {
+        "Código", "Cancha", "Usuario", "Email", "Fecha", "Hora Inicio", "Hora Fin", "Duración (h)", "Estado", "Total"
+    };
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final UserRepository userRepository;
+    private final ReservaRepository reservaRepository;
+
+    public ExcelExportService(UserRepository userRepository, ReservaRepository reservaRepository) {
+        this.userRepository = userRepository;
+        this.reservaRepository = reservaRepository;
+    }
+
+    /**
+     * Escribe todos los usuarios en la salida. Retorna el número de filas escritas.
+     */
+    @Transactional(readOnly = true)
+    public long exportarUsuariosExcel(OutputStream out) throws IOException {
+        return exportarUsuariosExcel(out, filas -> { });
+    }
+
+    /**
+     * Igual que {@link #exportarUsuariosExcel(OutputStream)}, informando el avance
+     * cada {@value #INTERVALO_PROGRESO} filas (usado por los trabajos asíncronos).
+     */
+    @Transactional(readOnly = true)
+    public long exportarUsuariosExcel(OutputStream out, LongConsumer progreso) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(VENTANA_FILAS);
+        workbook.setCompressTempFiles(true);
+
+        try (Stream<User> usuarios = userRepository.streamAllByOrderByIdAsc()) {
+            Sheet sheet = workbook.createSheet("Usuarios");
+
+            // Encabezados
+            Row headerRow = sheet.createRow(0);
+            for (int i = 0; i < ENCABEZADOS_USUARIOS.length; i++) {
+                headerRow.createCell(i).setCellValue(ENCABEZADOS_USUARIOS[i]);
+            }
+
+            // Datos
+            int rowNum = 1;
+            Iterator<User> it = usuarios.iterator();
+            while (it.hasNext()) {
+                User u = it.next();
+                Row row = sheet.createRow(rowNum++);
+                row.createCell(0).setCellValue(u.getId());
+                row.createCell(1).setCellValue(u.getName());
+                row.createCell(2).setCellValue(u.getEmail());
+                row.createCell(3).setCellValue(u.getTelefono() != null ? u.getTelefono() : "");
+                row.createCell(4).setCellValue(u.getTipoDocumento() + " " + u.getNumeroIdentificacion());
+                row.createCell(5).setCellValue(u.getRol());
+                row.createCell(6).setCellValue(Boolean.TRUE.equals(u.getActivo()) ? "Activo" : "Inactivo");
+                row.createCell(7).setCellValue(u.getCreatedAt() != null ? u.getCreatedAt().format(FORMATO_FECHA_HORA) : "");
+
+                // Sacar la entidad del contexto de persistencia para que no crezca con el cursor
+                entityManager.detach(u);
+                if ((rowNum - 1) % INTERVALO_PROGRESO == 0) {
+                    progreso.accept(rowNum - 1L);
+                }
+            }
+
+            workbook.write(out);
+            out.flush();
+            return rowNum - 1L;
+
+        } finally {
+            // Borra los archivos temporales de SXSSF
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    /**
+     * Escribe las reservas que cumplen los filtros, con un subtotal por cancha
+     * calculado a medida que pasan las filas. Retorna el número de reservas escritas.
+     */
+    @Transactional(readOnly = true)
+    public long exportarReservasExcel(Reserva.EstadoReserva estado, Long canchaId,
+                                      LocalDate desde, LocalDate hasta,
+                                      OutputStream out) throws IOException {
+        return exportarReservasExcel(estado, canchaId, desde, hasta, out, filas -> { });
+    }
+
+    @Transactional(readOnly = true)
+    public long exportarReservasExcel(Reserva.EstadoReserva estado, Long canchaId,
+                                      LocalDate desde, LocalDate hasta,
+                                      OutputStream out, LongConsumer progreso) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(VENTANA_FILAS);
+        workbook.setCompressTempFiles(true);
+
+        try (Stream<ReservaExportDto> reservas = reservaRepository.streamConFiltros(estado, canchaId, desde, hasta)) {
+            Sheet sheet = workbook.createSheet("Reservas");
+
+            // Un solo estilo en negrita, compartido por encabezados y subtotales
+            Font negrita = workbook.createFont();
+            negrita.setBold(true);
+            CellStyle estiloNegrita = workbook.createCellStyle();
+            estiloNegrita.setFont(negrita);
+
+            Row headerRow = sheet.createRow(0);
+            for (int i = 0; i < ENCABEZADOS_RESERVAS.length; i++) {
+                headerRow.createCell(i).setCellValue(ENCABEZADOS_RESERVAS[i]);
+                headerRow.getCell(i).setCellStyle(estiloNegrita);
+            }
+
+            int rowNum = 1;
+            long totalFilas = 0;
+            Long canchaActualId = null;
+            String canchaActual = null;
+            long cantidadCancha = 0;
+            BigDecimal ingresosCancha = BigDecimal.ZERO;
+            BigDecimal ingresosTotales = BigDecimal.ZERO;
+
+            Iterator<ReservaExportDto> it = reservas.iterator();
+            while (it.hasNext()) {
+                ReservaExportDto r = it.next();
+
+                // Cambio de cancha: cerrar el subtotal de la anterior
+                if (canchaActualId != null && !Objects.equals(canchaActualId, r.canchaId())) {
+                    escribirSubtotal(sheet.createRow(rowNum++), estiloNegrita,
+                        "Subtotal " + canchaActual, cantidadCancha, ingresosCancha);
+                    cantidadCancha = 0;
+                    ingresosCancha = BigDecimal.ZERO;
+                }
+                canchaActualId = r.canchaId();
+                canchaActual = r.cancha();
+
+                Row row = sheet.createRow(rowNum++);
+                row.createCell(0).setCellValue(r.codigo());
+                row.createCell(1).setCellValue(r.cancha());
+                row.createCell(2).setCellValue(r.usuario());
+                row.createCell(3).setCellValue(r.email());
+                row.createCell(4).setCellValue(r.fecha().format(FORMATO_FECHA));
+                row.createCell(5).setCellValue(r.horaInicio().toString());
+                row.createCell(6).setCellValue(r.horaFin() != null ? r.horaFin().toString() : "");
+                row.createCell(7).setCellValue(r.duracion());
+                row.createCell(8).setCellValue(r.estado().getDisplayName());
+                row.createCell(9).setCellValue(r.precioTotal().doubleValue());
+
+                cantidadCancha++;
+                totalFilas++;
+                // Igual que en las estadísticas: las canceladas no suman ingresos
+                if (r.estado() != Reserva.EstadoReserva.CANCELADA) {
+                    ingresosCancha = ingresosCancha.add(r.precioTotal());
+                    ingresosTotales = ingresosTotales.add(r.precioTotal());
+                }
+
+                if (totalFilas % INTERVALO_PROGRESO == 0) {
+                    progreso.accept(totalFilas);
+                }
+            }
+
+            if (canchaActualId != null) {
+                escribirSubtotal(sheet.createRow(rowNum++), estiloNegrita,
+                    "Subtotal " + canchaActual, cantidadCancha, ingresosCancha);
+            }
+            escribirSubtotal(sheet.createRow(rowNum), estiloNegrita,
+                "TOTAL GENERAL", totalFilas, ingresosTotales);
+
+            workbook.write(out);
+            out.flush();
+            return totalFilas;
+
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    // ===============================
+    // MÉTODOS AUXILIARES
+    // ===============================
+    private void escribirSubtotal(Row row, CellStyle estilo, String etiqueta, long cantidad, BigDecimal ingresos) {
+        row.createCell(0).setCellValue(etiqueta);
+        row.createCell(1).setCellValue(cantidad + " reservas");
+        row.createCell(9).setCellValue(ingresos.doubleValue());
+        row.getCell(0).setCellStyle(estilo);
+        row.getCell(1).setCellStyle(estilo);
+        row.getCell(9).setCellStyle(estilo);
+    }
+}
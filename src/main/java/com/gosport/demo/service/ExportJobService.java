@@ -0,0 +1,332 @@
+package com.gosport.demo.service;
+
+import com.gosport.demo.model.ExportJob;
+import com.gosport.demo.model.Reserva;
+import com.gosport.demo.repository.ExportJobRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+
+/**
+ * Cola de exportaciones asíncronas. Los reportes se generan en un pool
+ * pequeño y acotado (nunca en hilos de Tomcat), el avance se guarda en
+ * export_jobs y el resultado queda en el directorio de spool.
+ *
+ * Cada trabajo guarda el nodo que lo ejecuta. Un reinicio solo da por
+ * interrumpidos los suyos; los de un nodo caído se detectan porque dejan
+ * de latir. Con varios nodos, el spool debe ser compartido para que
+ * cualquiera pueda servir la descarga.
+ */
+@Service
+public class ExportJobService {
+
+    private static final List<ExportJob.EstadoJob> ACTIVOS =
+        List.of(ExportJob.EstadoJob.EN_COLA, ExportJob.EstadoJob.PROCESANDO);
+
+    private final ExportJobRepository exportJobRepository;
+    private final ExcelExportService excelExportService;
+    private final PdfExportService pdfExportService;
+    private final Path spoolDir;
+    private final int retencionHoras;
+    private final int latidoVencidoMinutos;
+    private final String nodo;
+    private final ThreadPoolExecutor executor;
+
+    // clave de la solicitud -> id del trabajo en curso en este nodo. El que
+    // reserva la clave completa el future; los demás esperan ese id
+    private final ConcurrentHashMap<String, CompletableFuture<String>> enCurso = new ConcurrentHashMap<>();
+
+    public ExportJobService(ExportJobRepository exportJobRepository,
+                            ExcelExportService excelExportService,
+                            PdfExportService pdfExportService,
+                            @Value("${gosports.export.spool-dir:${java.io.tmpdir}/gosport-exports}") String spoolDir,
+                            @Value("${gosports.export.workers:2}") int workers,
+                            @Value("${gosports.export.cola-maxima:20}") int colaMaxima,
+                            @Value("${gosports.export.retencion-horas:24}") int retencionHoras,
+                            @Value("${gosports.export.latido-vencido-minutos:5}") int latidoVencidoMinutos,
+                            @Value("${gosports.nodo.id:}") String nodo) throws IOException {
+        this.exportJobRepository = exportJobRepository;
+        this.excelExportService = excelExportService;
+        this.pdfExportService = pdfExportService;
+        this.spoolDir = Files.createDirectories(Paths.get(spoolDir));
+        this.retencionHoras = retencionHoras;
+        this.latidoVencidoMinutos = latidoVencidoMinutos;
+        this.nodo = nodo.isBlank() ? nombreDelHost() : nodo;
+
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+            workers, workers, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(colaMaxima),
+            r -> {
+                Thread t = new Thread(r, "export-" + contador.incrementAndGet());
+                t.setDaemon(true);
+                t.setPriority(Thread.MIN_PRIORITY);
+                return t;
+            },
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    // ====================================
+    // SOLICITAR
+    // ====================================
+
+    /**
+     * Encola una exportación. Si ya hay una idéntica en curso, retorna esa.
+     *
+     * @throws IllegalStateException si la cola está llena
+     */
+    public ExportJob solicitar(ExportJob.TipoExportacion tipo,
+                               Reserva.EstadoReserva estado, Long canchaId,
+                               LocalDate desde, LocalDate hasta,
+                               String solicitadoPor) {
+        String clave = tipo + "|" + estado + "|" + canchaId + "|" + desde + "|" + hasta;
+
+        while (true) {
+            // Se reserva la clave sin trabajo dentro del mapa; la BD y el
+            // encolado van afuera, sin bloquear a nadie más
+            CompletableFuture<String> reserva = new CompletableFuture<>();
+            CompletableFuture<String> previa = enCurso.putIfAbsent(clave, reserva);
+
+            if (previa == null) {
+                try {
+                    // Puede existir uno en curso en otro nodo
+                    Optional<ExportJob> existente = exportJobRepository.findFirstByClaveAndEstadoIn(clave, ACTIVOS);
+                    if (existente.isPresent()) {
+                        enCurso.remove(clave, reserva);
+                        reserva.complete(existente.get().getId());
+                        return existente.get();
+                    }
+                    ExportJob job = crearYEncolar(clave, reserva, tipo, estado, canchaId, desde, hasta, solicitadoPor);
+                    reserva.complete(job.getId());
+                    return job;
+                } catch (RuntimeException e) {
+                    enCurso.remove(clave, reserva);
+                    reserva.completeExceptionally(e);
+                    throw e;
+                }
+            }
+
+            String id;
+            try {
+                id = previa.join();
+            } catch (CompletionException e) {
+                continue; // El que reservó falló (p. ej. cola llena): se intenta de nuevo
+            }
+            ExportJob job = exportJobRepository.findById(id).orElse(null);
+            if (job != null && !job.isTerminado()) {
+                return job;
+            }
+            // Entrada vieja (el trabajo ya terminó): reintentar
+            enCurso.remove(clave, previa);
+        }
+    }
+
+    public Optional<ExportJob> obtener(String id) {
+        return exportJobRepository.findById(id);
+    }
+
+    /**
+     * Archivo del resultado en el spool de este nodo (o el compartido).
+     */
+    public Path archivo(ExportJob job) {
+        Path ruta = Paths.get(job.getRutaArchivo());
+        return ruta.isAbsolute() ? ruta : spoolDir.resolve(ruta);
+    }
+
+    public boolean esDeEsteNodo(ExportJob job) {
+        return nodo.equals(job.getNodo());
+    }
+
+    public String getNodo() {
+        return nodo;
+    }
+
+    private ExportJob crearYEncolar(String clave, CompletableFuture<String> reserva, ExportJob.TipoExportacion tipo,
+                                    Reserva.EstadoReserva estado, Long canchaId,
+                                    LocalDate desde, LocalDate hasta, String solicitadoPor) {
+        ExportJob job = new ExportJob();
+        job.setId(UUID.randomUUID().toString());
+        job.setTipo(tipo);
+        job.setClave(clave);
+        job.setFiltroEstado(estado);
+        job.setFiltroCanchaId(canchaId);
+        job.setFiltroDesde(desde);
+        job.setFiltroHasta(hasta);
+        job.setSolicitadoPor(solicitadoPor);
+        job.setNodo(nodo);
+        exportJobRepository.save(job);
+
+        try {
+            executor.execute(() -> ejecutar(job.getId(), clave, reserva));
+        } catch (RejectedExecutionException e) {
+            job.setEstado(ExportJob.EstadoJob.FALLIDO);
+            job.setError("Cola de exportaciones llena");
+            job.setFinalizadoAt(LocalDateTime.now());
+            exportJobRepository.save(job);
+            throw new IllegalStateException("Hay demasiadas exportaciones en curso. Intenta de nuevo en unos minutos.");
+        }
+        return job;
+    }
+
+    // ====================================
+    // EJECUCIÓN (hilos del pool de exportación)
+    // ====================================
+
+    private void ejecutar(String id, String clave, CompletableFuture<String> reserva) {
+        Path temporal = spoolDir.resolve(id + ".part");
+        try {
+            ExportJob job = exportJobRepository.findById(id).orElse(null);
+            if (job == null || job.getEstado() != ExportJob.EstadoJob.EN_COLA) {
+                return;
+            }
+            job.setEstado(ExportJob.EstadoJob.PROCESANDO);
+            exportJobRepository.save(job);
+
+            LongConsumer progreso = filas -> exportJobRepository.actualizarProgreso(id, filas, LocalDateTime.now());
+
+            try {
+                long filas;
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporal), 64 * 1024)) {
+                    filas = switch (job.getTipo()) {
+                        case USUARIOS_EXCEL -> excelExportService.exportarUsuariosExcel(out, progreso);
+                        case USUARIOS_PDF -> pdfExportService.exportarUsuariosPdf(out, progreso);
+                        case RESERVAS_EXCEL -> excelExportService.exportarReservasExcel(
+                            job.getFiltroEstado(), job.getFiltroCanchaId(),
+                            job.getFiltroDesde(), job.getFiltroHasta(), out, progreso);
+                        case RESERVAS_PDF -> pdfExportService.exportarReservasPdf(
+                            job.getFiltroEstado(), job.getFiltroCanchaId(),
+                            job.getFiltroDesde(), job.getFiltroHasta(), out, progreso);
+                    };
+                }
+
+                String nombre = id + "." + job.getTipo().getExtension();
+                Path destino = spoolDir.resolve(nombre);
+                Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+                // Relativa al spool: un spool compartido puede montarse en otra ruta en cada nodo
+                int cerrados = exportJobRepository.marcarCompletado(id, nodo, ACTIVOS,
+                    filas, nombre, Files.size(destino), LocalDateTime.now());
+                if (cerrados == 0) {
+                    // El latido ya lo dio por fallido (y quizá se pidió de nuevo): el archivo sobra
+                    Files.deleteIfExists(destino);
+                    System.out.println("⚠️ Exportación " + id + " terminó tarde; ya estaba marcada como fallida");
+                } else {
+                    System.out.println("✅ Exportación " + job.getTipo() + " completada: " + filas + " filas");
+                }
+
+            } catch (Exception e) {
+                System.err.println("❌ Error en exportación " + id + ": " + e.getMessage());
+                try {
+                    Files.deleteIfExists(temporal);
+                } catch (IOException ignored) {
+                    // Se limpia con el resto del spool
+                }
+                exportJobRepository.marcarFallido(id, nodo, ACTIVOS, e.getMessage(), LocalDateTime.now());
+            }
+
+        } catch (Exception e) {
+            System.err.println("❌ No se pudo actualizar el trabajo de exportación " + id + ": " + e.getMessage());
+        } finally {
+            enCurso.remove(clave, reserva);
+        }
+    }
+
+    // ====================================
+    // MANTENIMIENTO
+    // ====================================
+
+    /**
+     * Los trabajos de este nodo que estaban en curso cuando se detuvo no se
+     * reanudan. Los de otros nodos siguen corriendo y no se tocan.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void marcarInterrumpidos() {
+        List<ExportJob> interrumpidos = exportJobRepository.findByNodoAndEstadoIn(nodo, ACTIVOS);
+        for (ExportJob job : interrumpidos) {
+            job.setEstado(ExportJob.EstadoJob.FALLIDO);
+            job.setError("Interrumpido por reinicio del servidor");
+            job.setFinalizadoAt(LocalDateTime.now());
+        }
+        exportJobRepository.saveAll(interrumpidos);
+    }
+
+    /**
+     * Renueva el latido de los trabajos de este nodo y da por fallidos los
+     * que llevan varios minutos sin latir: su nodo ya no existe.
+     */
+    @Scheduled(fixedDelayString = "${gosports.export.latido-ms:60000}")
+    public void latir() {
+        LocalDateTime ahora = LocalDateTime.now();
+        try {
+            exportJobRepository.renovarLatido(nodo, ACTIVOS, ahora);
+            int huerfanos = exportJobRepository.marcarSinLatido(ACTIVOS, ahora.minusMinutes(latidoVencidoMinutos),
+                "Interrumpido: el nodo que lo ejecutaba dejó de responder", ahora);
+            if (huerfanos > 0) {
+                System.out.println("⚠️ " + huerfanos + " exportación(es) de un nodo caído marcadas como fallidas");
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Error en el latido de exportaciones: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Borra los archivos (y registros) de exportaciones vencidas.
+     */
+    @Scheduled(fixedDelayString = "${gosports.export.limpieza-ms:3600000}")
+    public void limpiarVencidos() {
+        LocalDateTime limite = LocalDateTime.now().minusHours(retencionHoras);
+        for (ExportJob.EstadoJob estado : List.of(ExportJob.EstadoJob.COMPLETADO, ExportJob.EstadoJob.FALLIDO)) {
+            for (ExportJob job : exportJobRepository.findByEstadoAndFinalizadoAtBefore(estado, limite)) {
+                try {
+                    // Sin spool compartido, el archivo de otro nodo no se ve aquí (muere con su disco)
+                    if (job.getRutaArchivo() != null) {
+                        Files.deleteIfExists(archivo(job));
+                    }
+                    exportJobRepository.delete(job);
+                } catch (IOException e) {
+                    System.err.println("❌ No se pudo borrar la exportación " + job.getId() + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void detener() {
+        executor.shutdownNow();
+    }
+
+    private static String nombreDelHost() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            return "nodo-" + UUID.randomUUID().toString().substring(0, 8);
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.gosport.demo.service;
+
+import com.gosport.demo.model.Pago;
+import com.gosport.demo.model.Reserva;
+import org.apache.arrow.compression.CommonsCompressionFactory;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.TimeMilliVector;
+import org.apache.arrow.vector.TimeStampMilliVector;
+import org.apache.arrow.vector.TinyIntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.compression.CompressionUtil;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.ipc.message.IpcOption;
+import org.apache.arrow.vector.types.DateUnit;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.DictionaryEncoding;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Volcado columnar (Arrow IPC, comprimido con ZSTD) de reservas, pagos y
+ * usuarios para BI. Lee con un cursor JDBC en streaming y escribe lotes de
+ * columnas a medida que llegan las filas; los enums van codificados con
+ * diccionario (un byte por fila).
+ */
+@Service
+public class ExportacionBiService {
+
+    private static final int FILAS_POR_LOTE = 8192;
+
+    // Ids de los diccionarios dentro del stream
+    private static final long DICT_ESTADO_RESERVA = 1;
+    private static final long DICT_ESTADO_PAGO = 2;
+    private static final long DICT_METODO_PAGO = 3;
+
+    // ====================================
+    // DEFINICIÓN DE LAS TABLAS
+    // ====================================
+
+    private enum TipoColumna {
+        ENTERO, TEXTO, DECIMAL, REAL, BOOLEANO, FECHA, HORA, FECHA_HORA, ENUMERADA
+    }
+
+    private record Columna(String nombre, TipoColumna tipo, List<String> valores, long diccionarioId) {
+
+        static Columna de(String nombre, TipoColumna tipo) {
+            return new Columna(nombre, tipo, null, 0);
+        }
+
+        static Columna enumerada(String nombre, Class<? extends Enum<?>> enumeracion, long diccionarioId) {
+            List<String> valores = Arrays.stream(enumeracion.getEnumConstants()).map(Enum::name).toList();
+            return new Columna(nombre, TipoColumna.ENUMERADA, valores, diccionarioId);
+        }
+
+        DictionaryEncoding codificacion() {
+            return new DictionaryEncoding(diccionarioId, false, new ArrowType.Int(8, true));
+        }
+
+        Field campo() {
+            ArrowType tipoArrow = switch (tipo) {
+                case ENTERO -> new ArrowType.Int(64, true);
+                case TEXTO -> ArrowType.Utf8.INSTANCE;
+                case DECIMAL -> new ArrowType.Decimal(10, 2, 128);
+                case REAL -> new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE);
+                case BOOLEANO -> ArrowType.Bool.INSTANCE;
+                case FECHA -> new ArrowType.Date(DateUnit.DAY);
+                case HORA -> new ArrowType.Time(TimeUnit.MILLISECOND, 32);
+                case FECHA_HORA -> new ArrowType.Timestamp(TimeUnit.MILLISECOND, null);
+                case ENUMERADA -> new ArrowType.Int(8, true);
+            };
+            DictionaryEncoding encoding = tipo == TipoColumna.ENUMERADA ? codificacion() : null;
+            return new Field(nombre, new FieldType(true, tipoArrow, encoding), null);
+        }
+    }
+
+    /**
+     * Tablas disponibles. Las columnas del SELECT van en el mismo orden que
+     * las del esquema. De users solo salen columnas sin datos personales.
+     */
+    public enum Tabla {
+        RESERVAS("reservas",
+            Columna.de("id", TipoColumna.ENTERO),
+            Columna.de("codigo_reserva", TipoColumna.TEXTO),
+            Columna.de("usuario_id", TipoColumna.ENTERO),
+            Columna.de("cancha_id", TipoColumna.ENTERO),
+            Columna.de("fecha", TipoColumna.FECHA),
+            Columna.de("hora_inicio", TipoColumna.HORA),
+            Columna.de("hora_fin", TipoColumna.HORA),
+            Columna.de("duracion", TipoColumna.REAL),
+            Columna.de("precio_total", TipoColumna.DECIMAL),
+            Columna.enumerada("estado", Reserva.EstadoReserva.class, DICT_ESTADO_RESERVA),
+            Columna.de("created_at", TipoColumna.FECHA_HORA),
+            Columna.de("updated_at", TipoColumna.FECHA_HORA)),
+
+        PAGOS("pagos",
+            Columna.de("id", TipoColumna.ENTERO),
+            Columna.de("reserva_id", TipoColumna.ENTERO),
+            Columna.de("referencia_pago", TipoColumna.TEXTO),
+            Columna.de("monto", TipoColumna.DECIMAL),
+            Columna.de("moneda", TipoColumna.TEXTO),
+            Columna.enumerada("metodo_pago", Pago.MetodoPago.class, DICT_METODO_PAGO),
+            Columna.enumerada("estado", Pago.EstadoPago.class, DICT_ESTADO_PAGO),
+            Columna.de("fecha_pago", TipoColumna.FECHA_HORA),
+            Columna.de("created_at", TipoColumna.FECHA_HORA),
+            Columna.de("updated_at", TipoColumna.FECHA_HORA)),
+
+        USUARIOS("users",
+            Columna.de("id", TipoColumna.ENTERO),
+            Columna.de("rol", TipoColumna.TEXTO),
+            Columna.de("activo", TipoColumna.BOOLEANO),
+            Columna.de("gender", TipoColumna.TEXTO),
+            Columna.de("email_verified_at", TipoColumna.FECHA_HORA),
+            Columna.de("created_at", TipoColumna.FECHA_HORA),
+            Columna.de("updated_at", TipoColumna.FECHA_HORA));
+
+        private final String tablaSql;
+        private final List<Columna> columnas;
+
+        Tabla(String tablaSql, Columna... columnas) {
+            this.tablaSql = tablaSql;
+            this.columnas = List.of(columnas);
+        }
+
+        private String consulta(boolean incremental) {
+            StringBuilder sql = new StringBuilder("SELECT ");
+            for (int i = 0; i < columnas.size(); i++) {
+                sql.append(i == 0 ? "" : ", ").append(columnas.get(i).nombre());
+            }
+            sql.append(" FROM ").append(tablaSql);
+            if (incremental) {
+                sql.append(" WHERE updated_at > ?");
+            }
+            return sql.append(" ORDER BY id").toString();
+        }
+
+        private Schema esquema() {
+            return new Schema(columnas.stream().map(Columna::campo).toList());
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ExportacionBiService(DataSource dataSource) {
+        // Plantilla propia: con fetchSize = MIN_VALUE el driver de MySQL
+        // entrega las filas una a una en lugar de cargar todo el resultado
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    /**
+     * Escribe la tabla completa, o solo las filas modificadas después de
+     * {@code desde} si no es null. Retorna el número de filas escritas.
+     */
+    public long exportar(Tabla tabla, LocalDateTime desde, OutputStream out) throws IOException {
+        try (BufferAllocator allocator = new RootAllocator();
+             VectorSchemaRoot root = VectorSchemaRoot.create(tabla.esquema(), allocator)) {
+
+            DictionaryProvider.MapDictionaryProvider diccionarios = crearDiccionarios(tabla, allocator);
+            try (ArrowStreamWriter writer = new ArrowStreamWriter(root, diccionarios, Channels.newChannel(out),
+                    IpcOption.DEFAULT, CommonsCompressionFactory.INSTANCE, CompressionUtil.CodecType.ZSTD)) {
+
+                writer.start();
+                long[] total = {0};
+                int[] fila = {0};
+                root.allocateNew();
+
+                Object[] parametros = desde != null ? new Object[]{Timestamp.valueOf(desde)} : new Object[0];
+                jdbcTemplate.query(tabla.consulta(desde != null), (RowCallbackHandler) rs -> {
+                    for (int c = 0; c < tabla.columnas.size(); c++) {
+                        escribirValor(root.getVector(c), tabla.columnas.get(c), rs, c + 1, fila[0]);
+                    }
+                    fila[0]++;
+                    total[0]++;
+                    if (fila[0] == FILAS_POR_LOTE) {
+                        escribirLote(writer, root, fila[0]);
+                        fila[0] = 0;
+                    }
+                }, parametros);
+
+                if (fila[0] > 0) {
+                    escribirLote(writer, root, fila[0]);
+                }
+                writer.end();
+                out.flush();
+
+                System.out.println("📦 Exportación BI " + tabla + ": " + total[0] + " filas"
+                    + (desde != null ? " (desde " + desde + ")" : ""));
+                return total[0];
+
+            } finally {
+                for (long id : diccionarios.getDictionaryIds()) {
+                    diccionarios.lookup(id).getVector().close();
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // ===============================
+    // MÉTODOS AUXILIARES
+    // ===============================
+
+    private DictionaryProvider.MapDictionaryProvider crearDiccionarios(Tabla tabla, BufferAllocator allocator) {
+        Map<Long, Columna> porId = new LinkedHashMap<>();
+        for (Columna columna : tabla.columnas) {
+            if (columna.tipo() == TipoColumna.ENUMERADA) {
+                porId.putIfAbsent(columna.diccionarioId(), columna);
+            }
+        }
+
+        List<Dictionary> lista = new ArrayList<>();
+        for (Columna columna : porId.values()) {
+            VarCharVector valores = new VarCharVector(columna.nombre() + "_dict", allocator);
+            valores.allocateNew();
+            for (int i = 0; i < columna.valores().size(); i++) {
+                valores.setSafe(i, columna.valores().get(i).getBytes(StandardCharsets.UTF_8));
+            }
+            valores.setValueCount(columna.valores().size());
+            lista.add(new Dictionary(valores, columna.codificacion()));
+        }
+        return new DictionaryProvider.MapDictionaryProvider(lista.toArray(new Dictionary[0]));
+    }
+
+    private void escribirLote(ArrowStreamWriter writer, VectorSchemaRoot root, int filas) {
+        try {
+            root.setRowCount(filas);
+            writer.writeBatch();
+            // Reutiliza los vectores para el siguiente lote
+            root.allocateNew();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Los valores NULL simplemente no se escriben: el bit de validez queda en 0.
+     */
+    private void escribirValor(FieldVector vector, Columna columna, ResultSet rs, int indice, int fila) throws SQLException {
+        switch (columna.tipo()) {
+            case ENTERO -> {
+                long valor = rs.getLong(indice);
+                if (!rs.wasNull()) ((BigIntVector) vector).setSafe(fila, valor);
+            }
+            case TEXTO -> {
+                String valor = rs.getString(indice);
+                if (valor != null) ((VarCharVector) vector).setSafe(fila, valor.getBytes(StandardCharsets.UTF_8));
+            }
+            case DECIMAL -> {
+                BigDecimal valor = rs.getBigDecimal(indice);
+                if (valor != null) ((DecimalVector) vector).setSafe(fila, valor.setScale(2, RoundingMode.HALF_UP));
+            }
+            case REAL -> {
+                double valor = rs.getDouble(indice);
+                if (!rs.wasNull()) ((Float8Vector) vector).setSafe(fila, valor);
+            }
+            case BOOLEANO -> {
+                boolean valor = rs.getBoolean(indice);
+                if (!rs.wasNull()) ((BitVector) vector).setSafe(fila, valor ? 1 : 0);
+            }
+            case FECHA -> {
+                LocalDate valor = rs.getObject(indice, LocalDate.class);
+                if (valor != null) ((DateDayVector) vector).setSafe(fila, (int) valor.toEpochDay());
+            }
+            case HORA -> {
+                LocalTime valor = rs.getObject(indice, LocalTime.class);
+                if (valor != null) ((TimeMilliVector) vector).setSafe(fila, (int) (valor.toNanoOfDay() / 1_000_000));
+            }
+            case FECHA_HORA -> {
+                // Hora local sin zona, igual que en la BD
+                LocalDateTime valor = rs.getObject(indice, LocalDateTime.class);
+                if (valor != null) ((TimeStampMilliVector) vector).setSafe(fila, valor.toInstant(ZoneOffset.UTC).toEpochMilli());
+            }
+            case ENUMERADA -> {
+                String valor = rs.getString(indice);
+                int ordinal = valor != null ? columna.valores().indexOf(valor) : -1;
+                if (ordinal >= 0) ((TinyIntVector) vector).setSafe(fila, ordinal);
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.gosport.demo.service;
+
+import com.gosport.demo.model.MovimientoPago;
+import com.gosport.demo.model.Pago;
+import com.gosport.demo.model.SaldoDiario;
+import com.gosport.demo.repository.MovimientoPagoRepository;
+import com.gosport.demo.repository.SaldoDiarioRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Libro de pagos (append-only) y saldos diarios.
+ *
+ * Cada cambio de estado de un Pago agrega un movimiento en la misma
+ * transacción. Una tarea diaria consolida los días cerrados en
+ * pagos_saldos_diarios, así el saldo a cualquier fecha es la última foto
+ * más la suma de los pocos días que faltan.
+ */
+@Service
+public class LibroPagosService {
+
+    private final MovimientoPagoRepository movimientoPagoRepository;
+    private final SaldoDiarioRepository saldoDiarioRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public LibroPagosService(MovimientoPagoRepository movimientoPagoRepository,
+                             SaldoDiarioRepository saldoDiarioRepository,
+                             PlatformTransactionManager transactionManager) {
+        this.movimientoPagoRepository = movimientoPagoRepository;
+        this.saldoDiarioRepository = saldoDiarioRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // ====================================
+    // REGISTRO (dentro de la transacción del cambio de estado)
+    // ====================================
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(Pago pago, MovimientoPago.TipoMovimiento tipo) {
+        MovimientoPago movimiento = new MovimientoPago();
+        movimiento.setPagoId(pago.getId());
+        movimiento.setCanchaId(pago.getReserva().getCancha().getId());
+        movimiento.setTipo(tipo);
+        movimiento.setMonto(pago.getMonto());
+        movimiento.setImporte(switch (tipo) {
+            case APROBADO -> pago.getMonto();
+            case REEMBOLSADO -> pago.getMonto().negate();
+            default -> BigDecimal.ZERO;
+        });
+        movimientoPagoRepository.save(movimiento);
+    }
+
+    @Transactional(readOnly = true)
+    public List<MovimientoPago> obtenerHistorial(Long pagoId) {
+        return movimientoPagoRepository.findByPagoIdOrderByIdAsc(pagoId);
+    }
+
+    // ====================================
+    // CONSULTAS: foto + cola
+    // ====================================
+
+    /**
+     * Ingresos netos acumulados hasta la fecha (inclusive), de todas las
+     * canchas o de una.
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal saldoAl(LocalDate fecha, Long canchaId) {
+        long cancha = canchaId != null ? canchaId : SaldoDiario.TOTAL;
+        Optional<SaldoDiario> foto = saldoDiarioRepository
+            .findFirstByCanchaIdAndFechaLessThanEqualOrderByFechaDesc(cancha, fecha);
+
+        // Para una cancha sin movimientos recientes, su última foto puede ser
+        // anterior al último cierre; los días intermedios suman cero igual
+        LocalDate desde = foto.map(SaldoDiario::getFecha).orElse(LocalDate.EPOCH);
+        BigDecimal base = foto.map(SaldoDiario::getAcumulado).orElse(BigDecimal.ZERO);
+        BigDecimal cola = canchaId != null
+            ? movimientoPagoRepository.sumarEntrePorCancha(canchaId, desde, fecha)
+            : movimientoPagoRepository.sumarEntre(desde, fecha);
+        return base.add(cola);
+    }
+
+    @Transactional(readOnly = true)
+    public BigDecimal ingresosEntre(LocalDate desde, LocalDate hasta, Long canchaId) {
+        return saldoAl(hasta, canchaId).subtract(saldoAl(desde.minusDays(1), canchaId));
+    }
+
+    // ====================================
+    // CONSOLIDACIÓN DIARIA
+    // ====================================
+
+    @Scheduled(cron = "${gosports.pagos.libro.consolidar-cron:0 10 0 * * *}")
+    public void consolidar() {
+        LocalDate ayer = LocalDate.now().minusDays(1);
+        Optional<LocalDate> ultima = saldoDiarioRepository.obtenerUltimaFecha();
+        LocalDate dia = ultima.map(f -> f.plusDays(1))
+            .or(movimientoPagoRepository::obtenerPrimeraFecha)
+            .orElse(null);
+        if (dia == null) {
+            return; // libro vacío
+        }
+
+        int dias = 0;
+        try {
+            // Un día por transacción; si otro nodo ya lo consolidó, la clave única lo frena
+            for (; !dia.isAfter(ayer); dia = dia.plusDays(1)) {
+                LocalDate fecha = dia;
+                transactionTemplate.executeWithoutResult(status -> consolidarDia(fecha));
+                dias++;
+            }
+        } catch (DataIntegrityViolationException e) {
+            System.out.println("ℹ️ Saldos del " + dia + " ya consolidados por otra instancia");
+        }
+        if (dias > 0) {
+            System.out.println("📒 Libro de pagos consolidado: " + dias + " día(s) hasta " + dia.minusDays(1));
+        }
+    }
+
+    private void consolidarDia(LocalDate fecha) {
+        Map<Long, BigDecimal> delDia = new HashMap<>();
+        for (Object[] fila : movimientoPagoRepository.sumarPorCancha(fecha)) {
+            delDia.put(((Number) fila[0]).longValue(), (BigDecimal) fila[1]);
+        }
+
+        LocalDate anterior = fecha.minusDays(1);
+        BigDecimal totalDia = BigDecimal.ZERO;
+        for (Map.Entry<Long, BigDecimal> entrada : delDia.entrySet()) {
+            BigDecimal previo = saldoDiarioRepository
+                .findFirstByCanchaIdAndFechaLessThanEqualOrderByFechaDesc(entrada.getKey(), anterior)
+                .map(SaldoDiario::getAcumulado)
+                .orElse(BigDecimal.ZERO);
+            saldoDiarioRepository.save(nuevoSaldo(fecha, entrada.getKey(), entrada.getValue(), previo));
+            totalDia = totalDia.add(entrada.getValue());
+        }
+
+        BigDecimal previoTotal = saldoDiarioRepository
+            .findFirstByCanchaIdAndFechaLessThanEqualOrderByFechaDesc(SaldoDiario.TOTAL, anterior)
+            .map(SaldoDiario::getAcumulado)
+            .orElse(BigDecimal.ZERO);
+        saldoDiarioRepository.save(nuevoSaldo(fecha, SaldoDiario.TOTAL, totalDia, previoTotal));
+    }
+
+    private SaldoDiario nuevoSaldo(LocalDate fecha, Long canchaId, BigDecimal ingresosDia, BigDecimal previo) {
+        SaldoDiario saldo = new SaldoDiario();
+        saldo.setFecha(fecha);
+        saldo.setCanchaId(canchaId);
+        saldo.setIngresosDia(ingresosDia);
+        saldo.setAcumulado(previo.add(ingresosDia));
+        return saldo;
+    }
+
+    // ====================================
+    // ARRANQUE
+    // ====================================
+
+    /**
+     * Carga al libro los pagos aprobados que aún no están (la primera vez,
+     * los que ya existían) y consolida los días pendientes.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        try {
+            Integer cargados = transactionTemplate.execute(status -> movimientoPagoRepository.cargarAprobadosExistentes());
+            if (cargados != null && cargados > 0) {
+                System.out.println("📒 Libro de pagos inicializado con " + cargados + " pagos aprobados");
+            }
+            consolidar();
+        } catch (Exception e) {
+            System.err.println("❌ No se pudo inicializar el libro de pagos: " + e.getMessage());
+        }
+    }
+}
@@ -1,18 +1,35 @@
 package com.gosport.demo.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gosport.demo.dto.PagoDto;
+import com.gosport.demo.model.MovimientoPago;
 import com.gosport.demo.model.Pago;
 import com.gosport.demo.model.Reserva;
 import com.gosport.demo.repository.PagoRepository;
 import com.gosport.demo.repository.ReservaRepository;
+import com.gosport.demo.util.Idempotencia;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @Transactional
@@ -33,33 +50,84 @@ public class PagoService {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private LibroPagosService libroPagosService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${gosports.pagos.idempotencia.ttl-minutos:30}")
+    private long ttlIdempotenciaMinutos;
+
+    @Value("${gosports.pagos.idempotencia.max-entradas:10000}")
+    private int maxEntradasIdempotencia;
+
+    // Solicitudes de pago por (reserva, token del formulario)
+    private Idempotencia<Pago> solicitudesPago;
+
+    @PostConstruct
+    public void iniciarIdempotencia() {
+        solicitudesPago = new Idempotencia<>(Duration.ofMinutes(ttlIdempotenciaMinutos), maxEntradasIdempotencia);
+    }
+
+    /**
+     * Iniciar pago de forma idempotente. Un doble clic (o un reintento) con
+     * el mismo token espera o repite el resultado del primero en vez de
+     * crear otra transacción en Wompi.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<Pago> iniciarPago(Reserva reserva, Pago.MetodoPago metodoPago, String tokenIdempotencia) {
+        String clave = reserva.getId() + ":" + (tokenIdempotencia != null ? tokenIdempotencia : "");
+        return solicitudesPago.ejecutar(clave, () -> iniciarPago(reserva, metodoPago).toFuture());
+    }
+
+    @Scheduled(fixedDelayString = "${gosports.pagos.idempotencia.limpieza-ms:60000}")
+    public void purgarIdempotencia() {
+        solicitudesPago.purgarVencidas();
+    }
+
     /**
-     * Iniciar proceso de pago para una reserva
+     * Iniciar proceso de pago para una reserva.
+     * La llamada a Wompi no bloquea; el registro del pago se guarda en
+     * boundedElastic cuando llega la respuesta. Sin transacción envolvente:
+     * no puede abarcar la parte asíncrona.
      */
-    public Pago iniciarPago(Reserva reserva, Pago.MetodoPago metodoPago) {
-        // Verificar que la reserva no tenga un pago existente
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<Pago> iniciarPago(Reserva reserva, Pago.MetodoPago metodoPago) {
+        // Si ya hay un pago pendiente (p. ej. otra pestaña o un reintento tardío)
+        // se retoma ese mismo link en vez de crear otra transacción
         Optional<Pago> pagoExistente = pagoRepository.findByReservaId(reserva.getId());
         if (pagoExistente.isPresent()) {
-            throw new RuntimeException("Esta reserva ya tiene un pago asociado");
+            Pago pago = pagoExistente.get();
+            if (pago.isPendiente() && pago.getWompiPaymentLink() != null) {
+                return Mono.just(pago);
+            }
+            return Mono.error(new RuntimeException("Esta reserva ya tiene un pago asociado"));
         }
 
         // Crear transacción en Wompi
-        Map<String, Object> transactionResult = wompiService.crearTransaccion(reserva, metodoPago);
-        
-        if (!(boolean) transactionResult.get("success")) {
-            throw new RuntimeException("Error al crear transacción: " + transactionResult.get("error"));
-        }
+        return wompiService.crearTransaccion(reserva, metodoPago)
+            .onErrorMap(e -> !(e instanceof WompiService.PasarelaNoDisponibleException),
+                e -> new RuntimeException("Error al crear transacción: " + e.getMessage(), e))
+            .publishOn(Schedulers.boundedElastic())
+            .map(transaccion -> registrarPago(reserva, metodoPago, transaccion));
+    }
 
+    private Pago registrarPago(Reserva reserva, Pago.MetodoPago metodoPago,
+                               WompiService.TransaccionCreada transaccion) {
         // Crear registro de pago
         Pago pago = new Pago();
         pago.setReserva(reserva);
-        pago.setReferenciaPago((String) transactionResult.get("referencia"));
+        pago.setReferenciaPago(transaccion.referencia());
         pago.setMonto(reserva.getPrecioTotal());
         pago.setMoneda("COP");
         pago.setMetodoPago(metodoPago);
         pago.setEstado(Pago.EstadoPago.PENDIENTE);
-        pago.setWompiTransactionId((String) transactionResult.get("transaction_id"));
-        pago.setWompiPaymentLink((String) transactionResult.get("payment_link"));
+        pago.setWompiTransactionId(transaccion.transactionId());
+        pago.setWompiPaymentLink(transaccion.paymentLink());
         pago.setEmailPagador(reserva.getUsuario().getEmail());
         pago.setNombrePagador(reserva.getUsuario().getName());
         pago.setDescripcion("Pago de reserva - " + reserva.getCancha().getNombre());
@@ -77,14 +145,28 @@ public class PagoService {
             // Ignorar error de metadata
         }
 
-        return pagoRepository.save(pago);
+        try {
+            return transactionTemplate.execute(status -> {
+                Pago guardado = pagoRepository.save(pago);
+                libroPagosService.registrar(guardado, MovimientoPago.TipoMovimiento.INICIADO);
+                return guardado;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Otra solicitud (otro nodo u otro token) guardó primero: se usa ese pago.
+            // La transacción creada aquí queda PENDING en Wompi y expira sola.
+            System.err.println("⚠️ Pago duplicado para la reserva " + reserva.getId()
+                + ", transacción " + transaccion.transactionId() + " sin usar");
+            return pagoRepository.findByReservaId(reserva.getId()).orElseThrow(() -> e);
+        }
     }
 
     /**
-     * Procesar confirmación de pago (webhook de Wompi)
+     * Procesar confirmación de pago (webhook de Wompi o conciliación).
+     * El pago se lee con bloqueo, así dos confirmaciones simultáneas no
+     * ven ambas el estado pendiente.
      */
     public void procesarConfirmacionPago(String transactionId, String status) {
-        Optional<Pago> pagoOpt = pagoRepository.findByWompiTransactionId(transactionId);
+        Optional<Pago> pagoOpt = pagoRepository.bloquearPorTransaccion(transactionId);
         
         if (pagoOpt.isEmpty()) {
             throw new RuntimeException("Pago no encontrado: " + transactionId);
@@ -93,6 +175,13 @@ public class PagoService {
         Pago pago = pagoOpt.get();
         Reserva reserva = pago.getReserva();
 
+        // Un pago en estado final no cambia: reenvíos y eventos atrasados no tienen efecto
+        if (!pago.isPendiente()) {
+            return;
+        }
+
+        Pago.EstadoPago estadoAnterior = pago.getEstado();
+
         // Actualizar estado según respuesta de Wompi
         switch (status.toUpperCase()) {
             case "APPROVED":
@@ -102,6 +191,7 @@ public class PagoService {
                 // Actualizar estado de la reserva a CONFIRMADA
                 reserva.setEstado(Reserva.EstadoReserva.CONFIRMADA);
                 reservaRepository.save(reserva);
+                libroPagosService.registrar(pago, MovimientoPago.TipoMovimiento.APROBADO);
                 
                 // Enviar email de confirmación
                 emailService.enviarEmailReservaConfirmada(reserva);
@@ -118,14 +208,21 @@ public class PagoService {
                 // Cancelar la reserva
                 reserva.setEstado(Reserva.EstadoReserva.CANCELADA);
                 reservaRepository.save(reserva);
+                libroPagosService.registrar(pago, MovimientoPago.TipoMovimiento.RECHAZADO);
                 break;
                 
             case "ERROR":
                 pago.setEstado(Pago.EstadoPago.ERROR);
+                libroPagosService.registrar(pago, MovimientoPago.TipoMovimiento.RECHAZADO);
                 break;
         }
 
         pagoRepository.save(pago);
+
+        // Despierta a los navegadores que esperan este pago (tras el commit)
+        if (pago.getEstado() != estadoAnterior) {
+            eventPublisher.publishEvent(new EsperaPagoService.PagoActualizado(pago.getReferenciaPago(), pago.getEstado()));
+        }
     }
 
     /**
@@ -136,6 +233,14 @@ public class PagoService {
             .orElseThrow(() -> new RuntimeException("Pago no encontrado"));
     }
 
+    /**
+     * Pago de un usuario para la API (vacío si no existe o es de otro)
+     */
+    @Transactional(readOnly = true)
+    public Optional<PagoDto> obtenerResumenDeUsuario(String referenciaPago, Long usuarioId) {
+        return pagoRepository.buscarResumenDeUsuario(referenciaPago, usuarioId);
+    }
+
     /**
      * Obtener pago por reserva
      */
@@ -143,6 +248,37 @@ public class PagoService {
         return pagoRepository.findByReservaId(reservaId);
     }
 
+    /**
+     * ¿Está aceptando pagos la pasarela? (circuito no abierto)
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public boolean isPasarelaDisponible() {
+        return wompiService.isDisponible();
+    }
+
+    /**
+     * Obtener pago por id de transacción de Wompi
+     */
+    public Optional<Pago> obtenerPagoPorTransaccion(String transactionId) {
+        return pagoRepository.findByWompiTransactionId(transactionId);
+    }
+
+    /**
+     * Ingresos netos aprobados por la pasarela (desde el libro de pagos).
+     * Las reservas sin pago en línea no pasan por aquí: el panel de
+     * reservas sigue sumando ReservaService.calcularIngresos*.
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal calcularIngresosTotales() {
+        return libroPagosService.saldoAl(LocalDate.now(), null);
+    }
+
+    @Transactional(readOnly = true)
+    public BigDecimal calcularIngresosMes(int mes, int anio) {
+        YearMonth periodo = YearMonth.of(anio, mes);
+        return libroPagosService.ingresosEntre(periodo.atDay(1), periodo.atEndOfMonth(), null);
+    }
+
     /**
      * Obtener pagos del usuario
      */
@@ -151,14 +287,16 @@ public class PagoService {
     }
 
     /**
-     * Sincronizar estado con Wompi (consultar directamente a la API)
+     * Sincronizar estado con Wompi (consultar directamente a la API).
+     * La actualización corre en boundedElastic, en su propia transacción.
+     * Lo usa la conciliación periódica, no las páginas.
      */
-    public void sincronizarEstadoPago(String transactionId) {
-        Map<String, Object> result = wompiService.consultarEstadoTransaccion(transactionId);
-        
-        if ((boolean) result.get("success")) {
-            String status = (String) result.get("status");
-            procesarConfirmacionPago(transactionId, status);
-        }
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<Void> sincronizarEstadoPago(String transactionId) {
+        return wompiService.consultarTransaccion(transactionId)
+            .publishOn(Schedulers.boundedElastic())
+            .doOnNext(transaccion -> transactionTemplate.executeWithoutResult(estado ->
+                procesarConfirmacionPago(transactionId, transaccion.status())))
+            .then();
     }
 }
\ No newline at end of file
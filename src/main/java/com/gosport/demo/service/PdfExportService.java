@@ -1,22 +1,35 @@
 package com.gosport.demo.service;
 
+import com.gosport.demo.dto.ReservaExportDto;
+import com.gosport.demo.model.Reserva;
 import com.gosport.demo.model.User;
+import com.gosport.demo.repository.ReservaRepository;
+import com.gosport.demo.repository.UserRepository;
 import com.itextpdf.kernel.colors.ColorConstants;
 import com.itextpdf.kernel.colors.DeviceRgb;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfWriter;
 import com.itextpdf.layout.Document;
+import com.itextpdf.layout.Style;
 import com.itextpdf.layout.element.Cell;
 import com.itextpdf.layout.element.Paragraph;
 import com.itextpdf.layout.element.Table;
 import com.itextpdf.layout.properties.TextAlignment;
 import com.itextpdf.layout.properties.UnitValue;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
 
 @Service
 public class PdfExportService {
@@ -24,10 +37,55 @@ public class PdfExportService {
     // Color corporativo de GoSports (negro)
     private static final DeviceRgb HEADER_COLOR = new DeviceRgb(33, 37, 41); // #212529
     private static final DeviceRgb ACCENT_COLOR = new DeviceRgb(52, 58, 64); // #343a40
+    private static final DeviceRgb SUBTOTAL_COLOR = new DeviceRgb(233, 236, 239); // #e9ecef
+    private static final DeviceRgb ROJO = new DeviceRgb(220, 53, 69);
+    private static final DeviceRgb AZUL = new DeviceRgb(13, 110, 253);
+    private static final DeviceRgb VERDE = new DeviceRgb(25, 135, 84);
+    private static final DeviceRgb GRIS = new DeviceRgb(108, 117, 125);
 
-    public ByteArrayOutputStream exportarUsuariosPdf(List<User> usuarios) throws Exception {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        PdfWriter writer = new PdfWriter(baos);
+    // Estilos compartidos: cada celda los referencia en lugar de repetir propiedades
+    private static final Style ESTILO_ENCABEZADO = new Style()
+        .setBackgroundColor(HEADER_COLOR)
+        .setFontColor(ColorConstants.WHITE)
+        .setTextAlignment(TextAlignment.CENTER)
+        .setFontSize(10)
+        .setPadding(8);
+    private static final Style ESTILO_DATO = new Style()
+        .setFontSize(9)
+        .setTextAlignment(TextAlignment.CENTER)
+        .setPadding(5);
+    private static final Style ESTILO_ADMIN = crearEstiloInsignia(ROJO);
+    private static final Style ESTILO_USER = crearEstiloInsignia(AZUL);
+    private static final Style ESTILO_ACTIVO = crearEstiloInsignia(VERDE);
+    private static final Style ESTILO_INACTIVO = crearEstiloInsignia(GRIS);
+
+    // Filas que se acumulan antes de volcar la tabla grande al documento
+    private static final int FILAS_POR_FLUSH = 200;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ReservaRepository reservaRepository;
+    private final UserRepository userRepository;
+
+    public PdfExportService(ReservaRepository reservaRepository, UserRepository userRepository) {
+        this.reservaRepository = reservaRepository;
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Reporte de usuarios escrito directamente en la salida (sin copia en memoria).
+     * Las estadísticas salen de consultas COUNT y el listado de un cursor.
+     */
+    @Transactional(readOnly = true)
+    public long exportarUsuariosPdf(OutputStream out) {
+        return exportarUsuariosPdf(out, filas -> { });
+    }
+
+    @Transactional(readOnly = true)
+    public long exportarUsuariosPdf(OutputStream out, LongConsumer progreso) {
+        PdfWriter writer = new PdfWriter(out);
+        writer.setCloseStream(false);
         PdfDocument pdfDoc = new PdfDocument(writer);
         Document document = new Document(pdfDoc);
 
@@ -66,10 +124,10 @@ public class PdfExportService {
         // ===============================
         // RESUMEN ESTADÍSTICO
         // ===============================
-        long totalUsuarios = usuarios.size();
-        long usuariosActivos = usuarios.stream().filter(User::getActivo).count();
+        long totalUsuarios = userRepository.count();
+        long usuariosActivos = userRepository.countByActivoTrue();
         long usuariosInactivos = totalUsuarios - usuariosActivos;
-        long administradores = usuarios.stream().filter(u -> "ADMIN".equals(u.getRol())).count();
+        long administradores = userRepository.countByRol("ADMIN");
         long usuariosNormales = totalUsuarios - administradores;
 
         Table estadisticas = new Table(UnitValue.createPercentArray(new float[]{1, 1, 1, 1, 1}))
@@ -105,7 +163,7 @@ public class PdfExportService {
 
         // Crear tabla con 8 columnas
         float[] columnWidths = {1, 3, 3, 2, 2, 1.5f, 1.5f, 2};
-        Table tabla = new Table(UnitValue.createPercentArray(columnWidths))
+        Table tabla = new Table(UnitValue.createPercentArray(columnWidths), true)
             .setWidth(UnitValue.createPercentValue(100));
 
         // Encabezados de la tabla
@@ -118,46 +176,42 @@ public class PdfExportService {
         tabla.addHeaderCell(crearCeldaEncabezado("Rol"));
         tabla.addHeaderCell(crearCeldaEncabezado("Estado"));
 
+        // Tabla grande: se agrega vacía y se va vaciando mientras se llena
+        document.add(tabla);
+
         // Datos de usuarios
-        DateTimeFormatter fechaFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-        for (User u : usuarios) {
-            tabla.addCell(crearCeldaDato(String.valueOf(u.getId())));
-            tabla.addCell(crearCeldaDato(u.getName()));
-            tabla.addCell(crearCeldaDato(u.getEmail()));
-            tabla.addCell(crearCeldaDato(u.getTelefono() != null ? u.getTelefono() : "N/A"));
-            tabla.addCell(crearCeldaDato(u.getTipoDocumento() + " " + u.getNumeroIdentificacion()));
-            tabla.addCell(crearCeldaDato(u.getGenero() != null ? u.getGenero() : "N/A"));
-            
-            // Celda de Rol con color
-            Cell celdaRol = new Cell().add(new Paragraph(u.getRol()))
-                .setFontSize(9)
-                .setTextAlignment(TextAlignment.CENTER)
-                .setPadding(5);
-            if ("ADMIN".equals(u.getRol())) {
-                celdaRol.setBackgroundColor(new DeviceRgb(220, 53, 69)); // Rojo
-                celdaRol.setFontColor(ColorConstants.WHITE);
-            } else {
-                celdaRol.setBackgroundColor(new DeviceRgb(13, 110, 253)); // Azul
-                celdaRol.setFontColor(ColorConstants.WHITE);
-            }
-            tabla.addCell(celdaRol);
-            
-            // Celda de Estado con color
-            Cell celdaEstado = new Cell().add(new Paragraph(u.getActivo() ? "Activo" : "Inactivo"))
-                .setFontSize(9)
-                .setTextAlignment(TextAlignment.CENTER)
-                .setPadding(5);
-            if (u.getActivo()) {
-                celdaEstado.setBackgroundColor(new DeviceRgb(25, 135, 84)); // Verde
-                celdaEstado.setFontColor(ColorConstants.WHITE);
-            } else {
-                celdaEstado.setBackgroundColor(new DeviceRgb(108, 117, 125)); // Gris
-                celdaEstado.setFontColor(ColorConstants.WHITE);
+        long filas = 0;
+        try (Stream<User> usuarios = userRepository.streamAllByOrderByIdAsc()) {
+            Iterator<User> it = usuarios.iterator();
+            while (it.hasNext()) {
+                User u = it.next();
+                tabla.addCell(crearCeldaDato(String.valueOf(u.getId())));
+                tabla.addCell(crearCeldaDato(u.getName()));
+                tabla.addCell(crearCeldaDato(u.getEmail()));
+                tabla.addCell(crearCeldaDato(u.getTelefono() != null ? u.getTelefono() : "N/A"));
+                tabla.addCell(crearCeldaDato(u.getTipoDocumento() + " " + u.getNumeroIdentificacion()));
+                tabla.addCell(crearCeldaDato(u.getGenero() != null ? u.getGenero() : "N/A"));
+
+                // Celda de Rol con color (rojo admin, azul user)
+                tabla.addCell(new Cell().add(new Paragraph(u.getRol()))
+                    .addStyle("ADMIN".equals(u.getRol()) ? ESTILO_ADMIN : ESTILO_USER));
+
+                // Celda de Estado con color (verde activo, gris inactivo)
+                boolean activo = Boolean.TRUE.equals(u.getActivo());
+                tabla.addCell(new Cell().add(new Paragraph(activo ? "Activo" : "Inactivo"))
+                    .addStyle(activo ? ESTILO_ACTIVO : ESTILO_INACTIVO));
+
+                entityManager.detach(u);
+                if (++filas % FILAS_POR_FLUSH == 0) {
+                    tabla.flush();
+                }
+                if (filas % ExcelExportService.INTERVALO_PROGRESO == 0) {
+                    progreso.accept(filas);
+                }
             }
-            tabla.addCell(celdaEstado);
         }
 
-        document.add(tabla);
+        tabla.complete();
 
         // ===============================
         // PIE DE PÁGINA
@@ -174,29 +228,166 @@ public class PdfExportService {
             .setFontSize(8)
             .setBold()
             .setTextAlignment(TextAlignment.CENTER)
-            .setFontColor(new DeviceRgb(220, 53, 69));
+            .setFontColor(ROJO);
         document.add(confidencial);
 
         document.close();
-        return baos;
+        return filas;
+    }
+
+    /**
+     * Reporte de reservas filtrado, escrito directamente en la salida.
+     * La tabla se marca como "grande" y se vacía cada FILAS_POR_FLUSH filas,
+     * de modo que iText no conserva el listado completo hasta el cierre.
+     */
+    @Transactional(readOnly = true)
+    public long exportarReservasPdf(Reserva.EstadoReserva estado, Long canchaId,
+                                    LocalDate desde, LocalDate hasta,
+                                    OutputStream out) {
+        return exportarReservasPdf(estado, canchaId, desde, hasta, out, filas -> { });
+    }
+
+    @Transactional(readOnly = true)
+    public long exportarReservasPdf(Reserva.EstadoReserva estado, Long canchaId,
+                                    LocalDate desde, LocalDate hasta,
+                                    OutputStream out, LongConsumer progreso) {
+        PdfWriter writer = new PdfWriter(out);
+        writer.setCloseStream(false);
+        PdfDocument pdfDoc = new PdfDocument(writer);
+        Document document = new Document(pdfDoc);
+
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+        DateTimeFormatter fechaFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+        document.add(new Paragraph("GOSPORTS")
+            .setFontSize(24)
+            .setBold()
+            .setFontColor(HEADER_COLOR)
+            .setTextAlignment(TextAlignment.CENTER));
+        document.add(new Paragraph("Reporte de Reservas")
+            .setFontSize(14)
+            .setFontColor(ACCENT_COLOR)
+            .setTextAlignment(TextAlignment.CENTER)
+            .setMarginBottom(5));
+        document.add(new Paragraph("Generado el: " + LocalDateTime.now().format(formatter))
+            .setFontSize(10)
+            .setItalic()
+            .setTextAlignment(TextAlignment.CENTER)
+            .setMarginBottom(20));
+
+        float[] columnWidths = {2, 2.5f, 2.5f, 1.5f, 1.5f, 1.5f, 1.5f};
+        Table tabla = new Table(UnitValue.createPercentArray(columnWidths), true)
+            .setWidth(UnitValue.createPercentValue(100));
+
+        tabla.addHeaderCell(crearCeldaEncabezado("Código"));
+        tabla.addHeaderCell(crearCeldaEncabezado("Cancha"));
+        tabla.addHeaderCell(crearCeldaEncabezado("Usuario"));
+        tabla.addHeaderCell(crearCeldaEncabezado("Fecha"));
+        tabla.addHeaderCell(crearCeldaEncabezado("Horario"));
+        tabla.addHeaderCell(crearCeldaEncabezado("Estado"));
+        tabla.addHeaderCell(crearCeldaEncabezado("Total"));
+
+        // La tabla grande se agrega antes de llenarla
+        document.add(tabla);
+
+        long totalFilas = 0;
+        Long canchaActualId = null;
+        String canchaActual = null;
+        long cantidadCancha = 0;
+        BigDecimal ingresosCancha = BigDecimal.ZERO;
+        BigDecimal ingresosTotales = BigDecimal.ZERO;
+
+        try (Stream<ReservaExportDto> reservas = reservaRepository.streamConFiltros(estado, canchaId, desde, hasta)) {
+            Iterator<ReservaExportDto> it = reservas.iterator();
+            while (it.hasNext()) {
+                ReservaExportDto r = it.next();
+
+                // Cambio de cancha: subtotal de la anterior
+                if (canchaActualId != null && !Objects.equals(canchaActualId, r.canchaId())) {
+                    agregarFilaSubtotal(tabla, "Subtotal " + canchaActual, cantidadCancha, ingresosCancha);
+                    cantidadCancha = 0;
+                    ingresosCancha = BigDecimal.ZERO;
+                }
+                canchaActualId = r.canchaId();
+                canchaActual = r.cancha();
+
+                tabla.addCell(crearCeldaDato(r.codigo()));
+                tabla.addCell(crearCeldaDato(r.cancha()));
+                tabla.addCell(crearCeldaDato(r.usuario()));
+                tabla.addCell(crearCeldaDato(r.fecha().format(fechaFormatter)));
+                tabla.addCell(crearCeldaDato(r.horaInicio() + " - " + (r.horaFin() != null ? r.horaFin() : "")));
+                tabla.addCell(crearCeldaDato(r.estado().getDisplayName()));
+                tabla.addCell(crearCeldaDato("$" + r.precioTotal().toPlainString()));
+
+                cantidadCancha++;
+                totalFilas++;
+                if (r.estado() != Reserva.EstadoReserva.CANCELADA) {
+                    ingresosCancha = ingresosCancha.add(r.precioTotal());
+                    ingresosTotales = ingresosTotales.add(r.precioTotal());
+                }
+
+                if (totalFilas % FILAS_POR_FLUSH == 0) {
+                    tabla.flush();
+                }
+                if (totalFilas % ExcelExportService.INTERVALO_PROGRESO == 0) {
+                    progreso.accept(totalFilas);
+                }
+            }
+        }
+
+        if (canchaActualId != null) {
+            agregarFilaSubtotal(tabla, "Subtotal " + canchaActual, cantidadCancha, ingresosCancha);
+        }
+        agregarFilaSubtotal(tabla, "TOTAL GENERAL", totalFilas, ingresosTotales);
+        tabla.complete();
+
+        document.add(new Paragraph("\n\nDocumento generado automáticamente por GoSports")
+            .setFontSize(8)
+            .setItalic()
+            .setTextAlignment(TextAlignment.CENTER)
+            .setFontColor(ColorConstants.GRAY)
+            .setMarginTop(20));
+
+        document.close();
+        return totalFilas;
     }
 
     // ===============================
     // MÉTODOS AUXILIARES
     // ===============================
+    private void agregarFilaSubtotal(Table tabla, String etiqueta, long cantidad, BigDecimal ingresos) {
+        tabla.addCell(new Cell(1, 5)
+            .add(new Paragraph(etiqueta + " (" + cantidad + " reservas)").setBold())
+            .setBackgroundColor(SUBTOTAL_COLOR)
+            .setFontSize(9)
+            .setPadding(5));
+        tabla.addCell(new Cell()
+            .add(new Paragraph("").setBold())
+            .setBackgroundColor(SUBTOTAL_COLOR));
+        tabla.addCell(new Cell()
+            .add(new Paragraph("$" + ingresos.toPlainString()).setBold())
+            .setBackgroundColor(SUBTOTAL_COLOR)
+            .setFontSize(9)
+            .setTextAlignment(TextAlignment.CENTER)
+            .setPadding(5));
+    }
+
     private Cell crearCeldaEncabezado(String texto) {
         return new Cell()
             .add(new Paragraph(texto).setBold())
-            .setBackgroundColor(HEADER_COLOR)
-            .setFontColor(ColorConstants.WHITE)
-            .setTextAlignment(TextAlignment.CENTER)
-            .setFontSize(10)
-            .setPadding(8);
+            .addStyle(ESTILO_ENCABEZADO);
     }
 
     private Cell crearCeldaDato(String texto) {
         return new Cell()
             .add(new Paragraph(texto))
+            .addStyle(ESTILO_DATO);
+    }
+
+    private static Style crearEstiloInsignia(DeviceRgb fondo) {
+        return new Style()
+            .setBackgroundColor(fondo)
+            .setFontColor(ColorConstants.WHITE)
             .setFontSize(9)
             .setTextAlignment(TextAlignment.CENTER)
             .setPadding(5);
@@ -0,0 +1,123 @@
+package com.gosport.demo.service;
+
+import com.gosport.demo.model.EmailOutbox;
+import com.gosport.demo.repository.ReservaRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Recordatorios de reservas CONFIRMADAS: el día anterior y unas horas antes.
+ * Recorre las reservas por lotes (keyset sobre el id), marca cada una como
+ * recordada y encola el correo en la misma transacción del lote. Si no se
+ * encola nada (email deshabilitado) el lote se deshace y las reservas
+ * quedan pendientes de recordar.
+ */
+@Service
+public class RecordatorioService {
+
+    private final ReservaRepository reservaRepository;
+    private final EmailService emailService;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanoLote;
+    private final int horasAntes;
+
+    public RecordatorioService(ReservaRepository reservaRepository,
+                               EmailService emailService,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${gosports.recordatorios.tamano-lote:500}") int tamanoLote,
+                               @Value("${gosports.recordatorios.horas-antes:3}") int horasAntes) {
+        this.reservaRepository = reservaRepository;
+        this.emailService = emailService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tamanoLote = tamanoLote;
+        this.horasAntes = horasAntes;
+    }
+
+    // ====================================
+    // TAREAS PROGRAMADAS
+    // ====================================
+
+    @Scheduled(cron = "${gosports.recordatorios.manana-cron:0 0 18 * * *}")
+    public void enviarRecordatoriosManana() {
+        LocalDate manana = LocalDate.now().plusDays(1);
+        long total = procesar(EmailOutbox.TipoEmail.RECORDATORIO_MANANA,
+            ultimoId -> reservaRepository.obtenerReservasParaManana(manana, ultimoId, PageRequest.of(0, tamanoLote)));
+        System.out.println("⏰ Recordatorios para mañana encolados: " + total);
+    }
+
+    @Scheduled(fixedDelayString = "${gosports.recordatorios.hoy-intervalo-ms:900000}")
+    public void enviarRecordatoriosHoy() {
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalTime horaActual = ahora.toLocalTime();
+        LocalTime horaLimite = ahora.plusHours(horasAntes).toLocalDate().isAfter(ahora.toLocalDate())
+            ? LocalTime.MAX // la ventana cruza la medianoche
+            : horaActual.plusHours(horasAntes);
+
+        long total = procesar(EmailOutbox.TipoEmail.RECORDATORIO_HOY,
+            ultimoId -> reservaRepository.obtenerReservasParaRecordarHoy(
+                ahora.toLocalDate(), horaActual, horaLimite, ultimoId, PageRequest.of(0, tamanoLote)));
+        if (total > 0) {
+            System.out.println("⏰ Recordatorios para hoy encolados: " + total);
+        }
+    }
+
+    // ====================================
+    // PROCESAMIENTO POR LOTES
+    // ====================================
+
+    private long procesar(EmailOutbox.TipoEmail tipo, Function<Long, List<Object[]>> siguienteLote) {
+        long ultimoId = 0L;
+        long total = 0;
+
+        while (true) {
+            long desde = ultimoId;
+            Long[] ultimoDelLote = {null};
+            Integer encolados = transactionTemplate.execute(status -> {
+                List<Object[]> lote = siguienteLote.apply(desde);
+                if (lote.isEmpty()) {
+                    return 0;
+                }
+                ultimoDelLote[0] = (Long) lote.get(lote.size() - 1)[0];
+
+                LocalDateTime ahora = LocalDateTime.now();
+                List<Object[]> marcadas = new ArrayList<>(lote.size());
+                for (Object[] fila : lote) {
+                    // Solo encola si esta transacción fue la que puso la marca
+                    if (marcar(tipo, (Long) fila[0], ahora) == 1) {
+                        marcadas.add(fila);
+                    }
+                }
+                int encoladosLote = emailService.encolarLote(tipo, marcadas);
+                if (encoladosLote < marcadas.size()) {
+                    // Sin correo no hay recordatorio: se deshacen las marcas
+                    status.setRollbackOnly();
+                    return 0;
+                }
+                return encoladosLote;
+            });
+
+            if (ultimoDelLote[0] == null) {
+                return total;
+            }
+            total += encolados;
+            ultimoId = ultimoDelLote[0];
+        }
+    }
+
+    private int marcar(EmailOutbox.TipoEmail tipo, Long reservaId, LocalDateTime ahora) {
+        return tipo == EmailOutbox.TipoEmail.RECORDATORIO_MANANA
+            ? reservaRepository.marcarRecordatorioManana(reservaId, ahora)
+            : reservaRepository.marcarRecordatorioHoy(reservaId, ahora);
+    }
+}
@@ -1,5 +1,9 @@
 package com.gosport.demo.service;
 
+import com.gosport.demo.dto.HorarioDto;
+import com.gosport.demo.dto.ReservaDto;
+import com.gosport.demo.model.Cancha;
+import com.gosport.demo.model.EmailOutbox;
 import com.gosport.demo.model.Reserva;
 import com.gosport.demo.repository.ReservaRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,6 +28,9 @@ public class ReservaService {
     @Autowired
     private ReservaRepository reservaRepository;
 
+    @Autowired
+    private EmailService emailService;
+
     // ====================================
     // CRUD BÁSICO
     // ====================================
@@ -32,6 +39,15 @@ public class ReservaService {
         return reservaRepository.save(reserva);
     }
 
+    /**
+     * Guarda la reserva y encola el correo en la misma transacción.
+     */
+    public Reserva guardarYNotificar(Reserva reserva, EmailOutbox.TipoEmail tipoEmail) {
+        Reserva guardada = reservaRepository.save(reserva);
+        emailService.encolar(tipoEmail, guardada);
+        return guardada;
+    }
+
     public Optional<Reserva> obtenerPorId(Long id) {
         return reservaRepository.findById(id);
     }
@@ -72,6 +88,30 @@ public class ReservaService {
         return reservaRepository.findByCanchaIdAndFecha(canchaId, fecha);
     }
 
+    /**
+     * Franjas ocupadas (sin canceladas), armadas en la consulta.
+     */
+    @Transactional(readOnly = true)
+    public List<HorarioDto> obtenerFranjasOcupadas(Long canchaId, LocalDate fecha) {
+        return reservaRepository.obtenerHorariosOcupados(canchaId, fecha);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ReservaDto> obtenerResumenPorUsuario(Long usuarioId, Pageable pageable) {
+        return reservaRepository.listarResumenPorUsuario(usuarioId, pageable);
+    }
+
+    /**
+     * Precio de una reserva: la media hora tiene tarifa propia si la cancha
+     * la define; el resto es proporcional al precio por hora.
+     */
+    public BigDecimal calcularPrecio(Cancha cancha, Double duracion) {
+        if (duracion == 0.5 && cancha.getPrecioMediaHora() != null) {
+            return cancha.getPrecioMediaHora();
+        }
+        return cancha.getPrecioHora().multiply(BigDecimal.valueOf(duracion));
+    }
+
     public List<Reserva> obtenerProximasPorUsuario(Long usuarioId) {
         LocalDate hoy = LocalDate.now();
         return reservaRepository.findByUsuarioIdAndFechaGreaterThanEqual(usuarioId, hoy);
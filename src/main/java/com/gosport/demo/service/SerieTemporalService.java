@@ -0,0 +1,199 @@
+package com.gosport.demo.service;
+
+import com.gosport.demo.repository.PagoRepository;
+import com.gosport.demo.repository.ReservaRepository;
+import com.gosport.demo.repository.UserRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Series de tiempo para los gráficos del dashboard.
+ * La base de datos agrega por día sobre un rango indexado; aquí solo se
+ * agrupa en cubetas (día/semana/mes), se rellenan huecos y se reduce el
+ * número de puntos cuando el rango es muy largo.
+ */
+@Service
+@Transactional(readOnly = true)
+public class SerieTemporalService {
+
+    // Límite de seguridad: ~10 años de cubetas diarias
+    private static final long MAX_DIAS_RANGO = 3660;
+
+    private static final DateTimeFormatter FORMATO_DIA = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter FORMATO_MES =
+        DateTimeFormatter.ofPattern("MMM yyyy", Locale.forLanguageTag("es"));
+
+    public enum Metrica {
+        RESERVAS, INGRESOS, USUARIOS, CANCELACIONES
+    }
+
+    public enum Granularidad {
+        DIA, SEMANA, MES
+    }
+
+    private final ReservaRepository reservaRepository;
+    private final PagoRepository pagoRepository;
+    private final UserRepository userRepository;
+
+    public SerieTemporalService(ReservaRepository reservaRepository,
+                                PagoRepository pagoRepository,
+                                UserRepository userRepository) {
+        this.reservaRepository = reservaRepository;
+        this.pagoRepository = pagoRepository;
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Construye la serie con el formato que espera Chart.js (labels + data),
+     * ordenada cronológicamente y sin huecos.
+     */
+    public Map<String, Object> obtenerSerie(Metrica metrica, Granularidad granularidad,
+                                            LocalDate desde, LocalDate hasta, int maxPuntos) {
+        if (desde.isAfter(hasta)) {
+            throw new IllegalArgumentException("La fecha 'desde' no puede ser posterior a 'hasta'");
+        }
+        if (ChronoUnit.DAYS.between(desde, hasta) > MAX_DIAS_RANGO) {
+            throw new IllegalArgumentException("El rango máximo permitido es de 10 años");
+        }
+        if (maxPuntos < 1) {
+            throw new IllegalArgumentException("maxPuntos debe ser mayor que cero");
+        }
+
+        // 1. Valores por día desde la BD (una fila por día con datos)
+        Map<LocalDate, BigDecimal> porDia = consultarPorDia(metrica, desde, hasta);
+
+        // 2. Cubetas alineadas y rellenas con cero
+        TreeMap<LocalDate, BigDecimal> cubetas = new TreeMap<>();
+        for (LocalDate inicio = alinear(desde, granularidad);
+             !inicio.isAfter(hasta);
+             inicio = siguiente(inicio, granularidad)) {
+            cubetas.put(inicio, BigDecimal.ZERO);
+        }
+        porDia.forEach((dia, valor) ->
+            cubetas.merge(alinear(dia, granularidad), valor, BigDecimal::add));
+
+        // 3. Reducir a maxPuntos agrupando cubetas consecutivas
+        List<LocalDate> inicios = new ArrayList<>(cubetas.keySet());
+        int factor = (int) Math.ceil((double) inicios.size() / maxPuntos);
+        if (factor < 1) {
+            factor = 1;
+        }
+
+        List<String> labels = new ArrayList<>();
+        List<BigDecimal> data = new ArrayList<>();
+        for (int i = 0; i < inicios.size(); i += factor) {
+            BigDecimal suma = BigDecimal.ZERO;
+            for (int j = i; j < Math.min(i + factor, inicios.size()); j++) {
+                suma = suma.add(cubetas.get(inicios.get(j)));
+            }
+            labels.add(formatear(inicios.get(i), granularidad));
+            data.add(suma);
+        }
+
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("metrica", metrica.name().toLowerCase());
+        resultado.put("granularidad", granularidad.name().toLowerCase());
+        resultado.put("desde", desde.toString());
+        resultado.put("hasta", hasta.toString());
+        resultado.put("cubetasPorPunto", factor);
+        resultado.put("labels", labels);
+        resultado.put("data", data);
+        return resultado;
+    }
+
+    /**
+     * Las cancelaciones anteriores a cancelada_at no tienen fecha: se
+     * completa una vez al arrancar (idempotente entre nodos).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void completarFechasCancelacion() {
+        try {
+            int completadas = reservaRepository.completarFechasCancelacion();
+            if (completadas > 0) {
+                System.out.println("📈 Fecha de cancelación completada en " + completadas + " reservas");
+            }
+        } catch (Exception e) {
+            System.err.println("❌ No se pudo completar la fecha de cancelación: " + e.getMessage());
+        }
+    }
+
+    // ====================================
+    // MÉTODOS AUXILIARES
+    // ====================================
+
+    private Map<LocalDate, BigDecimal> consultarPorDia(Metrica metrica, LocalDate desde, LocalDate hasta) {
+        List<Object[]> filas = switch (metrica) {
+            case RESERVAS -> reservaRepository.contarReservasPorDia(desde, hasta);
+            case CANCELACIONES -> reservaRepository.contarCancelacionesPorDia(
+                desde.atStartOfDay(), hasta.plusDays(1).atStartOfDay());
+            case INGRESOS -> pagoRepository.sumarIngresosPorDia(
+                desde.atStartOfDay(), hasta.plusDays(1).atStartOfDay());
+            case USUARIOS -> userRepository.contarRegistrosPorDia(
+                desde.atStartOfDay(), hasta.plusDays(1).atStartOfDay());
+        };
+
+        Map<LocalDate, BigDecimal> porDia = new TreeMap<>();
+        for (Object[] fila : filas) {
+            if (fila[0] == null || fila[1] == null) {
+                continue;
+            }
+            porDia.merge(aFecha(fila[0]), aDecimal(fila[1]), BigDecimal::add);
+        }
+        return porDia;
+    }
+
+    private LocalDate alinear(LocalDate fecha, Granularidad granularidad) {
+        return switch (granularidad) {
+            case DIA -> fecha;
+            case SEMANA -> fecha.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MES -> fecha.withDayOfMonth(1);
+        };
+    }
+
+    private LocalDate siguiente(LocalDate inicio, Granularidad granularidad) {
+        return switch (granularidad) {
+            case DIA -> inicio.plusDays(1);
+            case SEMANA -> inicio.plusWeeks(1);
+            case MES -> inicio.plusMonths(1);
+        };
+    }
+
+    private String formatear(LocalDate inicio, Granularidad granularidad) {
+        return granularidad == Granularidad.MES ? inicio.format(FORMATO_MES) : inicio.format(FORMATO_DIA);
+    }
+
+    // Según el dialecto, el CAST a fecha puede llegar como LocalDate o java.sql.Date
+    private LocalDate aFecha(Object valor) {
+        if (valor instanceof LocalDate fecha) {
+            return fecha;
+        }
+        if (valor instanceof Date fecha) {
+            return fecha.toLocalDate();
+        }
+        return LocalDate.parse(valor.toString());
+    }
+
+    private BigDecimal aDecimal(Object valor) {
+        if (valor instanceof BigDecimal decimal) {
+            return decimal;
+        }
+        return new BigDecimal(valor.toString());
+    }
+}
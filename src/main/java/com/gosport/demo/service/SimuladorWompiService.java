@@ -0,0 +1,244 @@
+package com.gosport.demo.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Simulador de la API de Wompi para pruebas de carga y de fallos sin red
+ * (perfil "simulador"). Implementa crear y consultar transacciones con
+ * latencia log-normal, tasas de error y de timeout configurables, paso
+ * diferido de PENDING a un estado final y el webhook firmado hacia
+ * /pagos/webhook (con reenvíos duplicados opcionales).
+ *
+ * Todo es no bloqueante (Mono.delay), así que miles de transacciones
+ * simultáneas no ocupan hilos.
+ */
+@Service
+@Profile("simulador")
+public class SimuladorWompiService {
+
+    private static final List<String> PROPIEDADES_FIRMA =
+        List.of("transaction.id", "transaction.status", "transaction.amount_in_cents");
+
+    /**
+     * Código HTTP y cuerpo JSON de una respuesta simulada.
+     */
+    public record Respuesta(int status, Map<String, Object> cuerpo) {}
+
+    private static final class Transaccion {
+        final String id;
+        final String reference;
+        final long amountInCents;
+        final String paymentMethodType;
+        final Instant creada = Instant.now();
+        volatile String status = "PENDING";
+
+        Transaccion(String id, String reference, long amountInCents, String paymentMethodType) {
+            this.id = id;
+            this.reference = reference;
+            this.amountInCents = amountInCents;
+            this.paymentMethodType = paymentMethodType;
+        }
+    }
+
+    private final Map<String, Transaccion> transacciones = new ConcurrentHashMap<>();
+    private final WebClient webhookClient;
+
+    @Value("${wompi.events.secret}")
+    private String eventsSecret;
+
+    @Value("${app.base.url}")
+    private String baseUrl;
+
+    // Latencia: log-normal con esta mediana y dispersión, con tope
+    @Value("${gosports.simulador.latencia-mediana-ms:150}")
+    private long latenciaMedianaMs;
+
+    @Value("${gosports.simulador.latencia-sigma:0.5}")
+    private double latenciaSigma;
+
+    @Value("${gosports.simulador.latencia-maxima-ms:5000}")
+    private long latenciaMaximaMs;
+
+    // Fallos
+    @Value("${gosports.simulador.tasa-error:0.0}")
+    private double tasaError;
+
+    @Value("${gosports.simulador.tasa-timeout:0.0}")
+    private double tasaTimeout;
+
+    // Transición a estado final y webhook
+    @Value("${gosports.simulador.tasa-aprobacion:0.9}")
+    private double tasaAprobacion;
+
+    @Value("${gosports.simulador.transicion-min-ms:2000}")
+    private long transicionMinMs;
+
+    @Value("${gosports.simulador.transicion-max-ms:10000}")
+    private long transicionMaxMs;
+
+    @Value("${gosports.simulador.webhook-habilitado:true}")
+    private boolean webhookHabilitado;
+
+    @Value("${gosports.simulador.tasa-webhook-duplicado:0.1}")
+    private double tasaWebhookDuplicado;
+
+    @Value("${gosports.simulador.retencion-minutos:60}")
+    private long retencionMinutos;
+
+    public SimuladorWompiService(WebClient.Builder webClientBuilder) {
+        this.webhookClient = webClientBuilder.build();
+        System.out.println("🧪 Simulador de Wompi activo: no se contacta la pasarela real");
+    }
+
+    // ====================================
+    // API SIMULADA
+    // ====================================
+
+    public Mono<Respuesta> crear(Map<String, Object> peticion) {
+        return conLatencia(() -> {
+            String id = "sim-" + UUID.randomUUID();
+            Object monto = peticion.get("amount_in_cents");
+            Object metodo = peticion.get("payment_method") instanceof Map<?, ?> m ? m.get("type") : null;
+
+            Transaccion transaccion = new Transaccion(id,
+                String.valueOf(peticion.get("reference")),
+                monto instanceof Number n ? n.longValue() : 0L,
+                metodo != null ? metodo.toString() : "CARD");
+            transacciones.put(id, transaccion);
+            programarTransicion(transaccion);
+
+            return new Respuesta(201, Map.of("data", aMapa(transaccion)));
+        });
+    }
+
+    public Mono<Respuesta> consultar(String id) {
+        return conLatencia(() -> Optional.ofNullable(transacciones.get(id))
+            .map(t -> new Respuesta(200, Map.<String, Object>of("data", aMapa(t))))
+            .orElseGet(() -> new Respuesta(404, Map.of("error", Map.of("type", "NOT_FOUND_ERROR")))));
+    }
+
+    // ====================================
+    // LATENCIA Y FALLOS
+    // ====================================
+
+    private Mono<Respuesta> conLatencia(Supplier<Respuesta> respuesta) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double sorteo = random.nextDouble();
+        if (sorteo < tasaTimeout) {
+            // Nunca responde: el cliente debe cortar por su timeout
+            return Mono.never();
+        }
+        boolean error = sorteo < tasaTimeout + tasaError;
+        return Mono.delay(Duration.ofMillis(latencia()))
+            .map(t -> error
+                ? new Respuesta(503, Map.of("error", Map.of("type", "SIMULATED_ERROR")))
+                : respuesta.get());
+    }
+
+    private long latencia() {
+        double factor = Math.exp(latenciaSigma * ThreadLocalRandom.current().nextGaussian());
+        return Math.min(latenciaMaximaMs, Math.round(latenciaMedianaMs * factor));
+    }
+
+    // ====================================
+    // TRANSICIÓN Y WEBHOOK
+    // ====================================
+
+    private void programarTransicion(Transaccion transaccion) {
+        long espera = ThreadLocalRandom.current().nextLong(transicionMinMs, Math.max(transicionMinMs, transicionMaxMs) + 1);
+        Mono.delay(Duration.ofMillis(espera))
+            .doOnNext(t -> transaccion.status =
+                ThreadLocalRandom.current().nextDouble() < tasaAprobacion ? "APPROVED" : "DECLINED")
+            .filter(t -> webhookHabilitado)
+            .flatMap(t -> {
+                // El reenvío es el mismo evento (mismo timestamp y checksum), como en Wompi
+                Map<String, Object> evento = construirEvento(transaccion);
+                return publicar(transaccion, evento)
+                    .then(ThreadLocalRandom.current().nextDouble() < tasaWebhookDuplicado
+                        ? publicar(transaccion, evento)
+                        : Mono.empty());
+            })
+            .subscribe();
+    }
+
+    private Map<String, Object> construirEvento(Transaccion transaccion) {
+        Map<String, Object> datos = aMapa(transaccion);
+        long timestamp = Instant.now().getEpochSecond();
+        String checksum = firmar(datos, timestamp);
+
+        Map<String, Object> evento = new LinkedHashMap<>();
+        evento.put("event", "transaction.updated");
+        evento.put("data", Map.of("transaction", datos));
+        evento.put("environment", "simulador");
+        evento.put("signature", Map.of("properties", PROPIEDADES_FIRMA, "checksum", checksum));
+        evento.put("timestamp", timestamp);
+        evento.put("sent_at", Instant.now().toString());
+        return evento;
+    }
+
+    private Mono<Void> publicar(Transaccion transaccion, Map<String, Object> evento) {
+        return webhookClient.post()
+            .uri(baseUrl + "/pagos/webhook")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(evento)
+            .retrieve()
+            .toBodilessEntity()
+            .timeout(Duration.ofSeconds(10))
+            .doOnError(e -> System.err.println("⚠️ Simulador: webhook de " + transaccion.id + " falló: " + e.getMessage()))
+            .onErrorResume(e -> Mono.empty())
+            .then();
+    }
+
+    // Igual que Wompi: SHA-256 de los valores firmados + timestamp + secreto de eventos
+    private String firmar(Map<String, Object> transaccion, long timestamp) {
+        StringBuilder cadena = new StringBuilder();
+        for (String propiedad : PROPIEDADES_FIRMA) {
+            cadena.append(transaccion.get(propiedad.substring("transaction.".length())));
+        }
+        cadena.append(timestamp).append(eventsSecret);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().withUpperCase().formatHex(digest.digest(cadena.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private Map<String, Object> aMapa(Transaccion transaccion) {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("id", transaccion.id);
+        datos.put("status", transaccion.status);
+        datos.put("reference", transaccion.reference);
+        datos.put("amount_in_cents", transaccion.amountInCents);
+        datos.put("currency", "COP");
+        datos.put("payment_method_type", transaccion.paymentMethodType);
+        datos.put("payment_link_url", baseUrl + "/pagos/confirmacion?id=" + transaccion.id);
+        return datos;
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void limpiar() {
+        Instant limite = Instant.now().minus(Duration.ofMinutes(retencionMinutos));
+        transacciones.values().removeIf(t -> t.creada.isBefore(limite));
+    }
+}
@@ -0,0 +1,198 @@
+package com.gosport.demo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gosport.demo.model.WebhookEvento;
+import com.gosport.demo.repository.WebhookEventoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Webhook de Wompi en dos pasos. Al recibir: se verifica el checksum, se
+ * guarda el evento (su clave única descarta los reenvíos) y se responde de
+ * inmediato. Después, un worker aplica los eventos en orden de llegada,
+ * con un lote fijo por intervalo para que una ráfaga se drene a ritmo constante.
+ */
+@Service
+public class WebhookWompiService {
+
+    public enum Recepcion {
+        ACEPTADO,
+        DUPLICADO,
+        FIRMA_INVALIDA,
+        INVALIDO
+    }
+
+    private final WebhookEventoRepository webhookEventoRepository;
+    private final WompiService wompiService;
+    private final PagoService pagoService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final int tamanoLote;
+    private final int maxIntentos;
+    private final long backoffBaseSegundos;
+    private final long bloqueoMinutos;
+    private final int retencionDias;
+
+    private final AtomicLong pendientes = new AtomicLong();
+
+    public WebhookWompiService(WebhookEventoRepository webhookEventoRepository,
+                               WompiService wompiService,
+                               PagoService pagoService,
+                               ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${gosports.webhooks.tamano-lote:100}") int tamanoLote,
+                               @Value("${gosports.webhooks.max-intentos:8}") int maxIntentos,
+                               @Value("${gosports.webhooks.backoff-base-segundos:10}") long backoffBaseSegundos,
+                               @Value("${gosports.webhooks.bloqueo-minutos:5}") long bloqueoMinutos,
+                               @Value("${gosports.webhooks.retencion-dias:30}") int retencionDias) {
+        this.webhookEventoRepository = webhookEventoRepository;
+        this.wompiService = wompiService;
+        this.pagoService = pagoService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.tamanoLote = tamanoLote;
+        this.maxIntentos = maxIntentos;
+        this.backoffBaseSegundos = backoffBaseSegundos;
+        this.bloqueoMinutos = bloqueoMinutos;
+        this.retencionDias = retencionDias;
+
+        Gauge.builder("gosport.webhook.pendientes", pendientes, AtomicLong::get)
+            .description("Eventos de Wompi recibidos y aún sin aplicar")
+            .register(meterRegistry);
+    }
+
+    // ====================================
+    // RECEPCIÓN (hilo de la petición: solo verificar y guardar)
+    // ====================================
+
+    public Recepcion recibir(String payload) {
+        Recepcion resultado = registrar(payload);
+        Counter.builder("gosport.webhook.recibidos")
+            .tag("resultado", resultado.name())
+            .register(meterRegistry)
+            .increment();
+        return resultado;
+    }
+
+    private Recepcion registrar(String payload) {
+        JsonNode evento;
+        try {
+            evento = objectMapper.readTree(payload);
+        } catch (Exception e) {
+            return Recepcion.INVALIDO;
+        }
+        if (evento == null || !evento.isObject()) {
+            return Recepcion.INVALIDO;
+        }
+
+        if (!wompiService.verificarFirmaEvento(evento)) {
+            System.err.println("⚠️ Webhook de Wompi con firma inválida");
+            return Recepcion.FIRMA_INVALIDA;
+        }
+
+        JsonNode transaccion = evento.path("data").path("transaction");
+        WebhookEvento registro = new WebhookEvento();
+        registro.setClave(evento.path("signature").path("checksum").asText().toLowerCase());
+        registro.setEvento(evento.path("event").asText("desconocido"));
+        registro.setTransactionId(transaccion.path("id").asText(null));
+        registro.setStatusTransaccion(transaccion.path("status").asText(null));
+        registro.setTimestampEvento(evento.path("timestamp").asLong());
+        registro.setPayload(payload);
+
+        try {
+            webhookEventoRepository.save(registro);
+            return Recepcion.ACEPTADO;
+        } catch (DataIntegrityViolationException e) {
+            // Reenvío de un evento ya recibido
+            return Recepcion.DUPLICADO;
+        }
+    }
+
+    // ====================================
+    // APLICACIÓN (en segundo plano, a ritmo constante)
+    // ====================================
+
+    @Scheduled(fixedDelayString = "${gosports.webhooks.intervalo-ms:1000}")
+    public void procesar() {
+        List<WebhookEvento> lote = reclamar();
+        for (WebhookEvento evento : lote) {
+            aplicar(evento);
+        }
+        pendientes.set(webhookEventoRepository.countByEstado(WebhookEvento.EstadoEvento.PENDIENTE));
+    }
+
+    private List<WebhookEvento> reclamar() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime ahora = LocalDateTime.now();
+            List<WebhookEvento> listos = webhookEventoRepository.reclamarListos(ahora, PageRequest.of(0, tamanoLote));
+            for (WebhookEvento evento : listos) {
+                evento.setEstado(WebhookEvento.EstadoEvento.PROCESANDO);
+                evento.setBloqueadoHasta(ahora.plusMinutes(bloqueoMinutos));
+            }
+            return listos;
+        });
+    }
+
+    private void aplicar(WebhookEvento evento) {
+        try {
+            // El cambio del pago y la marca del evento se confirman juntos
+            transactionTemplate.executeWithoutResult(status -> {
+                if ("transaction.updated".equals(evento.getEvento())
+                        && evento.getTransactionId() != null && evento.getStatusTransaccion() != null) {
+                    pagoService.procesarConfirmacionPago(evento.getTransactionId(), evento.getStatusTransaccion());
+                }
+                evento.setEstado(WebhookEvento.EstadoEvento.PROCESADO);
+                evento.setProcesadoAt(LocalDateTime.now());
+                evento.setBloqueadoHasta(null);
+                evento.setUltimoError(null);
+                webhookEventoRepository.save(evento);
+            });
+            return;
+
+        } catch (Exception e) {
+            // p. ej. el evento llegó antes de que se guardara el pago: se reintenta
+            int intentos = evento.getIntentos() + 1;
+            evento.setIntentos(intentos);
+            evento.setUltimoError(e.getMessage());
+            evento.setBloqueadoHasta(null);
+            evento.setProcesadoAt(null);
+            if (intentos >= maxIntentos) {
+                evento.setEstado(WebhookEvento.EstadoEvento.FALLIDO);
+                System.err.println("❌ Evento de Wompi " + evento.getId() + " descartado tras " + intentos + " intentos: " + e.getMessage());
+            } else {
+                evento.setEstado(WebhookEvento.EstadoEvento.PENDIENTE);
+                evento.setProximoIntento(LocalDateTime.now().plusSeconds(backoffBaseSegundos << Math.min(intentos - 1, 10)));
+                System.err.println("⚠️ Error aplicando evento de Wompi " + evento.getId() + " (intento " + intentos + "): " + e.getMessage());
+            }
+        }
+
+        try {
+            webhookEventoRepository.save(evento);
+        } catch (Exception e) {
+            // Al vencer el bloqueo se vuelve a reclamar
+            System.err.println("❌ No se pudo actualizar el evento " + evento.getId() + ": " + e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${gosports.webhooks.limpieza-ms:3600000}")
+    public void limpiar() {
+        webhookEventoRepository.eliminarProcesadosAntesDe(LocalDateTime.now().minusDays(retencionDias));
+    }
+}
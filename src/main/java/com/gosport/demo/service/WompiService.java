@@ -1,142 +1,325 @@
 package com.gosport.demo.service;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.gosport.demo.model.Pago;
 import com.gosport.demo.model.Reserva;
+import com.gosport.demo.util.CircuitBreaker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.netty.handler.timeout.WriteTimeoutHandler;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Cliente de la API de Wompi. No bloquea: las llamadas retornan {@link Mono}
+ * y corren sobre un pool propio de conexiones con timeouts explícitos, así
+ * una pasarela lenta no retiene hilos de Tomcat.
+ *
+ * Cada llamada pasa por un bulkhead (máximo de llamadas en vuelo) y un
+ * circuit breaker: si Wompi se degrada, se falla de inmediato con
+ * {@link PasarelaNoDisponibleException} en vez de acumular peticiones.
+ */
 @Service
 public class WompiService {
 
+    private static final ParameterizedTypeReference<Respuesta<Transaccion>> RESPUESTA_TRANSACCION =
+        new ParameterizedTypeReference<>() {};
+
     @Value("${wompi.public.key}")
     private String publicKey;
 
     @Value("${wompi.private.key}")
     private String privateKey;
 
-    @Value("${wompi.api.url}")
-    private String apiUrl;
+    @Value("${wompi.events.secret}")
+    private String eventsSecret;
 
     @Value("${app.base.url}")
     private String baseUrl;
 
     private final WebClient webClient;
-    private final ObjectMapper objectMapper;
+    private final ConnectionProvider conexiones;
+    private final Duration timeoutTotal;
+
+    // Aislamiento: cupos de llamadas simultáneas y estado del circuito
+    private final Semaphore bulkhead;
+    private final CircuitBreaker circuito;
+    private final Counter rechazadas;
+
+    public WompiService(WebClient.Builder webClientBuilder,
+                        MeterRegistry meterRegistry,
+                        @Value("${wompi.api.url}") String apiUrl,
+                        @Value("${wompi.http.connect-timeout-ms:3000}") int connectTimeoutMs,
+                        @Value("${wompi.http.read-timeout-ms:10000}") long readTimeoutMs,
+                        @Value("${wompi.http.timeout-total-ms:15000}") long timeoutTotalMs,
+                        @Value("${wompi.http.max-conexiones:50}") int maxConexiones,
+                        @Value("${wompi.http.espera-conexion-ms:2000}") long esperaConexionMs,
+                        @Value("${wompi.http.max-inactiva-ms:30000}") long maxInactivaMs,
+                        @Value("${wompi.bulkhead.max-concurrentes:20}") int maxConcurrentes,
+                        @Value("${wompi.circuito.umbral-fallos:0.5}") double umbralFallos,
+                        @Value("${wompi.circuito.ventana:20}") int ventana,
+                        @Value("${wompi.circuito.minimo-llamadas:10}") int minimoLlamadas,
+                        @Value("${wompi.circuito.abierto-ms:30000}") long abiertoMs,
+                        @Value("${wompi.circuito.llamadas-prueba:3}") int llamadasPrueba) {
+
+        // Pool dedicado: conexiones keep-alive reutilizadas, con límite y
+        // expulsión de las inactivas antes de que el servidor las cierre
+        this.conexiones = ConnectionProvider.builder("wompi")
+            .maxConnections(maxConexiones)
+            .pendingAcquireTimeout(Duration.ofMillis(esperaConexionMs))
+            .maxIdleTime(Duration.ofMillis(maxInactivaMs))
+            .maxLifeTime(Duration.ofMinutes(5))
+            .evictInBackground(Duration.ofSeconds(30))
+            .build();
+
+        HttpClient httpClient = HttpClient.create(conexiones)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+            .responseTimeout(Duration.ofMillis(readTimeoutMs))
+            .doOnConnected(conn -> conn
+                .addHandlerLast(new ReadTimeoutHandler(readTimeoutMs, TimeUnit.MILLISECONDS))
+                .addHandlerLast(new WriteTimeoutHandler(readTimeoutMs, TimeUnit.MILLISECONDS)));
 
-    public WompiService(WebClient.Builder webClientBuilder, ObjectMapper objectMapper) {
-        this.webClient = webClientBuilder.build();
-        this.objectMapper = objectMapper;
+        this.webClient = webClientBuilder
+            .baseUrl(apiUrl)
+            .clientConnector(new ReactorClientHttpConnector(httpClient))
+            .build();
+        this.timeoutTotal = Duration.ofMillis(timeoutTotalMs);
+
+        this.bulkhead = new Semaphore(maxConcurrentes);
+        this.circuito = new CircuitBreaker(umbralFallos, ventana, minimoLlamadas,
+            Duration.ofMillis(abiertoMs), llamadasPrueba);
+        this.circuito.alCambiar((desde, hacia) -> {
+            Counter.builder("gosport.wompi.circuito.transiciones")
+                .tag("desde", desde.name())
+                .tag("hacia", hacia.name())
+                .register(meterRegistry)
+                .increment();
+            String icono = hacia == CircuitBreaker.Estado.ABIERTO ? "🔴" : hacia == CircuitBreaker.Estado.CERRADO ? "🟢" : "🟡";
+            System.out.println(icono + " Circuito de Wompi: " + desde + " → " + hacia);
+        });
+
+        this.rechazadas = Counter.builder("gosport.wompi.rechazadas")
+            .description("Llamadas a Wompi rechazadas sin intentar (circuito abierto o bulkhead lleno)")
+            .register(meterRegistry);
+        Gauge.builder("gosport.wompi.circuito.estado", circuito, c -> c.getEstado().ordinal())
+            .description("0 = cerrado, 1 = abierto, 2 = semi-abierto")
+            .register(meterRegistry);
+        Gauge.builder("gosport.wompi.en-vuelo", bulkhead, b -> maxConcurrentes - b.availablePermits())
+            .description("Llamadas a Wompi en curso")
+            .register(meterRegistry);
     }
 
     /**
-     * Crear transacción de pago en Wompi
+     * La pasarela no está aceptando llamadas (circuito abierto o sin cupo).
      */
-    public Map<String, Object> crearTransaccion(Reserva reserva, Pago.MetodoPago metodoPago) {
-        try {
-            // Preparar datos de la transacción
-            Map<String, Object> transaction = new HashMap<>();
-            
-            // Monto en centavos (Wompi trabaja con centavos)
-            BigDecimal montoEnCentavos = reserva.getPrecioTotal().multiply(new BigDecimal("100"));
-            transaction.put("amount_in_cents", montoEnCentavos.intValue());
-            transaction.put("currency", "COP");
-            transaction.put("customer_email", reserva.getUsuario().getEmail());
-            
-            // Referencia única
-            String referencia = generarReferenciaUnica(reserva);
-            transaction.put("reference", referencia);
-            
-            // URLs de redirección
-            transaction.put("redirect_url", baseUrl + "/pagos/confirmacion");
-            
-            // Información del cliente
-            Map<String, Object> customerData = new HashMap<>();
-            customerData.put("email", reserva.getUsuario().getEmail());
-            customerData.put("full_name", reserva.getUsuario().getName());
-            customerData.put("phone_number", reserva.getUsuario().getTelefono());
-            transaction.put("customer_data", customerData);
-            
-            // Configurar método de pago específico
-            configurarMetodoPago(transaction, metodoPago);
-            
-            // Firma de integridad
-            String integritySignature = generarFirmaIntegridad(referencia, montoEnCentavos.intValue());
-            
-            // Hacer petición a Wompi
-            String response = webClient.post()
-                .uri(apiUrl + "/transactions")
-                .header(HttpHeaders.AUTHORIZATION, "Bearer " + publicKey)
-                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                .bodyValue(transaction)
-                .retrieve()
-                .bodyToMono(String.class)
-                .block();
-            
-            // Parsear respuesta
-            JsonNode jsonResponse = objectMapper.readTree(response);
-            
-            Map<String, Object> result = new HashMap<>();
-            result.put("success", true);
-            result.put("transaction_id", jsonResponse.get("data").get("id").asText());
-            result.put("payment_link", jsonResponse.get("data").get("payment_link_url").asText());
-            result.put("referencia", referencia);
-            result.put("integrity_signature", integritySignature);
-            
-            return result;
-            
-        } catch (Exception e) {
-            Map<String, Object> error = new HashMap<>();
-            error.put("success", false);
-            error.put("error", e.getMessage());
-            return error;
+    public static class PasarelaNoDisponibleException extends RuntimeException {
+        public PasarelaNoDisponibleException(String message) {
+            super(message);
         }
     }
 
     /**
-     * Consultar estado de transacción
+     * Wompi respondió con un código de error HTTP.
      */
-    public Map<String, Object> consultarEstadoTransaccion(String transactionId) {
-        try {
-            String response = webClient.get()
-                .uri(apiUrl + "/transactions/" + transactionId)
-                .header(HttpHeaders.AUTHORIZATION, "Bearer " + publicKey)
-                .retrieve()
-                .bodyToMono(String.class)
-                .block();
-            
-            JsonNode jsonResponse = objectMapper.readTree(response);
-            JsonNode data = jsonResponse.get("data");
-            
-            Map<String, Object> result = new HashMap<>();
-            result.put("success", true);
-            result.put("status", data.get("status").asText());
-            result.put("payment_method", data.get("payment_method_type").asText());
-            result.put("reference", data.get("reference").asText());
-            result.put("amount", data.get("amount_in_cents").asInt() / 100.0);
-            
-            return result;
-            
-        } catch (Exception e) {
-            Map<String, Object> error = new HashMap<>();
-            error.put("success", false);
-            error.put("error", e.getMessage());
-            return error;
+    public static class RespuestaWompiException extends RuntimeException {
+        private final int status;
+
+        public RespuestaWompiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+
+        public int getStatus() {
+            return status;
         }
     }
 
+    // ====================================
+    // RESPUESTAS DE LA API (decodificadas directo del stream)
+    // ====================================
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Respuesta<T>(T data) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Transaccion(
+        String id,
+        String status,
+        String reference,
+        @JsonProperty("payment_method_type") String paymentMethodType,
+        @JsonProperty("amount_in_cents") Long amountInCents,
+        @JsonProperty("payment_link_url") String paymentLinkUrl) {}
+
+    /**
+     * Resultado de crear una transacción, con la referencia generada localmente.
+     */
+    public record TransaccionCreada(String transactionId, String paymentLink,
+                                    String referencia, String integritySignature) {}
+
+    // ====================================
+    // OPERACIONES
+    // ====================================
+
+    /**
+     * Crear transacción de pago en Wompi
+     */
+    public Mono<TransaccionCreada> crearTransaccion(Reserva reserva, Pago.MetodoPago metodoPago) {
+        // Preparar datos de la transacción
+        Map<String, Object> transaction = new HashMap<>();
+
+        // Monto en centavos (Wompi trabaja con centavos)
+        BigDecimal montoEnCentavos = reserva.getPrecioTotal().multiply(new BigDecimal("100"));
+        transaction.put("amount_in_cents", montoEnCentavos.intValue());
+        transaction.put("currency", "COP");
+        transaction.put("customer_email", reserva.getUsuario().getEmail());
+
+        // Referencia única
+        String referencia = generarReferenciaUnica(reserva);
+        transaction.put("reference", referencia);
+
+        // URLs de redirección
+        transaction.put("redirect_url", baseUrl + "/pagos/confirmacion");
+
+        // Información del cliente
+        Map<String, Object> customerData = new HashMap<>();
+        customerData.put("email", reserva.getUsuario().getEmail());
+        customerData.put("full_name", reserva.getUsuario().getName());
+        customerData.put("phone_number", reserva.getUsuario().getTelefono());
+        transaction.put("customer_data", customerData);
+
+        // Configurar método de pago específico
+        configurarMetodoPago(transaction, metodoPago);
+
+        // Firma de integridad
+        String integritySignature = generarFirmaIntegridad(referencia, montoEnCentavos.intValue());
+
+        return protegido(webClient.post()
+            .uri("/transactions")
+            .header(HttpHeaders.AUTHORIZATION, "Bearer " + publicKey)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(transaction)
+            .retrieve()
+            .onStatus(HttpStatusCode::isError, this::errorDeWompi)
+            .bodyToMono(RESPUESTA_TRANSACCION)
+            .timeout(timeoutTotal)
+            .map(respuesta -> {
+                Transaccion data = respuesta.data();
+                if (data == null || data.id() == null) {
+                    throw new RuntimeException("Wompi no retornó la transacción creada");
+                }
+                return new TransaccionCreada(data.id(), data.paymentLinkUrl(), referencia, integritySignature);
+            }));
+    }
+
+    /**
+     * Consultar estado de transacción
+     */
+    public Mono<Transaccion> consultarTransaccion(String transactionId) {
+        return protegido(webClient.get()
+            .uri("/transactions/{id}", transactionId)
+            .header(HttpHeaders.AUTHORIZATION, "Bearer " + publicKey)
+            .retrieve()
+            .onStatus(HttpStatusCode::isError, this::errorDeWompi)
+            .bodyToMono(RESPUESTA_TRANSACCION)
+            .timeout(timeoutTotal)
+            .flatMap(respuesta -> Mono.justOrEmpty(respuesta.data())));
+    }
+
+    /**
+     * ¿Acepta llamadas la pasarela? (circuito no abierto)
+     */
+    public boolean isDisponible() {
+        return circuito.getEstado() != CircuitBreaker.Estado.ABIERTO;
+    }
+
+    private Mono<Throwable> errorDeWompi(ClientResponse respuesta) {
+        return respuesta.bodyToMono(String.class)
+            .defaultIfEmpty("")
+            .map(cuerpo -> new RespuestaWompiException(respuesta.statusCode().value(),
+                "Wompi respondió " + respuesta.statusCode().value() + ": " + cuerpo));
+    }
+
+    // ====================================
+    // BULKHEAD Y CIRCUIT BREAKER
+    // ====================================
+
+    /**
+     * Envuelve una llamada: el cupo y el permiso del circuito se piden al
+     * suscribirse y se liberan al terminar (éxito, error o cancelación).
+     */
+    private <T> Mono<T> protegido(Mono<T> llamada) {
+        return Mono.defer(() -> {
+            if (!bulkhead.tryAcquire()) {
+                rechazadas.increment();
+                return Mono.error(new PasarelaNoDisponibleException("Demasiadas llamadas simultáneas a la pasarela"));
+            }
+            if (!circuito.permitir()) {
+                bulkhead.release();
+                rechazadas.increment();
+                return Mono.error(new PasarelaNoDisponibleException("Pasarela de pagos temporalmente no disponible"));
+            }
+            return llamada
+                .doOnSuccess(r -> circuito.registrarExito())
+                .doOnError(e -> {
+                    if (esFalloDeLaPasarela(e)) {
+                        circuito.registrarFallo();
+                    } else {
+                        circuito.registrarExito();
+                    }
+                })
+                .doFinally(senal -> {
+                    if (senal == SignalType.CANCEL) {
+                        circuito.registrarCancelacion();
+                    }
+                    bulkhead.release();
+                });
+        });
+    }
+
+    /**
+     * Timeouts, errores de conexión y 5xx abren el circuito; un 4xx es un
+     * problema de la petición, la pasarela sí respondió.
+     */
+    private static boolean esFalloDeLaPasarela(Throwable e) {
+        return !(e instanceof RespuestaWompiException r) || r.getStatus() >= 500 || r.getStatus() == 429;
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        conexiones.dispose();
+    }
+
+    // ====================================
+    // UTILIDADES
+    // ====================================
+
     /**
      * Generar referencia única para el pago
      */
@@ -149,11 +332,14 @@ public class WompiService {
      * Generar firma de integridad (para validar webhooks)
      */
     private String generarFirmaIntegridad(String referencia, int montoCentavos) {
+        return sha256Hex(referencia + montoCentavos + "COP" + privateKey);
+    }
+
+    private static String sha256Hex(String cadena) {
         try {
-            String cadena = referencia + montoCentavos + "COP" + privateKey;
             MessageDigest digest = MessageDigest.getInstance("SHA-256");
             byte[] hash = digest.digest(cadena.getBytes(StandardCharsets.UTF_8));
-            
+
             StringBuilder hexString = new StringBuilder();
             for (byte b : hash) {
                 String hex = Integer.toHexString(0xff & b);
@@ -161,7 +347,7 @@ public class WompiService {
                 hexString.append(hex);
             }
             return hexString.toString();
-            
+
         } catch (Exception e) {
             throw new RuntimeException("Error al generar firma de integridad", e);
         }
@@ -172,7 +358,7 @@ public class WompiService {
      */
     private void configurarMetodoPago(Map<String, Object> transaction, Pago.MetodoPago metodoPago) {
         Map<String, Object> paymentMethod = new HashMap<>();
-        
+
         switch (metodoPago) {
             case PSE:
                 paymentMethod.put("type", "PSE");
@@ -191,20 +377,39 @@ public class WompiService {
             default:
                 paymentMethod.put("type", "CARD");
         }
-        
+
         transaction.put("payment_method", paymentMethod);
     }
 
     /**
-     * Verificar firma de webhook
+     * Verificar el checksum de un evento de Wompi: SHA-256 de los valores de
+     * signature.properties (rutas dentro de data), el timestamp y el secreto
+     * de eventos.
      */
-    public boolean verificarFirmaWebhook(String signature, String timestamp, String eventData) {
-        try {
-            String cadena = timestamp + "." + eventData;
-            String generatedSignature = generarFirmaIntegridad(cadena, 0);
-            return generatedSignature.equals(signature);
-        } catch (Exception e) {
+    public boolean verificarFirmaEvento(JsonNode evento) {
+        JsonNode firma = evento.path("signature");
+        JsonNode propiedades = firma.path("properties");
+        String checksum = firma.path("checksum").asText(null);
+        if (checksum == null || !propiedades.isArray() || !evento.hasNonNull("timestamp")) {
             return false;
         }
+
+        StringBuilder cadena = new StringBuilder();
+        for (JsonNode propiedad : propiedades) {
+            JsonNode valor = evento.path("data");
+            for (String parte : propiedad.asText().split("\\.")) {
+                valor = valor.path(parte);
+            }
+            if (valor.isMissingNode() || valor.isNull()) {
+                return false;
+            }
+            cadena.append(valor.asText());
+        }
+        cadena.append(evento.get("timestamp").asText()).append(eventsSecret);
+
+        // Comparación en tiempo constante
+        return MessageDigest.isEqual(
+            sha256Hex(cadena.toString()).getBytes(StandardCharsets.US_ASCII),
+            checksum.toLowerCase().getBytes(StandardCharsets.US_ASCII));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,170 @@
+package com.gosport.demo.util;
+
+import java.time.Duration;
+import java.util.function.BiConsumer;
+
+/**
+ * Circuit breaker con ventana deslizante por cantidad de llamadas.
+ * CERRADO: pasan todas; si en las últimas {@code ventana} llamadas la
+ * proporción de fallos supera el umbral, se ABRE y rechaza todo durante
+ * {@code tiempoAbierto}. Luego pasa a SEMI_ABIERTO y deja pasar unas pocas
+ * llamadas de prueba: si todas salen bien se cierra, si una falla se reabre.
+ *
+ * Métodos sincronizados: se llaman una vez por petición a un servicio
+ * remoto, el costo del lock es despreciable frente a la red.
+ */
+public final class CircuitBreaker {
+
+    public enum Estado {
+        CERRADO,
+        ABIERTO,
+        SEMI_ABIERTO
+    }
+
+    private final double umbralFallos;
+    private final int minimoLlamadas;
+    private final long tiempoAbiertoNanos;
+    private final int llamadasPrueba;
+
+    // Ventana circular: true = fallo
+    private final boolean[] resultados;
+    private int posicion;
+    private int registradas;
+    private int fallos;
+
+    private Estado estado = Estado.CERRADO;
+    private long abiertoDesde;
+    private int pruebasEnCurso;
+    private int pruebasExitosas;
+
+    private BiConsumer<Estado, Estado> alCambiar = (desde, hacia) -> { };
+
+    public CircuitBreaker(double umbralFallos, int ventana, int minimoLlamadas,
+                          Duration tiempoAbierto, int llamadasPrueba) {
+        if (umbralFallos <= 0 || umbralFallos > 1 || ventana < 1 || llamadasPrueba < 1) {
+            throw new IllegalArgumentException("Umbral en (0, 1], ventana y llamadas de prueba >= 1");
+        }
+        this.umbralFallos = umbralFallos;
+        this.resultados = new boolean[ventana];
+        this.minimoLlamadas = Math.min(Math.max(1, minimoLlamadas), ventana);
+        this.tiempoAbiertoNanos = tiempoAbierto.toNanos();
+        this.llamadasPrueba = llamadasPrueba;
+    }
+
+    /**
+     * Se notifica cada transición (estado anterior, estado nuevo).
+     * El listener se llama con el lock tomado: debe ser rápido.
+     */
+    public synchronized void alCambiar(BiConsumer<Estado, Estado> listener) {
+        this.alCambiar = listener;
+    }
+
+    /**
+     * ¿Puede hacerse la llamada? Si retorna true, hay que informar el
+     * resultado con registrarExito, registrarFallo o registrarCancelacion.
+     */
+    public synchronized boolean permitir() {
+        switch (estado) {
+            case CERRADO:
+                return true;
+            case ABIERTO:
+                if (System.nanoTime() - abiertoDesde < tiempoAbiertoNanos) {
+                    return false;
+                }
+                cambiar(Estado.SEMI_ABIERTO);
+                pruebasEnCurso = 0;
+                pruebasExitosas = 0;
+                // sigue como SEMI_ABIERTO
+            default:
+                if (pruebasEnCurso + pruebasExitosas >= llamadasPrueba) {
+                    return false;
+                }
+                pruebasEnCurso++;
+                return true;
+        }
+    }
+
+    public synchronized void registrarExito() {
+        if (estado == Estado.SEMI_ABIERTO) {
+            pruebasEnCurso = Math.max(0, pruebasEnCurso - 1);
+            if (++pruebasExitosas >= llamadasPrueba) {
+                reiniciarVentana();
+                cambiar(Estado.CERRADO);
+            }
+        } else if (estado == Estado.CERRADO) {
+            registrar(false);
+        }
+    }
+
+    public synchronized void registrarFallo() {
+        if (estado == Estado.SEMI_ABIERTO) {
+            abrir();
+        } else if (estado == Estado.CERRADO) {
+            registrar(true);
+            if (registradas >= minimoLlamadas && fallos >= umbralFallos * registradas) {
+                abrir();
+            }
+        }
+    }
+
+    /**
+     * La llamada se canceló sin resultado: libera el cupo de prueba.
+     */
+    public synchronized void registrarCancelacion() {
+        if (estado == Estado.SEMI_ABIERTO) {
+            pruebasEnCurso = Math.max(0, pruebasEnCurso - 1);
+        }
+    }
+
+    public synchronized Estado getEstado() {
+        return estado;
+    }
+
+    /**
+     * Proporción de fallos en la ventana actual (0 si está vacía).
+     */
+    public synchronized double tasaFallos() {
+        return registradas == 0 ? 0 : (double) fallos / registradas;
+    }
+
+    // ====================================
+    // INTERNOS (con el lock tomado)
+    // ====================================
+
+    private void registrar(boolean fallo) {
+        if (registradas == resultados.length) {
+            if (resultados[posicion]) {
+                fallos--;
+            }
+        } else {
+            registradas++;
+        }
+        resultados[posicion] = fallo;
+        if (fallo) {
+            fallos++;
+        }
+        posicion = (posicion + 1) % resultados.length;
+    }
+
+    private void abrir() {
+        abiertoDesde = System.nanoTime();
+        reiniciarVentana();
+        cambiar(Estado.ABIERTO);
+    }
+
+    private void reiniciarVentana() {
+        posicion = 0;
+        registradas = 0;
+        fallos = 0;
+        pruebasEnCurso = 0;
+        pruebasExitosas = 0;
+    }
+
+    private void cambiar(Estado nuevo) {
+        Estado anterior = estado;
+        estado = nuevo;
+        if (anterior != nuevo) {
+            alCambiar.accept(anterior, nuevo);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.gosport.demo.util;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Almacén de idempotencia en memoria con TTL y tamaño acotado.
+ * La primera llamada con una clave ejecuta la operación; las concurrentes
+ * con la misma clave esperan ese mismo resultado (single-flight) y las
+ * posteriores, mientras no venza el TTL, lo reciben de nuevo sin ejecutar.
+ * Los fallos no se guardan: un reintento vuelve a ejecutar.
+ */
+public final class Idempotencia<V> {
+
+    private record Entrada<V>(CompletableFuture<V> resultado, long expiraNanos) {
+    }
+
+    private final ConcurrentHashMap<String, Entrada<V>> entradas = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final int maxEntradas;
+
+    public Idempotencia(Duration ttl, int maxEntradas) {
+        if (ttl.isNegative() || ttl.isZero() || maxEntradas < 1) {
+            throw new IllegalArgumentException("TTL > 0 y maxEntradas >= 1 requeridos");
+        }
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntradas = maxEntradas;
+    }
+
+    /**
+     * Ejecuta la operación una sola vez por clave. El future retornado es
+     * una copia: cancelarlo no afecta a los demás que esperan.
+     */
+    public CompletableFuture<V> ejecutar(String clave, Supplier<CompletableFuture<V>> operacion) {
+        if (entradas.size() >= maxEntradas) {
+            purgarVencidas();
+        }
+
+        long ahora = System.nanoTime();
+        boolean[] nueva = {false};
+        Entrada<V> entrada = entradas.compute(clave, (k, actual) -> {
+            if (actual != null && actual.expiraNanos() - ahora > 0) {
+                return actual;
+            }
+            nueva[0] = true;
+            return new Entrada<>(new CompletableFuture<>(), ahora + ttlNanos);
+        });
+
+        if (nueva[0]) {
+            // La operación corre fuera de compute para no bloquear la clave
+            CompletableFuture<V> resultado = entrada.resultado();
+            try {
+                operacion.get().whenComplete((valor, error) -> {
+                    if (error != null) {
+                        entradas.remove(clave, entrada);
+                        resultado.completeExceptionally(error);
+                    } else {
+                        resultado.complete(valor);
+                    }
+                });
+            } catch (RuntimeException e) {
+                entradas.remove(clave, entrada);
+                resultado.completeExceptionally(e);
+            }
+            // Lleno incluso tras purgar: no se conserva para repeticiones
+            if (entradas.size() > maxEntradas) {
+                resultado.whenComplete((v, e) -> entradas.remove(clave, entrada));
+            }
+        }
+        return entrada.resultado().copy();
+    }
+
+    public int tamano() {
+        return entradas.size();
+    }
+
+    public void purgarVencidas() {
+        long ahora = System.nanoTime();
+        entradas.values().removeIf(e -> e.expiraNanos() - ahora <= 0 && e.resultado().isDone());
+    }
+}
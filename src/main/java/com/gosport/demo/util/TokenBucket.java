@@ -0,0 +1,75 @@
+package com.gosport.demo.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Token bucket sin locks: el estado (tokens, último relleno) es inmutable y
+ * se reemplaza con compareAndSet, así que consumir un token es un par de
+ * lecturas y un CAS incluso con muchos hilos.
+ */
+public final class TokenBucket {
+
+    private record Estado(double tokens, long ultimoNanos) {
+    }
+
+    private final double capacidad;
+    private final double tokensPorNano;
+    private final AtomicReference<Estado> estado;
+
+    public TokenBucket(double capacidad, double tokensPorSegundo) {
+        if (capacidad < 1 || tokensPorSegundo <= 0) {
+            throw new IllegalArgumentException("Capacidad >= 1 y tasa > 0 requeridas");
+        }
+        this.capacidad = capacidad;
+        this.tokensPorNano = tokensPorSegundo / TimeUnit.SECONDS.toNanos(1);
+        this.estado = new AtomicReference<>(new Estado(capacidad, System.nanoTime()));
+    }
+
+    /**
+     * Consume un token si hay disponible.
+     */
+    public boolean intentarConsumir() {
+        return intentarConsumir(0);
+    }
+
+    /**
+     * Consume un token solo si después quedan al menos {@code reserva} tokens.
+     * Permite que el tráfico menos importante no agote la capacidad.
+     */
+    public boolean intentarConsumir(double reserva) {
+        while (true) {
+            Estado actual = estado.get();
+            long ahora = System.nanoTime();
+            double disponibles = rellenar(actual, ahora);
+            if (disponibles < 1 + reserva) {
+                return false;
+            }
+            if (estado.compareAndSet(actual, new Estado(disponibles - 1, Math.max(ahora, actual.ultimoNanos())))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Nanosegundos hasta que haya un token por encima de {@code reserva} (0 si ya lo hay).
+     */
+    public long nanosHastaDisponible(double reserva) {
+        Estado actual = estado.get();
+        double faltan = 1 + reserva - rellenar(actual, System.nanoTime());
+        return faltan <= 0 ? 0 : (long) Math.ceil(faltan / tokensPorNano);
+    }
+
+    public double disponibles() {
+        return rellenar(estado.get(), System.nanoTime());
+    }
+
+    public double getCapacidad() {
+        return capacidad;
+    }
+
+    private double rellenar(Estado actual, long ahora) {
+        long transcurrido = Math.max(0, ahora - actual.ultimoNanos());
+        return Math.min(capacidad, actual.tokens() + transcurrido * tokensPorNano);
+    }
+}
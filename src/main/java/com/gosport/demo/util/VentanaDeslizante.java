@@ -0,0 +1,84 @@
+package com.gosport.demo.util;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Contador de eventos en una ventana deslizante, sin locks.
+ * La ventana se divide en {@code divisiones} casillas; cada casilla guarda
+ * en un solo long el número de tramo que ocupa (bits altos) y su conteo
+ * (bits bajos), así reciclar una casilla vieja y sumar es un único CAS.
+ */
+public final class VentanaDeslizante {
+
+    private static final int BITS_CONTEO = 24;
+    private static final long MASCARA_CONTEO = (1L << BITS_CONTEO) - 1;
+
+    private final AtomicLongArray casillas;
+    private final long nanosPorTramo;
+    private final long origenNanos = System.nanoTime();
+
+    public VentanaDeslizante(Duration ventana, int divisiones) {
+        if (ventana.isNegative() || ventana.isZero() || divisiones < 1) {
+            throw new IllegalArgumentException("Ventana > 0 y divisiones >= 1 requeridas");
+        }
+        this.casillas = new AtomicLongArray(divisiones);
+        this.nanosPorTramo = Math.max(1, ventana.toNanos() / divisiones);
+    }
+
+    /**
+     * Suma un evento y retorna el total en la ventana (incluido este).
+     */
+    public int registrar() {
+        long tramo = tramoActual();
+        int i = (int) (tramo % casillas.length());
+        while (true) {
+            long actual = casillas.get(i);
+            long conteo = tramoDe(actual) == tramo ? conteoDe(actual) : 0;
+            long nuevo = empaquetar(tramo, Math.min(conteo + 1, MASCARA_CONTEO));
+            if (casillas.compareAndSet(i, actual, nuevo)) {
+                break;
+            }
+        }
+        return total(tramo);
+    }
+
+    public int total() {
+        return total(tramoActual());
+    }
+
+    /**
+     * Sin eventos dentro de la ventana: se puede descartar.
+     */
+    public boolean vacia() {
+        return total() == 0;
+    }
+
+    private int total(long tramo) {
+        long suma = 0;
+        for (int i = 0; i < casillas.length(); i++) {
+            long valor = casillas.get(i);
+            if (tramo - tramoDe(valor) < casillas.length()) {
+                suma += conteoDe(valor);
+            }
+        }
+        return (int) Math.min(Integer.MAX_VALUE, suma);
+    }
+
+    private long tramoActual() {
+        // Desplazado para que el tramo 0 (casilla sin usar) nunca sea reciente
+        return (System.nanoTime() - origenNanos) / nanosPorTramo + casillas.length() + 1;
+    }
+
+    private static long tramoDe(long valor) {
+        return valor >>> BITS_CONTEO;
+    }
+
+    private static long conteoDe(long valor) {
+        return valor & MASCARA_CONTEO;
+    }
+
+    private static long empaquetar(long tramo, long conteo) {
+        return (tramo << BITS_CONTEO) | conteo;
+    }
+}
@@ -0,0 +1,33 @@
+package com.gosport.demo;
+
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Base para pruebas que necesitan MySQL de verdad: cursores en streaming,
+ * SELECT ... FOR UPDATE, INSERT IGNORE. Un solo contenedor para todas las
+ * clases; sin Docker las pruebas se omiten en lugar de fallar.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public abstract class BaseDatosDePrueba {
+
+	protected static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+
+	static {
+		if (DockerClientFactory.instance().isDockerAvailable()) {
+			MYSQL.start();
+		}
+	}
+
+	@DynamicPropertySource
+	static void baseDeDatos(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", MYSQL::getJdbcUrl);
+		registry.add("spring.datasource.username", MYSQL::getUsername);
+		registry.add("spring.datasource.password", MYSQL::getPassword);
+	}
+}
@@ -3,7 +3,7 @@ package com.gosport.demo;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "gosports.api.jwt.secreto=secreto-de-pruebas-de-al-menos-32-bytes")
 class GoSportApplicationTests {
 
 	@Test
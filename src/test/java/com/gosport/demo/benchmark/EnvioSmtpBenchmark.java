@@ -0,0 +1,77 @@
+package com.gosport.demo.benchmark;
+
+import com.gosport.demo.config.PoolSmtpMailSender;
+import com.gosport.demo.config.ServidorSmtpDePrueba;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Correos por segundo contra un SMTP local con latencia de conexión
+ * (simula TCP + STARTTLS + AUTH): una conexión por correo vs. el pool.
+ * mvn test -Pbenchmark [-Dbenchmark.correos=N] [-Dbenchmark.smtp.latencia-ms=N]
+ */
+@Tag("benchmark")
+class EnvioSmtpBenchmark {
+
+	private static final int CORREOS = Integer.getInteger("benchmark.correos", 400);
+	private static final long LATENCIA_MS = Long.getLong("benchmark.smtp.latencia-ms", 50);
+	private static final int HILOS = 4;
+
+	@Test
+	void conexionPorCorreoVsPool() throws Exception {
+		double sinPool;
+		try (ServidorSmtpDePrueba servidor = new ServidorSmtpDePrueba(LATENCIA_MS)) {
+			JavaMailSenderImpl sender = new JavaMailSenderImpl();
+			sender.setHost("127.0.0.1");
+			sender.setPort(servidor.getPuerto());
+
+			Medicion.Resultado resultado = Medicion.medir(() -> enviar(sender));
+			resultado.imprimir("SMTP sin pool (" + servidor.getConexiones() + " conexiones)", CORREOS, "correos");
+			assertEquals(CORREOS, servidor.getMensajes());
+			sinPool = resultado.porSegundo(CORREOS);
+		}
+
+		try (ServidorSmtpDePrueba servidor = new ServidorSmtpDePrueba(LATENCIA_MS)) {
+			PoolSmtpMailSender sender = new PoolSmtpMailSender(HILOS, 300_000, 100, 5_000, 10_000);
+			sender.setHost("127.0.0.1");
+			sender.setPort(servidor.getPuerto());
+
+			Medicion.Resultado resultado = Medicion.medir(() -> enviar(sender));
+			resultado.imprimir("SMTP con pool (" + servidor.getConexiones() + " conexiones)", CORREOS, "correos");
+			sender.destroy();
+			assertEquals(CORREOS, servidor.getMensajes());
+			assertTrue(resultado.porSegundo(CORREOS) > sinPool);
+		}
+	}
+
+	private static void enviar(JavaMailSenderImpl sender) throws Exception {
+		ExecutorService hilos = Executors.newFixedThreadPool(HILOS);
+		try {
+			List<Future<?>> envios = new ArrayList<>();
+			for (int i = 0; i < CORREOS; i++) {
+				SimpleMailMessage mensaje = new SimpleMailMessage();
+				mensaje.setFrom("gosport@prueba.local");
+				mensaje.setTo("usuario" + i + "@prueba.local");
+				mensaje.setSubject("Recordatorio de reserva " + i);
+				mensaje.setText("Tu reserva empieza en una hora.");
+				envios.add(hilos.submit(() -> sender.send(mensaje)));
+			}
+			for (Future<?> envio : envios) {
+				envio.get();
+			}
+		} finally {
+			hilos.shutdown();
+		}
+	}
+}
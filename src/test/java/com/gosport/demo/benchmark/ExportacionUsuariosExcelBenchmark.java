@@ -0,0 +1,45 @@
+package com.gosport.demo.benchmark;
+
+import com.gosport.demo.repository.ReservaRepository;
+import com.gosport.demo.repository.UserRepository;
+import com.gosport.demo.service.ExcelExportService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Exportación de usuarios a Excel (SXSSF + cursor) con 1M de filas.
+ * mvn test -Pbenchmark [-Dbenchmark.usuarios=N]
+ */
+@Tag("benchmark")
+class ExportacionUsuariosExcelBenchmark {
+
+	private static final long USUARIOS = Long.getLong("benchmark.usuarios", 1_000_000);
+
+	@Test
+	void exportarUsuarios() throws Exception {
+		// stubOnly: el mock no guarda cada invocación (serían millones)
+		UserRepository userRepository = mock(UserRepository.class, withSettings().stubOnly());
+		when(userRepository.streamAllByOrderByIdAsc()).thenAnswer(i -> Generador.usuarios(USUARIOS));
+
+		ExcelExportService servicio = new ExcelExportService(userRepository,
+			mock(ReservaRepository.class, withSettings().stubOnly()));
+		ReflectionTestUtils.setField(servicio, "entityManager",
+			mock(EntityManager.class, withSettings().stubOnly()));
+
+		Medicion.Descarte salida = new Medicion.Descarte();
+		long[] filas = new long[1];
+		Medicion.Resultado resultado = Medicion.medir(() -> filas[0] = servicio.exportarUsuariosExcel(salida));
+
+		resultado.imprimir("Excel de usuarios", filas[0], "filas");
+		assertEquals(USUARIOS, filas[0]);
+		assertTrue(salida.bytes > 0);
+	}
+}
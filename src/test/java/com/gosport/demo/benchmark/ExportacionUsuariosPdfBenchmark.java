@@ -0,0 +1,68 @@
+package com.gosport.demo.benchmark;
+
+import com.gosport.demo.repository.ReservaRepository;
+import com.gosport.demo.repository.UserRepository;
+import com.gosport.demo.service.PdfExportService;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * PDF de usuarios (tabla grande de iText, escrito en la salida) con 100k filas.
+ * mvn test -Pbenchmark [-Dbenchmark.usuarios.pdf=N]
+ */
+@Tag("benchmark")
+class ExportacionUsuariosPdfBenchmark {
+
+	private static final long USUARIOS = Long.getLong("benchmark.usuarios.pdf", 100_000);
+
+	@TempDir
+	Path directorio;
+
+	@Test
+	void exportarUsuarios() throws Exception {
+		UserRepository userRepository = mock(UserRepository.class, withSettings().stubOnly());
+		when(userRepository.streamAllByOrderByIdAsc()).thenAnswer(i -> Generador.usuarios(USUARIOS));
+		when(userRepository.count()).thenReturn(USUARIOS);
+		when(userRepository.countByActivoTrue()).thenReturn(USUARIOS - USUARIOS / 10);
+		when(userRepository.countByRol("ADMIN")).thenReturn(USUARIOS / 1000);
+
+		PdfExportService servicio = new PdfExportService(
+			mock(ReservaRepository.class, withSettings().stubOnly()), userRepository);
+		ReflectionTestUtils.setField(servicio, "entityManager",
+			mock(EntityManager.class, withSettings().stubOnly()));
+
+		// A un archivo temporal para poder contar las páginas después
+		Path archivo = directorio.resolve("usuarios.pdf");
+		long[] filas = new long[1];
+		Medicion.Resultado resultado = Medicion.medir(() -> {
+			try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(archivo))) {
+				filas[0] = servicio.exportarUsuariosPdf(out);
+			}
+		});
+
+		int paginas;
+		try (PdfDocument pdf = new PdfDocument(new PdfReader(archivo.toFile()))) {
+			paginas = pdf.getNumberOfPages();
+		}
+
+		resultado.imprimir("PDF de usuarios (" + filas[0] + " filas)", paginas, "páginas");
+		assertEquals(USUARIOS, filas[0]);
+		assertTrue(paginas > 1);
+	}
+}
@@ -0,0 +1,38 @@
+package com.gosport.demo.benchmark;
+
+import com.gosport.demo.model.User;
+
+import java.time.LocalDateTime;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Datos sintéticos generados a demanda: el generador no retiene filas,
+ * así que el heap medido es solo el del código bajo prueba.
+ */
+final class Generador {
+
+	private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 8, 0);
+
+	private Generador() {
+	}
+
+	static Stream<User> usuarios(long cantidad) {
+		return LongStream.rangeClosed(1, cantidad).mapToObj(Generador::usuario);
+	}
+
+	static User usuario(long id) {
+		User u = new User();
+		u.setId(id);
+		u.setName("Usuario " + id);
+		u.setEmail("usuario" + id + "@gosport.test");
+		u.setTelefono("300" + (1000000 + id % 9000000));
+		u.setTipoDocumento("CC");
+		u.setNumeroIdentificacion(String.valueOf(10000000 + id));
+		u.setGenero(id % 2 == 0 ? "Femenino" : "Masculino");
+		u.setRol(id % 1000 == 0 ? "ADMIN" : "USER");
+		u.setActivo(id % 10 != 0);
+		u.setCreatedAt(BASE.plusMinutes(id));
+		return u;
+	}
+}
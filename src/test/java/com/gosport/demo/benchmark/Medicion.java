@@ -0,0 +1,85 @@
+package com.gosport.demo.benchmark;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Mide duración y pico de heap de una tarea para los benchmarks.
+ * El pico se toma muestreando el heap cada pocos milisegundos (incluye
+ * basura aún no recolectada); el perfil benchmark corre con -Xmx256m, así
+ * que terminar ya prueba que la memoria no crece con las filas.
+ */
+final class Medicion {
+
+	private static final long MB = 1024 * 1024;
+
+	interface Tarea {
+		void ejecutar() throws Exception;
+	}
+
+	record Resultado(long nanos, long picoHeap) {
+
+		double porSegundo(long unidades) {
+			return unidades * 1e9 / nanos;
+		}
+
+		void imprimir(String nombre, long unidades, String unidad) {
+			System.out.println(String.format(Locale.ROOT,
+				"📊 %s: %,d %s en %.2f s → %,.0f %s/s, pico de heap %d MB (máx. %d MB)",
+				nombre, unidades, unidad, nanos / 1e9, porSegundo(unidades), unidad,
+				picoHeap / MB, Runtime.getRuntime().maxMemory() / MB));
+		}
+	}
+
+	/**
+	 * Salida que solo cuenta bytes: mide el costo de generar, no el de disco o red.
+	 */
+	static final class Descarte extends OutputStream {
+
+		long bytes;
+
+		@Override
+		public void write(int b) {
+			bytes++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			bytes += len;
+		}
+	}
+
+	private Medicion() {
+	}
+
+	static Resultado medir(Tarea tarea) throws Exception {
+		MemoryMXBean memoria = ManagementFactory.getMemoryMXBean();
+		System.gc();
+
+		AtomicLong pico = new AtomicLong();
+		AtomicBoolean activo = new AtomicBoolean(true);
+		Thread muestreo = new Thread(() -> {
+			while (activo.get()) {
+				pico.accumulateAndGet(memoria.getHeapMemoryUsage().getUsed(), Math::max);
+				LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(5));
+			}
+		}, "benchmark-muestreo");
+		muestreo.setDaemon(true);
+		muestreo.start();
+
+		long inicio = System.nanoTime();
+		try {
+			tarea.ejecutar();
+		} finally {
+			activo.set(false);
+			muestreo.join();
+		}
+		return new Resultado(System.nanoTime() - inicio, pico.get());
+	}
+}
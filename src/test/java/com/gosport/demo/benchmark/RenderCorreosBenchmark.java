@@ -0,0 +1,74 @@
+package com.gosport.demo.benchmark;
+
+import com.gosport.demo.service.EmailTemplate;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Correos renderizados por segundo con las plantillas reales: compilando la
+ * plantilla en cada mensaje vs. precompilada una vez (como EmailService).
+ * mvn test -Pbenchmark [-Dbenchmark.correos.render=N]
+ */
+@Tag("benchmark")
+class RenderCorreosBenchmark {
+
+	private static final int MENSAJES = Integer.getInteger("benchmark.correos.render", 200_000);
+	private static final Map<String, String> CONSTANTES = Map.of("baseUrl", "https://gosports.test");
+
+	@Test
+	void compilarPorMensajeVsPrecompilada() throws Exception {
+		String html = leer("email/nueva-reserva.html");
+
+		// Línea base con menos mensajes: compilar (inlinear CSS y partir) es lo caro
+		int mensajesBase = Math.max(1, MENSAJES / 20);
+		long[] bytes = new long[1];
+		Medicion.Resultado porMensaje = Medicion.medir(() -> {
+			for (int i = 0; i < mensajesBase; i++) {
+				bytes[0] += EmailTemplate.compilar(html, CONSTANTES).renderizar(valores(i)).length();
+			}
+		});
+		porMensaje.imprimir("Compilando por mensaje", mensajesBase, "correos");
+
+		EmailTemplate plantilla = EmailTemplate.compilar(html, CONSTANTES);
+		Medicion.Resultado precompilada = Medicion.medir(() -> {
+			for (int i = 0; i < MENSAJES; i++) {
+				bytes[0] += plantilla.renderizar(valores(i)).length();
+			}
+		});
+		precompilada.imprimir("Precompilada", MENSAJES, "correos");
+
+		assertTrue(bytes[0] > 0);
+		assertTrue(precompilada.porSegundo(MENSAJES) > porMensaje.porSegundo(mensajesBase));
+	}
+
+	private static Map<String, String> valores(int i) {
+		Map<String, String> valores = new HashMap<>(32);
+		valores.put("nombre", "Usuario " + i);
+		valores.put("codigo", "GS-" + (100000 + i));
+		valores.put("reservaId", String.valueOf(i));
+		valores.put("cancha", "Cancha Sintética " + (i % 40));
+		valores.put("deporte", i % 2 == 0 ? "Fútbol 5" : "Tenis");
+		valores.put("direccion", "Calle " + (i % 170) + " # 12-34");
+		valores.put("barrio", "Chapinero");
+		valores.put("localidad", "Bogotá");
+		valores.put("fecha", "lunes, 15 de enero de 2024");
+		valores.put("hora", "18:00");
+		valores.put("duracion", "1.5");
+		valores.put("precio", "120,000");
+		return valores;
+	}
+
+	private static String leer(String ruta) throws Exception {
+		try (InputStream in = new ClassPathResource(ruta).getInputStream()) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+}
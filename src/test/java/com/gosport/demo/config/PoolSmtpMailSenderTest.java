@@ -0,0 +1,92 @@
+package com.gosport.demo.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.SimpleMailMessage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PoolSmtpMailSenderTest {
+
+	private ServidorSmtpDePrueba servidor;
+	private PoolSmtpMailSender sender;
+
+	@BeforeEach
+	void iniciar() throws Exception {
+		servidor = new ServidorSmtpDePrueba();
+	}
+
+	@AfterEach
+	void detener() throws Exception {
+		if (sender != null) {
+			sender.destroy();
+		}
+		servidor.close();
+	}
+
+	@Test
+	void reutilizaLaConexionSinNoopSiEstaReciente() {
+		sender = crear(100, 60_000);
+
+		for (int i = 0; i < 10; i++) {
+			sender.send(mensaje(i));
+		}
+
+		assertEquals(10, servidor.getMensajes());
+		assertEquals(1, servidor.getConexiones());
+		assertEquals(0, servidor.getNoops());
+	}
+
+	@Test
+	void validaConNoopLasConexionesInactivas() {
+		sender = crear(100, 0);
+
+		sender.send(mensaje(1));
+		sender.send(mensaje(2));
+
+		assertEquals(1, servidor.getConexiones());
+		assertEquals(1, servidor.getNoops());
+	}
+
+	@Test
+	void abreOtraConexionSiElServidorCortoLaInactiva() throws Exception {
+		sender = crear(100, 0);
+
+		sender.send(mensaje(1));
+		servidor.cortarConexiones();
+		Thread.sleep(50);
+		sender.send(mensaje(2));
+
+		assertEquals(2, servidor.getMensajes());
+		assertEquals(2, servidor.getConexiones());
+	}
+
+	@Test
+	void reciclaLaConexionTrasElMaximoDeMensajes() {
+		sender = crear(5, 60_000);
+
+		for (int i = 0; i < 12; i++) {
+			sender.send(mensaje(i));
+		}
+
+		assertEquals(12, servidor.getMensajes());
+		assertEquals(3, servidor.getConexiones());
+	}
+
+	private PoolSmtpMailSender crear(int maxMensajes, long validarTrasMs) {
+		PoolSmtpMailSender pool = new PoolSmtpMailSender(2, 300_000, maxMensajes, 1_000, validarTrasMs);
+		pool.setHost("127.0.0.1");
+		pool.setPort(servidor.getPuerto());
+		return pool;
+	}
+
+	static SimpleMailMessage mensaje(int i) {
+		SimpleMailMessage mensaje = new SimpleMailMessage();
+		mensaje.setFrom("gosport@prueba.local");
+		mensaje.setTo("usuario" + i + "@prueba.local");
+		mensaje.setSubject("Prueba " + i);
+		mensaje.setText("Cuerpo del correo " + i);
+		return mensaje;
+	}
+}
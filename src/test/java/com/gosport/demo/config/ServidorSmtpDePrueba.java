@@ -0,0 +1,154 @@
+package com.gosport.demo.config;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Servidor SMTP mínimo en memoria para pruebas: acepta todo y solo cuenta
+ * conexiones, mensajes y NOOPs. La latencia de conexión simula el costo de
+ * TCP + STARTTLS + AUTH contra un servidor real.
+ */
+public class ServidorSmtpDePrueba implements AutoCloseable {
+
+	private final ServerSocket servidor;
+	private final long latenciaConexionMs;
+	private final Set<Socket> abiertas = ConcurrentHashMap.newKeySet();
+
+	private final AtomicInteger conexiones = new AtomicInteger();
+	private final AtomicInteger mensajes = new AtomicInteger();
+	private final AtomicInteger noops = new AtomicInteger();
+
+	public ServidorSmtpDePrueba() throws IOException {
+		this(0);
+	}
+
+	public ServidorSmtpDePrueba(long latenciaConexionMs) throws IOException {
+		this.latenciaConexionMs = latenciaConexionMs;
+		this.servidor = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+		Thread aceptador = new Thread(this::aceptar, "smtp-prueba");
+		aceptador.setDaemon(true);
+		aceptador.start();
+	}
+
+	public int getPuerto() {
+		return servidor.getLocalPort();
+	}
+
+	public int getConexiones() {
+		return conexiones.get();
+	}
+
+	public int getMensajes() {
+		return mensajes.get();
+	}
+
+	public int getNoops() {
+		return noops.get();
+	}
+
+	/**
+	 * Cierra del lado del servidor todas las conexiones abiertas, como un
+	 * servidor real que corta las inactivas.
+	 */
+	public void cortarConexiones() {
+		for (Socket socket : abiertas) {
+			cerrar(socket);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		servidor.close();
+		cortarConexiones();
+	}
+
+	private void aceptar() {
+		while (!servidor.isClosed()) {
+			try {
+				Socket socket = servidor.accept();
+				abiertas.add(socket);
+				Thread sesion = new Thread(() -> atender(socket), "smtp-prueba-sesion");
+				sesion.setDaemon(true);
+				sesion.start();
+			} catch (IOException e) {
+				// Servidor cerrado
+			}
+		}
+	}
+
+	private void atender(Socket socket) {
+		try (socket;
+			 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+			 OutputStream out = socket.getOutputStream()) {
+
+			if (latenciaConexionMs > 0) {
+				Thread.sleep(latenciaConexionMs);
+			}
+			conexiones.incrementAndGet();
+			responder(out, "220 localhost ESMTP prueba");
+
+			String linea;
+			while ((linea = in.readLine()) != null) {
+				String comando = linea.length() >= 4 ? linea.substring(0, 4).toUpperCase(Locale.ROOT) : linea;
+				switch (comando) {
+					case "EHLO" -> responder(out, "250-localhost\r\n250-AUTH PLAIN LOGIN\r\n250 8BITMIME");
+					case "HELO", "MAIL", "RCPT", "RSET" -> responder(out, "250 OK");
+					case "AUTH" -> {
+						// "AUTH PLAIN" sin respuesta inicial pide las credenciales aparte
+						if (linea.trim().split(" ").length < 3) {
+							responder(out, "334 ");
+							in.readLine();
+						}
+						responder(out, "235 Autenticado");
+					}
+					case "NOOP" -> {
+						noops.incrementAndGet();
+						responder(out, "250 OK");
+					}
+					case "DATA" -> {
+						responder(out, "354 Fin con <CRLF>.<CRLF>");
+						while ((linea = in.readLine()) != null && !linea.equals(".")) {
+							// Se descarta el contenido
+						}
+						mensajes.incrementAndGet();
+						responder(out, "250 OK encolado");
+					}
+					case "QUIT" -> {
+						responder(out, "221 Adiós");
+						return;
+					}
+					default -> responder(out, "502 No implementado");
+				}
+			}
+		} catch (IOException e) {
+			// Conexión cortada
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			abiertas.remove(socket);
+		}
+	}
+
+	private static void responder(OutputStream out, String respuesta) throws IOException {
+		out.write((respuesta + "\r\n").getBytes(StandardCharsets.US_ASCII));
+		out.flush();
+	}
+
+	private static void cerrar(Socket socket) {
+		try {
+			socket.close();
+		} catch (IOException e) {
+			// Ya estaba cerrada
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package com.gosport.demo.controller.Api;
+
+import com.gosport.demo.dto.PagoDto;
+import com.gosport.demo.model.Cancha;
+import com.gosport.demo.model.Pago;
+import com.gosport.demo.model.Reserva;
+import com.gosport.demo.model.User;
+import com.gosport.demo.security.UsuarioPrincipal;
+import com.gosport.demo.service.PagoService;
+import com.gosport.demo.service.ReservaService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cada endpoint solo ve datos del usuario del token: la reserva o el pago
+ * de otro responde 404, igual que uno inexistente.
+ */
+class ApiReservaControllerTest {
+
+	private final ReservaService reservaService = mock(ReservaService.class);
+	private final PagoService pagoService = mock(PagoService.class);
+	private final ApiReservaController reservas = new ApiReservaController();
+	private final ApiPagoController pagos = new ApiPagoController();
+
+	private final UsuarioPrincipal ana = principal(1L, "USER");
+	private final UsuarioPrincipal beto = principal(2L, "USER");
+	private final UsuarioPrincipal admin = principal(3L, "ADMIN");
+
+	@BeforeEach
+	void crear() {
+		ReflectionTestUtils.setField(reservas, "reservaService", reservaService);
+		ReflectionTestUtils.setField(reservas, "pagoService", pagoService);
+		ReflectionTestUtils.setField(pagos, "pagoService", pagoService);
+		when(reservaService.obtenerPorId(10L)).thenReturn(Optional.of(reservaDe(ana)));
+		when(reservaService.guardarYNotificar(any(), any())).thenAnswer(i -> i.getArgument(0));
+	}
+
+	@Test
+	void listaSoloLasReservasDelToken() {
+		reservas.misReservas(0, 500, beto);
+
+		verify(reservaService).obtenerResumenPorUsuario(2L, PageRequest.of(0, 100));
+	}
+
+	@Test
+	void noCancelaLaReservaDeOtro() {
+		ResponseEntity<?> respuesta = reservas.cancelar(10L, beto);
+
+		assertEquals(HttpStatus.NOT_FOUND, respuesta.getStatusCode());
+		verify(reservaService, never()).guardarYNotificar(any(), any());
+	}
+
+	@Test
+	void cancelaLaPropiaYLaDeCualquieraSiEsAdmin() {
+		assertEquals(HttpStatus.OK, reservas.cancelar(10L, ana).getStatusCode());
+
+		when(reservaService.obtenerPorId(10L)).thenReturn(Optional.of(reservaDe(ana)));
+		assertEquals(HttpStatus.OK, reservas.cancelar(10L, admin).getStatusCode());
+	}
+
+	@Test
+	void noIniciaElPagoDeLaReservaDeOtro() {
+		ResponseEntity<?> respuesta = reservas.pagar(10L, new ApiReservaController.NuevoPago(Pago.MetodoPago.NEQUI, "k"), beto).join();
+
+		assertEquals(HttpStatus.NOT_FOUND, respuesta.getStatusCode());
+		verify(pagoService, never()).iniciarPago(any(), any(), anyString());
+	}
+
+	@Test
+	void elEstadoDelPagoSeBuscaConElUsuarioDelToken() {
+		PagoDto dto = new PagoDto("REF-1", 10L, new BigDecimal("80000"), "COP", Pago.MetodoPago.NEQUI,
+			Pago.EstadoPago.PENDIENTE, null, null);
+		when(pagoService.obtenerResumenDeUsuario("REF-1", 1L)).thenReturn(Optional.of(dto));
+		when(pagoService.obtenerResumenDeUsuario("REF-1", 2L)).thenReturn(Optional.empty());
+
+		assertEquals(HttpStatus.OK, pagos.estado("REF-1", ana).getStatusCode());
+		assertEquals(HttpStatus.NOT_FOUND, pagos.estado("REF-1", beto).getStatusCode());
+	}
+
+	private static Reserva reservaDe(UsuarioPrincipal usuario) {
+		Cancha cancha = new Cancha();
+		cancha.setId(5L);
+		cancha.setNombre("Bosa 1");
+
+		Reserva reserva = new Reserva();
+		reserva.setId(10L);
+		reserva.setUsuario(usuario.aReferencia());
+		reserva.setCancha(cancha);
+		reserva.setFecha(LocalDate.now().plusDays(1));
+		reserva.setHoraInicio(LocalTime.of(18, 0));
+		reserva.setDuracion(1.0);
+		reserva.setPrecioTotal(new BigDecimal("80000"));
+		reserva.setEstado(Reserva.EstadoReserva.CONFIRMADA);
+		return reserva;
+	}
+
+	private static UsuarioPrincipal principal(Long id, String rol) {
+		User user = new User();
+		user.setId(id);
+		user.setEmail("usuario" + id + "@gosport.test");
+		user.setName("Usuario " + id);
+		user.setRol(rol);
+		user.setActivo(true);
+		return new UsuarioPrincipal(user);
+	}
+}
@@ -0,0 +1,69 @@
+package com.gosport.demo.repository;
+
+import com.gosport.demo.BaseDatosDePrueba;
+import com.gosport.demo.model.ExportJob;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+class ExportJobRepositoryTest extends BaseDatosDePrueba {
+
+	private static final List<ExportJob.EstadoJob> ACTIVOS =
+		List.of(ExportJob.EstadoJob.EN_COLA, ExportJob.EstadoJob.PROCESANDO);
+
+	@Autowired
+	private TestEntityManager em;
+
+	@Autowired
+	private ExportJobRepository exportJobRepository;
+
+	@Test
+	void elNodoQueLoEjecutaLoCompleta() {
+		ExportJob job = trabajo("nodo-a");
+
+		LocalDateTime ahora = LocalDateTime.now();
+		assertEquals(0, exportJobRepository.marcarCompletado(job.getId(), "nodo-b", ACTIVOS, 10, "x.xlsx", 100, ahora));
+		assertEquals(1, exportJobRepository.marcarCompletado(job.getId(), "nodo-a", ACTIVOS, 10, "x.xlsx", 100, ahora));
+		em.clear();
+
+		ExportJob guardado = exportJobRepository.findById(job.getId()).orElseThrow();
+		assertEquals(ExportJob.EstadoJob.COMPLETADO, guardado.getEstado());
+		assertEquals(10L, guardado.getFilasProcesadas());
+		assertEquals("x.xlsx", guardado.getRutaArchivo());
+	}
+
+	@Test
+	void unFinalTardioNoPisaElFalloPorLatido() {
+		ExportJob job = trabajo("nodo-a");
+		LocalDateTime ahora = LocalDateTime.now();
+		exportJobRepository.marcarSinLatido(ACTIVOS, ahora.plusMinutes(1), "Sin latido", ahora);
+
+		assertEquals(0, exportJobRepository.marcarCompletado(job.getId(), "nodo-a", ACTIVOS, 10, "x.xlsx", 100, ahora));
+		assertEquals(0, exportJobRepository.marcarFallido(job.getId(), "nodo-a", ACTIVOS, "otro error", ahora));
+		em.clear();
+
+		ExportJob guardado = exportJobRepository.findById(job.getId()).orElseThrow();
+		assertEquals(ExportJob.EstadoJob.FALLIDO, guardado.getEstado());
+		assertEquals("Sin latido", guardado.getError());
+	}
+
+	private ExportJob trabajo(String nodo) {
+		ExportJob job = new ExportJob();
+		job.setId(UUID.randomUUID().toString());
+		job.setTipo(ExportJob.TipoExportacion.USUARIOS_EXCEL);
+		job.setClave("USUARIOS_EXCEL");
+		job.setEstado(ExportJob.EstadoJob.PROCESANDO);
+		job.setSolicitadoPor("admin@gosport.test");
+		job.setNodo(nodo);
+		em.persistAndFlush(job);
+		return job;
+	}
+}
@@ -0,0 +1,90 @@
+package com.gosport.demo.repository;
+
+import com.gosport.demo.BaseDatosDePrueba;
+import com.gosport.demo.dto.PagoDto;
+import com.gosport.demo.model.Cancha;
+import com.gosport.demo.model.Deporte;
+import com.gosport.demo.model.Pago;
+import com.gosport.demo.model.Reserva;
+import com.gosport.demo.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+class PagoRepositoryTest extends BaseDatosDePrueba {
+
+	@Autowired
+	private TestEntityManager em;
+
+	@Autowired
+	private PagoRepository pagoRepository;
+
+	@Test
+	void elResumenSoloLoVeElDuenoDeLaReserva() {
+		User ana = usuario("ana@gosport.test");
+		User beto = usuario("beto@gosport.test");
+		pago(ana, "REF-ANA");
+		em.flush();
+		em.clear();
+
+		Optional<PagoDto> propio = pagoRepository.buscarResumenDeUsuario("REF-ANA", ana.getId());
+		Optional<PagoDto> ajeno = pagoRepository.buscarResumenDeUsuario("REF-ANA", beto.getId());
+
+		assertTrue(propio.isPresent());
+		assertEquals(0, new BigDecimal("80000").compareTo(propio.get().monto()));
+		assertTrue(ajeno.isEmpty());
+	}
+
+	// ====================================
+	// DATOS
+	// ====================================
+
+	private User usuario(String email) {
+		User usuario = new User();
+		usuario.setName("Usuario " + email);
+		usuario.setEmail(email);
+		usuario.setPassword("x");
+		usuario.setRol("USER");
+		return em.persist(usuario);
+	}
+
+	private Pago pago(User usuario, String referencia) {
+		Deporte deporte = new Deporte();
+		deporte.setNombre("Fútbol " + referencia);
+		em.persist(deporte);
+
+		Cancha cancha = new Cancha();
+		cancha.setNombre("Cancha " + referencia);
+		cancha.setDeporte(deporte);
+		cancha.setPrecioHora(new BigDecimal("80000"));
+		em.persist(cancha);
+
+		Reserva reserva = new Reserva();
+		reserva.setUsuario(usuario);
+		reserva.setCancha(cancha);
+		reserva.setFecha(LocalDate.now().plusDays(1));
+		reserva.setHoraInicio(LocalTime.of(18, 0));
+		reserva.setDuracion(1.0);
+		reserva.setPrecioTotal(new BigDecimal("80000"));
+		reserva.setEstado(Reserva.EstadoReserva.PENDIENTE);
+		reserva.setCodigoReserva("RES-" + referencia);
+		em.persist(reserva);
+
+		Pago pago = new Pago();
+		pago.setReserva(reserva);
+		pago.setReferenciaPago(referencia);
+		pago.setMonto(new BigDecimal("80000"));
+		pago.setMetodoPago(Pago.MetodoPago.NEQUI);
+		return em.persist(pago);
+	}
+}
@@ -0,0 +1,127 @@
+package com.gosport.demo.repository;
+
+import com.gosport.demo.BaseDatosDePrueba;
+import com.gosport.demo.dto.ReservaExportDto;
+import com.gosport.demo.model.Cancha;
+import com.gosport.demo.model.Deporte;
+import com.gosport.demo.model.Reserva;
+import com.gosport.demo.model.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ReservaRepositoryTest extends BaseDatosDePrueba {
+
+	@Autowired
+	private TestEntityManager em;
+
+	@Autowired
+	private ReservaRepository reservaRepository;
+
+	@Test
+	void streamConFiltrosNoLanzaConsultasConElCursorAbierto() {
+		Deporte futbol = deporte("Fútbol");
+		Deporte tenis = deporte("Tenis");
+		User usuario = usuario("ana@gosport.test");
+		Cancha bosa = cancha("Bosa 1", futbol);
+		Cancha suba = cancha("Suba 2", tenis);
+		reserva(usuario, suba, LocalDate.of(2025, 3, 2), Reserva.EstadoReserva.CONFIRMADA);
+		reserva(usuario, bosa, LocalDate.of(2025, 3, 1), Reserva.EstadoReserva.CONFIRMADA);
+		reserva(usuario, bosa, LocalDate.of(2025, 3, 3), Reserva.EstadoReserva.CANCELADA);
+		em.flush();
+		em.clear();
+
+		Statistics estadisticas = em.getEntityManager().getEntityManagerFactory()
+			.unwrap(SessionFactory.class).getStatistics();
+		estadisticas.clear();
+
+		List<ReservaExportDto> filas;
+		try (Stream<ReservaExportDto> stream = reservaRepository.streamConFiltros(null, null,
+				LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 31))) {
+			filas = stream.toList();
+		}
+
+		// Una sola sentencia: con MySQL en streaming, una segunda (p. ej. el
+		// deporte EAGER de cada cancha) falla con "Streaming result set still active"
+		assertEquals(1, estadisticas.getPrepareStatementCount());
+
+		// Ordenadas por cancha y fecha, listas para los subtotales
+		assertEquals(3, filas.size());
+		assertEquals(List.of("Bosa 1", "Bosa 1", "Suba 2"), filas.stream().map(ReservaExportDto::cancha).toList());
+		assertEquals(LocalDate.of(2025, 3, 1), filas.get(0).fecha());
+		assertEquals("ana@gosport.test", filas.get(0).email());
+		assertEquals(Reserva.EstadoReserva.CANCELADA, filas.get(1).estado());
+	}
+
+	@Test
+	void streamConFiltrosAplicaEstadoYCancha() {
+		Deporte futbol = deporte("Fútbol");
+		User usuario = usuario("beto@gosport.test");
+		Cancha bosa = cancha("Bosa 1", futbol);
+		Cancha suba = cancha("Suba 2", futbol);
+		reserva(usuario, bosa, LocalDate.of(2025, 3, 1), Reserva.EstadoReserva.CONFIRMADA);
+		reserva(usuario, bosa, LocalDate.of(2025, 3, 2), Reserva.EstadoReserva.CANCELADA);
+		reserva(usuario, suba, LocalDate.of(2025, 3, 1), Reserva.EstadoReserva.CONFIRMADA);
+		em.flush();
+		em.clear();
+
+		try (Stream<ReservaExportDto> stream = reservaRepository.streamConFiltros(
+				Reserva.EstadoReserva.CONFIRMADA, bosa.getId(), null, null)) {
+			List<ReservaExportDto> filas = stream.toList();
+			assertEquals(1, filas.size());
+			assertEquals(bosa.getId(), filas.get(0).canchaId());
+		}
+	}
+
+	// ====================================
+	// DATOS
+	// ====================================
+
+	private Deporte deporte(String nombre) {
+		Deporte deporte = new Deporte();
+		deporte.setNombre(nombre);
+		return em.persist(deporte);
+	}
+
+	private Cancha cancha(String nombre, Deporte deporte) {
+		Cancha cancha = new Cancha();
+		cancha.setNombre(nombre);
+		cancha.setDeporte(deporte);
+		cancha.setPrecioHora(new BigDecimal("80000"));
+		return em.persist(cancha);
+	}
+
+	private User usuario(String email) {
+		User usuario = new User();
+		usuario.setName("Usuario " + email);
+		usuario.setEmail(email);
+		usuario.setPassword("x");
+		usuario.setRol("USER");
+		return em.persist(usuario);
+	}
+
+	private Reserva reserva(User usuario, Cancha cancha, LocalDate fecha, Reserva.EstadoReserva estado) {
+		Reserva reserva = new Reserva();
+		reserva.setUsuario(usuario);
+		reserva.setCancha(cancha);
+		reserva.setFecha(fecha);
+		reserva.setHoraInicio(LocalTime.of(18, 0));
+		reserva.setDuracion(1.0);
+		reserva.setPrecioTotal(new BigDecimal("80000"));
+		reserva.setEstado(estado);
+		reserva.setCodigoReserva("RES-" + cancha.getNombre() + "-" + fecha + "-" + estado);
+		return em.persist(reserva);
+	}
+}
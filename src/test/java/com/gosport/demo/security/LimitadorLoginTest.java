@@ -0,0 +1,63 @@
+package com.gosport.demo.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.event.AuthenticationFailureBadCredentialsEvent;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LimitadorLoginTest {
+
+	// 3 fallos libres por cuenta; luego 1 s, 2 s, 4 s... hasta 60 s
+	private final LimitadorLogin limitador = new LimitadorLogin(30, 3, 15, 1, 60, 1000, new SimpleMeterRegistry());
+
+	@Test
+	void pasadosLosFallosPermitidosLaCuentaEsperaEnVezDeBloquearse() throws Exception {
+		fallar("ana@gosport.test", 2);
+		assertFalse(limitador.bloqueado("10.0.0.1", "ana@gosport.test"));
+
+		fallar("ana@gosport.test", 1);
+		assertTrue(limitador.bloqueado("10.0.0.1", "ana@gosport.test"));
+		// Mayúsculas y espacios cuentan como la misma cuenta
+		assertTrue(limitador.bloqueado("10.0.0.2", " ANA@gosport.test "));
+		assertFalse(limitador.bloqueado("10.0.0.1", "beto@gosport.test"));
+
+		// Vencida la espera puede intentar otra vez
+		Thread.sleep(1100);
+		assertFalse(limitador.bloqueado("10.0.0.1", "ana@gosport.test"));
+	}
+
+	@Test
+	void cadaFalloExtraDuplicaLaEspera() throws Exception {
+		fallar("ana@gosport.test", 4);
+
+		// Cuarto fallo: 2 s desde el último
+		Thread.sleep(1100);
+		assertTrue(limitador.bloqueado("10.0.0.1", "ana@gosport.test"));
+		Thread.sleep(1000);
+		assertFalse(limitador.bloqueado("10.0.0.1", "ana@gosport.test"));
+	}
+
+	@Test
+	void unLoginExitosoLimpiaLaCuenta() {
+		fallar("ana@gosport.test", 5);
+		assertTrue(limitador.bloqueado("10.0.0.1", "ana@gosport.test"));
+
+		limitador.alAutenticar(new AuthenticationSuccessEvent(
+			UsernamePasswordAuthenticationToken.authenticated("ana@gosport.test", null, null)));
+
+		assertFalse(limitador.bloqueado("10.0.0.1", "ana@gosport.test"));
+	}
+
+	private void fallar(String email, int veces) {
+		for (int i = 0; i < veces; i++) {
+			limitador.alFallar(new AuthenticationFailureBadCredentialsEvent(
+				UsernamePasswordAuthenticationToken.unauthenticated(email, "incorrecta"),
+				new BadCredentialsException("Credenciales incorrectas")));
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package com.gosport.demo.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LimitadorPeticionesTest {
+
+	// horarios: ráfaga de 3 por cliente y tope global de 5/s; canchas: ráfaga de 2
+	private final LimitadorPeticiones limitador =
+		new LimitadorPeticiones(1000, 3, 0.001, 5, 2, 0.001, 0, new SimpleMeterRegistry());
+
+	@Test
+	void cadaClienteTieneSuPropioBucket() {
+		for (int i = 0; i < 3; i++) {
+			assertTrue(limitador.intentar("/reservas/api/horarios-ocupados", "10.0.0.1").permitida());
+		}
+		LimitadorPeticiones.Decision rechazada = limitador.intentar("/reservas/api/horarios-ocupados", "10.0.0.1");
+
+		assertFalse(rechazada.permitida());
+		assertTrue(rechazada.reintentarEnSegundos() >= 1);
+		assertTrue(limitador.intentar("/reservas/api/horarios-ocupados", "10.0.0.2").permitida());
+	}
+
+	@Test
+	void elTopeGlobalFrenaLaCargaRepartidaEntreIps() {
+		for (int i = 0; i < 5; i++) {
+			assertTrue(limitador.intentar("/reservas/api/horarios-ocupados", "10.0.1." + i).permitida());
+		}
+
+		assertFalse(limitador.intentar("/reservas/api/horarios-ocupados", "10.0.1.99").permitida());
+	}
+
+	@Test
+	void elWebhookYLasRutasSinReglaNoSeLimitan() {
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(limitador.intentar("/pagos/webhook", "34.0.0.1").permitida());
+			assertTrue(limitador.intentar("/reservas/mis-reservas", "10.0.0.1").permitida());
+		}
+	}
+
+	@Test
+	void lasRutasNoCompartenBucket() {
+		limitador.intentar("/canchas/1", "10.0.0.1");
+		limitador.intentar("/canchas/2", "10.0.0.1");
+		assertFalse(limitador.intentar("/canchas/3", "10.0.0.1").permitida());
+
+		assertTrue(limitador.intentar("/reservas/api/horarios-ocupados", "10.0.0.1").permitida());
+	}
+}
@@ -0,0 +1,95 @@
+package com.gosport.demo.security;
+
+import com.gosport.demo.config.ApiSecurityConfig;
+import com.gosport.demo.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenApiServiceTest {
+
+	private static final String SECRETO = "secreto-de-pruebas-de-al-menos-32-bytes";
+
+	private final ApiSecurityConfig config = new ApiSecurityConfig(SECRETO);
+	private final JwtDecoder decoder = config.jwtDecoder();
+
+	@Test
+	void elTokenEmitidoSeVerificaYTraeAlUsuario() {
+		TokenApiService.Token token = new TokenApiService(config.jwtEncoder(), 60).emitir(usuario(7L, "ADMIN"));
+
+		UsuarioPrincipal principal = TokenApiService.aPrincipal(decoder.decode(token.accessToken()));
+
+		assertEquals("Bearer", token.tokenType());
+		assertEquals(3600, token.expiresIn());
+		assertEquals(7L, principal.getId());
+		assertEquals("ana@gosport.test", principal.getUsername());
+		assertEquals("Ana", principal.getNombre());
+		assertTrue(principal.isAdmin());
+	}
+
+	@Test
+	void rechazaUnTokenFirmadoConOtroSecreto() {
+		ApiSecurityConfig otro = new ApiSecurityConfig("otro-secreto-distinto-de-al-menos-32-bytes");
+		String token = new TokenApiService(otro.jwtEncoder(), 60).emitir(usuario(7L, "USER")).accessToken();
+
+		assertThrows(JwtException.class, () -> decoder.decode(token));
+	}
+
+	@Test
+	void rechazaUnTokenAlterado() {
+		String token = new TokenApiService(config.jwtEncoder(), 60).emitir(usuario(7L, "USER")).accessToken();
+		String[] partes = token.split("\\.");
+		// Mismo encabezado y firma, claims de otro usuario
+		String otrosClaims = new TokenApiService(config.jwtEncoder(), 60).emitir(usuario(8L, "ADMIN"))
+			.accessToken().split("\\.")[1];
+
+		assertThrows(JwtException.class, () -> decoder.decode(partes[0] + "." + otrosClaims + "." + partes[2]));
+	}
+
+	@Test
+	void rechazaUnTokenVencido() {
+		// Vencido hace más que la tolerancia de reloj (60 s); el encoder exige
+		// expiresAt posterior a issuedAt, así que se firma a mano
+		Instant emitido = Instant.now().minus(Duration.ofMinutes(10));
+		JwtClaimsSet claims = JwtClaimsSet.builder()
+			.issuer(TokenApiService.EMISOR)
+			.subject("ana@gosport.test")
+			.issuedAt(emitido)
+			.expiresAt(emitido.plus(Duration.ofMinutes(5)))
+			.claim(TokenApiService.CLAIM_ID, 7L)
+			.claim(TokenApiService.CLAIM_ROL, "USER")
+			.build();
+		String token = config.jwtEncoder()
+			.encode(JwtEncoderParameters.from(JwsHeader.with(MacAlgorithm.HS256).build(), claims))
+			.getTokenValue();
+
+		assertThrows(JwtException.class, () -> decoder.decode(token));
+	}
+
+	@Test
+	void unSecretoCortoNoArranca() {
+		assertThrows(IllegalStateException.class, () -> new ApiSecurityConfig("corto"));
+	}
+
+	private static UsuarioPrincipal usuario(Long id, String rol) {
+		User user = new User();
+		user.setId(id);
+		user.setEmail("ana@gosport.test");
+		user.setName("Ana");
+		user.setRol(rol);
+		user.setActivo(true);
+		user.setPassword("x");
+		return new UsuarioPrincipal(user);
+	}
+}
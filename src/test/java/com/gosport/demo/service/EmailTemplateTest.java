@@ -0,0 +1,56 @@
+package com.gosport.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmailTemplateTest {
+
+	private static final String HTML = """
+		<html><head><style>
+		    h1 { color: red }
+		    p { font-size: 12px; }
+		    .nota { font-weight: bold }
+		</style></head>
+		<body><h1>Hola {{nombre}}</h1><p class="nota" style="margin: 0">Ver {{ baseUrl }}/reservas/{{id}}</p></body></html>""";
+
+	@Test
+	void inlineaLosEstilosYQuitaElBloque() {
+		String html = EmailTemplate.compilar(HTML, Map.of()).renderizar(Map.of());
+
+		assertFalse(html.contains("<style"));
+		assertTrue(html.contains("<h1 style=\"color: red;\">"));
+		// El estilo propio de la etiqueta queda al final para conservar prioridad
+		assertTrue(html.contains("<p class=\"nota\" style=\"font-size: 12px; font-weight: bold; margin: 0\">"));
+	}
+
+	@Test
+	void resuelveConstantesAlCompilarYEscapaLosValores() {
+		EmailTemplate plantilla = EmailTemplate.compilar(HTML, Map.of("baseUrl", "https://gosports.test"));
+
+		String html = plantilla.renderizar(Map.of("nombre", "<b>Ana & Luis</b>", "id", "42"));
+
+		assertTrue(html.contains("Hola &lt;b&gt;Ana &amp; Luis&lt;/b&gt;</h1>"));
+		assertTrue(html.contains("Ver https://gosports.test/reservas/42</p>"));
+	}
+
+	@Test
+	void lasVariablesAusentesQuedanVacias() {
+		String html = EmailTemplate.compilar(HTML, Map.of()).renderizar(Map.of("id", "7"));
+
+		assertTrue(html.contains("<h1 style=\"color: red;\">Hola </h1>"));
+		assertTrue(html.contains("Ver /reservas/7"));
+	}
+
+	@Test
+	void renderizarDosVecesDaElMismoResultado() {
+		EmailTemplate plantilla = EmailTemplate.compilar(HTML, Map.of());
+		Map<String, String> valores = Map.of("nombre", "Ana", "id", "1");
+
+		assertEquals(plantilla.renderizar(valores), plantilla.renderizar(valores));
+	}
+}
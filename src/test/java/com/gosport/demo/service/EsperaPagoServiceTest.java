@@ -0,0 +1,64 @@
+package com.gosport.demo.service;
+
+import com.gosport.demo.model.Pago;
+import com.gosport.demo.repository.PagoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class EsperaPagoServiceTest {
+
+	private final PagoRepository pagoRepository = mock(PagoRepository.class);
+	private final EsperaPagoService esperaPagoService = new EsperaPagoService(pagoRepository, 25000, 100, 10);
+
+	@Test
+	void respondeDeInmediatoSiOtraInstanciaYaCambioElPago() {
+		when(pagoRepository.obtenerEstado("REF-1")).thenReturn(Optional.of(Pago.EstadoPago.APROBADO));
+
+		DeferredResult<ResponseEntity<Map<String, Object>>> resultado =
+			esperaPagoService.esperar("REF-1", Pago.EstadoPago.PENDIENTE);
+
+		assertTrue(resultado.hasResult());
+		assertEquals(Map.of("cambiado", true, "estado", Pago.EstadoPago.APROBADO), cuerpo(resultado));
+	}
+
+	@Test
+	void quedaEnEsperaHastaElEventoSiNadaCambio() {
+		when(pagoRepository.obtenerEstado("REF-1")).thenReturn(Optional.of(Pago.EstadoPago.PENDIENTE));
+
+		DeferredResult<ResponseEntity<Map<String, Object>>> resultado =
+			esperaPagoService.esperar("REF-1", Pago.EstadoPago.PENDIENTE);
+		assertFalse(resultado.hasResult());
+		assertEquals(1, esperaPagoService.getEnEspera());
+
+		esperaPagoService.alActualizar(new EsperaPagoService.PagoActualizado("REF-1", Pago.EstadoPago.RECHAZADO));
+
+		assertEquals(Map.of("cambiado", true, "estado", Pago.EstadoPago.RECHAZADO), cuerpo(resultado));
+	}
+
+	@Test
+	void unCambioRecienteNoConsultaLaBaseDeDatos() {
+		esperaPagoService.alActualizar(new EsperaPagoService.PagoActualizado("REF-1", Pago.EstadoPago.APROBADO));
+
+		DeferredResult<ResponseEntity<Map<String, Object>>> resultado =
+			esperaPagoService.esperar("REF-1", Pago.EstadoPago.PENDIENTE);
+
+		assertEquals(Map.of("cambiado", true, "estado", Pago.EstadoPago.APROBADO), cuerpo(resultado));
+		verifyNoInteractions(pagoRepository);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> cuerpo(DeferredResult<ResponseEntity<Map<String, Object>>> resultado) {
+		return ((ResponseEntity<Map<String, Object>>) resultado.getResult()).getBody();
+	}
+}
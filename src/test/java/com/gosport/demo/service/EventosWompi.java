@@ -0,0 +1,50 @@
+package com.gosport.demo.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+/**
+ * Eventos de Wompi firmados como los firma Wompi: SHA-256 de las propiedades
+ * listadas en signature.properties + timestamp + secreto de eventos.
+ */
+final class EventosWompi {
+
+	static final String SECRETO = "test_events_secreto";
+
+	private EventosWompi() {
+	}
+
+	static WompiService wompiService() {
+		WompiService servicio = new WompiService(WebClient.builder(), new SimpleMeterRegistry(),
+			"http://localhost", 1000, 1000, 1000, 1, 1000, 1000, 1, 0.5, 20, 10, 30000, 3);
+		ReflectionTestUtils.setField(servicio, "eventsSecret", SECRETO);
+		return servicio;
+	}
+
+	static String transaccionActualizada(String id, String status, long timestamp) {
+		return transaccionActualizada(id, status, timestamp, checksum(id + status + 15000000 + timestamp + SECRETO));
+	}
+
+	static String transaccionActualizada(String id, String status, long timestamp, String checksum) {
+		return """
+			{"event":"transaction.updated",
+			 "data":{"transaction":{"id":"%s","status":"%s","amount_in_cents":15000000}},
+			 "signature":{"properties":["transaction.id","transaction.status","transaction.amount_in_cents"],
+			              "checksum":"%s"},
+			 "timestamp":%d}""".formatted(id, status, checksum, timestamp);
+	}
+
+	static String checksum(String cadena) {
+		try {
+			return HexFormat.of().formatHex(
+				MessageDigest.getInstance("SHA-256").digest(cadena.getBytes(StandardCharsets.UTF_8)));
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,247 @@
+package com.gosport.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gosport.demo.BaseDatosDePrueba;
+import com.gosport.demo.model.Cancha;
+import com.gosport.demo.model.Deporte;
+import com.gosport.demo.model.MovimientoPago;
+import com.gosport.demo.model.Pago;
+import com.gosport.demo.model.Reserva;
+import com.gosport.demo.model.User;
+import com.gosport.demo.repository.CanchaRepository;
+import com.gosport.demo.repository.DeporteRepository;
+import com.gosport.demo.repository.MovimientoPagoRepository;
+import com.gosport.demo.repository.PagoRepository;
+import com.gosport.demo.repository.ReservaRepository;
+import com.gosport.demo.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Libro de pagos contra MySQL. Sin transacción de prueba: cada confirmación
+ * se confirma por su cuenta, como en producción, y así los hilos se ven.
+ */
+@DataJpaTest
+@Import({PagoService.class, LibroPagosService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LibroPagosServiceTest extends BaseDatosDePrueba {
+
+	@Autowired
+	private PagoService pagoService;
+
+	@Autowired
+	private MovimientoPagoRepository movimientoPagoRepository;
+
+	@Autowired
+	private PagoRepository pagoRepository;
+
+	@Autowired
+	private ReservaRepository reservaRepository;
+
+	@Autowired
+	private CanchaRepository canchaRepository;
+
+	@Autowired
+	private DeporteRepository deporteRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@MockitoBean
+	private WompiService wompiService;
+
+	@MockitoBean
+	private EmailService emailService;
+
+	@MockitoBean
+	private ObjectMapper objectMapper;
+
+	private User usuario;
+	private Cancha cancha;
+
+	@BeforeEach
+	void crearDatos() {
+		Deporte deporte = new Deporte();
+		deporte.setNombre("Fútbol");
+		deporteRepository.save(deporte);
+
+		cancha = new Cancha();
+		cancha.setNombre("Bosa 1");
+		cancha.setDeporte(deporte);
+		cancha.setPrecioHora(new BigDecimal("80000"));
+		canchaRepository.save(cancha);
+
+		usuario = new User();
+		usuario.setName("Ana");
+		usuario.setEmail("ana@gosport.test");
+		usuario.setPassword("x");
+		usuario.setRol("USER");
+		userRepository.save(usuario);
+	}
+
+	@AfterEach
+	void limpiar() {
+		// pagos_movimientos es inmutable para JPA: se borra por SQL
+		for (String tabla : List.of("pagos_saldos_diarios", "pagos_movimientos", "pagos", "reservas", "canchas", "deportes", "users")) {
+			jdbcTemplate.update("DELETE FROM " + tabla);
+		}
+	}
+
+	@Test
+	void losIngresosSalenDelLibro() {
+		pagoPendiente("tx-1", "80000");
+		pagoPendiente("tx-2", "120000");
+		pagoPendiente("tx-3", "50000");
+
+		pagoService.procesarConfirmacionPago("tx-1", "APPROVED");
+		pagoService.procesarConfirmacionPago("tx-2", "APPROVED");
+		pagoService.procesarConfirmacionPago("tx-3", "DECLINED");
+		// Reenvío tardío: el pago ya está en estado final
+		pagoService.procesarConfirmacionPago("tx-1", "APPROVED");
+
+		LocalDate hoy = LocalDate.now();
+		assertEquals(0, new BigDecimal("200000").compareTo(pagoService.calcularIngresosTotales()));
+		assertEquals(0, new BigDecimal("200000").compareTo(
+			pagoService.calcularIngresosMes(hoy.getMonthValue(), hoy.getYear())));
+		assertEquals(0, BigDecimal.ZERO.compareTo(
+			pagoService.calcularIngresosMes(hoy.minusMonths(1).getMonthValue(), hoy.minusMonths(1).getYear())));
+		assertEquals(2, contarMovimientos(MovimientoPago.TipoMovimiento.APROBADO));
+		assertEquals(1, contarMovimientos(MovimientoPago.TipoMovimiento.RECHAZADO));
+	}
+
+	@Test
+	void dosConfirmacionesSimultaneasAplicanUnaSola() throws Exception {
+		pagoPendiente("tx-1", "80000");
+
+		int hilos = 4;
+		CountDownLatch salida = new CountDownLatch(1);
+		ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+		try {
+			List<Future<?>> confirmaciones = new ArrayList<>();
+			for (int i = 0; i < hilos; i++) {
+				confirmaciones.add(ejecutor.submit(() -> {
+					salida.await();
+					pagoService.procesarConfirmacionPago("tx-1", "APPROVED");
+					return null;
+				}));
+			}
+			salida.countDown();
+			// Con el bloqueo ninguna falla: las demás esperan y ven el pago aprobado
+			for (Future<?> confirmacion : confirmaciones) {
+				confirmacion.get();
+			}
+		} finally {
+			ejecutor.shutdown();
+		}
+
+		assertEquals(1, contarMovimientos(MovimientoPago.TipoMovimiento.APROBADO));
+		assertEquals(0, new BigDecimal("80000").compareTo(pagoService.calcularIngresosTotales()));
+		verify(emailService, times(1)).enviarEmailReservaConfirmada(any());
+	}
+
+	@Test
+	void elMismoMovimientoNoSeRegistraDosVeces() {
+		Pago pago = pagoPendiente("tx-1", "80000");
+
+		assertThrows(DataIntegrityViolationException.class, () ->
+			movimientoPagoRepository.saveAndFlush(movimiento(pago, MovimientoPago.TipoMovimiento.INICIADO)));
+		assertEquals(1, movimientoPagoRepository.findByPagoIdOrderByIdAsc(pago.getId()).size());
+	}
+
+	@Test
+	void laCargaInicialSePuedeRepetir() {
+		// Pago aprobado de antes del libro: no tiene movimientos
+		Pago pago = new Pago();
+		pago.setReserva(reserva("RES-LEGADO"));
+		pago.setReferenciaPago("REF-LEGADO");
+		pago.setMonto(new BigDecimal("90000"));
+		pago.setMetodoPago(Pago.MetodoPago.NEQUI);
+		pago.setEstado(Pago.EstadoPago.APROBADO);
+		pagoRepository.save(pago);
+
+		Integer primera = transactionTemplate.execute(status -> movimientoPagoRepository.cargarAprobadosExistentes());
+		Integer segunda = transactionTemplate.execute(status -> movimientoPagoRepository.cargarAprobadosExistentes());
+
+		assertEquals(1, primera);
+		assertEquals(0, segunda);
+		assertEquals(0, new BigDecimal("90000").compareTo(pagoService.calcularIngresosTotales()));
+	}
+
+	// ====================================
+	// DATOS
+	// ====================================
+
+	// Pago recién iniciado, con su movimiento INICIADO como lo deja PagoService
+	private Pago pagoPendiente(String transactionId, String monto) {
+		return transactionTemplate.execute(status -> {
+			Pago pago = new Pago();
+			pago.setReserva(reserva("RES-" + transactionId));
+			pago.setReferenciaPago("REF-" + transactionId);
+			pago.setMonto(new BigDecimal(monto));
+			pago.setMetodoPago(Pago.MetodoPago.NEQUI);
+			pago.setWompiTransactionId(transactionId);
+			pagoRepository.save(pago);
+			movimientoPagoRepository.save(movimiento(pago, MovimientoPago.TipoMovimiento.INICIADO));
+			return pago;
+		});
+	}
+
+	private Reserva reserva(String codigo) {
+		Reserva reserva = new Reserva();
+		reserva.setUsuario(usuario);
+		reserva.setCancha(cancha);
+		reserva.setFecha(LocalDate.now().plusDays(1));
+		reserva.setHoraInicio(LocalTime.of(18, 0));
+		reserva.setDuracion(1.0);
+		reserva.setPrecioTotal(new BigDecimal("80000"));
+		reserva.setEstado(Reserva.EstadoReserva.PENDIENTE);
+		reserva.setCodigoReserva(codigo);
+		return reservaRepository.save(reserva);
+	}
+
+	private MovimientoPago movimiento(Pago pago, MovimientoPago.TipoMovimiento tipo) {
+		MovimientoPago movimiento = new MovimientoPago();
+		movimiento.setPagoId(pago.getId());
+		movimiento.setCanchaId(pago.getReserva().getCancha().getId());
+		movimiento.setTipo(tipo);
+		movimiento.setMonto(pago.getMonto());
+		movimiento.setImporte(BigDecimal.ZERO);
+		return movimiento;
+	}
+
+	private long contarMovimientos(MovimientoPago.TipoMovimiento tipo) {
+		return movimientoPagoRepository.findAll().stream().filter(m -> m.getTipo() == tipo).count();
+	}
+}
@@ -0,0 +1,66 @@
+package com.gosport.demo.service;
+
+import com.gosport.demo.model.EmailOutbox;
+import com.gosport.demo.repository.ReservaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RecordatorioServiceTest {
+
+	private final ReservaRepository reservaRepository = mock(ReservaRepository.class);
+	private final EmailService emailService = mock(EmailService.class);
+	private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+	private final List<SimpleTransactionStatus> transacciones = new ArrayList<>();
+
+	private final RecordatorioService recordatorioService =
+		new RecordatorioService(reservaRepository, emailService, transactionManager, 500, 3);
+
+	@BeforeEach
+	void preparar() {
+		when(transactionManager.getTransaction(any())).thenAnswer(invocacion -> {
+			SimpleTransactionStatus status = new SimpleTransactionStatus();
+			transacciones.add(status);
+			return status;
+		});
+		List<Object[]> lote = List.of(
+			new Object[]{1L, "ana@gosport.test"},
+			new Object[]{2L, "luis@gosport.test"});
+		when(reservaRepository.obtenerReservasParaManana(any(), eq(0L), any())).thenReturn(lote);
+		when(reservaRepository.obtenerReservasParaManana(any(), eq(2L), any())).thenReturn(List.of());
+		when(reservaRepository.marcarRecordatorioManana(any(), any())).thenReturn(1);
+	}
+
+	@Test
+	void elLoteEncoladoConservaLasMarcas() {
+		when(emailService.encolarLote(eq(EmailOutbox.TipoEmail.RECORDATORIO_MANANA), anyList())).thenReturn(2);
+
+		recordatorioService.enviarRecordatoriosManana();
+
+		assertEquals(2, transacciones.size());
+		assertFalse(transacciones.get(0).isRollbackOnly());
+	}
+
+	@Test
+	void sinCorreosEncoladosSeDeshacenLasMarcas() {
+		// gosports.mail.enabled=false: encolarLote no encola nada
+		when(emailService.encolarLote(eq(EmailOutbox.TipoEmail.RECORDATORIO_MANANA), anyList())).thenReturn(0);
+
+		recordatorioService.enviarRecordatoriosManana();
+
+		assertTrue(transacciones.get(0).isRollbackOnly());
+	}
+}
@@ -0,0 +1,94 @@
+package com.gosport.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gosport.demo.BaseDatosDePrueba;
+import com.gosport.demo.model.WebhookEvento;
+import com.gosport.demo.repository.WebhookEventoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Sin transacción de prueba: la clave única tiene que fallar en el insert,
+ * igual que cuando Wompi reenvía un evento.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class WebhookWompiServiceTest extends BaseDatosDePrueba {
+
+	@Autowired
+	private WebhookEventoRepository webhookEventoRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private final WompiService wompiService = EventosWompi.wompiService();
+	private final PagoService pagoService = mock(PagoService.class);
+	private WebhookWompiService webhookService;
+
+	@BeforeEach
+	void crear() {
+		webhookService = new WebhookWompiService(webhookEventoRepository, wompiService, pagoService,
+			new ObjectMapper(), transactionManager, new SimpleMeterRegistry(), 100, 8, 10, 5, 30);
+	}
+
+	@AfterEach
+	void limpiar() {
+		webhookEventoRepository.deleteAll();
+		wompiService.cerrar();
+	}
+
+	@Test
+	void unReenvioSeDescartaYSeAplicaUnaSolaVez() {
+		String evento = EventosWompi.transaccionActualizada("tx-1", "APPROVED", 1700000000L);
+
+		assertEquals(WebhookWompiService.Recepcion.ACEPTADO, webhookService.recibir(evento));
+		assertEquals(WebhookWompiService.Recepcion.DUPLICADO, webhookService.recibir(evento));
+		assertEquals(1, webhookEventoRepository.count());
+
+		webhookService.procesar();
+
+		verify(pagoService, times(1)).procesarConfirmacionPago("tx-1", "APPROVED");
+		assertEquals(1, webhookEventoRepository.countByEstado(WebhookEvento.EstadoEvento.PROCESADO));
+	}
+
+	@Test
+	void otroEventoDeLaMismaTransaccionNoEsDuplicado() {
+		webhookService.recibir(EventosWompi.transaccionActualizada("tx-1", "PENDING", 1700000000L));
+
+		assertEquals(WebhookWompiService.Recepcion.ACEPTADO,
+			webhookService.recibir(EventosWompi.transaccionActualizada("tx-1", "APPROVED", 1700000060L)));
+		assertEquals(2, webhookEventoRepository.count());
+	}
+
+	@Test
+	void conFirmaInvalidaNoSeGuarda() {
+		String evento = EventosWompi.transaccionActualizada("tx-1", "APPROVED", 1700000000L,
+			EventosWompi.checksum("cualquier cosa"));
+
+		assertEquals(WebhookWompiService.Recepcion.FIRMA_INVALIDA, webhookService.recibir(evento));
+		assertEquals(0, webhookEventoRepository.count());
+
+		webhookService.procesar();
+		verifyNoInteractions(pagoService);
+	}
+
+	@Test
+	void unCuerpoQueNoEsJsonEsInvalido() {
+		assertEquals(WebhookWompiService.Recepcion.INVALIDO, webhookService.recibir("no es json"));
+		assertEquals(WebhookWompiService.Recepcion.INVALIDO, webhookService.recibir("[1, 2]"));
+		assertEquals(0, webhookEventoRepository.count());
+	}
+}
@@ -0,0 +1,72 @@
+package com.gosport.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WompiServiceTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final WompiService wompiService = EventosWompi.wompiService();
+
+	@AfterEach
+	void cerrar() {
+		wompiService.cerrar();
+	}
+
+	@Test
+	void aceptaElChecksumCalculadoConElSecreto() throws Exception {
+		String evento = EventosWompi.transaccionActualizada("tx-1", "APPROVED", 1700000000L);
+
+		assertTrue(wompiService.verificarFirmaEvento(objectMapper.readTree(evento)));
+	}
+
+	@Test
+	void aceptaElChecksumEnMayusculas() throws Exception {
+		String checksum = EventosWompi.checksum("tx-1APPROVED15000000" + 1700000000L + EventosWompi.SECRETO);
+		String evento = EventosWompi.transaccionActualizada("tx-1", "APPROVED", 1700000000L, checksum.toUpperCase());
+
+		assertTrue(wompiService.verificarFirmaEvento(objectMapper.readTree(evento)));
+	}
+
+	@Test
+	void rechazaUnEventoAlterado() throws Exception {
+		ObjectNode evento = (ObjectNode) objectMapper.readTree(
+			EventosWompi.transaccionActualizada("tx-1", "DECLINED", 1700000000L));
+		((ObjectNode) evento.path("data").path("transaction")).put("status", "APPROVED");
+
+		assertFalse(wompiService.verificarFirmaEvento(evento));
+	}
+
+	@Test
+	void rechazaOtroTimestampConElMismoChecksum() throws Exception {
+		ObjectNode evento = (ObjectNode) objectMapper.readTree(
+			EventosWompi.transaccionActualizada("tx-1", "APPROVED", 1700000000L));
+		evento.put("timestamp", 1700000001L);
+
+		assertFalse(wompiService.verificarFirmaEvento(evento));
+	}
+
+	@Test
+	void rechazaFirmadoConOtroSecreto() throws Exception {
+		String checksum = EventosWompi.checksum("tx-1APPROVED15000000" + 1700000000L + "otro_secreto");
+		String evento = EventosWompi.transaccionActualizada("tx-1", "APPROVED", 1700000000L, checksum);
+
+		assertFalse(wompiService.verificarFirmaEvento(objectMapper.readTree(evento)));
+	}
+
+	@Test
+	void rechazaSinFirmaOSinPropiedades() throws Exception {
+		assertFalse(wompiService.verificarFirmaEvento(objectMapper.readTree(
+			"{\"event\":\"transaction.updated\",\"data\":{},\"timestamp\":1}")));
+
+		ObjectNode evento = (ObjectNode) objectMapper.readTree(
+			EventosWompi.transaccionActualizada("tx-1", "APPROVED", 1700000000L));
+		((ObjectNode) evento.path("data").path("transaction")).remove("amount_in_cents");
+		assertFalse(wompiService.verificarFirmaEvento(evento));
+	}
+}
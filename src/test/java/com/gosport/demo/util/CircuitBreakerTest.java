@@ -0,0 +1,116 @@
+package com.gosport.demo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+	// Umbral 50 %, ventana de 10, mínimo 4 llamadas, 50 ms abierto, 2 pruebas
+	private final CircuitBreaker breaker = new CircuitBreaker(0.5, 10, 4, Duration.ofMillis(50), 2);
+
+	@Test
+	void noAbreAntesDelMinimoDeLlamadas() {
+		for (int i = 0; i < 3; i++) {
+			llamar(false);
+		}
+		assertEquals(CircuitBreaker.Estado.CERRADO, breaker.getEstado());
+
+		llamar(false);
+
+		assertEquals(CircuitBreaker.Estado.ABIERTO, breaker.getEstado());
+		assertFalse(breaker.permitir());
+	}
+
+	@Test
+	void abreAlLlegarAlUmbralDeFallos() {
+		llamar(true);
+		llamar(true);
+		llamar(false);
+		llamar(true);
+		llamar(false); // 2 de 5
+		assertEquals(CircuitBreaker.Estado.CERRADO, breaker.getEstado());
+		assertEquals(0.4, breaker.tasaFallos(), 1e-9);
+
+		llamar(false); // 3 de 6
+
+		assertEquals(CircuitBreaker.Estado.ABIERTO, breaker.getEstado());
+	}
+
+	@Test
+	void pasaASemiAbiertoTrasElTiempoYLimitaLasPruebas() throws Exception {
+		abrir();
+		assertFalse(breaker.permitir());
+
+		Thread.sleep(100);
+
+		assertTrue(breaker.permitir());
+		assertEquals(CircuitBreaker.Estado.SEMI_ABIERTO, breaker.getEstado());
+		assertTrue(breaker.permitir());
+		assertFalse(breaker.permitir());
+	}
+
+	@Test
+	void cierraTrasLasPruebasExitosas() throws Exception {
+		List<String> transiciones = new ArrayList<>();
+		breaker.alCambiar((desde, hacia) -> transiciones.add(desde + "->" + hacia));
+		abrir();
+		Thread.sleep(100);
+
+		llamar(true);
+		assertEquals(CircuitBreaker.Estado.SEMI_ABIERTO, breaker.getEstado());
+		llamar(true);
+
+		assertEquals(CircuitBreaker.Estado.CERRADO, breaker.getEstado());
+		assertEquals(0, breaker.tasaFallos());
+		assertEquals(List.of("CERRADO->ABIERTO", "ABIERTO->SEMI_ABIERTO", "SEMI_ABIERTO->CERRADO"), transiciones);
+	}
+
+	@Test
+	void unaPruebaFallidaReabre() throws Exception {
+		abrir();
+		Thread.sleep(100);
+		llamar(true);
+
+		llamar(false);
+
+		assertEquals(CircuitBreaker.Estado.ABIERTO, breaker.getEstado());
+		assertFalse(breaker.permitir());
+	}
+
+	@Test
+	void unaCancelacionLiberaElCupoDePrueba() throws Exception {
+		abrir();
+		Thread.sleep(100);
+		assertTrue(breaker.permitir());
+		assertTrue(breaker.permitir());
+		assertFalse(breaker.permitir());
+
+		breaker.registrarCancelacion();
+
+		assertTrue(breaker.permitir());
+		assertEquals(CircuitBreaker.Estado.SEMI_ABIERTO, breaker.getEstado());
+	}
+
+	private void abrir() {
+		for (int i = 0; i < 4; i++) {
+			llamar(false);
+		}
+		assertEquals(CircuitBreaker.Estado.ABIERTO, breaker.getEstado());
+	}
+
+	private void llamar(boolean exito) {
+		assertTrue(breaker.permitir());
+		if (exito) {
+			breaker.registrarExito();
+		} else {
+			breaker.registrarFallo();
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package com.gosport.demo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IdempotenciaTest {
+
+	private final AtomicInteger ejecuciones = new AtomicInteger();
+
+	@Test
+	void lasLlamadasConcurrentesEjecutanUnaSolaVez() throws Exception {
+		Idempotencia<String> idempotencia = new Idempotencia<>(Duration.ofMinutes(1), 100);
+		CompletableFuture<String> pendiente = new CompletableFuture<>();
+		int hilos = 8;
+		CountDownLatch salida = new CountDownLatch(1);
+		ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+		try {
+			List<Future<CompletableFuture<String>>> llamadas = new ArrayList<>();
+			for (int i = 0; i < hilos; i++) {
+				llamadas.add(ejecutor.submit(() -> {
+					salida.await();
+					return idempotencia.ejecutar("pago-1", () -> {
+						ejecuciones.incrementAndGet();
+						return pendiente;
+					});
+				}));
+			}
+			salida.countDown();
+			List<CompletableFuture<String>> resultados = new ArrayList<>();
+			for (Future<CompletableFuture<String>> llamada : llamadas) {
+				resultados.add(llamada.get());
+			}
+
+			pendiente.complete("ok");
+
+			for (CompletableFuture<String> resultado : resultados) {
+				assertEquals("ok", resultado.get(1, TimeUnit.SECONDS));
+			}
+		} finally {
+			ejecutor.shutdown();
+		}
+		assertEquals(1, ejecuciones.get());
+	}
+
+	@Test
+	void repiteElResultadoDentroDelTtl() throws Exception {
+		Idempotencia<String> idempotencia = new Idempotencia<>(Duration.ofMinutes(1), 100);
+
+		assertEquals("ok", idempotencia.ejecutar("pago-1", this::operacion).get());
+		assertEquals("ok", idempotencia.ejecutar("pago-1", this::operacion).get());
+		assertEquals(1, ejecuciones.get());
+	}
+
+	@Test
+	void losFallosNoSeGuardan() throws Exception {
+		Idempotencia<String> idempotencia = new Idempotencia<>(Duration.ofMinutes(1), 100);
+
+		CompletableFuture<String> fallida = idempotencia.ejecutar("pago-1", () -> {
+			ejecuciones.incrementAndGet();
+			return CompletableFuture.failedFuture(new IllegalStateException("Wompi caído"));
+		});
+		assertThrows(ExecutionException.class, fallida::get);
+		// También si la operación lanza antes de devolver el future
+		CompletableFuture<String> lanzada = idempotencia.ejecutar("pago-1", () -> {
+			ejecuciones.incrementAndGet();
+			throw new IllegalStateException("sin conexión");
+		});
+		assertThrows(ExecutionException.class, lanzada::get);
+
+		assertEquals("ok", idempotencia.ejecutar("pago-1", this::operacion).get());
+		assertEquals(3, ejecuciones.get());
+	}
+
+	@Test
+	void unaEntradaVencidaSeEjecutaDeNuevo() throws Exception {
+		Idempotencia<String> idempotencia = new Idempotencia<>(Duration.ofMillis(50), 100);
+
+		idempotencia.ejecutar("pago-1", this::operacion).get();
+		Thread.sleep(100);
+		idempotencia.ejecutar("pago-1", this::operacion).get();
+
+		assertEquals(2, ejecuciones.get());
+	}
+
+	@Test
+	void conElAlmacenLlenoNoSeConservanEntradasNuevas() throws Exception {
+		Idempotencia<String> idempotencia = new Idempotencia<>(Duration.ofMinutes(1), 1);
+		idempotencia.ejecutar("pago-1", this::operacion).get();
+
+		// Ejecuta, pero no queda guardada para repeticiones
+		assertEquals("ok", idempotencia.ejecutar("pago-2", this::operacion).get());
+		assertEquals(1, idempotencia.tamano());
+		idempotencia.ejecutar("pago-2", this::operacion).get();
+
+		assertEquals(3, ejecuciones.get());
+	}
+
+	@Test
+	void purgarQuitaSoloLasVencidasTerminadas() throws Exception {
+		Idempotencia<String> idempotencia = new Idempotencia<>(Duration.ofMillis(50), 100);
+		idempotencia.ejecutar("pago-1", this::operacion).get();
+		CompletableFuture<String> enCurso = idempotencia.ejecutar("pago-2", CompletableFuture::new);
+
+		Thread.sleep(100);
+		idempotencia.purgarVencidas();
+
+		assertEquals(1, idempotencia.tamano());
+		assertFalse(enCurso.isDone());
+	}
+
+	private CompletableFuture<String> operacion() {
+		ejecuciones.incrementAndGet();
+		return CompletableFuture.completedFuture("ok");
+	}
+}
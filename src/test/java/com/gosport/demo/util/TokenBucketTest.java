@@ -0,0 +1,74 @@
+package com.gosport.demo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+	@Test
+	void permiteLaRafagaYLuegoRechaza() {
+		TokenBucket bucket = new TokenBucket(5, 0.001);
+
+		for (int i = 0; i < 5; i++) {
+			assertTrue(bucket.intentarConsumir());
+		}
+		assertFalse(bucket.intentarConsumir());
+	}
+
+	@Test
+	void seRellenaAlRitmoConfigurado() throws Exception {
+		TokenBucket bucket = new TokenBucket(2, 20); // un token cada 50 ms
+		assertTrue(bucket.intentarConsumir());
+		assertTrue(bucket.intentarConsumir());
+		assertFalse(bucket.intentarConsumir());
+
+		Thread.sleep(120);
+
+		assertTrue(bucket.intentarConsumir());
+		assertTrue(bucket.intentarConsumir());
+		assertFalse(bucket.intentarConsumir());
+	}
+
+	@Test
+	void elRellenoNoPasaDeLaCapacidad() throws Exception {
+		TokenBucket bucket = new TokenBucket(3, 1000);
+		bucket.intentarConsumir();
+
+		Thread.sleep(50); // alcanzaría para 50 tokens
+
+		assertEquals(3, bucket.disponibles(), 1e-9);
+	}
+
+	@Test
+	void informaCuantoFaltaParaElSiguienteToken() {
+		TokenBucket bucket = new TokenBucket(1, 2); // un token cada 500 ms
+		assertEquals(0, bucket.nanosHastaDisponible(0));
+		bucket.intentarConsumir();
+
+		long faltan = bucket.nanosHastaDisponible(0);
+
+		assertTrue(faltan > TimeUnit.MILLISECONDS.toNanos(400) && faltan <= TimeUnit.MILLISECONDS.toNanos(500));
+	}
+
+	@Test
+	void laReservaQuedaParaElTraficoImportante() {
+		TokenBucket bucket = new TokenBucket(3, 0.001);
+
+		assertTrue(bucket.intentarConsumir(1));
+		assertTrue(bucket.intentarConsumir(1));
+		assertFalse(bucket.intentarConsumir(1));
+		assertTrue(bucket.intentarConsumir());
+	}
+
+	@Test
+	void rechazaParametrosInvalidos() {
+		assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1));
+		assertThrows(IllegalArgumentException.class, () -> new TokenBucket(1, 0));
+	}
+}